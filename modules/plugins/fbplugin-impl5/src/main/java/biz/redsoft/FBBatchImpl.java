@@ -5,6 +5,7 @@ import org.firebirdsql.gds.TransactionParameterBuffer;
 import org.firebirdsql.gds.impl.TransactionParameterBufferImpl;
 import org.firebirdsql.gds.ng.FbBatch;
 import org.firebirdsql.gds.ng.FbTransaction;
+import org.firebirdsql.gds.ng.TransactionState;
 import org.firebirdsql.nativeoo.gds.ng.IBatchImpl;
 
 import java.sql.SQLException;
@@ -60,4 +61,25 @@ public class FBBatchImpl implements IFBBatch {
     public void cancel() throws SQLException {
         batch.cancel();
     }
+
+    @Override
+    public void rollback() throws SQLException {
+        batch.cancel();
+
+        FbTransaction transaction = batch.getTransaction();
+        if (transaction != null)
+            transaction.rollback();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            FbTransaction transaction = batch.getTransaction();
+            if (transaction != null && transaction.getState() == TransactionState.ACTIVE)
+                transaction.rollback();
+
+        } finally {
+            batch.release();
+        }
+    }
 }
@@ -22,4 +22,14 @@ public interface IFBBatch {
     void commit() throws SQLException;
 
     void cancel() throws SQLException;
+
+    /**
+     * Discards the pending rows and rolls back the batch transaction.
+     */
+    void rollback() throws SQLException;
+
+    /**
+     * Rolls back the active batch transaction and releases the batch.
+     */
+    void close() throws SQLException;
 }
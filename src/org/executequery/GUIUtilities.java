@@ -35,6 +35,7 @@ import org.executequery.gui.browser.ConnectionPanel;
 import org.executequery.gui.browser.ConnectionsTreePanel;
 import org.executequery.gui.browser.managment.GrantManagerConnectionListener;
 import org.executequery.gui.editor.QueryEditor;
+import org.executequery.gui.editor.QueryEditorAutosaver;
 import org.executequery.gui.editor.QueryEditorHistory;
 import org.executequery.gui.menu.ExecuteQueryMenu;
 import org.executequery.gui.text.TextEditor;
@@ -1140,6 +1141,8 @@ public final class GUIUtilities {
             e.printStackTrace(System.out);
         }
 
+        QueryEditorAutosaver.shutdown();
+
         Log.info("System exiting...");
     }
 
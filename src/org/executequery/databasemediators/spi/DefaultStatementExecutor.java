@@ -1821,6 +1821,15 @@ public class DefaultStatementExecutor implements StatementExecutor, Serializable
         return (PreparedStatement) stmnt;
     }
 
+    /**
+     * Returns the connection the statements are executed on, opening it if needed.
+     *
+     * @return the connection or <code>null</code> if not connected
+     */
+    public Connection getPreparedConnection() throws SQLException {
+        return prepared() ? conn : null;
+    }
+
     public CallableStatement getCallableStatement(String query) throws SQLException {
         if (!prepared()) {
 
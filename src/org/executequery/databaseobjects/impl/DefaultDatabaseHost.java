@@ -78,7 +78,13 @@ public class DefaultDatabaseHost extends AbstractNamedObject
      */
     private transient DatabaseMetaData databaseMetaData;
 
+    /**
+     * meta tag types searched for the table by name, in the order of the search
+     */
+    private static final int[] TABLE_TYPES = {TABLE, GLOBAL_TEMPORARY, VIEW, SYSTEM_TABLE};
+
     private List<DatabaseMetaTag> metaTags;
+
     private DatabaseObject dependObject;
     private boolean pauseLoadingTreeForSearch = false;
 
@@ -238,24 +244,61 @@ public class DefaultDatabaseHost extends AbstractNamedObject
             throws DataSourceException {
 
         List<String> tables = new ArrayList<>();
-        for (NamedObject table : getTables()) {
-            tables.add(table.getName());
-        }
+        for (int type : TABLE_TYPES)
+            tables.addAll(nameIndex(META_TYPES[type]).getNames());
+
         return tables;
+    }
 
+    /**
+     * Returns whether the table, global temporary table, view or system table
+     * with the specified name exists.
+     */
+    public boolean containsTable(String name) {
+        return findTable(name) != null;
     }
 
     public List<NamedObject> getTables()
             throws DataSourceException {
 
         List<NamedObject> tables = new ArrayList<>();
-        tables.addAll(getDatabaseObjectsForMetaTag(NamedObject.META_TYPES[NamedObject.TABLE]));
-        tables.addAll(getDatabaseObjectsForMetaTag(NamedObject.META_TYPES[NamedObject.GLOBAL_TEMPORARY]));
-        tables.addAll(getDatabaseObjectsForMetaTag(NamedObject.META_TYPES[NamedObject.VIEW]));
-        tables.addAll(getDatabaseObjectsForMetaTag(NamedObject.META_TYPES[NamedObject.SYSTEM_TABLE]));
+        for (int type : TABLE_TYPES)
+            tables.addAll(getDatabaseObjectsForMetaTag(META_TYPES[type]));
+
         return tables;
     }
 
+    private AbstractTableObject findTable(String name) {
+
+        for (int type : TABLE_TYPES) {
+            NamedObject namedObject = nameIndex(META_TYPES[type]).get(name);
+            if (namedObject != null)
+                return (AbstractTableObject) namedObject;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the name index of the meta tag objects. The index is published
+     * by the meta tag when its objects are loaded, so the lookups don't lock.
+     */
+    private MetaTagNameIndex nameIndex(String metaDataKey) {
+
+        for (DatabaseMetaTag metaTag : getMetaObjects()) {
+            if (metaDataKey.equals(metaTag.getMetaDataKey())) {
+
+                if (metaTag instanceof DefaultDatabaseMetaTag)
+                    return ((DefaultDatabaseMetaTag) metaTag).getNameIndex();
+
+                List<NamedObject> objects = metaTag.getObjects();
+                return objects != null ? new MetaTagNameIndex(objects) : MetaTagNameIndex.EMPTY;
+            }
+        }
+
+        return MetaTagNameIndex.EMPTY;
+    }
+
     /**
      * Returns the column names of the specified database object.
      *
@@ -267,12 +310,11 @@ public class DefaultDatabaseHost extends AbstractNamedObject
 
         List<String> columns = new ArrayList<>();
 
-        for (NamedObject namedObject : getTables()) {
-            if (namedObject.getName().contentEquals(table))
-                for (DatabaseColumn column : ((AbstractTableObject) namedObject).getColumns()) {
-                    columns.add(column.getName());
-                }
-        }
+        AbstractTableObject tableObject = findTable(table);
+        if (tableObject != null)
+            for (DatabaseColumn column : tableObject.getColumns())
+                columns.add(column.getName());
+
         return columns;
     }
 
@@ -290,12 +332,10 @@ public class DefaultDatabaseHost extends AbstractNamedObject
      * @return the columns
      */
     @Override
-    public synchronized List<DatabaseColumn> getColumns(String table) {
-        for (NamedObject namedObject : getTables()) {
-            if (namedObject.getName().contentEquals(table))
-                return ((AbstractTableObject) namedObject).getColumns();
-        }
-        return null;
+    public List<DatabaseColumn> getColumns(String table) {
+
+        AbstractTableObject tableObject = findTable(table);
+        return tableObject != null ? tableObject.getColumns() : null;
     }
 
     private static final int smallint_type = 7;
@@ -1011,13 +1051,7 @@ public class DefaultDatabaseHost extends AbstractNamedObject
     }
 
     public NamedObject getDatabaseObjectFromMetaTagAndName(String metadatakey, String name) {
-        List<NamedObject> namedObjects = getDatabaseObjectsForMetaTag(metadatakey);
-        if (namedObjects != null)
-            for (NamedObject namedObject : namedObjects) {
-                if (MiscUtils.trimEnd(namedObject.getName()).contentEquals(name))
-                    return namedObject;
-            }
-        return null;
+        return nameIndex(metadatakey).get(name);
     }
 
     public NamedObject getDatabaseObjectFromTypeAndName(int type, String name) {
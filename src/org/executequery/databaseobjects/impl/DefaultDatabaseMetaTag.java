@@ -73,6 +73,11 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
      */
     private List<NamedObject> children;
 
+    /**
+     * Child objects by their names, null when the children are reloaded or changed
+     */
+    private volatile MetaTagNameIndex nameIndex;
+
     public DefaultDatabaseMetaTag(DatabaseHost host, String metaDataKey) {
         this(host, metaDataKey, TreePanel.DEFAULT);
     }
@@ -112,11 +117,12 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
     /**
      * Retrieves child objects classified as this tag type.
      * These may be database tables, functions, procedures, sequences, views, etc.
+     * The objects are loaded once when requested from several threads at the same time.
      *
      * @return this meta tag's child database objects.
      */
     @Override
-    public List<NamedObject> getObjects() throws DataSourceException {
+    public synchronized List<NamedObject> getObjects() throws DataSourceException {
 
         if (!isMarkedForReload() && children != null)
             return children;
@@ -145,11 +151,13 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
                 return new ArrayList<>();
         }
 
+        nameIndex = null;
         children = (type != SYSTEM_FUNCTION) ? loadObjects(type) : getSystemFunctionTypes();
 
 
         // loop through and add this object as the parent object
         addAsParentToObjects(children);
+        nameIndex = new MetaTagNameIndex(children);
         setMarkedForReload(false);
         if (typeTree == DEFAULT && (type == PACKAGE || type == SYSTEM_PACKAGE)) {
             loadChildrenForAllPackages(META_TYPES[PROCEDURE]);
@@ -158,6 +166,47 @@ public class DefaultDatabaseMetaTag extends AbstractNamedObject
         return children;
     }
 
+    /**
+     * Returns the index of the child objects by their names.
+     * The published index is read without locking, the objects are loaded
+     * and indexed only if they were not loaded yet or were reloaded or changed.
+     */
+    MetaTagNameIndex getNameIndex() throws DataSourceException {
+
+        MetaTagNameIndex index = nameIndex;
+        if (index != null)
+            return index;
+
+        synchronized (this) {
+
+            List<NamedObject> objects = getObjects();
+            index = nameIndex;
+            if (index == null) {
+                index = objects != null ? new MetaTagNameIndex(objects) : MetaTagNameIndex.EMPTY;
+                nameIndex = index;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Removes the dropped object from the child objects.
+     *
+     * @param object the dropped object
+     */
+    public synchronized void removeObject(NamedObject object) {
+
+        if (children != null && children.remove(object))
+            nameIndex = null;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        nameIndex = null;
+    }
+
     @Override
     public void loadFullInfoForObjects() {
 
@@ -0,0 +1,63 @@
+package org.executequery.databaseobjects.impl;
+
+import org.executequery.databaseobjects.NamedObject;
+
+import java.util.*;
+
+/**
+ * Objects of the meta tag by their names.
+ * <p>
+ * The index is built by the meta tag from its objects list and is immutable,
+ * so the lookups don't need the locking. The meta tag drops the index when
+ * its objects are reloaded or changed.
+ * <p>
+ * Names are compared as is with the trailing spaces trimmed: quoted identifiers
+ * keep their case, unquoted ones are stored in upper case by the database.
+ */
+class MetaTagNameIndex {
+
+    static final MetaTagNameIndex EMPTY = new MetaTagNameIndex(Collections.emptyList());
+
+    private final Map<String, NamedObject> objects;
+    private final List<String> names;
+
+    MetaTagNameIndex(List<NamedObject> source) {
+
+        this.objects = new HashMap<>(source.size() * 4 / 3 + 1);
+
+        List<String> names = new ArrayList<>(source.size());
+        for (NamedObject object : source) {
+
+            String name = object.getName();
+            if (name == null)
+                continue;
+
+            name = trimEnd(name);
+            if (objects.putIfAbsent(name, object) == null)
+                names.add(name);
+        }
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    NamedObject get(String name) {
+        return name != null ? objects.get(trimEnd(name)) : null;
+    }
+
+    boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    List<String> getNames() {
+        return names;
+    }
+
+    private static String trimEnd(String name) {
+
+        int end = name.length();
+        while (end > 0 && Character.isWhitespace(name.charAt(end - 1)))
+            end--;
+
+        return end == name.length() ? name : name.substring(0, end);
+    }
+
+}
@@ -0,0 +1,500 @@
+package org.executequery.datasource;
+
+import biz.redsoft.IFBBatch;
+import biz.redsoft.IFBBatchCompletionState;
+import biz.redsoft.IFBDatabaseConnection;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.log.Log;
+import org.underworldlabs.util.DynamicLibraryLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Arrays;
+
+/**
+ * Inserts the rows by batches of the single parameterized INSERT statement.
+ * <p>
+ * On Firebird 4 and later with the Jaybird 4+ driver the rows are sent with
+ * the Firebird batch API: the whole batch including its blobs is sent
+ * in one round-trip and the completion state is returned for every row.
+ * The JDBC batch of the prepared statement is used otherwise.
+ * <p>
+ * The rows may be added with the loader methods or with the prepared
+ * statement returned by {@link #getStatement()}, so the code filling the JDBC
+ * statement works with both the implementations.
+ * <p>
+ * The loader is closed after use, the native batch is released then.
+ */
+public abstract class BulkLoader implements AutoCloseable {
+
+    protected final PreparedStatement statement;
+    protected int rowCount;
+
+    private BulkLoader(PreparedStatement statement) {
+        this.statement = statement;
+    }
+
+    /**
+     * Creates the loader for the INSERT statement prepared on the target connection.
+     *
+     * @param databaseConnection the target connection
+     * @param statement          the prepared INSERT statement
+     * @param insertQuery        the text of the statement
+     */
+    public static BulkLoader create(DatabaseConnection databaseConnection, PreparedStatement statement, String insertQuery)
+            throws SQLException {
+
+        if (isNativeBatchSupported(databaseConnection, statement.getConnection())) {
+            try {
+                return new NativeBulkLoader(databaseConnection, statement, insertQuery);
+
+            } catch (Exception e) {
+                Log.warning("Firebird batch API is not available, JDBC batches are used: " + e.getMessage());
+            }
+        }
+
+        return new JdbcBulkLoader(statement);
+    }
+
+    private static boolean isNativeBatchSupported(DatabaseConnection databaseConnection, Connection connection)
+            throws SQLException {
+
+        return databaseConnection != null
+                && databaseConnection.getDriverMajorVersion() >= 4
+                && connection.getMetaData().getDatabaseMajorVersion() >= 4
+                && connection.unwrap(Connection.class).getClass().getName().contains("FBConnection");
+    }
+
+    /**
+     * @return true if the Firebird batch API is used
+     */
+    public abstract boolean isNative();
+
+    public abstract void setObject(int parameterIndex, Object value) throws SQLException;
+
+    public abstract void setBlob(int parameterIndex, byte[] value) throws SQLException;
+
+    /**
+     * Sets the parameter value, the binary values, blobs and streams are set as blobs.
+     */
+    public void setParameter(int parameterIndex, Object value) throws SQLException {
+
+        byte[] bytes = toBytes(value);
+        if (bytes != null)
+            setBlob(parameterIndex, bytes);
+        else
+            setObject(parameterIndex, value);
+    }
+
+    /**
+     * Adds the row of the current parameter values to the batch.
+     */
+    public abstract void addRow() throws SQLException;
+
+    /**
+     * Sends the rows added since the previous execution.
+     *
+     * @return the completion state of every row
+     */
+    public abstract Result execute() throws SQLException;
+
+    /**
+     * Commits the executed rows, the next rows are added in the new transaction.
+     */
+    public abstract void commit() throws SQLException;
+
+    /**
+     * Discards the rows not committed yet.
+     */
+    public abstract void rollback() throws SQLException;
+
+    /**
+     * Discards the rows not committed yet and releases the loader resources.
+     * The prepared statement is left open.
+     */
+    @Override
+    public abstract void close() throws SQLException;
+
+    /**
+     * @return the number of the rows added and not executed yet
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the prepared statement adding the rows to this loader.
+     * <p>
+     * Parameter setters, <code>addBatch()</code> and <code>executeBatch()</code> are
+     * passed to the loader, the blob values are sent as the batch blobs. Other
+     * calls, like the parameter metadata requests, go to the prepared statement.
+     */
+    public abstract PreparedStatement getStatement();
+
+    protected static byte[] toBytes(Object value) throws SQLException {
+
+        try {
+            if (value instanceof byte[])
+                return (byte[]) value;
+
+            if (value instanceof Blob) {
+                Blob blob = (Blob) value;
+                return blob.getBytes(1, (int) blob.length());
+            }
+
+            if (value instanceof InputStream) {
+                try (InputStream inputStream = (InputStream) value) {
+
+                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[8192];
+                    int length;
+                    while ((length = inputStream.read(buffer)) != -1)
+                        outputStream.write(buffer, 0, length);
+
+                    return outputStream.toByteArray();
+                }
+            }
+
+        } catch (IOException e) {
+            throw new SQLException("Error reading blob value", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Completion state of the executed rows.
+     */
+    public static class Result {
+
+        private final int[] states;
+        private final String[] errors;
+
+        Result(int[] states, String[] errors) {
+            this.states = states;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the update count of every row, negative for the failed rows
+         */
+        public int[] getStates() {
+            return states;
+        }
+
+        /**
+         * @return the error message of the row or <code>null</code> if the row has no errors
+         */
+        public String getError(int row) {
+            return states[row] < 0 ? errors[row] : null;
+        }
+
+        public int getSuccessCount() {
+            return (int) Arrays.stream(states).filter(state -> state >= 0).count();
+        }
+
+        public int getErrorCount() {
+            return states.length - getSuccessCount();
+        }
+
+        /**
+         * @return the message of the first failed row or <code>null</code> if all rows are added
+         */
+        public String getFirstError() {
+
+            for (int i = 0; i < states.length; i++)
+                if (states[i] < 0)
+                    return getError(i);
+
+            return null;
+        }
+
+    } // Result class
+
+    private static class JdbcBulkLoader extends BulkLoader {
+
+        JdbcBulkLoader(PreparedStatement statement) {
+            super(statement);
+        }
+
+        @Override
+        public boolean isNative() {
+            return false;
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object value) throws SQLException {
+            statement.setObject(parameterIndex, value);
+        }
+
+        @Override
+        public void setBlob(int parameterIndex, byte[] value) throws SQLException {
+            statement.setBytes(parameterIndex, value);
+        }
+
+        @Override
+        public void addRow() throws SQLException {
+            statement.addBatch();
+            rowCount++;
+        }
+
+        @Override
+        public Result execute() throws SQLException {
+
+            int count = rowCount;
+            rowCount = 0;
+
+            int[] states = new int[count];
+            String[] errors = new String[count];
+            try {
+
+                int[] updateCounts = statement.executeBatch();
+                System.arraycopy(updateCounts, 0, states, 0, Math.min(count, updateCounts.length));
+
+            } catch (BatchUpdateException e) {
+
+                // the rows after the failed one are not executed if the driver stops on error
+                int[] updateCounts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+                for (int i = 0; i < count; i++) {
+
+                    states[i] = i < updateCounts.length ? updateCounts[i] : Statement.EXECUTE_FAILED;
+                    if (states[i] == Statement.EXECUTE_FAILED)
+                        errors[i] = i <= updateCounts.length ? e.getMessage() : "Not executed";
+                }
+            }
+
+            return new Result(states, errors);
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            statement.getConnection().commit();
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            statement.clearBatch();
+            statement.getConnection().rollback();
+            rowCount = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.clearBatch();
+            rowCount = 0;
+        }
+
+        @Override
+        public PreparedStatement getStatement() {
+            return statement;
+        }
+
+    } // JdbcBulkLoader class
+
+    private static class NativeBulkLoader extends BulkLoader {
+
+        private final IFBBatch batch;
+        private final PreparedStatement statementProxy;
+        private final boolean[] blobParameters;
+
+        /**
+         * The batch is created with the started transaction,
+         * the next one is started by the first row added after the commit or rollback
+         */
+        private boolean transactionStarted = true;
+
+        NativeBulkLoader(DatabaseConnection databaseConnection, PreparedStatement statement, String insertQuery)
+                throws SQLException, ClassNotFoundException {
+            super(statement);
+
+            Connection fbConnection = statement.getConnection().unwrap(Connection.class);
+            IFBDatabaseConnection db = (IFBDatabaseConnection) DynamicLibraryLoader.loadingObjectFromClassLoader(
+                    databaseConnection.getDriverMajorVersion(),
+                    fbConnection,
+                    "FBDatabaseConnectionImpl4"
+            );
+            db.setConnection(fbConnection);
+
+            this.blobParameters = getBlobParameters(statement);
+            this.batch = db.createBatch(insertQuery);
+            this.statementProxy = createStatementProxy();
+        }
+
+        @Override
+        public boolean isNative() {
+            return true;
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object value) throws SQLException {
+            startTransaction();
+            batch.setObject(parameterIndex, value);
+        }
+
+        @Override
+        public void setBlob(int parameterIndex, byte[] value) throws SQLException {
+
+            startTransaction();
+
+            // the binary strings are bound as the values, the empty batch blob is not accepted
+            if (!isBlobParameter(parameterIndex) || value == null || value.length == 0)
+                batch.setObject(parameterIndex, value);
+            else
+                batch.addBlob(parameterIndex, value);
+        }
+
+        @Override
+        public void addRow() throws SQLException {
+            startTransaction();
+            batch.addBatch();
+            rowCount++;
+        }
+
+        @Override
+        public Result execute() throws SQLException {
+
+            startTransaction();
+            rowCount = 0;
+            IFBBatchCompletionState completionState = batch.execute();
+
+            int[] states = completionState.getAllStates();
+            String[] errors = new String[states.length];
+            for (int i = 0; i < states.length; i++) {
+                if (states[i] < 0) {
+                    try {
+                        errors[i] = completionState.getError(i);
+
+                    } catch (SQLException e) {
+                        errors[i] = e.getMessage();
+                    }
+                }
+            }
+
+            return new Result(states, errors);
+        }
+
+        @Override
+        public void commit() throws SQLException {
+
+            if (transactionStarted) {
+                transactionStarted = false;
+                batch.commit();
+            }
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+
+            rowCount = 0;
+            if (transactionStarted) {
+                transactionStarted = false;
+                batch.rollback();
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            rowCount = 0;
+            transactionStarted = false;
+            batch.close();
+        }
+
+        private void startTransaction() throws SQLException {
+
+            if (!transactionStarted) {
+                batch.startTransaction();
+                transactionStarted = true;
+            }
+        }
+
+        @Override
+        public PreparedStatement getStatement() {
+            return statementProxy;
+        }
+
+        private PreparedStatement createStatementProxy() {
+
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+
+                        if (isParameterSetter(method)) {
+                            setParameter(method, args);
+                            return null;
+                        }
+
+                        switch (method.getName()) {
+
+                            case "addBatch":
+                                if (method.getParameterCount() == 0) {
+                                    addRow();
+                                    return null;
+                                }
+                                break;
+
+                            case "executeBatch":
+                                return executeBatch();
+                        }
+
+                        try {
+                            return method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private void setParameter(Method method, Object[] args) throws SQLException {
+
+            int parameterIndex = (Integer) args[0];
+            if (method.getName().equals("setNull"))
+                setObject(parameterIndex, null);
+            else
+                setParameter(parameterIndex, args[1]);
+        }
+
+        private boolean isBlobParameter(int parameterIndex) {
+            return parameterIndex > 0 && parameterIndex <= blobParameters.length && blobParameters[parameterIndex - 1];
+        }
+
+        private static boolean[] getBlobParameters(PreparedStatement statement) throws SQLException {
+
+            ParameterMetaData metaData = statement.getParameterMetaData();
+
+            boolean[] blobParameters = new boolean[metaData.getParameterCount()];
+            for (int i = 0; i < blobParameters.length; i++) {
+                int type = metaData.getParameterType(i + 1);
+                blobParameters[i] = type == Types.BLOB || type == Types.CLOB
+                        || type == Types.LONGVARBINARY || type == Types.LONGVARCHAR;
+            }
+
+            return blobParameters;
+        }
+
+        private int[] executeBatch() throws SQLException {
+
+            Result result = execute();
+            String error = result.getFirstError();
+            if (error != null)
+                throw new BatchUpdateException(error, result.getStates());
+
+            return result.getStates();
+        }
+
+        private static boolean isParameterSetter(Method method) {
+
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            return method.getName().startsWith("set")
+                    && parameterTypes.length >= 2
+                    && parameterTypes[0] == int.class;
+        }
+
+    } // NativeBulkLoader class
+
+}
@@ -0,0 +1,578 @@
+package org.executequery.datasource;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.log.Log;
+import org.underworldlabs.jdbc.DataSourceException;
+import org.underworldlabs.util.SystemProperties;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection pool without the global lock.
+ * <p>
+ * The open connections are limited by the fair semaphore: when all the connections are in use
+ * the caller waits for the returned one up to <code>connection.pool.wait.timeout</code> seconds.
+ * The idle connections are taken from the concurrent queue, the connection found closed is discarded
+ * and the next one is taken.
+ * <p>
+ * Returned connections are closed like {@link ConnectionPoolImpl} does, so the transaction state
+ * is never shared between the callers. The background task validates the idle connections,
+ * evicts the invalid ones and the ones exceeding the minimum count, and opens new connections
+ * up to the minimum count, so the checkout usually doesn't wait for the connection to be established.
+ */
+public class ConcurrentConnectionPool extends AbstractConnectionPool implements PooledConnectionListener {
+
+    private static final int VALIDATION_TIMEOUT = 5;
+
+    private static final ScheduledExecutorService MAINTENANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ConnectionPoolMaintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int maximumConnections = MAX_POOL_SIZE;
+
+    private int minimumConnections = MIN_POOL_SIZE;
+
+    private int initialConnections = INITIAL_POOL_SIZE;
+
+    private final Permits permits = new Permits(MAX_POOL_SIZE);
+
+    private final Set<PooledConnection> openConnections = ConcurrentHashMap.newKeySet();
+
+    private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+
+    private final DatabaseConnection databaseConnection;
+
+    private final ScheduledFuture<?> maintenanceTask;
+
+    private volatile int defaultTxIsolation = -1;
+
+    private volatile boolean supportsTransactions;
+
+    private volatile boolean closed;
+
+    private DataSource dataSource;
+
+    private SshTunnel sshTunnel;
+
+    // --- metrics ---
+
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong waitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong creationTime = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    public ConcurrentConnectionPool(DatabaseConnection databaseConnection) {
+
+        this.databaseConnection = databaseConnection;
+
+        long interval = Math.max(1, SystemProperties.getIntProperty("user", "connection.pool.validation.interval"));
+        this.maintenanceTask = MAINTENANCE.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.SECONDS);
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Creating new pool for connection " + databaseConnection.getName());
+        }
+    }
+
+    public DatabaseConnection getDatabaseConnection() {
+
+        return databaseConnection;
+    }
+
+    @Override
+    public Connection getConnection() {
+
+        if (closed)
+            throw new DataSourceException("Connection pool for " + databaseConnection.getName() + " is closed");
+
+        if (!SystemProperties.getBooleanProperty("user", "connection.usepool")) {
+
+            Iterator<PooledConnection> iterator = activeConnections.iterator();
+            if (iterator.hasNext())
+                return iterator.next();
+        }
+
+        PooledConnection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+
+            if (connection.isAvailable())
+                return activate(connection);
+
+            discard(connection);
+        }
+
+        acquirePermit();
+        try {
+            return activate(createConnection());
+
+        } catch (RuntimeException e) {
+
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() {
+
+        try {
+
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS))
+                return;
+
+            int timeout = SystemProperties.getIntProperty("user", "connection.pool.wait.timeout");
+            if (Log.isDebugEnabled()) {
+
+                Log.debug("All " + maximumConnections + " connections of " + databaseConnection.getName()
+                        + " are in use, waiting up to " + timeout + " s");
+            }
+
+            long startTime = System.nanoTime();
+            boolean acquired = permits.tryAcquire(timeout, TimeUnit.SECONDS);
+
+            long waited = System.nanoTime() - startTime;
+            waitCount.incrementAndGet();
+            waitTime.addAndGet(waited);
+            maxWaitTime.accumulateAndGet(waited, Math::max);
+
+            if (!acquired)
+                throw new DataSourceException("Timed out waiting " + timeout + " s for a free connection to "
+                        + databaseConnection.getName() + ": all " + maximumConnections + " connections are in use");
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new DataSourceException(e);
+        }
+    }
+
+    private PooledConnection activate(PooledConnection connection) {
+
+        connection.setInUse(true);
+        activeConnections.add(connection);
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Retrieving connection " + connection.getId());
+        }
+
+        return connection;
+    }
+
+    /**
+     * Called when the connection is closed by the caller or destroyed by the pool.
+     */
+    @Override
+    public void connectionClosed(PooledConnection pooledConnection) {
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Removing connection " + pooledConnection.getId() + " from active connections list");
+        }
+
+        activeConnections.remove(pooledConnection);
+        idleConnections.remove(pooledConnection);
+        if (openConnections.remove(pooledConnection))
+            permits.release();
+    }
+
+    @Override
+    public void close(Connection connection) {
+
+        if (connection != null)
+            discard((PooledConnection) connection);
+    }
+
+    @Override
+    public void close() {
+
+        if (Log.isDebugEnabled()) {
+
+            Log.debug("Closing connection pool for connection " + databaseConnection.getName() + ": " + getStatistics());
+        }
+
+        closed = true;
+        maintenanceTask.cancel(false);
+
+        for (PooledConnection connection : openConnections)
+            discard(connection);
+
+        activeConnections.clear();
+        idleConnections.clear();
+        openConnections.clear();
+        destroySshTunnel();
+    }
+
+    private void discard(PooledConnection connection) {
+
+        idleConnections.remove(connection);
+        connection.destroy();
+
+        // the listener is not notified if the connection was already closed
+        activeConnections.remove(connection);
+        if (openConnections.remove(connection))
+            permits.release();
+    }
+
+    /**
+     * Validates the idle connections and keeps the minimum count of them open.
+     * Runs in the background, so the errors are only logged.
+     */
+    private void maintain() {
+
+        if (closed)
+            return;
+
+        try {
+
+            for (int i = idleConnections.size(); i > 0; i--) {
+
+                PooledConnection connection = idleConnections.pollFirst();
+                if (connection == null)
+                    break;
+
+                if (openConnections.size() > minimumConnections || !isValid(connection)) {
+
+                    evictedCount.incrementAndGet();
+                    discard(connection);
+
+                } else
+                    idleConnections.offerLast(connection);
+            }
+
+            ensureCapacity();
+
+        } catch (RuntimeException e) {
+
+            if (Log.isDebugEnabled())
+                Log.debug("Error maintaining connection pool of " + databaseConnection.getName(), e);
+        }
+    }
+
+    /**
+     * Opens new idle connections up to the minimum count.
+     *
+     * @throws DataSourceException if the connection could not be established
+     */
+    public void ensureCapacity() {
+
+        while (!closed && openConnections.size() < minimumConnections && permits.tryAcquire()) {
+
+            try {
+                idleConnections.offerLast(createConnection());
+
+            } catch (RuntimeException e) {
+
+                permits.release();
+                throw e;
+            }
+        }
+    }
+
+    private boolean isValid(PooledConnection connection) {
+
+        try {
+            return connection.isAvailable() && connection.getRealConnection().isValid(VALIDATION_TIMEOUT);
+
+        } catch (SQLException | AbstractMethodError e) {
+            return connection.isAvailable();
+        }
+    }
+
+    private synchronized DataSource dataSource() {
+
+        if (dataSource == null) {
+
+            DatabaseConnection _databaseConnection = databaseConnection;
+            if (databaseConnection.isSshTunnel()) {
+
+                if (sshTunnel == null)
+                    createSshTunnel();
+
+                _databaseConnection = databaseConnection.copy();
+                _databaseConnection.setHost("localhost");
+                _databaseConnection.setPort(String.valueOf(sshTunnel.getTunnelPort()));
+            }
+
+            dataSource = new SimpleDataSource(_databaseConnection);
+        }
+
+        return dataSource;
+    }
+
+    private synchronized void createSshTunnel() {
+
+        sshTunnel = new JschSshTunnel();
+        sshTunnel.connect(databaseConnection);
+    }
+
+    private synchronized void destroySshTunnel() {
+
+        if (sshTunnel != null) {
+
+            sshTunnel.disconnect(databaseConnection);
+            sshTunnel = null;
+        }
+    }
+
+    /**
+     * Opens the new connection, the caller must hold the permit for it.
+     */
+    private PooledConnection createConnection() {
+
+        long startTime = System.nanoTime();
+        try {
+
+            Connection realConnection = dataSource().getConnection();
+            if (realConnection == null) {
+
+                destroySshTunnel();
+                throw new DataSourceException(
+                        "A connection to the database could not be " +
+                                "established.\nPlease ensure that the details " +
+                                "are correct and the supplied host is available.");
+            }
+
+            if (defaultTxIsolation == -1)
+                configureTransactionIsolationLevel(realConnection);
+
+            int transactionIsolation = databaseConnection.getTransactionIsolation();
+            if (transactionIsolation != -1) {
+
+                try {
+                    realConnection.setTransactionIsolation(transactionIsolation);
+
+                } catch (SQLException e) {
+                    Log.warning("Error setting transaction isolation level: " + e.getMessage());
+                }
+            }
+
+            PooledConnection connection = new PooledConnection(realConnection, databaseConnection, true, true);
+            connection.addPooledConnectionListener(this);
+            openConnections.add(connection);
+
+            createdCount.incrementAndGet();
+            creationTime.addAndGet(System.nanoTime() - startTime);
+
+            if (Log.isDebugEnabled()) {
+
+                Log.debug("Added new connection to the pool - " + connection.getId());
+            }
+
+            return connection;
+
+        } catch (SQLException e) {
+
+            destroySshTunnel();
+            throw new DataSourceException(e);
+        }
+    }
+
+    private void configureTransactionIsolationLevel(Connection connection) {
+
+        try {
+
+            defaultTxIsolation = connection.getTransactionIsolation();
+            supportsTransactions = connection.getMetaData().supportsTransactions();
+
+        } catch (SQLException e) {
+
+            rethrowAsDataSourceException(e);
+        }
+    }
+
+    // --- metrics ---
+
+    public int getPoolIdleSize() {
+        return idleConnections.size();
+    }
+
+    public long getWaitCount() {
+        return waitCount.get();
+    }
+
+    /**
+     * @return total time the callers waited for a free connection, ms
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(waitTime.get());
+    }
+
+    public long getMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * @return average time of establishing the new connection, ms
+     */
+    public long getAverageCreationTime() {
+
+        long count = createdCount.get();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(creationTime.get() / count) : 0;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    public String getStatistics() {
+
+        return String.format("active %d, idle %d, created %d (avg %d ms), evicted %d, waits %d (total %d ms, max %d ms)",
+                getPoolActiveSize(), getPoolIdleSize(), getCreatedCount(), getAverageCreationTime(),
+                getEvictedCount(), getWaitCount(), getWaitTime(), getMaxWaitTime());
+    }
+
+    // --- ConnectionPool properties ---
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public synchronized void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public int getMaximumConnections() {
+        return maximumConnections;
+    }
+
+    @Override
+    public synchronized void setMaximumConnections(int maximumConnections) {
+
+        if (maximumConnections < 1) {
+
+            throw new IllegalArgumentException("Maximum connection count must be at least 1");
+        }
+
+        int difference = maximumConnections - this.maximumConnections;
+        if (difference > 0)
+            permits.release(difference);
+        else if (difference < 0)
+            permits.reducePermits(-difference);
+
+        this.maximumConnections = maximumConnections;
+    }
+
+    @Override
+    public int getMinimumConnections() {
+        return minimumConnections;
+    }
+
+    @Override
+    public void setMinimumConnections(int minimumConnections) {
+
+        if (minimumConnections < 1) {
+
+            throw new IllegalArgumentException("Minimum connection count must be at least 1");
+        }
+
+        this.minimumConnections = minimumConnections;
+        ensureCapacity();
+    }
+
+    @Override
+    public int getInitialConnections() {
+        return initialConnections;
+    }
+
+    @Override
+    public void setInitialConnections(int initialConnections) {
+
+        if (initialConnections < 1) {
+
+            throw new IllegalArgumentException("Initial connection count must be at least 1");
+        }
+
+        this.initialConnections = initialConnections;
+    }
+
+    @Override
+    public int getMaximumUseCount() {
+        return 0;
+    }
+
+    @Override
+    public void setMaximumUseCount(int maximumUseCount) {
+    }
+
+    @Override
+    public int getSize() {
+        return openConnections.size();
+    }
+
+    @Override
+    public int getPoolActiveSize() {
+        return activeConnections.size();
+    }
+
+    @Override
+    public boolean isTransactionSupported() {
+
+        if (defaultTxIsolation == -1) {
+
+            Connection connection = getConnection();
+            try {
+                configureTransactionIsolationLevel(connection);
+
+            } finally {
+                close(connection);
+            }
+        }
+
+        return supportsTransactions;
+    }
+
+    @Override
+    public void setTransactionIsolationLevel(int isolationLevel) {
+
+        if (!isTransactionSupported())
+            return;
+
+        int isolationLevelToApply = isolationLevel != -1 ? isolationLevel : defaultTxIsolation;
+        try {
+
+            for (Connection connection : openConnections)
+                if (!connection.isClosed())
+                    connection.setTransactionIsolation(isolationLevelToApply);
+
+        } catch (SQLException e) {
+
+            throw new DataSourceException(e);
+        }
+    }
+
+    /**
+     * Fair semaphore with the permits count changed by {@link #setMaximumConnections(int)}.
+     */
+    private static class Permits extends Semaphore {
+
+        Permits(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+
+    } // Permits class
+
+}
@@ -75,7 +75,7 @@ public final class ConnectionManager {
 
         Log.info("Initialising data source for " + databaseConnection.getName());
 
-        ConnectionPool pool = new ConnectionPoolImpl(databaseConnection);
+        ConnectionPool pool = new ConcurrentConnectionPool(databaseConnection);
         pool.setMinimumConnections(SystemProperties.getIntProperty("user", "connection.initialcount"));
         pool.setInitialConnections(SystemProperties.getIntProperty("user", "connection.initialcount"));
         connectionPools.put(databaseConnection, pool);
@@ -27,6 +27,7 @@ import org.executequery.repository.RepositoryCache;
 import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.util.DynamicLibraryLoader;
 import org.underworldlabs.util.MiscUtils;
+import org.underworldlabs.util.PluginClassLoaderRegistry;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -130,6 +131,7 @@ public class DefaultDriverLoader implements DriverLoader {
                 e.printStackTrace();
             }
             LOADED_DRIVERS.remove(key);
+            PluginClassLoaderRegistry.unload(driver.getClass().getClassLoader());
             driver = null;
         }
 
@@ -85,6 +85,11 @@ public class PooledConnection implements Connection {
     private PooledStatement lastStatement;
     private final boolean timerCheckConnection;
 
+    /**
+     * prepared metadata queries kept open for reuse
+     */
+    private final StatementCache statementCache = new StatementCache(StatementCache.DEFAULT_CAPACITY);
+
 
     /**
      * Creates a new PooledConnection object with the
@@ -228,6 +233,7 @@ public class PooledConnection implements Connection {
 
             if (closeOnReturn) {
 
+                statementCache.clear();
                 realConnection.close();
                 realConnection = null;
 
@@ -346,8 +352,7 @@ public class PooledConnection implements Connection {
         PreparedStatement statement = null;
         lock(true);
         try {
-            statement = realConnection.prepareStatement(sql);
-            lastStatement = new PooledStatement(this, statement);
+            statement = prepareCachedStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
             return lastStatement;
         } catch (SQLException e) {
             if (statement == null)
@@ -365,8 +370,7 @@ public class PooledConnection implements Connection {
         PreparedStatement statement = null;
         lock(true);
         try {
-            statement = realConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
-            lastStatement = new PooledStatement(this, statement);
+            statement = prepareCachedStatement(sql, resultSetType, resultSetConcurrency);
             return lastStatement;
         } catch (SQLException e) {
             if (statement == null)
@@ -958,6 +962,48 @@ public class PooledConnection implements Connection {
         }
     }
 
+    /**
+     * Returns the cached statement or prepares the new one,
+     * the metadata queries are returned to the cache on close.
+     */
+    private PreparedStatement prepareCachedStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+
+        String key = StatementCache.isCacheable(sql) ? StatementCache.key(sql, resultSetType, resultSetConcurrency) : null;
+
+        PreparedStatement statement = key != null ? statementCache.take(key) : null;
+        if (statement == null) {
+            if (resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY)
+                statement = realConnection.prepareStatement(sql);
+            else
+                statement = realConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+
+        lastStatement = new PooledStatement(this, statement);
+        lastStatement.setCacheKey(key);
+        return statement;
+    }
+
+    /**
+     * Returns the closed statement to the statement cache.
+     *
+     * @return false if the statement is not cached and should be closed
+     */
+    boolean returnToCache(String key, PreparedStatement statement) {
+        return key != null && statement != null && realConnection != null && statementCache.put(key, statement);
+    }
+
+    public long getStatementCacheHits() {
+        return statementCache.getHitCount();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCache.getMissCount();
+    }
+
+    public int getStatementCacheSize() {
+        return statementCache.size();
+    }
+
     public PooledStatement getLastStatement() {
         return lastStatement;
     }
@@ -24,6 +24,12 @@ public class PooledStatement implements CallableStatement {
 
     private boolean closed;
 
+    /**
+     * key of the statement in the connection statement cache,
+     * <code>null</code> if the statement is closed on close
+     */
+    private String cacheKey;
+
     public PooledStatement(PooledConnection con, Statement statement) {
         this.connection = con;
         this.statement = statement;
@@ -40,6 +46,10 @@ public class PooledStatement implements CallableStatement {
         this.callableStatement = statement;
     }
 
+    void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
     public Statement getStatement() {
         return statement;
     }
@@ -83,6 +93,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setMaxFieldSize(int i) throws SQLException {
+        cacheKey = null;
         try {
             statement.setMaxFieldSize(i);
         } catch (SQLException e) {
@@ -102,6 +113,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setMaxRows(int i) throws SQLException {
+        cacheKey = null;
         try {
             statement.setMaxRows(i);
         } catch (SQLException e) {
@@ -111,6 +123,8 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setEscapeProcessing(boolean b) throws SQLException {
+        if (!b)
+            cacheKey = null;
         try {
             statement.setEscapeProcessing(b);
         } catch (SQLException e) {
@@ -130,6 +144,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setQueryTimeout(int i) throws SQLException {
+        cacheKey = null;
         try {
             statement.setQueryTimeout(i);
         } catch (SQLException e) {
@@ -167,6 +182,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setCursorName(String s) throws SQLException {
+        cacheKey = null;
         try {
             statement.setCursorName(s);
         } catch (SQLException e) {
@@ -226,6 +242,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setFetchDirection(int i) throws SQLException {
+        cacheKey = null;
         try {
             statement.setFetchDirection(i);
         } catch (SQLException e) {
@@ -245,6 +262,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setFetchSize(int i) throws SQLException {
+        cacheKey = null;
         try {
             statement.setFetchSize(i);
         } catch (SQLException e) {
@@ -407,7 +425,7 @@ public class PooledStatement implements CallableStatement {
         try {
             if (!closed) {
                 if (statement != null)
-                    if (!statement.isClosed())
+                    if (!statement.isClosed() && !connection.returnToCache(cacheKey, preparedStatement))
                         statement.close();
                 connection.lock(false);
                 closed = true;
@@ -432,6 +450,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void setPoolable(boolean b) throws SQLException {
+        cacheKey = null;
         try {
             statement.setPoolable(b);
         } catch (SQLException e) {
@@ -441,6 +460,7 @@ public class PooledStatement implements CallableStatement {
 
     @Override
     public void closeOnCompletion() throws SQLException {
+        cacheKey = null;
         try {
             statement.closeOnCompletion();
         } catch (SQLException e) {
@@ -0,0 +1,343 @@
+package org.executequery.datasource;
+
+import org.executequery.log.Log;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Prepared statements of one connection kept open for reuse, the least recently used
+ * statements are closed when the cache is full.
+ * <p>
+ * The statement is removed from the cache while in use and is returned to it on close.
+ * Only the metadata queries are cached: the selects having only the system tables
+ * in all the FROM and JOIN clauses, including the subqueries. Statements prepared on the user
+ * tables or procedures are never kept, since the open statement prevents altering or dropping
+ * the objects it uses.
+ */
+class StatementCache {
+
+    static final int DEFAULT_CAPACITY = 64;
+
+    private static final Pattern SELECT = Pattern.compile(
+            "^\\s*SELECT\\b(?!.*\\b(INSERT|UPDATE|DELETE|MERGE|EXECUTE)\\b).*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Set<String> STRING_FUNCTIONS = new HashSet<>(Arrays.asList(
+            "EXTRACT", "SUBSTRING", "TRIM", "OVERLAY"));
+
+    private static final Pattern SYSTEM_RELATION = Pattern.compile("(RDB|MON|SEC)\\$\\w*", Pattern.CASE_INSENSITIVE);
+
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    private long hitCount;
+    private long missCount;
+
+    StatementCache(int capacity) {
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+    }
+
+    static boolean isCacheable(String sql) {
+        return sql != null && SELECT.matcher(sql).matches() && selectsSystemRelationsOnly(sql);
+    }
+
+    /**
+     * Checks the relations following the FROM and JOIN keywords and the commas of the FROM lists.
+     * Anything except the system relation name there, as the derived table or the procedure,
+     * makes the statement not cacheable. FROM of the EXTRACT, SUBSTRING, TRIM and OVERLAY
+     * functions is skipped.
+     */
+    private static boolean selectsSystemRelationsOnly(String sql) {
+
+        List<String> tokens = tokenize(sql);
+        Deque<String> functions = new ArrayDeque<>();
+
+        int relations = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+
+            String token = tokens.get(i);
+            if (token.equals("(")) {
+                functions.push(i > 0 ? tokens.get(i - 1).toUpperCase() : "");
+                continue;
+            }
+
+            if (token.equals(")")) {
+                functions.poll();
+                continue;
+            }
+
+            boolean from = token.equalsIgnoreCase("FROM");
+            if (from && STRING_FUNCTIONS.contains(functions.peek()))
+                continue;
+
+            if (!from && !token.equalsIgnoreCase("JOIN"))
+                continue;
+
+            while (true) {
+
+                if (++i >= tokens.size() || !isSystemRelation(tokens.get(i)))
+                    return false;
+                relations++;
+
+                // optional alias
+                if (i + 1 < tokens.size() && tokens.get(i + 1).equalsIgnoreCase("AS"))
+                    i++;
+                if (i + 1 < tokens.size() && isIdentifier(tokens.get(i + 1)) && !isClauseKeyword(tokens.get(i + 1)))
+                    i++;
+
+                if (!from || i + 1 >= tokens.size() || !tokens.get(i + 1).equals(","))
+                    break;
+                i++;
+            }
+        }
+
+        return relations > 0;
+    }
+
+    private static boolean isSystemRelation(String token) {
+
+        String name = token.substring(token.lastIndexOf('.') + 1);
+        if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\""))
+            return SYSTEM_RELATION.matcher(name.substring(1, name.length() - 1)).matches()
+                    && name.equals(name.toUpperCase());
+
+        return SYSTEM_RELATION.matcher(name).matches();
+    }
+
+    private static boolean isIdentifier(String token) {
+        char c = token.charAt(0);
+        return Character.isLetter(c) || c == '"';
+    }
+
+    private static boolean isClauseKeyword(String token) {
+
+        switch (token.toUpperCase()) {
+            case "WHERE":
+            case "JOIN":
+            case "INNER":
+            case "LEFT":
+            case "RIGHT":
+            case "FULL":
+            case "OUTER":
+            case "CROSS":
+            case "NATURAL":
+            case "ON":
+            case "USING":
+            case "GROUP":
+            case "HAVING":
+            case "WINDOW":
+            case "PLAN":
+            case "UNION":
+            case "ORDER":
+            case "ROWS":
+            case "OFFSET":
+            case "FETCH":
+            case "FOR":
+            case "WITH":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Splits the statement into the identifiers, including the qualified and quoted ones,
+     * the literals and the single character symbols. The comments are skipped.
+     */
+    private static List<String> tokenize(String sql) {
+
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+
+            char c = sql.charAt(i);
+            int start = i;
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n')
+                    i++;
+                continue;
+            }
+
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                continue;
+            }
+
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+                while (c == '"' && i < length && sql.charAt(i) == '.')
+                    i = skipName(sql, i + 1);
+
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                i = skipName(sql, i);
+
+            } else
+                i++;
+
+            tokens.add(sql.substring(start, i));
+        }
+
+        return tokens;
+    }
+
+    private static int skipName(String sql, int i) {
+
+        int length = sql.length();
+        if (i < length && sql.charAt(i) == '"')
+            return skipQuoted(sql, i, '"');
+
+        while (i < length) {
+
+            char c = sql.charAt(i);
+            if (c == '.' && i + 1 < length && sql.charAt(i + 1) == '"')
+                return skipName(sql, i + 1);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '$' && c != '.')
+                break;
+            i++;
+        }
+
+        return i;
+    }
+
+    private static int skipQuoted(String sql, int i, char quote) {
+
+        int length = sql.length();
+        i++;
+        while (i < length) {
+
+            if (sql.charAt(i++) == quote) {
+                if (i < length && sql.charAt(i) == quote)
+                    i++;
+                else
+                    break;
+            }
+        }
+
+        return i;
+    }
+
+    static String key(String sql, int resultSetType, int resultSetConcurrency) {
+        return resultSetType + ":" + resultSetConcurrency + ":" + sql;
+    }
+
+    /**
+     * Takes the cached statement out of the cache.
+     *
+     * @return the open statement or <code>null</code> if there is no such statement
+     */
+    synchronized PreparedStatement take(String key) {
+
+        PreparedStatement statement = statements.remove(key);
+        try {
+
+            if (statement != null && !statement.isClosed()) {
+                hitCount++;
+                return statement;
+            }
+
+        } catch (SQLException e) {
+            Log.debug("Cached statement is not valid", e);
+        }
+
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Returns the statement to the cache. The current result set and
+     * the parameters of the statement are cleared.
+     *
+     * @return false if the statement was not returned and should be closed by the caller
+     */
+    boolean put(String key, PreparedStatement statement) {
+
+        try {
+
+            ResultSet resultSet = statement.getResultSet();
+            if (resultSet != null && !resultSet.isClosed())
+                resultSet.close();
+
+            statement.clearParameters();
+            statement.clearWarnings();
+
+        } catch (SQLException e) {
+            return false;
+        }
+
+        List<PreparedStatement> evicted = new ArrayList<>();
+        synchronized (this) {
+
+            if (statements.containsKey(key))
+                return false;
+
+            statements.put(key, statement);
+
+            Iterator<PreparedStatement> iterator = statements.values().iterator();
+            while (statements.size() > capacity && iterator.hasNext()) {
+                evicted.add(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        evicted.forEach(StatementCache::close);
+        return true;
+    }
+
+    /**
+     * Closes all the cached statements.
+     */
+    void clear() {
+
+        List<PreparedStatement> closed;
+        synchronized (this) {
+            closed = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+
+        closed.forEach(StatementCache::close);
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static void close(PreparedStatement statement) {
+
+        try {
+            statement.close();
+
+        } catch (SQLException e) {
+            Log.debug("Error closing cached statement", e);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+
+        long total = hitCount + missCount;
+        return String.format("statement cache: %d statements, %d hits, %d misses (%.1f%% hits)",
+                statements.size(), hitCount, missCount, total > 0 ? hitCount * 100d / total : 0d);
+    }
+
+}
@@ -34,20 +34,24 @@ import org.executequery.localization.Bundles;
 import org.executequery.sql.ExecutionController;
 import org.executequery.sql.SqlScriptRunner;
 import org.executequery.sql.SqlStatementResult;
-import org.executequery.util.ThreadUtils;
 import org.underworldlabs.swing.*;
 import org.underworldlabs.swing.layouts.GridBagHelper;
 import org.underworldlabs.swing.plaf.UIUtils;
 import org.underworldlabs.swing.util.SwingWorker;
+import org.underworldlabs.util.EncodingDetector;
 import org.underworldlabs.util.FileUtils;
 import org.underworldlabs.util.MiscUtils;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.Charset;
 import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Takis Diakoumis
@@ -62,6 +66,8 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
 
     public static final int MAX_LENGTH_TEXT_PANE = 1000000;
     private static final int STATUS_BAR_HEIGHT = 26;
+    private static final int MAX_PENDING_MESSAGES = 10_000;
+    private static final long FLUSH_WAIT_TIMEOUT = 100;
 
     private static int instanceCounter = 1;
 
@@ -91,6 +97,18 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
 
     private String script = null;
 
+    /**
+     * script file too large for the text pane, executed while it is read
+     */
+    private File scriptFile;
+
+    /**
+     * output messages waiting to be appended to the output panel,
+     * the script waits for the output panel when the queue is full
+     */
+    private final BlockingQueue<Runnable> pendingMessages = new LinkedBlockingQueue<>(MAX_PENDING_MESSAGES);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
     private boolean executing;
     private boolean resetButtons;
 
@@ -243,7 +261,18 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
 
     public void fileNameChanged() {
         try {
-            script = FileUtils.loadFile(new File(fileNameField.getText()).getPath());
+            File file = new File(fileNameField.getText());
+            if (file.length() >= MAX_LENGTH_TEXT_PANE) {
+
+                // the file is not loaded to the memory
+                script = null;
+                scriptFile = file;
+                GUIUtilities.displayWarningMessage(bundleString("FileLengthOverrun"));
+                return;
+            }
+
+            scriptFile = null;
+            script = FileUtils.loadFile(file.getPath());
             if (script.length() < MAX_LENGTH_TEXT_PANE)
                 sqlText.setSQLText(script);
             else
@@ -296,6 +325,7 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
             @Override
             public void finished() {
                 try {
+                    flushMessages();
                     SqlStatementResult sqlStatementResult = (SqlStatementResult) get();
                     outputPanel.append("Statements executed: " + sqlStatementResult.getStatementCount());
                     outputPanel.append("Total records affected: " + sqlStatementResult.getUpdateCount());
@@ -380,25 +410,41 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
                 }
             }
 
-            if (script == null || script.length() < MAX_LENGTH_TEXT_PANE)
-                script = sqlText.getSQLText();
+            if (scriptFile != null) {
+
+                sqlStatementResult = sqlScriptRunner.execute(
+                        connection,
+                        openScript(scriptFile),
+                        stopOnErrorCheck.isSelected()
+                );
 
-            sqlStatementResult = sqlScriptRunner.execute(
-                    connection,
-                    script,
-                    stopOnErrorCheck.isSelected()
-            );
+            } else {
+
+                if (script == null || script.length() < MAX_LENGTH_TEXT_PANE)
+                    script = sqlText.getSQLText();
+
+                sqlStatementResult = sqlScriptRunner.execute(
+                        connection,
+                        script,
+                        stopOnErrorCheck.isSelected()
+                );
+            }
+
+        } catch (IOException e) {
+            errorMessage(bundleString("error.load-file") + "\n" + e.getMessage());
 
         } finally {
 
-            if (sqlStatementResult != null && sqlStatementResult.isException()) {
-                if (sqlStatementResult.isInterrupted())
-                    outputPanel.appendWarning("Operation cancelled by user action");
+            SqlStatementResult result = sqlStatementResult;
+            if (result != null && result.isException()) {
+                if (result.isInterrupted())
+                    post(() -> outputPanel.appendWarning("Operation cancelled by user action"));
                 else
-                    outputPanel.appendError("Execution error:\n" + sqlStatementResult.getErrorMessage());
+                    post(() -> outputPanel.appendError("Execution error:\n" + result.getErrorMessage()));
             }
 
-            outputPanel.append("Total duration: " + MiscUtils.formatDuration(System.currentTimeMillis() - startTime));
+            long duration = System.currentTimeMillis() - startTime;
+            post(() -> outputPanel.append("Total duration: " + MiscUtils.formatDuration(duration)));
             statusBar.setStatusText("Done");
             statusBar.stopProgressBar();
 
@@ -415,6 +461,13 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
         return connectionsCombo.getSelectedConnection();
     }
 
+    private static Reader openScript(File file) throws IOException {
+
+        String charset = new EncodingDetector().detectCharset(file);
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StringUtils.isNotBlank(charset) ? Charset.forName(charset) : Charset.defaultCharset()), 1 << 16);
+    }
+
     private boolean fieldsValid() {
 
         String fileName = fileNameField.getText();
@@ -464,22 +517,61 @@ public class ExecuteSqlScriptPanel extends DefaultTabViewActionPanel
 
     @Override
     public void message(final String message) {
-        ThreadUtils.invokeAndWait(() -> outputPanel.append(message));
+        post(() -> outputPanel.append(message));
     }
 
     @Override
     public void actionMessage(final String message) {
-        ThreadUtils.invokeAndWait(() -> outputPanel.appendAction(message));
+        post(() -> outputPanel.appendAction(message));
     }
 
     @Override
     public void errorMessage(final String message) {
-        ThreadUtils.invokeAndWait(() -> outputPanel.appendError(message));
+        post(() -> outputPanel.appendError(message));
     }
 
     @Override
     public void queryMessage(final String message) {
-        ThreadUtils.invokeAndWait(() -> outputPanel.appendActionFixedWidth(message));
+        post(() -> outputPanel.appendActionFixedWidth(message));
+    }
+
+    /**
+     * Appends the message to the output panel later, the messages
+     * posted by the executing script are appended by the batches.
+     */
+    private void post(Runnable message) {
+
+        if (SwingUtilities.isEventDispatchThread()) {
+            flushMessages();
+            message.run();
+            return;
+        }
+
+        try {
+            while (!pendingMessages.offer(message, FLUSH_WAIT_TIMEOUT, TimeUnit.MILLISECONDS))
+                scheduleFlush();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+
+        if (flushScheduled.compareAndSet(false, true))
+            SwingUtilities.invokeLater(this::flushMessages);
+    }
+
+    private void flushMessages() {
+
+        flushScheduled.set(false);
+
+        Runnable message;
+        while ((message = pendingMessages.poll()) != null)
+            message.run();
     }
 
     // ---
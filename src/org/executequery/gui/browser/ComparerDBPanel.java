@@ -76,6 +76,8 @@ public class ComparerDBPanel extends JPanel implements TabView {
 
     private boolean isComparing;
     private boolean isReverseOrder;
+    private long phaseStartTime;
+    private final Map<String, Long> phaseTimings = new LinkedHashMap<>();
     private final boolean isExtractMetadata;
     private final boolean isErd;
 
@@ -544,12 +546,27 @@ public class ComparerDBPanel extends JPanel implements TabView {
 
     private void compare() {
 
+        phaseTimings.clear();
+        phaseStartTime = System.currentTimeMillis();
+
+        if (!isErd) {
+
+            List<Integer> selectedTypes = new ArrayList<>();
+            for (Integer type : scriptGenerationOrder)
+                if (type != STUBS && attributesCheckBoxMap.get(type).isSelected())
+                    selectedTypes.add(type);
+
+            comparer.loadObjects(selectedTypes);
+            finishPhase("Loading objects");
+        }
+
         comparer.dropConstraints(
                 attributesCheckBoxMap.get(NamedObject.TABLE).isSelected(),
                 attributesCheckBoxMap.get(NamedObject.GLOBAL_TEMPORARY).isSelected(),
                 isPropertySelected(CHECK_DROP),
                 isPropertySelected(CHECK_ALTER)
         );
+        finishPhase("Extracting constraints");
 
         rootTreeNode.removeAllChildren();
 
@@ -606,6 +623,8 @@ public class ComparerDBPanel extends JPanel implements TabView {
                     }
                 }
             }
+
+            finishPhase("Creating objects");
         }
 
         if (isPropertySelected(CHECK_ALTER) && !isCanceled()) {
@@ -643,6 +662,8 @@ public class ComparerDBPanel extends JPanel implements TabView {
                         comparer.alterObjects(type);
                 }
             }
+
+            finishPhase("Altering objects");
         }
 
         if (isPropertySelected(CHECK_DROP) && !isCanceled()) {
@@ -671,6 +692,8 @@ public class ComparerDBPanel extends JPanel implements TabView {
                         comparer.dropObjects(type);
                 }
             }
+
+            finishPhase("Dropping objects");
         }
 
         if (!isCanceled()) {
@@ -678,8 +701,21 @@ public class ComparerDBPanel extends JPanel implements TabView {
             if (!Objects.equals(comparer.getConstraintsList(), "") && comparer.getConstraintsList() != null)
                 loggingOutputPanel.append(comparer.getConstraintsList());
             comparer.createConstraints();
+            finishPhase("Defining constraints");
         }
 
+        loggingOutputPanel.append("\n============= TIMINGS =============");
+        for (Map.Entry<String, Long> phaseTiming : phaseTimings.entrySet())
+            loggingOutputPanel.append(String.format("\t%s: %d ms", phaseTiming.getKey(), phaseTiming.getValue()));
+    }
+
+    private void finishPhase(String phase) {
+
+        long currentTime = System.currentTimeMillis();
+        phaseTimings.merge(phase, currentTime - phaseStartTime, Long::sum);
+        phaseStartTime = currentTime;
+
+        Log.info(String.format("Comparing phase \"%s\" finished in %d ms", phase, phaseTimings.get(phase)));
     }
 
     private boolean isPropertySelected(int key) {
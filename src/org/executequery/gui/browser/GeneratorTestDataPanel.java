@@ -1,35 +1,29 @@
 package org.executequery.gui.browser;
 
-import biz.redsoft.IFBBatch;
-import biz.redsoft.IFBBatchCompletionState;
-import biz.redsoft.IFBDatabaseConnection;
 import org.executequery.Constants;
 import org.executequery.GUIUtilities;
 import org.executequery.base.TabView;
 import org.executequery.databasemediators.DatabaseConnection;
-import org.executequery.databasemediators.QueryTypes;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.databaseobjects.DatabaseColumn;
 import org.executequery.databaseobjects.DatabaseHost;
 import org.executequery.databaseobjects.NamedObject;
-import org.executequery.datasource.ConnectionManager;
-import org.executequery.datasource.DefaultDriverLoader;
 import org.executequery.gui.LoggingOutputPanel;
 import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.browser.generatortestdata.FieldGenerator;
 import org.executequery.gui.browser.generatortestdata.FieldsPanel;
+import org.executequery.gui.browser.generatortestdata.TestDataGenerator;
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
 import org.executequery.localization.Bundles;
 import org.executequery.log.Log;
-import org.executequery.sql.SqlStatementResult;
 import org.underworldlabs.swing.ConnectionsComboBox;
 import org.underworldlabs.swing.DynamicComboBoxModel;
 import org.underworldlabs.swing.NumberTextField;
 import org.underworldlabs.swing.layouts.GridBagHelper;
 import org.underworldlabs.swing.util.SwingWorker;
-import org.underworldlabs.util.DynamicLibraryLoader;
-import org.underworldlabs.util.MiscUtils;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.sql.*;
@@ -42,6 +36,8 @@ public class GeneratorTestDataPanel extends JPanel
     public static final String FRAME_ICON = "icon_generator";
     public static final String TITLE = bundleString("TITLE");
 
+    private static final int PROGRESS_INTERVAL = 250;
+
     // --- GUI components ---
 
     private JComboBox<?> tablesCombo;
@@ -53,6 +49,8 @@ public class GeneratorTestDataPanel extends JPanel
     private NumberTextField batchSizeField;
     private NumberTextField commitAfterField;
     private NumberTextField recordsCountField;
+    private NumberTextField threadsField;
+    private NumberTextField seedField;
 
     private JCheckBox useBatchesCheck;
     private JCheckBox stopOnErrorCheck;
@@ -66,14 +64,14 @@ public class GeneratorTestDataPanel extends JPanel
 
     // ---
 
-    private boolean stop;
+    private String lastErrorMessage;
+    private volatile TestDataGenerator generator;
     private DynamicComboBoxModel tablesModel;
     private DefaultStatementExecutor executor;
 
     public GeneratorTestDataPanel() {
         init();
         arrange();
-        checkBatchToolsEnable();
         updateBatchToolsEnable();
         loadTableColumns();
     }
@@ -99,7 +97,7 @@ public class GeneratorTestDataPanel extends JPanel
         executor.setKeepAlive(true);
 
         stopButton = WidgetFactory.createButton("stopButton", bundleString("Stop"));
-        stopButton.addActionListener(e -> stop = true);
+        stopButton.addActionListener(e -> stopGeneration());
         stopButton.setEnabled(false);
 
         startButton = WidgetFactory.createButton("startButton", bundleString("Start"));
@@ -117,6 +115,13 @@ public class GeneratorTestDataPanel extends JPanel
         commitAfterField.setEnableNegativeNumbers(false);
         commitAfterField.setText("500");
 
+        threadsField = WidgetFactory.createNumberTextField("threadsField");
+        threadsField.setEnableNegativeNumbers(false);
+        threadsField.setText("1");
+
+        seedField = WidgetFactory.createNumberTextField("seedField");
+        seedField.setToolTipText(bundleString("SeedToolTip"));
+
         stopOnErrorCheck = WidgetFactory.createCheckBox("stopOnErrorCheck", bundleString("StopOnError"));
 
         useBatchesCheck = WidgetFactory.createCheckBox("useBatchesCheck", bundleString("useBatchesBox"));
@@ -168,6 +173,10 @@ public class GeneratorTestDataPanel extends JPanel
         preferencesPanel.add(commitAfterField, gbh.nextCol().setMaxWeightX().topGap(5).spanX().get());
         preferencesPanel.add(batchLabel, gbh.setMinWeightX().setWidth(1).nextRowFirstCol().topGap(8).get());
         preferencesPanel.add(batchSizeField, gbh.nextCol().setMaxWeightX().topGap(5).spanX().get());
+        preferencesPanel.add(new JLabel(bundleString("Threads")), gbh.setMinWeightX().setWidth(1).nextRowFirstCol().topGap(8).get());
+        preferencesPanel.add(threadsField, gbh.nextCol().setMaxWeightX().topGap(5).spanX().get());
+        preferencesPanel.add(new JLabel(bundleString("Seed")), gbh.setMinWeightX().setWidth(1).nextRowFirstCol().topGap(8).get());
+        preferencesPanel.add(seedField, gbh.nextCol().setMaxWeightX().topGap(5).spanX().get());
 
         // --- main panel ---
 
@@ -205,6 +214,13 @@ public class GeneratorTestDataPanel extends JPanel
         }.start();
     }
 
+    private void stopGeneration() {
+
+        TestDataGenerator thisGenerator = generator;
+        if (thisGenerator != null)
+            thisGenerator.stop();
+    }
+
     private void runGeneration() {
 
         int recordsCount = recordsCountField.getValue();
@@ -214,32 +230,40 @@ public class GeneratorTestDataPanel extends JPanel
         }
 
         List<FieldGenerator> selectedFields = new ArrayList<>();
-        for (FieldGenerator fieldGenerator : fieldsPanel.getFieldGenerators()) {
-            if (fieldGenerator.isSelectedField()) {
+        for (FieldGenerator fieldGenerator : fieldsPanel.getFieldGenerators())
+            if (fieldGenerator.isSelectedField())
                 selectedFields.add(fieldGenerator);
-                fieldGenerator.setFirst();
-            }
-        }
 
         if (selectedFields.isEmpty()) {
             GUIUtilities.displayErrorMessage(bundleString("noColumnsSelected"));
             return;
         }
 
+        long seed = seedField.getText().trim().isEmpty() ? new SplittableRandom().nextLong() : seedField.getLongValue();
+        SplittableRandom setupRandom = new SplittableRandom(seed);
+
+        List<ValueGenerator> valueGenerators = new ArrayList<>();
+        try {
+            for (FieldGenerator fieldGenerator : selectedFields)
+                valueGenerators.add(fieldGenerator.createValueGenerator(setupRandom.split()));
+
+        } catch (Exception e) {
+            Log.error(e.getMessage(), e);
+            GUIUtilities.displayExceptionErrorDialog(e.getMessage(), e, this.getClass());
+            return;
+        }
+
         stopButton.setEnabled(true);
         startButton.setEnabled(false);
         tabbedPane.setSelectedIndex(1);
 
-        stop = false;
+        lastErrorMessage = null;
         progressBar.setMinimum(0);
         progressBar.setMaximum(recordsCount);
 
         long startTime = System.currentTimeMillis();
         try {
-            if (useBatchesCheck.isSelected())
-                generateUsingBatches(recordsCount, selectedFields);
-            else
-                generate(recordsCount, selectedFields);
+            generate(recordsCount, valueGenerators, getInsertQuery(selectedFields), seed);
 
         } catch (Exception e) {
             Log.error(e.getMessage(), e);
@@ -250,232 +274,53 @@ public class GeneratorTestDataPanel extends JPanel
         }
     }
 
-    private void generate(int recordsCount, List<FieldGenerator> selectedFields) throws SQLException {
+    private void generate(int recordsCount, List<ValueGenerator> valueGenerators, String insertQuery, long seed)
+            throws SQLException {
 
-        int commitAfter = commitAfterField.getValue();
-        boolean isStopOnError = stopOnErrorCheck.isSelected();
         boolean loggingEnabled = loggingEnabledCheck.isSelected();
 
-        int countError = 0;
-        int countSuccess = 0;
-        int lastErrorIndex = -1;
-        String lastErrorMessage = null;
-        boolean isGenerationError = false;
-
-        PreparedStatement statement = executor.getPreparedStatement(getInsertQuery(selectedFields));
-        for (int recordIndex = 0; recordIndex < recordsCount && !stop; recordIndex++) {
-            progressBar.setValue(recordIndex);
-
-            if (recordIndex % commitAfter == 0 && recordIndex != 0)
-                executor.getConnection().commit();
-
-            // > try to set generate and set values
-
-            try {
-                for (int fieldIndex = 0; fieldIndex < selectedFields.size(); fieldIndex++) {
-                    Object parameter = selectedFields.get(fieldIndex).getMethodGeneratorPanel().getTestDataObject();
-                    statement.setObject(fieldIndex + 1, parameter);
-                }
-
-                if (loggingEnabled && isGenerationError && lastErrorIndex > -1) {
-                    if (recordIndex - lastErrorIndex + 1 > 1)
-                        logPanel.appendError("Failed on [" + lastErrorIndex + ", " + (recordIndex - 1) + "] records");
-                    else
-                        logPanel.appendError("Failed on " + lastErrorIndex + " record");
-
-                    lastErrorIndex = -1;
-                }
-
-                isGenerationError = false;
+        generator = new TestDataGenerator(getSelectedConnection(), insertQuery, valueGenerators, recordsCount, seed);
+        generator.setThreadCount(threadsField.getValue());
+        generator.setBatchSize(useBatchesCheck.isSelected() ? batchSizeField.getValue() : 1);
+        generator.setCommitAfter(commitAfterField.getValue());
+        generator.setStopOnError(stopOnErrorCheck.isSelected());
+        if (loggingEnabled)
+            generator.setErrorListener(this::appendError);
 
-            } catch (SQLException e) {
+        logPanel.appendPlain("Seed: " + seed);
 
-                if (loggingEnabled && lastErrorIndex == -1) {
-                    String errorMessage = e.getMessage();
-                    if (!Objects.equals(errorMessage, lastErrorMessage)) {
-                        lastErrorIndex = recordIndex;
-                        lastErrorMessage = errorMessage;
-                        logPanel.appendError(errorMessage);
-                    }
-                }
+        TestDataGenerator thisGenerator = generator;
+        Timer progressTimer = new Timer(PROGRESS_INTERVAL, e -> progressBar.setValue((int) thisGenerator.getProcessedCount()));
+        progressTimer.start();
 
-                isGenerationError = true;
-                continue; // if there is an exception with generating data then go to the next iteration
-            }
+        try {
+            thisGenerator.generate();
 
-            // > try to insert generated values
-
-            SqlStatementResult result = executor.execute(QueryTypes.INSERT, statement);
-            if (result.isException()) {
-                countError++;
-
-                if (loggingEnabled && lastErrorIndex == -1) {
-                    String errorMessage = result.getSqlException().getMessage();
-                    if (!Objects.equals(errorMessage, lastErrorMessage)) {
-                        lastErrorIndex = recordIndex;
-                        lastErrorMessage = errorMessage;
-                        logPanel.appendError(errorMessage);
-                    }
-                }
-
-                if (isStopOnError) {
-                    GUIUtilities.displayExceptionErrorDialog(
-                            result.getSqlException().getMessage(),
-                            result.getSqlException(),
-                            this.getClass()
-                    );
-                    break;
-                }
-
-            } else {
-                countSuccess++;
-                if (loggingEnabled && lastErrorIndex > -1) {
-                    if (recordIndex - lastErrorIndex + 1 > 1)
-                        logPanel.appendError("Failed on [" + lastErrorIndex + ", " + (recordIndex - 1) + "] records");
-                    else
-                        logPanel.appendError("Failed on " + lastErrorIndex + " record");
-
-                    lastErrorIndex = -1;
-                }
-            }
-        }
+        } catch (SQLException e) {
+            GUIUtilities.displayExceptionErrorDialog(e.getMessage(), e, this.getClass());
 
-        if (loggingEnabled && lastErrorIndex > -1) {
-            if (recordsCount - lastErrorIndex + 1 > 1)
-                logPanel.appendError("Failed on [" + lastErrorIndex + ", " + recordsCount + "] records");
-            else
-                logPanel.appendError("Failed on " + lastErrorIndex + " record");
+        } finally {
+            progressTimer.stop();
+            generator = null;
         }
 
-        executor.getConnection().commit();
-        executor.releaseResources();
+        if (loggingEnabled && useBatchesCheck.isSelected() && !thisGenerator.isNativeBatches())
+            logPanel.append(bundleString("batchesNotSupported"));
 
-        logPanel.appendAction("Added: " + countSuccess + "\nFailed: " + countError);
-        GUIUtilities.displayInformationMessage(bundleString("generationEndMessage", countSuccess, recordsCount, countError));
+        logPanel.appendAction("Added: " + thisGenerator.getSuccessCount() + "\nFailed: " + thisGenerator.getErrorCount());
+        GUIUtilities.displayInformationMessage(bundleString("generationEndMessage",
+                thisGenerator.getSuccessCount(), recordsCount, thisGenerator.getErrorCount()));
     }
 
-    private void generateUsingBatches(int recordsCount, List<FieldGenerator> selectedFields) throws SQLException {
-
-        long countError = 0;
-        long countSuccess = 0;
-
-        int batchSize = batchSizeField.getValue();
-        int commitAfter = commitAfterField.getValue();
-        boolean isStopOnError = stopOnErrorCheck.isSelected();
-        boolean loggingEnabled = loggingEnabledCheck.isSelected();
-
-        Connection realConnection = ConnectionManager.getTemporaryConnection(getSelectedConnection());
-        Connection fbConnection = realConnection.unwrap(Connection.class);
-        if (!fbConnection.getClass().getName().contains("FBConnection")) {
-            GUIUtilities.displayWarningMessage(bundleString("batchesNotSupported"));
-            return;
-        }
-
-        IFBBatch batch;
-        try {
-            IFBDatabaseConnection db = (IFBDatabaseConnection) DynamicLibraryLoader.loadingObjectFromClassLoader(
-                    getSelectedConnection().getDriverMajorVersion(),
-                    fbConnection,
-                    "FBDatabaseConnectionImpl4"
-            );
-            db.setConnection(fbConnection);
-            batch = db.createBatch(getInsertQuery(selectedFields));
-
-        } catch (ClassNotFoundException e) {
-            Log.error(e.getMessage(), e);
-            GUIUtilities.displayExceptionErrorDialog(e.getMessage(), e, getClass());
-            return;
-        }
-
-        int recordIndex = 0;
-        while (recordIndex < recordsCount && !stop) {
-            try {
-
-                if (recordIndex + batchSize > recordsCount)
-                    batchSize = recordIndex + batchSize - recordsCount;
-
-                for (int batchRecordIndex = 0; batchRecordIndex < batchSize; batchRecordIndex++) {
-                    for (int columnIndex = 0; columnIndex < selectedFields.size(); columnIndex++) {
-
-                        String parameterType = selectedFields.get(columnIndex).getColumn().getTypeName();
-                        Object parameterValue = selectedFields.get(columnIndex).getMethodGeneratorPanel().getTestDataObject();
-
-                        if (parameterType.contains("BLOB")) {
-                            if (((byte[]) parameterValue).length == 0)
-                                parameterValue = new byte[1];
-                            batch.addBlob(columnIndex + 1, (byte[]) parameterValue);
-
-                        } else
-                            batch.setObject(columnIndex + 1, parameterValue);
-                    }
-
-                    batch.addBatch();
-                }
-
-                IFBBatchCompletionState execute = batch.execute();
-                int[] states = execute.getAllStates();
-                long batchError = Arrays.stream(states).filter(i -> i < 0).count();
-                long batchSuccess = states.length - batchError;
-
-                countError += batchError;
-                countSuccess += batchSuccess;
-
-                String errorMessage = null;
-                if (countError > 0 && isStopOnError) {
-                    for (int i = 0; i < states.length; i++) {
-                        if (states[i] < 0) {
-
-                            try {
-                                errorMessage = execute.getError(i);
-                            } catch (SQLException ignored) {
-                            }
-
-                            if (!MiscUtils.isNull(errorMessage))
-                                throw new SQLException(errorMessage);
-                        }
-                    }
-                }
-
-                if (loggingEnabled) {
-                    logPanel.append(String.format("Batch executed. Added: %d. Failed: %d", batchSuccess, batchError));
-
-                    if (countError > 0) {
-                        for (int i = 0; i < states.length; i++) {
-                            if (states[i] < 0) {
-                                try {
-                                    errorMessage = execute.getError(i);
-                                    if (!MiscUtils.isNull(errorMessage))
-                                        logPanel.appendError(errorMessage);
-
-                                } catch (SQLException ignored) {
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (recordIndex % commitAfter == 0 && recordIndex != 0) {
-                    batch.commit();
-                    batch.startTransaction();
-                }
-
-            } catch (SQLException e) {
-                logPanel.appendError(e.getMessage());
-                batch.cancel();
-
-                if (isStopOnError) {
-                    GUIUtilities.displayExceptionErrorDialog(e.getMessage(), e, this.getClass());
-                    break;
-                }
-            }
+    /**
+     * Logs the error message if it differs from the previous one.
+     */
+    private synchronized void appendError(String message) {
 
-            recordIndex += batchSize;
-            progressBar.setValue(recordIndex);
+        if (message != null && !message.equals(lastErrorMessage)) {
+            lastErrorMessage = message;
+            SwingUtilities.invokeLater(() -> logPanel.appendError(message));
         }
-
-        batch.commit();
-        logPanel.appendAction("Added: " + countSuccess + "\nFailed: " + countError);
-        GUIUtilities.displayInformationMessage(bundleString("generationEndMessage", countSuccess, recordsCount, countError));
     }
 
     private String getInsertQuery(List<FieldGenerator> selectedFields) {
@@ -562,16 +407,6 @@ public class GeneratorTestDataPanel extends JPanel
         fieldsPanel.setFieldGenerators(fieldGenerators);
     }
 
-    private void checkBatchToolsEnable() {
-        boolean enable = new DefaultDriverLoader().load(getSelectedConnection().getJDBCDriver()).getMajorVersion() > 3
-                && getSelectedConnection().getMajorServerVersion() > 3
-                && getSelectedConnection().useNewAPI();
-
-        useBatchesCheck.setEnabled(enable);
-        useBatchesCheck.setSelected(false);
-        updateBatchToolsEnable();
-    }
-
     private void updateBatchToolsEnable() {
         boolean enable = useBatchesCheck.isSelected();
         batchLabel.setEnabled(enable);
@@ -591,7 +426,6 @@ public class GeneratorTestDataPanel extends JPanel
 
         executor.setDatabaseConnection(getSelectedConnection());
         tablesModel.setElements(getDatabaseTables());
-        checkBatchToolsEnable();
     }
 
     private String getSelectedTable() {
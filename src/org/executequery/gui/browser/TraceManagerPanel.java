@@ -13,6 +13,7 @@ import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.browser.managment.AbstractServiceManagerPanel;
 import org.executequery.gui.browser.managment.tracemanager.*;
 import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
+import org.executequery.gui.browser.managment.tracemanager.net.LogMessageParser;
 import org.executequery.gui.browser.managment.tracemanager.net.SessionInfo;
 import org.executequery.localization.Bundles;
 import org.executequery.repository.DatabaseDriverRepository;
@@ -43,12 +44,17 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
 
 public class TraceManagerPanel extends AbstractServiceManagerPanel implements TabView {
 
     public static final String TITLE = Bundles.get(TraceManagerPanel.class, "title");
     public static final String FRAME_ICON = "icon_manager_trace";
 
+    private static final Pattern EVENT_START_PATTERN =
+            Pattern.compile(".?\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d+.*");
+
     private PanelsStateProperties stateProperties;
 
     private IFBTraceManager traceManager;
@@ -63,6 +69,7 @@ public class TraceManagerPanel extends AbstractServiceManagerPanel implements Ta
     protected JToolBar toolBar;
     private JTextField fileConfField;
     LogMessage constMsg = new LogMessage();
+    private int constMsgIndex = -1;
     private JButton buildConfigButton;
     private JTextField sessionField;
     private int idLogMessage = 0;
@@ -88,7 +95,29 @@ public class TraceManagerPanel extends AbstractServiceManagerPanel implements Ta
 
 
     private void readFromBufferedReader(BufferedReader reader, boolean fromFile) {
-        String s = "";
+
+        if (!fromFile) {
+            readFromBufferedReader(reader, false, null);
+            return;
+        }
+
+        try (LogMessageParser parser = new LogMessageParser(logMessage -> addLogMessage(logMessage, true))) {
+            readFromBufferedReader(reader, true, parser);
+            parser.finish();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void readFromBufferedReader(BufferedReader reader, boolean fromFile, LogMessageParser parser)
+            throws InterruptedException, ExecutionException {
+
+        StringBuilder s = new StringBuilder();
         boolean finded = false;
         String line;
         while (true) {
@@ -99,12 +128,13 @@ public class TraceManagerPanel extends AbstractServiceManagerPanel implements Ta
                 throw new RuntimeException(e);
             }
             String str = line.replace("\\r", "");
-            if (str.toLowerCase().startsWith("trace session id")) {
+            if (str.regionMatches(true, 0, "trace session id", 0, "trace session id".length())) {
                 if (finded) {
-                    parseMessage(s, message, fromFile);
+                    parseMessage(s.toString(), message, fromFile, parser);
                 }
                 message = Message.LOG_MESSAGE;
-                s = str;
+                s.setLength(0);
+                s.append(str);
                 String temp = str.replace("Trace session ID ", "");
                 if (temp.contains("started")) {
                     temp = temp.replace("started", "");
@@ -118,25 +148,27 @@ public class TraceManagerPanel extends AbstractServiceManagerPanel implements Ta
                         stopSession();
                 }
                 finded = true;
-            } else if (str.matches(".?\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d+.*")) {
+            } else if (EVENT_START_PATTERN.matcher(str).matches()) {
                 if (finded) {
-                    parseMessage(s, message, fromFile);
+                    parseMessage(s.toString(), message, fromFile, parser);
                 }
                 message = Message.LOG_MESSAGE;
                 finded = true;
-                s = str + "\n";
-            } else if (str.matches("^Session ID:.*")) {
+                s.setLength(0);
+                s.append(str).append("\n");
+            } else if (str.startsWith("Session ID:")) {
                 if (finded) {
-                    parseMessage(s, message, fromFile);
+                    parseMessage(s.toString(), message, fromFile, parser);
                 }
                 message = Message.SESSION_INFO;
                 finded = true;
-                s = str + "\n";
+                s.setLength(0);
+                s.append(str).append("\n");
             } else {
-                s += str + "\n";
+                s.append(str).append("\n");
             }
         }
-        parseMessage(s, message, fromFile);
+        parseMessage(s.toString(), message, fromFile, parser);
     }
 
     @Override
@@ -504,14 +536,13 @@ public class TraceManagerPanel extends AbstractServiceManagerPanel implements Ta
         connectionPanel.add(new JPanel(), gbh.anchorSouth().nextRowFirstCol().fillBoth().spanX().spanY().get());
     }
 
-    private void parseMessage(String msg, Message message, boolean fromFile) {
+    private void parseMessage(String msg, Message message, boolean fromFile, LogMessageParser parser)
+            throws InterruptedException, ExecutionException {
         if (message == Message.LOG_MESSAGE && (parseBox.isSelected() || fromFile)) {
-            LogMessage logMessage = new LogMessage(msg);
-            idLogMessage++;
-            logMessage.setId(idLogMessage);
-            loggerPanel.addRow(logMessage);
-            if (!fromFile)
-                analisePanel.addMessage(logMessage, !fromFile);
+            if (parser != null)
+                parser.submit(msg);
+            else
+                addLogMessage(new LogMessage(msg), fromFile);
         } else {
             if (fromFile)
                 return;
@@ -524,17 +555,28 @@ public class TraceManagerPanel extends AbstractServiceManagerPanel implements Ta
             sessionManagerPanel.setSessions(sessions);
         }
         if (!parseBox.isSelected() && !fromFile) {
-            if (loggerPanel.countRows() < 1)
-                loggerPanel.addRow(constMsg);
             constMsg.setTimestamp(Timestamp.valueOf(LocalDateTime.now()));
             constMsg.setTypeEvent("WRITE_TO_FILE");
+            if (loggerPanel.countRows() < 1) {
+                constMsgIndex = loggerPanel.getTableRows().size();
+                loggerPanel.addRow(constMsg);
+            } else if (constMsgIndex >= 0)
+                loggerPanel.updateRow(constMsgIndex);
             loggerPanel.repaint();
         }
     }
 
+    private void addLogMessage(LogMessage logMessage, boolean fromFile) {
+        idLogMessage++;
+        logMessage.setId(idLogMessage);
+        loggerPanel.addRow(logMessage);
+        analisePanel.messagesAdded(!fromFile);
+    }
+
     public void clearAll() {
         analisePanel.setTerminate(true);
         loggerPanel.clearAll();
+        constMsgIndex = -1;
         analisePanel.setMessages(loggerPanel.getTableRows());
         analisePanel.rebuildRows();
         idLogMessage = 0;
@@ -16,10 +16,13 @@ import org.underworldlabs.swing.Named;
 import org.underworldlabs.util.MiscUtils;
 import org.underworldlabs.util.SQLUtils;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.executequery.databaseobjects.NamedObject.*;
@@ -52,6 +55,7 @@ public class Comparer {
     private final List<org.executequery.gui.browser.ColumnConstraint> constraintsToCreate;
     private final List<org.executequery.gui.browser.ColumnConstraint> constraintsToDrop;
     private final List<ColumnData> computedFields;
+    private final Map<DatabaseConnection, Map<String, Set<String>>> dependencyGraphs;
 
     public Comparer(ComparerDBPanel panel, DatabaseConnection connection,
                     boolean[] constraintsNeed, boolean commentsNeed, boolean computedNeed, boolean fieldsPositions) {
@@ -66,6 +70,7 @@ public class Comparer {
         constraintsToCreate = new ArrayList<>();
         constraintsToDrop = new ArrayList<>();
         computedFields = new ArrayList<>();
+        dependencyGraphs = new HashMap<>();
 
         stubsInsertIndex = -1;
         counter = new int[]{0, 0, 0};
@@ -82,6 +87,56 @@ public class Comparer {
 
     }
 
+    /**
+     * Loads the objects of the specified types from both connections
+     * using the worker pool, so the following comparing steps get
+     * the already loaded lists.
+     */
+    public void loadObjects(List<Integer> types) {
+
+        List<DatabaseConnection> connections = new ArrayList<>();
+        connections.add(compareConnection);
+        if (!panel.isExtractMetadata() && !Objects.equals(masterConnection, compareConnection))
+            connections.add(masterConnection);
+
+        // meta tags list is created lazily, so it is prepared before the workers start
+        for (DatabaseConnection connection : connections)
+            ConnectionsTreePanel.getPanelFromBrowser().getDefaultDatabaseHostFromConnection(connection).getMetaObjects();
+
+        int tasksCount = types.size() * connections.size();
+        int threadCount = Math.max(Math.min(tasksCount, Runtime.getRuntime().availableProcessors()), 1);
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+
+        panel.recreateProgressBar("LoadingObjects", null, tasksCount);
+        try {
+
+            List<Future<?>> results = new ArrayList<>(tasksCount);
+            for (Integer type : types)
+                for (DatabaseConnection connection : connections)
+                    results.add(workers.submit(() -> getObjects(connection, type)));
+
+            for (Future<?> result : results) {
+
+                if (panel.isCanceled())
+                    break;
+
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    Log.error("Error loading objects for comparing", e.getCause());
+                }
+
+                panel.incrementProgressBarValue();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
     public void createErds(List<DefaultDatabaseTable> tables) {
         List<NamedObject> erds = new ArrayList<>();
         erds.addAll(tables);
@@ -143,7 +198,7 @@ public class Comparer {
         List<NamedObject> erds = new ArrayList<>();
         erds.addAll(tables);
         List<NamedObject> dropObjects = sortObjectsByDependency(
-                dropListObjects(getObjects(masterConnection, TABLE), erds, TABLE));
+                dropListObjects(getObjects(masterConnection, TABLE), erds, TABLE), masterConnection, true, null);
 
         if (dropObjects == null || dropObjects.isEmpty())
             return;
@@ -253,14 +308,16 @@ public class Comparer {
                         panel.isExtractMetadata() ? new ArrayList<>() : getObjects(masterConnection, type),
                         getObjects(compareConnection, type),
                         type
-                )
+                ),
+                compareConnection,
+                false,
+                stubsOnCreate
         );
 
         if (createObjects == null || createObjects.isEmpty())
             return;
 
-        if (stubsOnCreate != null && stubsOnCreate.containsKey(type) && stubsOnCreate.get(type) != null)
-            stubsOnCreate.get(type).addAll(createObjects);
+        addToStubs(stubsOnCreate, createObjects);
 
         String header = MessageFormat.format(
                 "\n/* ----- Creating {0} ----- */\n",
@@ -308,7 +365,11 @@ public class Comparer {
     public void dropObjects(int type) {
 
         List<NamedObject> dropObjects = sortObjectsByDependency(
-                dropListObjects(getObjects(masterConnection, type), getObjects(compareConnection, type), type));
+                dropListObjects(getObjects(masterConnection, type), getObjects(compareConnection, type), type),
+                masterConnection,
+                true,
+                null
+        );
 
         if (dropObjects == null || dropObjects.isEmpty())
             return;
@@ -687,7 +748,7 @@ public class Comparer {
             List<NamedObject> masterObjects, List<NamedObject> compareObjects, int type) {
 
         List<NamedObject> createObjects = new ArrayList<>();
-        List<String> masterObjectsNames = masterObjects.stream().map(Named::getName).collect(Collectors.toList());
+        Set<String> masterObjectsNames = masterObjects.stream().map(Named::getName).collect(Collectors.toSet());
         LoadingObjectsHelper loadingObjectsHelper = new LoadingObjectsHelper(compareObjects.size());
 
         panel.recreateProgressBar(
@@ -730,7 +791,7 @@ public class Comparer {
             List<NamedObject> masterObjects, List<NamedObject> compareObjects, int type) {
 
         List<NamedObject> dropObjects = new ArrayList<>();
-        List<String> compareObjectsNames = compareObjects.stream().map(Named::getName).collect(Collectors.toList());
+        Set<String> compareObjectsNames = compareObjects.stream().map(Named::getName).collect(Collectors.toSet());
 
         panel.recreateProgressBar(
                 "ExtractingForDrop", NamedObject.META_TYPES[type],
@@ -754,11 +815,12 @@ public class Comparer {
     private Map<NamedObject, NamedObject> alterListObjects(
             List<NamedObject> masterObjects, List<NamedObject> compareObjects, int type) {
 
-        Map<NamedObject, NamedObject> alterObjects = new HashMap<>();
+        Map<NamedObject, NamedObject> alterObjects = new LinkedHashMap<>();
+        Map<String, NamedObject> masterObjectsByName = getObjectsByName(masterObjects);
 
         panel.recreateProgressBar(
                 "ExtractingForAlter", NamedObject.META_TYPES[type],
-                masterObjects.size() * compareObjects.size()
+                compareObjects.size()
         );
 
         for (NamedObject compareObject : compareObjects) {
@@ -766,18 +828,11 @@ public class Comparer {
             if (panel.isCanceled())
                 break;
 
-            for (NamedObject masterObject : masterObjects) {
-
-                if (panel.isCanceled())
-                    break;
+            NamedObject masterObject = masterObjectsByName.get(compareObject.getName());
+            if (masterObject != null)
+                alterObjects.put(masterObject, compareObject);
 
-                if (Objects.equals(masterObject.getName(), compareObject.getName())) {
-                    alterObjects.put(masterObject, compareObject);
-                    break;
-                }
-
-                panel.incrementProgressBarValue();
-            }
+            panel.incrementProgressBarValue();
         }
 
         return alterObjects;
@@ -810,6 +865,9 @@ public class Comparer {
                 getDefaultDatabaseHostFromConnection(masterConnection).
                 getDatabaseObjectsForMetaTag(NamedObject.META_TYPES[type]);
 
+        Set<String> compareObjectsNames = getObjects(compareConnection, type).stream()
+                .map(Named::getName).collect(Collectors.toSet());
+
         panel.recreateProgressBar(
                 "ExtractingConstraintsForDrop", null,
                 masterConnectionObjectsList.size()
@@ -820,8 +878,7 @@ public class Comparer {
             if (panel.isCanceled())
                 break;
 
-            if (ConnectionsTreePanel.getNamedObjectFromHost(
-                    compareConnection, type, databaseObject.getName()) == null) {
+            if (!compareObjectsNames.contains(databaseObject.getName())) {
 
                 for (ColumnConstraint cc : ((DefaultDatabaseTable) databaseObject).getConstraints()) {
 
@@ -850,10 +907,11 @@ public class Comparer {
                 getDatabaseObjectsForMetaTag(NamedObject.META_TYPES[type]);
 
         List<ColumnConstraint> droppedConstraints = new ArrayList<>();
+        Map<String, NamedObject> masterObjectsByName = getObjectsByName(masterConnectionObjectsList);
 
         panel.recreateProgressBar(
                 "ExtractingConstraintsForAlter", null,
-                masterConnectionObjectsList.size() * masterConnectionObjectsList.size()
+                compareConnectionObjectsList.size()
         );
         LoadingObjectsHelper loadingObjectsHelperMaster = new LoadingObjectsHelper(masterConnectionObjectsList.size());
         LoadingObjectsHelper loadingObjectsHelperCompare = new LoadingObjectsHelper(compareConnectionObjectsList.size());
@@ -861,22 +919,23 @@ public class Comparer {
 
             if (panel.isCanceled())
                 break;
-            AbstractDatabaseObject compareAbstractObject = (AbstractDatabaseObject) compareObject;
-            loadingObjectsHelperCompare.preparingLoadForObjectCols(compareAbstractObject);
-            for (NamedObject masterObject : masterConnectionObjectsList) {
 
-                if (panel.isCanceled())
-                    break;
+            NamedObject masterObject = masterObjectsByName.get(compareObject.getName());
+            if (masterObject != null) {
+
+                AbstractDatabaseObject compareAbstractObject = (AbstractDatabaseObject) compareObject;
                 AbstractDatabaseObject masterAbstractObject = (AbstractDatabaseObject) masterObject;
+                loadingObjectsHelperCompare.preparingLoadForObjectCols(compareAbstractObject);
                 loadingObjectsHelperMaster.preparingLoadForObjectCols(masterAbstractObject);
-                if (Objects.equals(masterObject.getName(), compareObject.getName()))
-                    if (!((AbstractDatabaseObject) masterObject).getCompareAlterSQL((AbstractDatabaseObject) compareObject).contains(SQLUtils.THERE_ARE_NO_CHANGES))
-                        checkConstraintsPair(masterObject, compareObject, droppedConstraints);
-                loadingObjectsHelperMaster.postProcessingLoadForObjectForCols(masterAbstractObject);
 
-                panel.incrementProgressBarValue();
+                if (!masterAbstractObject.getCompareAlterSQL(compareAbstractObject).contains(SQLUtils.THERE_ARE_NO_CHANGES))
+                    checkConstraintsPair(masterObject, compareObject, droppedConstraints);
+
+                loadingObjectsHelperMaster.postProcessingLoadForObjectForCols(masterAbstractObject);
+                loadingObjectsHelperCompare.postProcessingLoadForObjectForCols(compareAbstractObject);
             }
-            loadingObjectsHelperCompare.postProcessingLoadForObjectForCols(compareAbstractObject);
+
+            panel.incrementProgressBarValue();
         }
         loadingObjectsHelperMaster.releaseResources();
         loadingObjectsHelperCompare.releaseResources();
@@ -886,7 +945,7 @@ public class Comparer {
         if (droppedConstraints.isEmpty() || panel.isCanceled())
             return;
 
-        List<String> droppedConstraintsColumns = new ArrayList<>();
+        Set<String> droppedConstraintsColumns = new HashSet<>();
         for (ColumnConstraint cc : droppedConstraints) {
 
             if (panel.isCanceled())
@@ -1074,67 +1133,146 @@ public class Comparer {
         }
     }
 
-    private List<NamedObject> sortObjectsByDependency(List<NamedObject> objectsList) {
+    /**
+     * Orders the objects so each object goes after the objects it depends on
+     * or before them if the objects are dropped.
+     * <p>
+     * Objects involved in the dependency cycles can not be ordered, they are kept
+     * in the original order after the ordered ones and added to the stubs list
+     * of their type (if stubs are generated for it).
+     */
+    private List<NamedObject> sortObjectsByDependency(
+            List<NamedObject> objectsList, DatabaseConnection connection, boolean drop, Map<Integer, List<NamedObject>> stubs) {
 
         if (objectsList.isEmpty())
             return null;
 
-        String templateQuery = "SELECT DISTINCT D.RDB$DEPENDENT_NAME FROM RDB$DEPENDENCIES D " +
-                "WHERE D.RDB$DEPENDENT_TYPE = D.RDB$DEPENDED_ON_TYPE AND D.RDB$DEPENDED_ON_NAME = ?";
+        Map<String, Set<String>> dependencies = getDependencyGraph(connection);
+        if (dependencies == null)
+            return objectsList;
 
-        DefaultStatementExecutor executor =
-                new DefaultStatementExecutor(compareConnection, true);
+        panel.recreateProgressBar("SearchingForDependencies", null, objectsList.size());
 
-        Map<String, NamedObject> objectMap = new HashMap<>();
-        objectsList.forEach(obj -> objectMap.put(obj.getName(), obj));
+        // --- build graph of the listed objects ---
 
-        try {
+        Map<String, Integer> indexes = new HashMap<>(objectsList.size() * 2);
+        for (int i = 0; i < objectsList.size(); i++)
+            indexes.putIfAbsent(objectsList.get(i).getName(), i);
 
-            PreparedStatement selectDependenciesStatement = executor.getPreparedStatement(templateQuery);
+        int[] inDegree = new int[objectsList.size()];
+        List<List<Integer>> dependents = new ArrayList<>(objectsList.size());
+        for (int i = 0; i < objectsList.size(); i++)
+            dependents.add(new ArrayList<>());
 
-            panel.recreateProgressBar(
-                    "SearchingForDependencies", null,
-                    objectMap.keySet().size()
-            );
+        for (int i = 0; i < objectsList.size(); i++) {
 
-            for (String objectName : objectMap.keySet()) {
-                NamedObject tempObject = objectMap.get(objectName);
+            Set<String> dependentNames = dependencies.get(objectsList.get(i).getName());
+            if (dependentNames == null)
+                continue;
 
-                selectDependenciesStatement.setString(1, objectName);
-                selectDependenciesStatement.executeQuery();
+            for (String dependentName : dependentNames) {
+                Integer dependentIndex = indexes.get(dependentName);
+                if (dependentIndex != null && dependentIndex != i) {
+                    dependents.get(i).add(dependentIndex);
+                    inDegree[dependentIndex]++;
+                }
+            }
+        }
 
-                ResultSet resultSet = selectDependenciesStatement.executeQuery();
+        // --- topological sort keeping the original order where possible ---
 
-                if (resultSet == null)
-                    continue;
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < inDegree.length; i++)
+            if (inDegree[i] == 0)
+                ready.add(i);
 
-                while (resultSet.next()) {
-                    String dependentObjectName = resultSet.getString(1).trim();
+        List<NamedObject> sortedList = new ArrayList<>(objectsList.size());
+        boolean[] sorted = new boolean[objectsList.size()];
+        while (!ready.isEmpty()) {
 
-                    if (objectMap.containsKey(dependentObjectName)) {
-                        NamedObject dependentObject = objectMap.get(dependentObjectName);
+            int index = ready.poll();
+            sorted[index] = true;
+            sortedList.add(objectsList.get(index));
 
-                        if (objectsList.indexOf(tempObject) > objectsList.indexOf(dependentObject)) {
-                            objectsList.remove(tempObject);
-                            objectsList.add(objectsList.indexOf(dependentObject), tempObject);
-                        }
-                    }
-                }
+            for (int dependentIndex : dependents.get(index))
+                if (--inDegree[dependentIndex] == 0)
+                    ready.add(dependentIndex);
 
-                panel.incrementProgressBarValue();
-            }
+            panel.incrementProgressBarValue();
+        }
 
-            executor.closeConnection();
-            selectDependenciesStatement.close();
-            executor.releaseResources();
+        // --- objects in the dependency cycles ---
+
+        List<NamedObject> cyclicObjects = new ArrayList<>();
+        for (int i = 0; i < sorted.length; i++)
+            if (!sorted[i])
+                cyclicObjects.add(objectsList.get(i));
+
+        if (!cyclicObjects.isEmpty()) {
+
+            Log.info("Dependency cycle found for: " + cyclicObjects.stream().map(Named::getName).collect(Collectors.joining(", ")));
+            sortedList.addAll(cyclicObjects);
+            addToStubs(stubs, cyclicObjects);
+        }
+
+        if (drop)
+            Collections.reverse(sortedList);
+
+        return sortedList;
+    }
+
+    /**
+     * Loads all the dependencies between the objects of the same type by one query.
+     *
+     * @return the depended on object name to the dependent objects names map
+     * or <code>null</code> if the dependencies loading failed
+     */
+    private Map<String, Set<String>> getDependencyGraph(DatabaseConnection connection) {
+
+        if (dependencyGraphs.containsKey(connection))
+            return dependencyGraphs.get(connection);
+
+        String query = "SELECT DISTINCT D.RDB$DEPENDED_ON_NAME, D.RDB$DEPENDENT_NAME FROM RDB$DEPENDENCIES D " +
+                "WHERE D.RDB$DEPENDENT_TYPE = D.RDB$DEPENDED_ON_TYPE";
+
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        DefaultStatementExecutor executor = new DefaultStatementExecutor(connection, true);
+        try (ResultSet resultSet = executor.getResultSet(query).getResultSet()) {
+
+            while (resultSet != null && resultSet.next()) {
+                dependencies.computeIfAbsent(resultSet.getString(1).trim(), key -> new HashSet<>())
+                        .add(resultSet.getString(2).trim());
+            }
 
         } catch (java.lang.Exception e) {
             GUIUtilities.displayExceptionErrorDialog(
                     "Error while comparing objects dependencies:\n" + e.getMessage(), e, this.getClass());
             Log.error(e);
+            dependencies = null;
+
+        } finally {
+            executor.releaseResources();
         }
 
-        return objectsList;
+        dependencyGraphs.put(connection, dependencies);
+        return dependencies;
+    }
+
+    private static void addToStubs(Map<Integer, List<NamedObject>> stubs, List<NamedObject> objects) {
+
+        if (stubs == null)
+            return;
+
+        Set<NamedObject> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<NamedObject> stubsList : stubs.values())
+            if (stubsList != null)
+                added.addAll(stubsList);
+
+        for (NamedObject object : objects) {
+            List<NamedObject> stubsList = stubs.get(object.getType());
+            if (stubsList != null && added.add(object))
+                stubsList.add(object);
+        }
     }
 
     private void addStubsToScript(int type, List<NamedObject> stubsList, int insertIndex) {
@@ -1160,6 +1298,15 @@ public class Comparer {
 
     }
 
+    private static Map<String, NamedObject> getObjectsByName(List<NamedObject> objects) {
+
+        Map<String, NamedObject> objectsByName = new HashMap<>(objects.size() * 2);
+        for (NamedObject object : objects)
+            objectsByName.putIfAbsent(object.getName(), object);
+
+        return objectsByName;
+    }
+
     private List<NamedObject> getObjects(DatabaseConnection connection, int type) {
         return ConnectionsTreePanel.getPanelFromBrowser().
                 getDefaultDatabaseHostFromConnection(connection).
@@ -3,6 +3,8 @@ package org.executequery.gui.browser.generatortestdata;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.databaseobjects.DatabaseColumn;
 
+import java.util.SplittableRandom;
+
 public class FieldGenerator {
     private final MethodGeneratorPanel methodGeneratorPanel;
 
@@ -34,8 +36,8 @@ public class FieldGenerator {
         return methodGeneratorPanel;
     }
 
-    public void setFirst() {
-        methodGeneratorPanel.setFirst();
+    public ValueGenerator createValueGenerator(SplittableRandom setupRandom) {
+        return methodGeneratorPanel.createValueGenerator(setupRandom);
     }
 
 }
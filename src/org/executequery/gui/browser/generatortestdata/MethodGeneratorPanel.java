@@ -9,6 +9,7 @@ import org.underworldlabs.swing.layouts.GridBagHelper;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.SplittableRandom;
 
 public class MethodGeneratorPanel extends JPanel {
     public final static int RANDOM = 0;
@@ -104,13 +105,8 @@ public class MethodGeneratorPanel extends JPanel {
         updateUI();
     }
 
-    public void setFirst() {
-        if (methodPanel != null)
-            methodPanel.setFirst(true);
-    }
-
-    public Object getTestDataObject() {
-        return methodPanel.getTestDataObject();
+    public ValueGenerator createValueGenerator(SplittableRandom setupRandom) {
+        return methodPanel.createValueGenerator(setupRandom);
     }
 
     private String bundledString(String key) {
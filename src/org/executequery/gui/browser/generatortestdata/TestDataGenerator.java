@@ -0,0 +1,318 @@
+package org.executequery.gui.browser.generatortestdata;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.datasource.BulkLoader;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.PooledConnection;
+import org.executequery.log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Generates the records and inserts them by several threads,
+ * each thread inserts by its own connection and {@link BulkLoader}.
+ * <p>
+ * The records are generated by chunks of the fixed size taken by the threads
+ * in turn. The random numbers of the chunk are seeded by the generation seed
+ * and the chunk number, so the same seed produces the same records
+ * regardless of the number of the threads.
+ */
+public class TestDataGenerator {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final DatabaseConnection connection;
+    private final String insertQuery;
+    private final ValueGenerator[] generators;
+    private final long recordsCount;
+    private final long seed;
+
+    private int threadCount = 1;
+    private int batchSize = 1;
+    private int commitAfter = 1;
+    private boolean stopOnError;
+    private volatile boolean nativeBatches;
+    private Consumer<String> errorListener = message -> {
+    };
+
+    private final AtomicLong nextChunk;
+    private final AtomicLong processedCount;
+    private final AtomicLong successCount;
+    private final AtomicLong errorCount;
+
+    private volatile boolean stopped;
+    private volatile SQLException error;
+
+    public TestDataGenerator(DatabaseConnection connection, String insertQuery,
+                             List<ValueGenerator> generators, long recordsCount, long seed) {
+
+        this.connection = connection;
+        this.insertQuery = insertQuery;
+        this.generators = generators.toArray(new ValueGenerator[0]);
+        this.recordsCount = recordsCount;
+        this.seed = seed;
+
+        this.nextChunk = new AtomicLong();
+        this.processedCount = new AtomicLong();
+        this.successCount = new AtomicLong();
+        this.errorCount = new AtomicLong();
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = Math.max(threadCount, 1);
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    public void setCommitAfter(int commitAfter) {
+        this.commitAfter = Math.max(commitAfter, 1);
+    }
+
+    public void setStopOnError(boolean stopOnError) {
+        this.stopOnError = stopOnError;
+    }
+
+    /**
+     * @param errorListener called from the generating threads with the message of every failed batch or record
+     */
+    public void setErrorListener(Consumer<String> errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /**
+     * Generates the records, returns when all the threads are finished.
+     *
+     * @throws SQLException the first error if stopped on error
+     */
+    public void generate() throws SQLException {
+
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(this::generatePart, "TestDataGenerator-" + (i + 1));
+            thread.start();
+            threads.add(thread);
+        }
+
+        try {
+            for (Thread thread : threads)
+                thread.join();
+
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+        }
+
+        if (error != null)
+            throw error;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * @return true if the Firebird batch API was used to insert the records
+     */
+    public boolean isNativeBatches() {
+        return nativeBatches;
+    }
+
+    private void generatePart() {
+
+        Connection partConnection = null;
+        try {
+
+            partConnection = ConnectionManager.getTemporaryConnection(connection);
+            if (partConnection == null)
+                throw new SQLException(connection.getName() + ": unable to open connection");
+            partConnection.setAutoCommit(false);
+
+            try (BulkLoader loader = BulkLoader.create(connection, partConnection.prepareStatement(insertQuery), insertQuery)) {
+
+                PreparedStatement statement = loader.getStatement();
+                nativeBatches = loader.isNative();
+
+                long uncommitted = 0;
+                long chunk;
+                while (!stopped && (chunk = nextChunk.getAndIncrement()) * CHUNK_SIZE < recordsCount) {
+
+                    SplittableRandom random = new SplittableRandom(chunkSeed(seed, chunk));
+                    long lastRecord = Math.min((chunk + 1) * CHUNK_SIZE, recordsCount);
+
+                    for (long recordIndex = chunk * CHUNK_SIZE; recordIndex < lastRecord && !stopped; recordIndex++) {
+
+                        if (addRecord(loader, statement, random, recordIndex) && loader.getRowCount() >= batchSize) {
+
+                            uncommitted = execute(loader, uncommitted);
+                            if (uncommitted >= commitAfter) {
+                                loader.commit();
+                                uncommitted = 0;
+                            }
+                        }
+                    }
+                }
+
+                if (!stopped && loader.getRowCount() > 0)
+                    execute(loader, uncommitted);
+
+                loader.commit();
+            }
+
+        } catch (SQLException e) {
+            failed(e);
+
+        } catch (Exception e) {
+            failed(new SQLException(e));
+
+        } finally {
+            close(partConnection);
+        }
+    }
+
+    /**
+     * @return false if the values of the record can't be generated
+     */
+    private boolean addRecord(BulkLoader loader, PreparedStatement statement, SplittableRandom random, long recordIndex)
+            throws SQLException {
+
+        try {
+            for (int i = 0; i < generators.length; i++)
+                generators[i].setValue(statement, i + 1, random, recordIndex);
+
+        } catch (SQLException | RuntimeException e) {
+
+            processedCount.incrementAndGet();
+            errorCount.incrementAndGet();
+            errorListener.accept(e.getMessage());
+
+            if (stopOnError)
+                failed(e instanceof SQLException ? (SQLException) e : new SQLException(e.getMessage(), e));
+
+            return false;
+        }
+
+        loader.addRow();
+        return true;
+    }
+
+    /**
+     * @param uncommitted the number of the records inserted by the previous batches and not committed yet
+     * @return the number of the records inserted and not committed after the execution
+     */
+    private long execute(BulkLoader loader, long uncommitted) throws SQLException {
+
+        int rowCount = loader.getRowCount();
+        try {
+
+            BulkLoader.Result result = loader.execute();
+            int success = result.getSuccessCount();
+
+            processedCount.addAndGet(rowCount);
+            successCount.addAndGet(success);
+            errorCount.addAndGet(rowCount - success);
+
+            if (success < rowCount) {
+
+                String message = result.getFirstError();
+                errorListener.accept(message);
+
+                if (stopOnError) {
+                    rollback(loader, uncommitted + success);
+                    failed(new SQLException(message));
+                    return 0;
+                }
+            }
+
+            return uncommitted + success;
+
+        } catch (SQLException e) {
+
+            processedCount.addAndGet(rowCount);
+            errorCount.addAndGet(rowCount);
+            errorListener.accept(e.getMessage());
+            rollback(loader, uncommitted);
+
+            if (stopOnError)
+                failed(e);
+
+            return 0;
+        }
+    }
+
+    /**
+     * Rolls back the records not committed yet, they are counted as failed.
+     */
+    private void rollback(BulkLoader loader, long uncommitted) throws SQLException {
+
+        successCount.addAndGet(-uncommitted);
+        errorCount.addAndGet(uncommitted);
+        loader.rollback();
+    }
+
+    /**
+     * Returns the seed of the chunk random numbers.
+     * <p>
+     * The seed is mixed, since the seeds differing by the multiple of the <code>SplittableRandom</code> gamma
+     * produce the shifted copies of the same random numbers.
+     */
+    private static long chunkSeed(long seed, long chunk) {
+        return mix64(mix64(seed) + chunk);
+    }
+
+    /**
+     * The 64-bit finalizer of the MurmurHash3 (variant 13).
+     */
+    private static long mix64(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private synchronized void failed(SQLException e) {
+
+        if (error == null) {
+            error = e;
+            Log.error("Test data generation stopped: " + e.getMessage(), e);
+        }
+
+        stopped = true;
+    }
+
+    private static void close(Connection connection) {
+
+        if (connection == null)
+            return;
+
+        try {
+            connection.rollback();
+            if (connection instanceof PooledConnection)
+                ((PooledConnection) connection).setCloseOnReturn(true);
+            connection.close();
+
+        } catch (SQLException e) {
+            Log.debug("Error closing generator connection: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.executequery.gui.browser.generatortestdata;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of the column values created once from the method settings.
+ * <p>
+ * The generator is shared by all the generating threads, so it keeps no state:
+ * the value depends only on the random numbers of the calling thread
+ * and the index of the record.
+ */
+@FunctionalInterface
+public interface ValueGenerator {
+
+    /**
+     * Sets the generated value of the record to the statement parameter.
+     */
+    void setValue(PreparedStatement statement, int parameterIndex, SplittableRandom random, long recordIndex)
+            throws SQLException;
+
+    /**
+     * Returns the generator setting NULL to the parameter for one of ten records.
+     */
+    static ValueGenerator nullable(ValueGenerator generator, int sqlType) {
+        return (statement, parameterIndex, random, recordIndex) -> {
+
+            if (random.nextInt(10) == 0)
+                statement.setNull(parameterIndex, sqlType);
+            else
+                generator.setValue(statement, parameterIndex, random, recordIndex);
+        };
+    }
+
+    /**
+     * Returns the generator setting NULL to the parameter for every record.
+     */
+    static ValueGenerator nullValue(int sqlType) {
+        return (statement, parameterIndex, random, recordIndex) -> statement.setNull(parameterIndex, sqlType);
+    }
+
+}
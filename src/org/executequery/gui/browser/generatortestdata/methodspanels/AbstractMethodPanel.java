@@ -3,19 +3,28 @@ package org.executequery.gui.browser.generatortestdata.methodspanels;
 import org.executequery.databaseobjects.DatabaseColumn;
 import org.executequery.databaseobjects.T;
 import org.executequery.gui.browser.GeneratorTestDataPanel;
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
 import org.executequery.localization.Bundles;
+import org.underworldlabs.jdbc.DataSourceException;
 
 import javax.swing.*;
+import java.util.SplittableRandom;
 
 public abstract class AbstractMethodPanel extends JPanel {
     protected DatabaseColumn col;
-    protected boolean first = true;
 
     public AbstractMethodPanel(DatabaseColumn col) {
         this.col = col;
     }
 
-    public abstract Object getTestDataObject();
+    /**
+     * Creates the generator of the column values from the current settings.
+     *
+     * @param setupRandom the random numbers seeded by the generation seed for the values
+     *                    chosen once when the generator is created
+     * @throws DataSourceException if the settings are invalid
+     */
+    public abstract ValueGenerator createValueGenerator(SplittableRandom setupRandom);
 
     protected static boolean isNumeric(String dataType) {
         return dataType.contentEquals(T.BIGINT)
@@ -84,8 +93,26 @@ public abstract class AbstractMethodPanel extends JPanel {
         return dataType.contains(T.BOOLEAN);
     }
 
-    public void setFirst(boolean first) {
-        this.first = first;
+    /**
+     * Returns the random value from <code>min</code> inclusive to <code>max</code> exclusive,
+     * <code>max</code> if the bounds are equal.
+     */
+    protected static long nextLong(SplittableRandom random, long min, long max) {
+
+        if (max <= min)
+            return max;
+
+        long diapason = max - min;
+        if (diapason > 0)
+            return min + random.nextLong(diapason);
+
+        // the diapason is wider than Long.MAX_VALUE
+        long value;
+        do {
+            value = random.nextLong();
+        } while (value < min || value >= max);
+
+        return value;
     }
 
     protected String bundleString(String key) {
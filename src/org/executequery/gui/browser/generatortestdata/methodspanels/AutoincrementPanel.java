@@ -2,7 +2,9 @@ package org.executequery.gui.browser.generatortestdata.methodspanels;
 
 import com.github.lgooddatepicker.components.DatePicker;
 import org.executequery.databaseobjects.DatabaseColumn;
+import org.executequery.databaseobjects.T;
 import org.executequery.gui.WidgetFactory;
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
 import org.underworldlabs.swing.*;
 import org.underworldlabs.swing.celleditor.picker.TimestampPicker;
 import org.underworldlabs.swing.celleditor.picker.ZonedTimestampPicker;
@@ -13,12 +15,14 @@ import org.underworldlabs.swing.layouts.GridBagHelper;
 import javax.swing.*;
 import java.awt.*;
 import java.math.BigInteger;
-import java.sql.Date;
-import java.sql.Timestamp;
 import java.time.*;
+import java.util.SplittableRandom;
 
 public class AutoincrementPanel extends AbstractMethodPanel {
 
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
     private JPanel settingsPanel;
     private JTextField iterationField;
     private JTextField startValueField;
@@ -35,12 +39,6 @@ public class AutoincrementPanel extends AbstractMethodPanel {
     private NumberTextField iterationDays;
     private TimePicker iterationTime;
 
-    private long currentInteger;
-    private double currentDouble;
-    private BigInteger currentBigint;
-    private LocalDateTime currentLocalDateTime;
-    private OffsetDateTime currentOffsetDateTime;
-
     public AutoincrementPanel(DatabaseColumn col) {
         super(col);
         init();
@@ -247,205 +245,155 @@ public class AutoincrementPanel extends AbstractMethodPanel {
 
     // ---
 
-    private BigInteger getBigintValue(boolean increment) {
+    private ValueGenerator createBigintGenerator(String dataType, int sign) {
+
+        BigInteger start = new BigInteger(startValueField.getText());
+        BigInteger iteration = new BigInteger(iterationField.getText());
 
-        if (first) {
-            first = false;
-            currentBigint = new BigInteger(startValueField.getText());
-            return currentBigint;
+        if (dataType.contentEquals(T.BIGINT)) {
+            long startValue = start.longValue();
+            long step = iteration.longValue() * sign;
+            return (statement, index, random, recordIndex) -> statement.setLong(index, Math.addExact(startValue, Math.multiplyExact(recordIndex, step)));
         }
 
-        BigInteger iterationBig = new BigInteger(iterationField.getText());
-        currentBigint = increment ? currentBigint.add(iterationBig) : currentBigint.subtract(iterationBig);
-        return currentBigint;
+        BigInteger step = sign > 0 ? iteration : iteration.negate();
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, start.add(step.multiply(BigInteger.valueOf(recordIndex))));
     }
 
-    private int getIntegerValue(String dataType, boolean increment) {
+    private ValueGenerator createIntegerGenerator(String dataType, int sign) {
 
-        if (first) {
-            first = false;
-            currentInteger = Long.parseLong(startValueField.getText());
-            return isSmallint(dataType) ? (short) currentInteger : (int) currentInteger;
-        }
+        long start = Long.parseLong(startValueField.getText());
+        long step = Long.parseLong(iterationField.getText()) * sign;
+
+        if (isSmallint(dataType))
+            return (statement, index, random, recordIndex) -> statement.setShort(index, toShortExact(start, step, recordIndex));
 
-        currentInteger += Long.parseLong(iterationField.getText()) * (increment ? 1 : -1);
-        return isSmallint(dataType) ? (short) currentInteger : (int) currentInteger;
+        return (statement, index, random, recordIndex) ->
+                statement.setInt(index, Math.toIntExact(Math.addExact(start, Math.multiplyExact(recordIndex, step))));
     }
 
-    private double getDecimalValue(boolean increment) {
+    private ValueGenerator createDecimalGenerator(int sign) {
 
-        if (first) {
-            first = false;
-            currentDouble = Double.parseDouble(startValueField.getText());
-            return currentDouble;
-        }
+        double start = Double.parseDouble(startValueField.getText());
+        double step = Double.parseDouble(iterationField.getText()) * sign;
 
-        currentDouble += Double.parseDouble(iterationField.getText()) * (increment ? 1 : -1);
-        return currentDouble;
+        return (statement, index, random, recordIndex) -> statement.setDouble(index, start + recordIndex * step);
     }
 
-    private LocalDate getDateValue(boolean increment) {
+    private ValueGenerator createDateGenerator(int sign) {
 
-        if (first) {
-            first = false;
-            currentLocalDateTime = LocalDateTime.of(startDate.getDate(), LocalTime.of(0, 0, 0));
-            return currentLocalDateTime.toLocalDate();
-        }
-
-        if (increment) {
-            currentLocalDateTime = currentLocalDateTime.plusYears(iterationYears.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusMonths(iterationMouths.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusDays(iterationDays.getValue());
-        } else {
-            currentLocalDateTime = currentLocalDateTime.minusYears(iterationYears.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusMonths(iterationMouths.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusDays(iterationDays.getValue());
-        }
+        LocalDate start = startDate.getDate();
+        long years = (long) iterationYears.getValue() * sign;
+        long months = (long) iterationMouths.getValue() * sign;
+        long days = (long) iterationDays.getValue() * sign;
 
-        return new Date(Timestamp.valueOf(currentLocalDateTime).getTime()).toLocalDate();
+        return (statement, index, random, recordIndex) -> statement.setObject(index, start
+                .plusYears(Math.multiplyExact(years, recordIndex))
+                .plusMonths(Math.multiplyExact(months, recordIndex))
+                .plusDays(Math.multiplyExact(days, recordIndex)));
     }
 
-    private LocalTime getTimeValue(boolean increment) {
+    private ValueGenerator createTimeGenerator(int sign) {
 
-        if (first) {
-            first = false;
-            currentLocalDateTime = startTime.getLocalTime().atDate(LocalDate.of(1970, 1, 1));
-            return currentLocalDateTime.toLocalTime();
-        }
-
-        LocalTime iteration = iterationTime.getLocalTime();
-        if (increment) {
-            currentLocalDateTime = currentLocalDateTime.plusHours(iteration.getHour());
-            currentLocalDateTime = currentLocalDateTime.plusMinutes(iteration.getMinute());
-            currentLocalDateTime = currentLocalDateTime.plusSeconds(iteration.getSecond());
-            currentLocalDateTime = currentLocalDateTime.plusNanos(iteration.getNano());
-        } else {
-            currentLocalDateTime = currentLocalDateTime.minusHours(iteration.getHour());
-            currentLocalDateTime = currentLocalDateTime.minusMinutes(iteration.getMinute());
-            currentLocalDateTime = currentLocalDateTime.minusSeconds(iteration.getSecond());
-            currentLocalDateTime = currentLocalDateTime.minusNanos(iteration.getNano());
-        }
+        LocalTime start = startTime.getLocalTime();
+        long step = iterationTime.getLocalTime().toNanoOfDay() * sign;
 
-        return currentLocalDateTime.toLocalTime();
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, start.plusNanos(nanoOfDayOffset(step, recordIndex)));
     }
 
-    private LocalDateTime getTimestampValue(boolean increment) {
+    private ValueGenerator createTimestampGenerator(int sign) {
 
-        if (first) {
-            first = false;
-            currentLocalDateTime = startTimestamp.getDateTime();
-            return currentLocalDateTime;
-        }
-
-        LocalTime iteration = iterationTime.getLocalTime();
-        if (increment) {
-            currentLocalDateTime = currentLocalDateTime.plusYears(iterationYears.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusMonths(iterationMouths.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusDays(iterationDays.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusHours(iteration.getHour());
-            currentLocalDateTime = currentLocalDateTime.plusMinutes(iteration.getMinute());
-            currentLocalDateTime = currentLocalDateTime.plusSeconds(iteration.getSecond());
-            currentLocalDateTime = currentLocalDateTime.plusNanos(iteration.getNano());
-        } else {
-            currentLocalDateTime = currentLocalDateTime.minusYears(iterationYears.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusMonths(iterationMouths.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusDays(iterationDays.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusHours(iteration.getHour());
-            currentLocalDateTime = currentLocalDateTime.minusMinutes(iteration.getMinute());
-            currentLocalDateTime = currentLocalDateTime.minusSeconds(iteration.getSecond());
-            currentLocalDateTime = currentLocalDateTime.minusNanos(iteration.getNano());
-        }
+        LocalDateTime start = startTimestamp.getDateTime();
+        long years = (long) iterationYears.getValue() * sign;
+        long months = (long) iterationMouths.getValue() * sign;
+        long days = (long) iterationDays.getValue() * sign;
+        long nanos = iterationTime.getLocalTime().toNanoOfDay() * sign;
 
-        return currentLocalDateTime;
+        return (statement, index, random, recordIndex) -> statement.setObject(index, start
+                .plusYears(Math.multiplyExact(years, recordIndex))
+                .plusMonths(Math.multiplyExact(months, recordIndex))
+                .plusDays(Math.multiplyExact(days, recordIndex))
+                .plus(Duration.ofNanos(nanos).multipliedBy(recordIndex)));
     }
 
-    private OffsetTime getZonedTimeValue(boolean increment) {
+    private ValueGenerator createZonedTimeGenerator(int sign) {
 
-        if (first) {
-            first = false;
-            currentOffsetDateTime = startZonedTime.getOffsetTime().atDate(LocalDate.of(1970, 1, 1));
-            return currentOffsetDateTime.toOffsetTime();
-        }
+        OffsetTime start = startZonedTime.getOffsetTime();
+        long step = iterationTime.getLocalTime().toNanoOfDay() * sign;
 
-        LocalTime iteration = iterationTime.getLocalTime();
-        if (increment) {
-            currentOffsetDateTime = currentOffsetDateTime.plusHours(iteration.getHour());
-            currentOffsetDateTime = currentOffsetDateTime.plusMinutes(iteration.getMinute());
-            currentOffsetDateTime = currentOffsetDateTime.plusSeconds(iteration.getSecond());
-            currentOffsetDateTime = currentOffsetDateTime.plusNanos(iteration.getNano());
-        } else {
-            currentOffsetDateTime = currentOffsetDateTime.minusHours(iteration.getHour());
-            currentOffsetDateTime = currentOffsetDateTime.minusMinutes(iteration.getMinute());
-            currentOffsetDateTime = currentOffsetDateTime.minusSeconds(iteration.getSecond());
-            currentOffsetDateTime = currentOffsetDateTime.minusNanos(iteration.getNano());
-        }
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, start.plusNanos(nanoOfDayOffset(step, recordIndex)));
+    }
 
-        return currentOffsetDateTime.toOffsetTime();
+    private ValueGenerator createZonedTimestampGenerator(int sign) {
+
+        OffsetDateTime start = startZonedTimestamp.getOffsetDateTime();
+        long years = (long) iterationYears.getValue() * sign;
+        long months = (long) iterationMouths.getValue() * sign;
+        long days = (long) iterationDays.getValue() * sign;
+        long nanos = iterationTime.getLocalTime().toNanoOfDay() * sign;
+
+        return (statement, index, random, recordIndex) -> statement.setObject(index, start
+                .plusYears(Math.multiplyExact(years, recordIndex))
+                .plusMonths(Math.multiplyExact(months, recordIndex))
+                .plusDays(Math.multiplyExact(days, recordIndex))
+                .plus(Duration.ofNanos(nanos).multipliedBy(recordIndex)));
     }
 
-    private OffsetDateTime getZonedTimestampValue(boolean increment) {
+    private static short toShortExact(long start, long step, long recordIndex) {
 
-        if (first) {
-            first = false;
-            currentOffsetDateTime = startZonedTimestamp.getOffsetDateTime();
-            return currentOffsetDateTime;
-        }
+        long value = Math.addExact(start, Math.multiplyExact(recordIndex, step));
+        if (value != (short) value)
+            throw new ArithmeticException("smallint overflow");
 
-        LocalTime iteration = iterationTime.getLocalTime();
-        if (increment) {
-            currentLocalDateTime = currentLocalDateTime.plusYears(iterationYears.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusMonths(iterationMouths.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusDays(iterationDays.getValue());
-            currentLocalDateTime = currentLocalDateTime.plusHours(iteration.getHour());
-            currentLocalDateTime = currentLocalDateTime.plusMinutes(iteration.getMinute());
-            currentLocalDateTime = currentLocalDateTime.plusSeconds(iteration.getSecond());
-            currentLocalDateTime = currentLocalDateTime.plusNanos(iteration.getNano());
-        } else {
-            currentLocalDateTime = currentLocalDateTime.minusYears(iterationYears.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusMonths(iterationMouths.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusDays(iterationDays.getValue());
-            currentLocalDateTime = currentLocalDateTime.minusHours(iteration.getHour());
-            currentLocalDateTime = currentLocalDateTime.minusMinutes(iteration.getMinute());
-            currentLocalDateTime = currentLocalDateTime.minusSeconds(iteration.getSecond());
-            currentLocalDateTime = currentLocalDateTime.minusNanos(iteration.getNano());
-        }
+        return (short) value;
+    }
+
+    /**
+     * Returns the time offset of the record within the day,
+     * the total offset is computed by the <code>Duration</code>, so it doesn't overflow the nanoseconds.
+     */
+    private static long nanoOfDayOffset(long stepNanos, long recordIndex) {
 
-        return currentOffsetDateTime;
+        Duration offset = Duration.ofNanos(stepNanos).multipliedBy(recordIndex);
+        return Math.floorMod(offset.getSeconds(), SECONDS_PER_DAY) * NANOS_PER_SECOND + offset.getNano();
     }
 
     // --- AbstractMethodPanel impl ---
 
     @Override
-    public Object getTestDataObject() {
+    public ValueGenerator createValueGenerator(SplittableRandom setupRandom) {
 
         String dataType = col.getFormattedDataType();
-        boolean increment = incrementsCombo.getSelectedIndex() == 0;
+        int sign = incrementsCombo.getSelectedIndex() == 0 ? 1 : -1;
 
         if (isBigint(dataType)) {
-            return getBigintValue(increment);
+            return createBigintGenerator(dataType, sign);
 
         } else if (isSmallint(dataType) || isInteger(dataType)) {
-            return getIntegerValue(dataType, increment);
+            return createIntegerGenerator(dataType, sign);
 
         } else if (isDecimal(dataType) || isDecFloat(dataType)) {
-            return getDecimalValue(increment);
+            return createDecimalGenerator(sign);
 
         } else if (isDate(dataType)) {
-            return getDateValue(increment);
+            return createDateGenerator(sign);
 
         } else if (isTime(dataType)) {
-            return getTimeValue(increment);
+            return createTimeGenerator(sign);
 
         } else if (isTimestamp(dataType)) {
-            return getTimestampValue(increment);
+            return createTimestampGenerator(sign);
 
         } else if (isZonedTime(dataType)) {
-            return getZonedTimeValue(increment);
+            return createZonedTimeGenerator(sign);
 
         } else if (isZonedTimestamp(dataType))
-            return getZonedTimestampValue(increment);
+            return createZonedTimestampGenerator(sign);
 
-        return null;
+        return ValueGenerator.nullValue(col.getTypeInt());
     }
 
 }
@@ -3,6 +3,7 @@ package org.executequery.gui.browser.generatortestdata.methodspanels;
 import org.executequery.databaseobjects.DatabaseColumn;
 import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.browser.GeneratorTestDataPanel;
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
 import org.executequery.gui.text.SimpleTextArea;
 import org.executequery.localization.Bundles;
 import org.executequery.log.Log;
@@ -16,19 +17,19 @@ import javax.swing.text.PlainDocument;
 import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Date;
+import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.regex.Pattern;
 
 public class GetFromListPanel extends AbstractMethodPanel {
@@ -44,7 +45,6 @@ public class GetFromListPanel extends AbstractMethodPanel {
     private JComboBox<?> ordersCombo;
     private JComboBox<?> sourcesCombo;
 
-    private int index;
     private String[] dataArray;
     private Object[] listObject;
     private final String dataType;
@@ -218,12 +218,7 @@ public class GetFromListPanel extends AbstractMethodPanel {
             return OffsetDateTime.parse(str);
 
         } else if (isBlob(dataType)) {
-            try {
-                return new FileInputStream(str);
-
-            } catch (FileNotFoundException e) {
-                Log.error(e.getMessage(), e);
-            }
+            return Paths.get(str);
 
         } else if (isBoolean(dataType))
             return Boolean.valueOf(str);
@@ -238,22 +233,30 @@ public class GetFromListPanel extends AbstractMethodPanel {
     // --- AbstractMethodPanel impl ---
 
     @Override
-    public Object getTestDataObject() {
+    public ValueGenerator createValueGenerator(SplittableRandom setupRandom) {
 
-        if (first) {
-            initDataList();
-            first = false;
-            index = 0;
-        }
+        initDataList();
+        if (listObject.length == 0)
+            throw new DataSourceException("The list of values is empty.");
+
+        Object[] values = listObject;
+        boolean inOrder = ordersCombo.getSelectedIndex() == 0;
+
+        if (isBlob(dataType)) {
+            return (statement, index, random, recordIndex) -> {
 
-        if (index >= dataArray.length)
-            index = 0;
+                Path path = (Path) values[inOrder ? (int) (recordIndex % values.length) : random.nextInt(values.length)];
+                try {
+                    statement.setBytes(index, Files.readAllBytes(path));
 
-        if (ordersCombo.getSelectedIndex() == 1)
-            index = new Random().nextInt(dataArray.length);
+                } catch (IOException e) {
+                    throw new SQLException("Error reading file " + path, e);
+                }
+            };
+        }
 
-        index++;
-        return listObject[index - 1];
+        return (statement, index, random, recordIndex) -> statement.setObject(index,
+                values[inOrder ? (int) (recordIndex % values.length) : random.nextInt(values.length)]);
     }
 
     // ---
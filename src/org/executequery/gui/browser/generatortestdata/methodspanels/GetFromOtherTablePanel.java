@@ -6,9 +6,11 @@ import org.executequery.databaseobjects.DatabaseColumn;
 import org.executequery.databaseobjects.DatabaseHost;
 import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.browser.ConnectionsTreePanel;
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
 import org.executequery.gui.browser.nodes.DatabaseObjectNode;
 import org.executequery.log.Log;
 import org.executequery.sql.SqlStatementResult;
+import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.swing.DynamicComboBoxModel;
 import org.underworldlabs.swing.NumberTextField;
 import org.underworldlabs.swing.layouts.GridBagHelper;
@@ -16,27 +18,32 @@ import org.underworldlabs.swing.layouts.GridBagHelper;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ItemEvent;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.*;
 import java.util.List;
 
 public class GetFromOtherTablePanel extends AbstractMethodPanel {
 
+    private static final int FETCH_SIZE = 1000;
+    private static final int PROBE_ROUNDS = 4;
+
     private JComboBox<?> tablesCombo;
     private JComboBox<?> columnsCombo;
     private NumberTextField recordsCountField;
     private JCheckBox useFirstNRecordsCheck;
+    private NumberTextField sampleSizeField;
+    private JCheckBox uniqueCheck;
     private DynamicComboBoxModel columnsModel;
 
-    private final Random random;
-    private final List<Object> objList;
     private final DefaultStatementExecutor executor;
 
     public GetFromOtherTablePanel(DatabaseColumn col, DefaultStatementExecutor executor) {
         super(col);
-        this.random = new Random();
-        this.objList = new ArrayList<>();
         this.executor = new DefaultStatementExecutor(executor.getDatabaseConnection());
 
         init();
@@ -62,6 +69,13 @@ public class GetFromOtherTablePanel extends AbstractMethodPanel {
         recordsCountField.setEnableNegativeNumbers(false);
         recordsCountField.setEnabled(false);
 
+        sampleSizeField = WidgetFactory.createNumberTextField("sampleSizeField", "10000");
+        sampleSizeField.setEnableNegativeNumbers(false);
+        sampleSizeField.setToolTipText(bundleString("SampleSizeToolTip"));
+
+        uniqueCheck = WidgetFactory.createCheckBox("uniqueCheck", bundleString("UniqueValues"));
+        uniqueCheck.setToolTipText(bundleString("UniqueValuesToolTip"));
+
         // --- arrange ---
 
         JPanel mainPanel = new JPanel(new GridBagLayout());
@@ -74,6 +88,9 @@ public class GetFromOtherTablePanel extends AbstractMethodPanel {
         mainPanel.add(useFirstNRecordsCheck, gbh.nextRowFirstCol().leftGap(0).spanX().get());
         mainPanel.add(recordsCountLabel, gbh.nextRowFirstCol().setWidth(1).leftGap(3).topGap(8).setMinWeightX().get());
         mainPanel.add(recordsCountField, gbh.nextCol().topGap(5).leftGap(5).setMaxWeightX().get());
+        mainPanel.add(new JLabel(bundleString("SampleSize")), gbh.nextRowFirstCol().leftGap(3).topGap(8).setMinWeightX().get());
+        mainPanel.add(sampleSizeField, gbh.nextCol().topGap(5).leftGap(5).setMaxWeightX().get());
+        mainPanel.add(uniqueCheck, gbh.nextRowFirstCol().leftGap(0).spanX().get());
         mainPanel.add(new JPanel(), gbh.nextRowFirstCol().fillBoth().spanX().spanY().get());
 
         setLayout(new GridBagLayout());
@@ -124,17 +141,16 @@ public class GetFromOtherTablePanel extends AbstractMethodPanel {
         return new ArrayList<>();
     }
 
-    private String getQuery() {
+    private String getTableName() {
+        return (String) tablesCombo.getSelectedItem();
+    }
+
+    private String getColumnName() {
         Object selectedColumn = columnsCombo.getSelectedItem();
 
-        String tableName = (String) tablesCombo.getSelectedItem();
-        String columnName = selectedColumn instanceof DatabaseColumn ?
+        return selectedColumn instanceof DatabaseColumn ?
                 ((DatabaseColumn) selectedColumn).getName() :
                 (String) columnsCombo.getModel().getElementAt(columnsCombo.getSelectedIndex());
-
-        return useFirstNRecordsCheck.isSelected() ?
-                String.format("SELECT FIRST %d %s FROM %s", recordsCountField.getValue(), columnName, tableName) :
-                String.format("SELECT %s FROM %s", columnName, tableName);
     }
 
     private void tablesComboTriggered(ItemEvent e) {
@@ -145,27 +161,283 @@ public class GetFromOtherTablePanel extends AbstractMethodPanel {
     // --- AbstractMethodPanel impl ---
 
     @Override
-    public Object getTestDataObject() {
+    public ValueGenerator createValueGenerator(SplittableRandom setupRandom) {
+
+        int sampleSize = sampleSizeField.getValue();
+        if (sampleSize < 1)
+            throw new DataSourceException("Sample size of column \"" + col.getName() + "\" must be greater than 0");
+
+        boolean unique = uniqueCheck.isSelected();
+        String tableName = getTableName();
+        String columnName = getColumnName();
+
+        try {
+
+            if (unique && !useFirstNRecordsCheck.isSelected()) {
+
+                KeyBitmap bitmap = loadKeyBitmap(tableName, columnName);
+                if (bitmap != null) {
+
+                    if (bitmap.size() == 0)
+                        throw new DataSourceException("No values found for column \"" + col.getName() + "\"");
+
+                    return bitmap.createValueGenerator(setupRandom);
+                }
+            }
+
+            KeySample sample = sampleKeys(tableName, columnName, sampleSize, unique, setupRandom);
+            if (sample.size() == 0)
+                throw new DataSourceException("No values found for column \"" + col.getName() + "\"");
+
+            return sample.createValueGenerator(unique);
+
+        } catch (SQLException e) {
+            throw new DataSourceException(e);
+
+        } finally {
+            executor.releaseResources();
+        }
+    }
+
+    // --- key sampling ---
+
+    /**
+     * Loads all the keys of the integer column to the bitmap over the keys range
+     * for the unique values of any number of records.
+     * <p>
+     * Every key has to be known to use each key once, so the column is read by the single full scan.
+     * Only the bounds are found by the index probes.
+     *
+     * @return the bitmap or null if the column is not integer or its keys range is too wide for the bitmap
+     */
+    private KeyBitmap loadKeyBitmap(String tableName, String columnName) throws SQLException {
+
+        Connection connection = executor.getPreparedConnection();
+        if (connection == null)
+            return null;
+
+        long[] bounds = getKeyBounds(connection, tableName, columnName, isIndexed(connection, tableName, columnName));
+        if (bounds == null || !KeyBitmap.fits(bounds[0], bounds[1]))
+            return null;
+
+        KeyBitmap bitmap = new KeyBitmap(bounds[0], bounds[1]);
+        try (Statement statement = connection.createStatement()) {
+
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = statement.executeQuery(
+                    String.format("SELECT %s FROM %s WHERE %s IS NOT NULL", columnName, tableName, columnName))) {
 
-        if (first) {
-            try {
-                String query = getQuery();
-                ResultSet rs = executor.getResultSet(query).getResultSet();
                 while (rs.next())
-                    objList.add(rs.getObject(1));
+                    bitmap.add(rs.getLong(1));
+            }
+        }
+
+        bitmap.index();
+        return bitmap;
+    }
+
+    /**
+     * Samples the keys of the referenced column.
+     * <p>
+     * The integer column with an ascending index is sampled by the index probes, so the table is not scanned.
+     * Otherwise the column is streamed and sampled by the reservoir.
+     * The sample is bounded by the sample size in both cases, so the unique values
+     * taken from the sample are limited by the sample size.
+     */
+    private KeySample sampleKeys(String tableName, String columnName, int sampleSize, boolean unique, SplittableRandom random)
+            throws SQLException {
+
+        if (!useFirstNRecordsCheck.isSelected()) {
+
+            Connection connection = executor.getPreparedConnection();
+            if (connection != null && isIndexed(connection, tableName, columnName)) {
+
+                long[] bounds = getKeyBounds(connection, tableName, columnName, true);
+                if (bounds != null)
+                    return probeKeys(connection, tableName, columnName, bounds[0], bounds[1], sampleSize, unique, random);
+            }
+        }
+
+        return scanKeys(tableName, columnName, sampleSize, unique, random);
+    }
+
+    private KeySample scanKeys(String tableName, String columnName, int sampleSize, boolean unique, SplittableRandom random)
+            throws SQLException {
+
+        String query = useFirstNRecordsCheck.isSelected() ?
+                String.format("SELECT FIRST %d %s FROM %s WHERE %s IS NOT NULL", recordsCountField.getValue(), columnName, tableName, columnName) :
+                String.format("SELECT %s FROM %s WHERE %s IS NOT NULL", columnName, tableName, columnName);
+
+        SqlStatementResult result = executor.getResultSet(query, FETCH_SIZE);
+        if (result.isException())
+            throw result.getSqlException();
+
+        ResultSet rs = result.getResultSet();
+        KeySample sample = new KeySample(sampleSize, isIntegral(rs.getMetaData().getColumnType(1)), random);
+        while (rs.next()) {
+
+            int slot = sample.nextSlot();
+            if (slot < 0)
+                continue;
+
+            if (sample.isIntegral())
+                sample.set(slot, rs.getLong(1));
+            else
+                sample.set(slot, rs.getObject(1));
+        }
+
+        if (unique)
+            sample.distinct();
+
+        return sample;
+    }
+
+    /**
+     * Samples the keys by the probes of the random values within the keys range,
+     * every probe takes the first key not less than the random value using the index.
+     * The keys following the wide gaps are taken more often.
+     */
+    private KeySample probeKeys(Connection connection, String tableName, String columnName, long min, long max,
+                                int sampleSize, boolean unique, SplittableRandom random) throws SQLException {
+
+        KeySample sample = new KeySample(sampleSize, true, random);
+        try (PreparedStatement statement = prepareProbe(connection, tableName, columnName)) {
+
+            if (unique && max - min >= 0 && max - min < sampleSize) {
+
+                // the keys range is narrower than the sample, so take all the distinct keys in order
+                Long key = min;
+                while (key != null && !sample.isFull()) {
+                    sample.add(key);
+                    key = key < max ? probe(statement, key + 1) : null;
+                }
+
+                return sample;
+            }
+
+            for (int round = 0; round < PROBE_ROUNDS && !sample.isFull(); round++) {
 
-            } catch (SQLException e) {
-                Log.error(e.getMessage(), e);
+                int sampledCount = sample.size();
+                while (!sample.isFull()) {
+
+                    Long key = probe(statement, nextLong(random, min, max));
+                    if (key != null)
+                        sample.add(key);
+                }
+
+                if (unique)
+                    sample.distinct();
+
+                if (sample.size() == sampledCount)
+                    break;
+            }
+        }
+
+        return sample;
+    }
+
+    /**
+     * Returns the least and the greatest keys of the integer column.
+     * The greatest key of the indexed column is found by the index probes.
+     *
+     * @return the bounds or null if the column is not integer or has no values
+     */
+    private static long[] getKeyBounds(Connection connection, String tableName, String columnName, boolean indexed)
+            throws SQLException {
+
+        long min;
+        long upperBound;
+        try (PreparedStatement statement = connection.prepareStatement(
+                String.format("SELECT MIN(%s) FROM %s", columnName, tableName));
+             ResultSet rs = statement.executeQuery()) {
+
+            if (!rs.next() || rs.getObject(1) == null)
                 return null;
 
-            } finally {
-                executor.releaseResources();
+            int columnType = rs.getMetaData().getColumnType(1);
+            if (!isIntegral(columnType))
+                return null;
+
+            min = rs.getLong(1);
+            upperBound = columnType == Types.SMALLINT ? Short.MAX_VALUE :
+                    columnType == Types.INTEGER ? Integer.MAX_VALUE :
+                            Long.MAX_VALUE;
+        }
+
+        if (indexed) {
+            try (PreparedStatement statement = prepareProbe(connection, tableName, columnName)) {
+                return new long[]{min, findMaxKey(statement, min, upperBound)};
             }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                String.format("SELECT MAX(%s) FROM %s", columnName, tableName));
+             ResultSet rs = statement.executeQuery()) {
+
+            return rs.next() ? new long[]{min, rs.getLong(1)} : null;
+        }
+    }
+
+    private static PreparedStatement prepareProbe(Connection connection, String tableName, String columnName)
+            throws SQLException {
+
+        return connection.prepareStatement(String.format(
+                "SELECT FIRST 1 %s FROM %s WHERE %s >= ? ORDER BY %s", columnName, tableName, columnName, columnName));
+    }
+
+    /**
+     * Finds the greatest key by the binary search over the index probes,
+     * so the descending index is not required.
+     */
+    private static long findMaxKey(PreparedStatement statement, long min, long upperBound) throws SQLException {
+
+        long low = min;
+        long high = upperBound;
+        while (low < high) {
+
+            long middle = high - ((high - low) >>> 1);
+            Long key = probe(statement, middle);
+            if (key != null)
+                low = key;
+            else
+                high = middle - 1;
+        }
 
-            first = false;
+        return low;
+    }
+
+    /**
+     * @return the first key not less than the value or null if there is no such key
+     */
+    private static Long probe(PreparedStatement statement, long value) throws SQLException {
+
+        statement.setLong(1, value);
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : null;
         }
+    }
+
+    private static boolean isIndexed(Connection connection, String tableName, String columnName) throws SQLException {
+
+        String query = "SELECT 1\n" +
+                "FROM RDB$INDICES I\n" +
+                "JOIN RDB$INDEX_SEGMENTS S ON S.RDB$INDEX_NAME = I.RDB$INDEX_NAME\n" +
+                "WHERE I.RDB$RELATION_NAME = ? AND S.RDB$FIELD_NAME = ? AND S.RDB$FIELD_POSITION = 0\n" +
+                "AND (I.RDB$INDEX_INACTIVE IS NULL OR I.RDB$INDEX_INACTIVE = 0)\n" +
+                "AND (I.RDB$INDEX_TYPE IS NULL OR I.RDB$INDEX_TYPE = 0)";
+
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, tableName);
+            statement.setString(2, columnName);
+
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
 
-        return objList.get(random.nextInt(objList.size()));
+    private static boolean isIntegral(int sqlType) {
+        return sqlType == Types.SMALLINT || sqlType == Types.INTEGER || sqlType == Types.BIGINT;
     }
 
 }
@@ -0,0 +1,190 @@
+package org.executequery.gui.browser.generatortestdata.methodspanels;
+
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
+
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+/**
+ * All the integer keys of the referenced column kept as the bitmap over the keys range.
+ * <p>
+ * The bitmap takes one bit for every value of the range, so the keys are used
+ * without replacement without keeping them in an array. The record takes the key
+ * with the rank given by the seeded permutation of its index, so every key is used
+ * once, the generator keeps no state and the same seed selects the same keys.
+ */
+class KeyBitmap {
+
+    /**
+     * The widest keys range kept by the bitmap, 128 MB of bits.
+     */
+    private static final long MAX_RANGE = 1L << 30;
+
+    private static final int BLOCK_WORDS = 64;
+    private static final int ROUNDS = 4;
+
+    private final long min;
+    private final long max;
+    private final long[] words;
+
+    private int[] blockRanks;
+    private int size;
+
+    KeyBitmap(long min, long max) {
+        this.min = min;
+        this.max = max;
+        this.words = new long[(int) ((max - min + 64) >>> 6)];
+    }
+
+    /**
+     * @return true if the keys range is narrow enough for the bitmap
+     */
+    static boolean fits(long min, long max) {
+        return max - min >= 0 && max - min < MAX_RANGE;
+    }
+
+    /**
+     * Adds the key, the keys out of the range are ignored.
+     */
+    void add(long key) {
+
+        if (key < min || key > max)
+            return;
+
+        long offset = key - min;
+        words[(int) (offset >>> 6)] |= 1L << offset;
+    }
+
+    /**
+     * Counts the keys, must be called after all the keys are added.
+     */
+    void index() {
+
+        blockRanks = new int[(words.length + BLOCK_WORDS - 1) / BLOCK_WORDS];
+
+        int rank = 0;
+        for (int i = 0; i < words.length; i++) {
+
+            if (i % BLOCK_WORDS == 0)
+                blockRanks[i / BLOCK_WORDS] = rank;
+
+            rank += Long.bitCount(words[i]);
+        }
+
+        size = rank;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param random the random numbers of the permutation keys
+     */
+    ValueGenerator createValueGenerator(SplittableRandom random) {
+
+        int keyCount = size;
+        Permutation permutation = new Permutation(keyCount, random);
+
+        return (statement, index, recordRandom, recordIndex) -> {
+
+            if (recordIndex >= keyCount)
+                throw new SQLException("Only " + keyCount + " distinct keys are found, each key is used once");
+
+            statement.setLong(index, select(permutation.get((int) recordIndex)));
+        };
+    }
+
+    /**
+     * @return the key with the specified rank
+     */
+    private long select(int rank) {
+
+        int low = 0;
+        int high = blockRanks.length - 1;
+        while (low < high) {
+
+            int middle = (low + high + 1) >>> 1;
+            if (blockRanks[middle] <= rank)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+
+        int remaining = rank - blockRanks[low];
+        for (int i = low * BLOCK_WORDS; i < words.length; i++) {
+
+            long word = words[i];
+            int count = Long.bitCount(word);
+            if (remaining < count) {
+
+                for (; remaining > 0; remaining--)
+                    word &= word - 1;
+
+                return min + ((long) i << 6) + Long.numberOfTrailingZeros(word);
+            }
+
+            remaining -= count;
+        }
+
+        throw new IllegalArgumentException("Key rank is out of range: " + rank);
+    }
+
+    /**
+     * Seeded bijection of [0, n) by the Feistel network over the next even power of two,
+     * the values out of the range are permuted again.
+     */
+    private static class Permutation {
+
+        private final int size;
+        private final int halfBits;
+        private final long halfMask;
+        private final long[] roundKeys;
+
+        Permutation(int size, SplittableRandom random) {
+
+            this.size = size;
+
+            int bits = Math.max(64 - Long.numberOfLeadingZeros(Math.max(size - 1, 1)), 2);
+            this.halfBits = (bits + 1) / 2;
+            this.halfMask = (1L << halfBits) - 1;
+
+            this.roundKeys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++)
+                roundKeys[i] = random.nextLong();
+        }
+
+        int get(int index) {
+
+            long value = index;
+            do {
+                value = encrypt(value);
+            } while (value >= size);
+
+            return (int) value;
+        }
+
+        private long encrypt(long value) {
+
+            long left = value >>> halfBits;
+            long right = value & halfMask;
+            for (long roundKey : roundKeys) {
+
+                long next = left ^ round(right, roundKey);
+                left = right;
+                right = next;
+            }
+
+            return (left << halfBits) | right;
+        }
+
+        private long round(long value, long roundKey) {
+
+            long hash = (value ^ roundKey) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+            return hash & halfMask;
+        }
+
+    } // Permutation class
+
+}
@@ -0,0 +1,204 @@
+package org.executequery.gui.browser.generatortestdata.methodspanels;
+
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Bounded sample of the keys of the referenced table.
+ * <p>
+ * Integer keys are kept in a <code>long</code> array, other keys in an object array.
+ * The sample never holds more keys than its capacity whatever the size of the referenced table,
+ * the streamed keys are sampled by the reservoir sampling (algorithm L), which skips
+ * the most of the rows without reading their values.
+ */
+class KeySample {
+
+    private final int capacity;
+    private final boolean integral;
+    private final SplittableRandom random;
+
+    private long[] longKeys;
+    private Object[] keys;
+    private int size;
+
+    private long seen;
+    private long nextReplaced;
+    private double weight;
+
+    KeySample(int capacity, boolean integral, SplittableRandom random) {
+        this.capacity = capacity;
+        this.integral = integral;
+        this.random = random;
+
+        if (integral)
+            longKeys = new long[capacity];
+        else
+            keys = new Object[capacity];
+    }
+
+    boolean isIntegral() {
+        return integral;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Registers the next key of the stream.
+     *
+     * @return the slot the key has to be put to by <code>set</code> or -1 if the key is skipped
+     */
+    int nextSlot() {
+
+        long index = seen++;
+        if (index < capacity) {
+
+            size++;
+            if (size == capacity) {
+                weight = Math.exp(Math.log(nextDouble()) / capacity);
+                nextReplaced = nextReplaced(index);
+            }
+
+            return (int) index;
+        }
+
+        if (index < nextReplaced)
+            return -1;
+
+        weight *= Math.exp(Math.log(nextDouble()) / capacity);
+        nextReplaced = nextReplaced(index);
+
+        return random.nextInt(capacity);
+    }
+
+    void set(int slot, long key) {
+        longKeys[slot] = key;
+    }
+
+    void set(int slot, Object key) {
+        keys[slot] = key;
+    }
+
+    /**
+     * Appends the key if the sample is not full.
+     */
+    void add(long key) {
+        if (size < capacity)
+            longKeys[size++] = key;
+    }
+
+    /**
+     * Removes the repeated keys from the sample.
+     */
+    void distinct() {
+
+        if (integral) {
+
+            Arrays.sort(longKeys, 0, size);
+
+            int distinctSize = 0;
+            for (int i = 0; i < size; i++)
+                if (distinctSize == 0 || longKeys[distinctSize - 1] != longKeys[i])
+                    longKeys[distinctSize++] = longKeys[i];
+
+            size = distinctSize;
+
+        } else {
+
+            Set<Object> distinctKeys = new LinkedHashSet<>(Arrays.asList(keys).subList(0, size));
+            Arrays.fill(keys, null);
+            distinctKeys.toArray(keys);
+            size = distinctKeys.size();
+        }
+    }
+
+    /**
+     * Returns the generator picking the keys of the sample.
+     * <p>
+     * Without replacement the sample is shuffled once and the record takes the key with its own index,
+     * so no key is used twice and the generator keeps no state.
+     *
+     * @param withoutReplacement true to use every key of the sample at most once
+     */
+    ValueGenerator createValueGenerator(boolean withoutReplacement) {
+
+        int sampleSize = size;
+        if (!withoutReplacement) {
+
+            if (integral) {
+                long[] values = Arrays.copyOf(longKeys, sampleSize);
+                return (statement, index, random, recordIndex) ->
+                        statement.setLong(index, values[random.nextInt(sampleSize)]);
+            }
+
+            Object[] values = Arrays.copyOf(keys, sampleSize);
+            return (statement, index, random, recordIndex) ->
+                    statement.setObject(index, values[random.nextInt(sampleSize)]);
+        }
+
+        shuffle();
+
+        if (integral) {
+            long[] values = Arrays.copyOf(longKeys, sampleSize);
+            return (statement, index, random, recordIndex) ->
+                    statement.setLong(index, values[checkedIndex(recordIndex, sampleSize)]);
+        }
+
+        Object[] values = Arrays.copyOf(keys, sampleSize);
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, values[checkedIndex(recordIndex, sampleSize)]);
+    }
+
+    private void shuffle() {
+
+        for (int i = size - 1; i > 0; i--) {
+
+            int j = random.nextInt(i + 1);
+            if (integral) {
+                long key = longKeys[i];
+                longKeys[i] = longKeys[j];
+                longKeys[j] = key;
+
+            } else {
+                Object key = keys[i];
+                keys[i] = keys[j];
+                keys[j] = key;
+            }
+        }
+    }
+
+    private long nextReplaced(long index) {
+
+        double skip = Math.floor(Math.log(nextDouble()) / Math.log(1 - weight));
+        if (Double.isNaN(skip) || skip >= Long.MAX_VALUE - index - 1)
+            return Long.MAX_VALUE;
+
+        return index + (long) skip + 1;
+    }
+
+    /**
+     * @return the random number within (0, 1]
+     */
+    private double nextDouble() {
+        return 1 - random.nextDouble();
+    }
+
+    private static int checkedIndex(long recordIndex, int sampleSize) throws SQLException {
+
+        if (recordIndex >= sampleSize)
+            throw new SQLException("Only " + sampleSize + " distinct keys are sampled, increase the sample size");
+
+        return (int) recordIndex;
+    }
+
+}
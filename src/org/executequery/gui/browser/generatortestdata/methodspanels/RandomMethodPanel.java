@@ -1,10 +1,10 @@
 package org.executequery.gui.browser.generatortestdata.methodspanels;
 
 import com.github.lgooddatepicker.components.DatePicker;
-import org.apache.commons.lang.RandomStringUtils;
 import org.executequery.databaseobjects.DatabaseColumn;
 import org.executequery.databaseobjects.T;
 import org.executequery.gui.WidgetFactory;
+import org.executequery.gui.browser.generatortestdata.ValueGenerator;
 import org.executequery.gui.text.SimpleTextArea;
 import org.executequery.log.Log;
 import org.underworldlabs.jdbc.DataSourceException;
@@ -27,6 +27,10 @@ import java.util.List;
 
 public class RandomMethodPanel extends AbstractMethodPanel {
 
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    private static final char[] ALPHANUMERIC_SYMBOLS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
     private JCheckBox useNullCheck;
     private JPanel settingsPanel;
 
@@ -314,147 +318,128 @@ public class RandomMethodPanel extends AbstractMethodPanel {
 
     // ---
 
-    private BigInteger getBigintValue() {
-        BigInteger diapason;
-        BigInteger zero = new BigInteger("0");
+    private ValueGenerator createBigintGenerator(String dataType) {
 
         BigInteger min = new BigInteger(minField.getText());
         BigInteger max = new BigInteger(maxField.getText());
         checkDiapason(max.compareTo(min) < 0);
 
-        BigInteger value = new BigInteger(62, new Random());
-        if (min.compareTo(zero) < 0 && max.compareTo(zero) > 0) {
-
-            int x = new Random().nextInt() % 2;
-            if (x == 0) {
-                diapason = min.multiply(new BigInteger("-1"));
-                value = value.mod(diapason).multiply(new BigInteger("-1"));
-            } else {
-                diapason = max;
-                value = value.mod(diapason);
-            }
-
-        } else {
-            diapason = max.subtract(min);
-            value = min.add(value.mod(diapason));
+        if (dataType.contentEquals(T.BIGINT)) {
+            long minValue = min.longValue();
+            long maxValue = max.longValue();
+            return (statement, index, random, recordIndex) -> statement.setLong(index, nextLong(random, minValue, maxValue));
         }
 
-        return value;
+        BigInteger diapason = max.subtract(min);
+        if (diapason.signum() == 0)
+            return (statement, index, random, recordIndex) -> statement.setObject(index, max);
+
+        return (statement, index, random, recordIndex) -> {
+            BigInteger value = BigInteger.valueOf(random.nextLong() >>> 1).shiftLeft(63).or(BigInteger.valueOf(random.nextLong() >>> 1));
+            statement.setObject(index, min.add(value.mod(diapason)));
+        };
     }
 
-    private int getIntegerValue(String dataType) {
+    private ValueGenerator createIntegerGenerator(String dataType) {
 
         long max = maxField.getValue();
         long min = minField.getValue();
         checkDiapason(min, max);
 
-        long value = getRandomValue(max, min);
-        return dataType.contentEquals(T.SMALLINT) ? (short) value : (int) value;
+        if (isSmallint(dataType))
+            return (statement, index, random, recordIndex) -> statement.setShort(index, (short) nextLong(random, min, max));
+
+        return (statement, index, random, recordIndex) -> statement.setInt(index, (int) nextLong(random, min, max));
     }
 
-    private Double getDecimalValue() {
-        long power = (long) Math.pow(10, symbolsAfterComma.getLongValue());
+    private ValueGenerator createDecimalGenerator() {
 
+        long power = (long) Math.pow(10, symbolsAfterComma.getLongValue());
         long max = Long.parseLong(maxField.getText()) * power;
         long min = Long.parseLong(minField.getText()) * power;
         checkDiapason(min, max);
 
-        long value = getRandomValue(max, min);
-        return ((double) value) / ((double) power);
+        return (statement, index, random, recordIndex) -> statement.setDouble(index, (double) nextLong(random, min, max) / power);
     }
 
-    private String getCharValue() {
+    private ValueGenerator createCharGenerator() {
 
         long max = maxField.getLongValue() + 1;
         long min = minField.getLongValue();
         checkDiapason(min, max);
 
-        StringBuilder value = new StringBuilder();
-        long valueLength = getRandomValue(max, min);
-        String encoding = charsetCombo != null ? (String) charsetCombo.getSelectedItem() : null;
-
-        if (useSelectedCharsetCheck.isSelected()) {
+        char[] symbols = useSelectedCharsetCheck.isSelected() ?
+                useSelectedCharsetField.getTextAreaComponent().getText().toCharArray() :
+                ALPHANUMERIC_SYMBOLS;
+        checkSymbols(symbols.length == 0);
 
-            String charset = useSelectedCharsetField.getTextAreaComponent().getText();
-            int length = charset.length();
+        String encoding = charsetCombo != null && !useSelectedCharsetCheck.isSelected() ? (String) charsetCombo.getSelectedItem() : null;
+        Charset charset = !MiscUtils.isNull(encoding) && !Objects.equals(encoding, "NONE") ? Charset.forName(encoding) : null;
 
-            for (int i = 0; i < valueLength; i++) {
-                int x = new Random().nextInt(length);
-                value.append(charset.charAt(x));
-            }
+        return (statement, index, random, recordIndex) -> {
 
-        } else {
-
-            String randomString = RandomStringUtils.random((int) valueLength, true, true);
-            if (!MiscUtils.isNull(encoding) && !Objects.equals(encoding, "NONE"))
-                randomString = new String(randomString.getBytes(), Charset.forName(encoding));
+            char[] value = new char[(int) nextLong(random, min, max)];
+            for (int i = 0; i < value.length; i++)
+                value[i] = symbols[random.nextInt(symbols.length)];
 
-            value.append(randomString);
-        }
-
-        return value.toString();
+            String string = new String(value);
+            statement.setString(index, charset != null ? new String(string.getBytes(), charset) : string);
+        };
     }
 
-    private LocalDate getDateValue() {
+    private ValueGenerator createDateGenerator() {
 
         long max = maxDate.getDate().toEpochDay();
         long min = minDate.getDate().toEpochDay();
         checkDiapason(min, max);
 
-        long value = getRandomValue(max, min);
-        return LocalDate.ofEpochDay(value);
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, LocalDate.ofEpochDay(nextLong(random, min, max)));
     }
 
-    private LocalTime getTimeValue() {
-
-        long max = maxTime.getLocalTime().atDate(LocalDate.of(1970, 1, 1))
-                .toInstant(ZoneId.of(ZoneId.systemDefault().getId()).getRules().getOffset(Instant.now()))
-                .toEpochMilli();
-
-        long min = minTime.getLocalTime().atDate(LocalDate.of(1970, 1, 1))
-                .toInstant(ZoneId.of(ZoneId.systemDefault().getId()).getRules().getOffset(Instant.now()))
-                .toEpochMilli();
+    private ValueGenerator createTimeGenerator() {
 
+        long max = maxTime.getLocalTime().toNanoOfDay() / NANOS_PER_MILLI;
+        long min = minTime.getLocalTime().toNanoOfDay() / NANOS_PER_MILLI;
         checkDiapason(min, max);
 
-        long value = getRandomValue(max, min);
-        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneId.systemDefault());
-        return dateTime.toLocalTime();
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, LocalTime.ofNanoOfDay(nextLong(random, min, max) * NANOS_PER_MILLI));
     }
 
-    private LocalDateTime getTimestampValue() {
-        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.now());
+    private ValueGenerator createTimestampGenerator() {
 
-        long max = maxDateTime.getDateTime().toInstant(offset).toEpochMilli();
-        long min = minDateTime.getDateTime().toInstant(offset).toEpochMilli();
+        long max = maxDateTime.getDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long min = minDateTime.getDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
         checkDiapason(min, max);
 
-        long value = getRandomValue(max, min);
-        return LocalDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneId.systemDefault());
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, LocalDateTime.ofInstant(Instant.ofEpochMilli(nextLong(random, min, max)), ZoneOffset.UTC));
     }
 
-    private OffsetTime getZonedTimeValue() {
+    private ValueGenerator createZonedTimeGenerator() {
 
         long max = maxTimezone.getOffsetTime().atDate(LocalDate.of(1970, 1, 1)).toInstant().toEpochMilli();
         long min = minTimezone.getOffsetTime().atDate(LocalDate.of(1970, 1, 1)).toInstant().toEpochMilli();
         checkDiapason(min, max);
 
-        long value = getRandomValue(max, min);
-        OffsetDateTime dateTime = OffsetDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneId.systemDefault());
-        return dateTime.toOffsetTime();
+        ZoneId zone = ZoneId.systemDefault();
+        return (statement, index, random, recordIndex) -> statement.setObject(index,
+                OffsetDateTime.ofInstant(Instant.ofEpochMilli(nextLong(random, min, max)), zone).toOffsetTime());
     }
 
-    private OffsetDateTime getZonedTimestamp() {
+    private ValueGenerator createZonedTimestampGenerator() {
 
         long max = maxDateTimezone.getOffsetDateTime().toInstant().toEpochMilli();
         long min = minDateTimezone.getOffsetDateTime().toInstant().toEpochMilli();
         checkDiapason(min, max);
 
-        long value = getRandomValue(max, min);
-        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneId.systemDefault());
+        ZoneId zone = ZoneId.systemDefault();
+        return (statement, index, random, recordIndex) ->
+                statement.setObject(index, OffsetDateTime.ofInstant(Instant.ofEpochMilli(nextLong(random, min, max)), zone));
     }
 
-    private byte[] getBlobValue() {
+    private ValueGenerator createBlobGenerator() {
 
         int maxLength = maxField.getValue() + 1;
         int minLength = minField.getValue();
@@ -464,16 +449,18 @@ public class RandomMethodPanel extends AbstractMethodPanel {
         int min = ((NumberTextField) minByteField).getValue();
         checkDiapason(min, max);
 
-        int valueLength = (int) getRandomValue(maxLength, minLength);
-        byte[] bytes = new byte[valueLength];
-        for (int i = 0; i < valueLength; i++)
-            bytes[i] = (byte) getRandomValue(max, min);
+        return (statement, index, random, recordIndex) -> {
 
-        return bytes;
+            byte[] bytes = new byte[(int) nextLong(random, minLength, maxLength)];
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = (byte) nextLong(random, min, max);
+
+            statement.setBytes(index, bytes);
+        };
     }
 
-    private static boolean getBooleanValue() {
-        return new Random().nextInt(2) == 1;
+    private static ValueGenerator createBooleanGenerator() {
+        return (statement, index, random, recordIndex) -> statement.setBoolean(index, random.nextBoolean());
     }
 
     // ---
@@ -496,15 +483,6 @@ public class RandomMethodPanel extends AbstractMethodPanel {
         return charsets;
     }
 
-    private static long getRandomValue(long max, long min) {
-
-        long diapason = max - min;
-        if (diapason == 0)
-            return max;
-
-        return min + Math.abs(new Random().nextLong()) % diapason;
-    }
-
     private void checkDiapason(long min, long max) throws DataSourceException {
         checkDiapason(min > max);
     }
@@ -514,49 +492,56 @@ public class RandomMethodPanel extends AbstractMethodPanel {
             throw new DataSourceException("minimum greater than maximum for column \"" + col.getName() + "\"");
     }
 
+    private void checkSymbols(boolean isEmpty) throws DataSourceException {
+        if (isEmpty)
+            throw new DataSourceException("no symbols to generate values for column \"" + col.getName() + "\"");
+    }
+
     // --- AbstractMethodPanel impl ---
 
     @Override
-    public Object getTestDataObject() {
+    public ValueGenerator createValueGenerator(SplittableRandom setupRandom) {
 
-        if (useNullCheck.isSelected() && new Random().nextInt(10) == 0)
-            return null;
+        ValueGenerator generator = null;
 
         String dataType = col.getFormattedDataType();
         if (isBigint(dataType)) {
-            return getBigintValue();
+            generator = createBigintGenerator(dataType);
 
         } else if (isSmallint(dataType) || isInteger(dataType)) {
-            return getIntegerValue(dataType);
+            generator = createIntegerGenerator(dataType);
 
         } else if (isDecimal(dataType) || isDecFloat(dataType)) {
-            return getDecimalValue();
+            generator = createDecimalGenerator();
 
         } else if (isChar(dataType)) {
-            return getCharValue();
+            generator = createCharGenerator();
 
         } else if (isDate(dataType)) {
-            return getDateValue();
+            generator = createDateGenerator();
 
         } else if (isTime(dataType)) {
-            return getTimeValue();
+            generator = createTimeGenerator();
 
         } else if (isTimestamp(dataType)) {
-            return getTimestampValue();
+            generator = createTimestampGenerator();
 
         } else if (isZonedTime(dataType)) {
-            return getZonedTimeValue();
+            generator = createZonedTimeGenerator();
 
         } else if (isZonedTimestamp(dataType)) {
-            return getZonedTimestamp();
+            generator = createZonedTimestampGenerator();
 
         } else if (isBlob(dataType)) {
-            return getBlobValue();
+            generator = createBlobGenerator();
 
         } else if (isBoolean(dataType))
-            return getBooleanValue();
+            generator = createBooleanGenerator();
+
+        if (generator == null)
+            return ValueGenerator.nullValue(col.getTypeInt());
 
-        return null;
+        return useNullCheck.isSelected() ? ValueGenerator.nullable(generator, col.getTypeInt()) : generator;
     }
 
 }
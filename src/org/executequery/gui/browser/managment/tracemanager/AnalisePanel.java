@@ -3,6 +3,7 @@ package org.executequery.gui.browser.managment.tracemanager;
 import org.executequery.GUIUtilities;
 import org.executequery.gui.BaseDialog;
 import org.executequery.gui.LoggingOutputPanel;
+import org.executequery.gui.browser.managment.tracemanager.net.AnaliseEvents;
 import org.executequery.gui.browser.managment.tracemanager.net.AnaliseRow;
 import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
 import org.executequery.gui.editor.SimpleDataItemViewerPanel;
@@ -23,15 +24,54 @@ import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.*;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.executequery.gui.browser.managment.tracemanager.net.AnaliseRow.*;
 
 public class AnalisePanel extends JPanel {
+
+    private static final int REFRESH_DELAY = 500;
+
     List<AnaliseRow> rows;
 
+    /**
+     * Summaries of the analysed messages, the rows are rebuilt from them
+     * without reading the messages again
+     */
+    private final AnaliseEvents events = new AnaliseEvents();
+
+    /**
+     * Index of the first message not added to the {@link #events}
+     */
+    private int nextMessage;
+
+    /**
+     * Rows by the grouping key of their events, see {@link #getRowKey(int)}
+     */
+    private final Map<Object, Integer> rowIndexes = new HashMap<>();
+
+    /**
+     * Real-time rows not shown in the table yet and changed rows
+     * to be refreshed by the timer
+     */
+    private final List<AnaliseRow> addedRows = new ArrayList<>();
+    private final BitSet updatedRows = new BitSet();
+    private Timer refreshTimer;
+
+    private Set<String> selectedTypes;
+    private int filterLength;
+    private long startTime;
+    private long endTime;
+
     List<String> headers;
     List<LogMessage> messages;
     JTable table;
@@ -160,7 +200,11 @@ public class AnalisePanel extends JPanel {
 
     }
 
-    public void setMessages(List<LogMessage> messages) {
+    public synchronized void setMessages(List<LogMessage> messages) {
+        if (this.messages != messages) {
+            events.clear();
+            nextMessage = 0;
+        }
         this.messages = messages;
         if (messages.size() > 0) {
             int index = 0;
@@ -180,53 +224,117 @@ public class AnalisePanel extends JPanel {
         }
     }
 
-    public void addMessage(LogMessage logMessage, boolean realTime) {
+    /**
+     * Adds the summaries of the messages appended to the messages list since the previous call.
+     * The real-time messages are shown at once, others are shown by the next {@link #rebuildRows()}.
+     */
+    public synchronized void messagesAdded(boolean realTime) {
         if (rows == null)
             rows = new ArrayList<>();
-        checkLogMessage(logMessage, realTime);
+        int first = events.size();
+        addEvents();
+        if (realTime)
+            for (int event = first; event < events.size(); event++)
+                checkEvent(event, true);
     }
 
-    void checkLogMessage(LogMessage msg, boolean realTime) {
-        boolean added = false;
-        if (msg.getTimestamp() == null)
-            return;
-        if (!typesPanel.getSelectedValues().contains(msg.getTypeEvent()))
+    private void addEvents() {
+        if (messages.size() < nextMessage) {
+            events.clear();
+            nextMessage = 0;
+        }
+        for (; nextMessage < messages.size(); nextMessage++)
+            events.add(nextMessage, messages.get(nextMessage));
+    }
+
+    void checkEvent(int event, boolean realTime) {
+        if (!selectedTypes.contains(events.getTypeEvent(event)))
             return;
         if (!realTime) {
-            int compareIndex = msg.getTimestamp().toLocalDateTime().compareTo(startTimePicker.getDateTime());
-            if (compareIndex < 0)
-                return;
-            compareIndex = msg.getTimestamp().toLocalDateTime().compareTo(endTimePicker.getDateTime());
-            if (compareIndex > 0)
+            long timestamp = events.getTimestamp(event);
+            if (timestamp < startTime || timestamp > endTime)
                 return;
         }
-        for (AnaliseRow row : rows) {
-            if (msg.getStatementText() != null && row.getLogMessage().getStatementText() != null && row.getLogMessage().getStatementText().contentEquals(msg.getStatementText()) && msg.getTypeEvent().contentEquals(row.getLogMessage().getTypeEvent())) {
-                row.addMessage(msg);
-                added = true;
-                break;
-            }
-            if (msg.getProcedureName() != null && row.getLogMessage().getProcedureName() != null && row.getLogMessage().getProcedureName().contentEquals(msg.getProcedureName()) && msg.getTypeEvent().contentEquals(row.getLogMessage().getTypeEvent())) {
-                row.addMessage(msg);
-                added = true;
-                break;
+
+        Object key = getRowKey(event);
+        Integer index = rowIndexes.get(key);
+        if (index != null) {
+            getRow(index).addEvent(events, event);
+            if (realTime && index < rows.size())
+                updatedRows.set(index);
+
+        } else {
+            AnaliseRow row = new AnaliseRow();
+            row.addEvent(events, event);
+            if (realTime) {
+                rowIndexes.put(key, rows.size() + addedRows.size());
+                addedRows.add(row);
+            } else {
+                rowIndexes.put(key, rows.size());
+                rows.add(row);
             }
+        }
 
-            if (msg.getStatementText() != null && row.getLogMessage().getStatementText() != null && filterCheckBox.isSelected() && msg.getStatementText().length() > numberSymbolsField.getValue() && row.getLogMessage().getStatementText().length() > numberSymbolsField.getValue())
-                if (row.getLogMessage().getStatementText().startsWith(msg.getStatementText().substring(0, numberSymbolsField.getValue()))) {
-                    row.addMessage(msg);
-                    added = true;
-                    break;
-                }
+        if (realTime && !refreshTimer.isRunning())
+            refreshTimer.start();
+    }
 
+    /**
+     * Returns the key of the row to add the event to.
+     * Statements are grouped by the event type and the statement text with the collapsed whitespaces,
+     * or by the first N symbols of that text only if the text filter is enabled and the statement is longer.
+     * Procedures and functions are grouped by the event type and the name.
+     */
+    private Object getRowKey(int event) {
+
+        if (!events.isProcedure(event)) {
+            String statementText = events.getText(event);
+            if (filterLength >= 0 && statementText.length() > filterLength)
+                return "F:" + statementText.substring(0, filterLength);
         }
-        if (!added && (msg.getStatementText() != null || msg.getProcedureName() != null)) {
-            AnaliseRow row = new AnaliseRow();
-            row.addMessage(msg);
-            rows.add(row);
+
+        long procedureFlag = events.isProcedure(event) ? 1L << 32 : 0;
+        return ((long) events.getTypeCode(event) << 33) | procedureFlag | events.getTextCode(event);
+    }
+
+    private AnaliseRow getRow(int index) {
+        return index < rows.size() ? rows.get(index) : addedRows.get(index - rows.size());
+    }
+
+    /**
+     * Shows the real-time rows added and changed since the previous refresh
+     */
+    private synchronized void refreshTable() {
+
+        if (rows == null)
+            return;
+
+        for (int i = updatedRows.nextSetBit(0); i >= 0; i = updatedRows.nextSetBit(i + 1)) {
+            int last = updatedRows.nextClearBit(i) - 1;
+            model.fireTableRowsUpdated(i, last);
+            i = last;
         }
-        if (realTime)
-            model.fireTableDataChanged();
+        updatedRows.clear();
+
+        if (!addedRows.isEmpty()) {
+            int first = rows.size();
+            rows.addAll(addedRows);
+            addedRows.clear();
+            model.fireTableRowsInserted(first, rows.size() - 1);
+        }
+    }
+
+    private void updateSelectedTypes() {
+        selectedTypes = new HashSet<>();
+        for (Object type : typesPanel.getSelectedValues())
+            selectedTypes.add(String.valueOf(type));
+        filterLength = filterCheckBox.isSelected() ? numberSymbolsField.getValue() : -1;
+        startTime = toNanos(startTimePicker.getDateTime(), Long.MIN_VALUE);
+        endTime = toNanos(endTimePicker.getDateTime(), Long.MAX_VALUE);
+    }
+
+    private static long toNanos(LocalDateTime dateTime, long defaultValue) {
+        return dateTime != null ? AnaliseEvents.toNanos(Timestamp.valueOf(dateTime)) : defaultValue;
     }
     AnaliseRow avgRow;
 
@@ -303,6 +411,8 @@ public class AnalisePanel extends JPanel {
             }
         });
         buildHeaders();
+        refreshTimer = new Timer(REFRESH_DELAY, e -> refreshTable());
+        refreshTimer.setRepeats(false);
         table = new JTable(model) {
             public String getToolTipText(MouseEvent e) {
                 java.awt.Point p = e.getPoint();
@@ -369,7 +479,7 @@ public class AnalisePanel extends JPanel {
                     if (row >= 0 && col >= 0) {
                         SimpleRecordDataItem rdi = new SimpleRecordDataItem("Value", 0, "");
                         row = table.getRowSorter().convertRowIndexToModel(row);
-                        rdi.setValue(rows.get(row).getLogMessages());
+                        rdi.setValue(rows.get(row).getLogMessages(messages));
                         BaseDialog dialog = new BaseDialog(Bundles.get("ResultSetTablePopupMenu.RecordDataItemViewer"), true);
                         dialog.addDisplayComponentWithEmptyBorder(
                                 new SimpleDataItemViewerPanel(dialog, rdi));
@@ -384,9 +494,7 @@ public class AnalisePanel extends JPanel {
                 int row = table.getSelectedRow();
                 if (row >= 0) {
                     row = table.getRowSorter().convertRowIndexToModel(row);
-                    if (rows.get(row).getLogMessage().getStatementText() != null)
-                        sqlTextArea.setSQLText(rows.get(row).getLogMessage().getStatementText());
-                    else sqlTextArea.setSQLText(rows.get(row).getLogMessage().getProcedureName());
+                    sqlTextArea.setSQLText(rows.get(row).getText());
                     planPanel.clear();
                     int type = SqlMessages.PLAIN_MESSAGE;
                     if (rows.get(row).countPlans() > 1)
@@ -469,16 +577,20 @@ public class AnalisePanel extends JPanel {
         if (rows == null)
             rows = new ArrayList<>();
         rows.clear();
+        rowIndexes.clear();
+        addedRows.clear();
+        updatedRows.clear();
+        updateSelectedTypes();
         model.fireTableDataChanged();
-        for (LogMessage msg : messages) {
-            checkLogMessage(msg, false);
+        addEvents();
+        for (int event = 0; event < events.size(); event++) {
+            checkEvent(event, false);
         }
         if (rows.size() > 0) {
             AnaliseRow maxRow = new AnaliseRow();
             avgRow = new AnaliseRow();
             sumRow = new AnaliseRow();
             for (AnaliseRow row : rows) {
-                row.calculateValues();
                 for (int i = 0; i < TYPES.length; i++) {
                     for (int g = 0; g < PARAMS.length; g++) {
                         if (row.getValueFromTypeAndParam(i, g).getLongValue() > maxRow.getValueFromTypeAndParam(i, g).getLongValue()) {
@@ -490,8 +602,7 @@ public class AnalisePanel extends JPanel {
             }
             for (int i = 0; i < TYPES.length; i++) {
                 for (int g = 0; g < PARAMS.length; g++) {
-                    if (rows.size() > 0)
-                        avgRow.getValueFromTypeAndParam(i, g).setLongValue(sumRow.getValueFromTypeAndParam(i, g).getLongValue() / rows.size());
+                    avgRow.getValueFromTypeAndParam(i, g).setLongValue(sumRow.getValueFromTypeAndParam(i, g).getLongValue() / rows.size());
                 }
             }
             for (AnaliseRow row : rows) {
@@ -567,9 +678,7 @@ public class AnalisePanel extends JPanel {
             if(rowIndex>=0&&columnIndex>=0) {
                 switch (columnIndex) {
                     case 0:
-                        if (rows.get(rowIndex).getLogMessage().getStatementText() != null)
-                            return rows.get(rowIndex).getLogMessage().getStatementText();
-                        else return rows.get(rowIndex).getLogMessage().getProcedureName();
+                        return rows.get(rowIndex).getText();
                     case 1:
                         return rows.get(rowIndex).getCountAllRows();
                     case 2:
@@ -264,7 +264,7 @@ public class TablePanel extends JPanel {
                 int row = table.getSelectedRow();
                 if (row >= 0) {
                     row = table.getRowSorter().convertRowIndexToModel(row);
-                    txtFieldRawSql.setSQLText(dataModel.getVisibleRows().get(row).getBody());
+                    txtFieldRawSql.setSQLText(dataModel.getMessage(row).getBody());
                     fillTableCounters(row);
                 }
 
@@ -334,7 +334,7 @@ public class TablePanel extends JPanel {
 
     private void fillTableCounters(int row) {
         tableCounterModel.clearAll();
-        LogMessage logMessage = dataModel.getVisibleRows().get(row);
+        LogMessage logMessage = dataModel.getMessage(row);
         String fullBody = logMessage.getTableCounters();
         if (!MiscUtils.isNull(fullBody)) {
             String[] rows = fullBody.split("\n");
@@ -362,12 +362,18 @@ public class TablePanel extends JPanel {
         dataModel.addRow(message);
     }
 
+    public void updateRow(int index) {
+
+        dataModel.updateRow(index);
+    }
+
     public void clearAll() {
         dataModel.clearAll();
         txtFieldRawSql.setSQLText("");
     }
 
     public void cleanup() {
+        dataModel.cleanup();
         txtFieldRawSql.cleanup();
         txtFieldRawSql = null;
     }
@@ -8,17 +8,27 @@ import org.underworldlabs.swing.ListSelectionPanel;
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 
 public class TraceDataModel extends AbstractTableModel {
 
     private List<String> columnNames = new ArrayList<>();
     private List<String> visibleColumnNames = new ArrayList<>();
-    private List<LogMessage> rows = new ArrayList<>();
-    private List<LogMessage> visibleRows = new ArrayList<>();
+    private final TraceEventStore rows = new TraceEventStore();
+    private final List<LogMessage> visibleRows = new VisibleRows();
+
+    /**
+     * Store indexes of the visible rows, <code>null</code> if all the rows are visible
+     */
+    private int[] visibleIndexes;
+    private int visibleCount;
+    private final BitSet highlightedRows = new BitSet();
+
+    private String filterColumn;
+    private String filterText;
+    private boolean filterMatchCase;
+    private boolean filterRows;
     private final JComboBox filterTypeBox;
     private final JComboBox filterColumnBox;
     private final JTextField filterTextField;
@@ -41,41 +51,85 @@ public class TraceDataModel extends AbstractTableModel {
 
         visibleColumnNames = new ArrayList<>();
         visibleColumnNames.addAll(listSelectionPanel.getSelectedValues());
-        visibleRows = new ArrayList<>();
         DynamicComboBoxModel model = (DynamicComboBoxModel) filterColumnBox.getModel();
         Object selectedItem = filterColumnBox.getSelectedItem();
         model.setElements(visibleColumnNames);
         if (visibleColumnNames.contains(selectedItem))
             filterColumnBox.setSelectedItem(selectedItem);
-        for (int i = 0; i < rows.size(); i++) {
-            checkFilterMessage(rows.get(i));
-        }
+
+        filterColumn = (String) filterColumnBox.getSelectedItem();
+        filterMatchCase = matchCaseBox.isSelected();
+        filterText = filterMatchCase ? filterTextField.getText() : filterTextField.getText().toLowerCase();
+        filterRows = filterTypeBox.getSelectedItem() == Filter.FilterType.FILTER;
+
+        visibleIndexes = null;
+        visibleCount = 0;
+        highlightedRows.clear();
+        if (filterColumn != null) {
+
+            if (filterRows && !filterText.isEmpty()) {
+                BitSet found = rows.find(filterColumn, this::matchesFilter);
+                visibleIndexes = new int[Math.max(found.cardinality(), 16)];
+                for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1))
+                    visibleIndexes[visibleCount++] = i;
+
+            } else {
+                if (!filterText.isEmpty())
+                    highlightedRows.or(rows.find(filterColumn, this::matchesFilter));
+                visibleCount = rows.size();
+            }
+
+        } else
+            visibleIndexes = new int[16];
+
         fireTableStructureChanged();
     }
 
-    private void checkFilterMessage(LogMessage message) {
-        String filter = filterTextField.getText();
-        if (filterColumnBox.getSelectedItem() != null) {
-            String field = String.valueOf(message.getFieldOfName((String) filterColumnBox.getSelectedItem()));
-            if (!matchCaseBox.isSelected()) {
-                field = field.toLowerCase();
-                filter = filter.toLowerCase();
-            }
-            if (filterTypeBox.getSelectedItem() == Filter.FilterType.FILTER) {
-                if (field.contains(filter))
-                    visibleRows.add(message);
-                message.setHighlight(false);
+    private boolean matchesFilter(String field) {
+        if (!filterMatchCase)
+            field = field.toLowerCase();
+        return field.contains(filterText);
+    }
+
+    private void checkFilterMessage(LogMessage message, int index) {
+        if (filterColumn != null) {
+            boolean matches = matchesFilter(String.valueOf(message.getFieldOfName(filterColumn)));
+            if (visibleIndexes != null) {
+                if (matches)
+                    addVisibleIndex(index);
             } else {
-                visibleRows.add(message);
-                message.setHighlight(field.contains(filter) && !filter.isEmpty());
+                visibleCount++;
+                if (matches && !filterText.isEmpty())
+                    highlightedRows.set(index);
             }
         }
     }
 
+    private void addVisibleIndex(int index) {
+        if (visibleCount == visibleIndexes.length)
+            visibleIndexes = Arrays.copyOf(visibleIndexes, visibleCount * 2);
+        visibleIndexes[visibleCount++] = index;
+    }
+
+    private int toStoreIndex(int rowIndex) {
+        return visibleIndexes != null ? visibleIndexes[rowIndex] : rowIndex;
+    }
+
+    /**
+     * Returns the message of the visible row
+     */
+    public LogMessage getMessage(int rowIndex) {
+        return rows.get(toStoreIndex(rowIndex));
+    }
+
+    public boolean isHighlighted(int rowIndex) {
+        return highlightedRows.get(toStoreIndex(rowIndex));
+    }
+
 
     @Override
     public int getRowCount() {
-        return visibleRows.size();
+        return visibleCount;
     }
 
     @Override
@@ -111,7 +165,10 @@ public class TraceDataModel extends AbstractTableModel {
     }
 
     public Object getValueAt(final int rowIndex, final String columnName) {
-        return visibleRows.get(rowIndex).getFieldOfName(columnName);
+        int index = toStoreIndex(rowIndex);
+        if (LogConstants.TSTAMP_COLUMN.equals(columnName))
+            return rows.getTimestamp(index);
+        return rows.get(index).getFieldOfName(columnName);
     }
 
     private String visibleColumnNameFromIndex(int i) {
@@ -119,9 +176,55 @@ public class TraceDataModel extends AbstractTableModel {
     }
 
     public void addRow(LogMessage message) {
+        int count = visibleCount;
         rows.add(message);
-        checkFilterMessage(message);
-        fireTableDataChanged();
+        checkFilterMessage(message, rows.size() - 1);
+        if (visibleCount > count)
+            fireTableRowsInserted(count, visibleCount - 1);
+    }
+
+    /**
+     * Applies the changes of the message already added to the store
+     *
+     * @param index store index of the message
+     */
+    public void updateRow(int index) {
+
+        rows.update(index);
+        if (filterColumn == null)
+            return;
+
+        boolean matches = !filterText.isEmpty()
+                && matchesFilter(String.valueOf(rows.get(index).getFieldOfName(filterColumn)));
+
+        if (visibleIndexes == null) {
+            highlightedRows.set(index, matches);
+            fireTableRowsUpdated(index, index);
+            return;
+        }
+
+        int position = Arrays.binarySearch(visibleIndexes, 0, visibleCount, index);
+        if (position >= 0) {
+
+            if (matches) {
+                fireTableRowsUpdated(position, position);
+
+            } else {
+                System.arraycopy(visibleIndexes, position + 1, visibleIndexes, position, visibleCount - position - 1);
+                visibleCount--;
+                fireTableRowsDeleted(position, position);
+            }
+
+        } else if (matches) {
+
+            position = -position - 1;
+            if (visibleCount == visibleIndexes.length)
+                visibleIndexes = Arrays.copyOf(visibleIndexes, visibleCount * 2);
+            System.arraycopy(visibleIndexes, position, visibleIndexes, position + 1, visibleCount - position);
+            visibleIndexes[position] = index;
+            visibleCount++;
+            fireTableRowsInserted(position, position);
+        }
     }
 
     public List<String> getColumnNames() {
@@ -146,6 +249,10 @@ public class TraceDataModel extends AbstractTableModel {
         rebuildModel();
     }
 
+    public void cleanup() {
+        rows.close();
+    }
+
     public void setColumnNames(List<String> columnNames) {
         this.columnNames = columnNames;
     }
@@ -162,15 +269,22 @@ public class TraceDataModel extends AbstractTableModel {
         return rows;
     }
 
-    public void setRows(List<LogMessage> rows) {
-        this.rows = rows;
-    }
-
     public List<LogMessage> getVisibleRows() {
         return visibleRows;
     }
 
-    public void setVisibleRows(List<LogMessage> visibleRows) {
-        this.visibleRows = visibleRows;
-    }
+    private class VisibleRows extends AbstractList<LogMessage> {
+
+        @Override
+        public LogMessage get(int index) {
+            return getMessage(index);
+        }
+
+        @Override
+        public int size() {
+            return getRowCount();
+        }
+
+    } // VisibleRows class
+
 }
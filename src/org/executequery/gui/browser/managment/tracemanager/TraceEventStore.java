@@ -0,0 +1,424 @@
+package org.executequery.gui.browser.managment.tracemanager;
+
+import org.executequery.gui.browser.managment.tracemanager.net.LogMessage;
+import org.executequery.log.Log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Storage of the trace events with the bounded memory usage.
+ * <p>
+ * The latest events are kept in memory, older ones are written to the temporary
+ * append-only file as the event id and the body text, and are parsed again when requested.
+ * The spilled events are read by pages, recently used pages are cached.
+ * <p>
+ * Timestamps, ids and the values of the {@link #INDEXED_COLUMNS} are kept in memory for all the events,
+ * so filtering by these columns doesn't read the file. Other columns are indexed the same way
+ * when they are filtered for the first time, the index is dropped if its distinct values take
+ * more than {@link #MAX_INDEXED_CHARS}, such columns are filtered by reading all the events.
+ */
+public class TraceEventStore extends AbstractList<LogMessage> implements Closeable {
+
+    public static final int DEFAULT_HOT_SIZE = 20_000;
+
+    public static final String[] INDEXED_COLUMNS = {
+            LogConstants.EVENT_TYPE_COLUMN,
+            LogConstants.ID_SESSION_COLUMN,
+            LogConstants.NAME_SESSION_COLUMN,
+            LogConstants.ID_CONNECTION_COLUMN
+    };
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int PAGE_SIZE = 512;
+    private static final int CACHED_PAGES = 16;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long MAX_INDEXED_CHARS = 1 << 22;
+
+    private final int hotSize;
+    private final LogMessage[] hotEvents;
+    private final Map<String, ColumnIndex> indexes;
+    private final Set<String> unindexedColumns;
+    private final Map<Integer, LogMessage[]> pageCache;
+
+    private int size;
+    private int spilledCount;
+    private long[] timestamps;
+    private int[] ids;
+    private long[] offsets;
+
+    private File file;
+    private DataOutputStream output;
+    private RandomAccessFile input;
+    private long fileLength;
+
+    public TraceEventStore() {
+        this(DEFAULT_HOT_SIZE);
+    }
+
+    public TraceEventStore(int hotSize) {
+
+        this.hotSize = hotSize;
+        this.hotEvents = new LogMessage[hotSize];
+        this.timestamps = new long[INITIAL_CAPACITY];
+        this.ids = new int[INITIAL_CAPACITY];
+        this.offsets = new long[INITIAL_CAPACITY];
+
+        this.indexes = new LinkedHashMap<>();
+        this.unindexedColumns = new HashSet<>();
+        createDefaultIndexes();
+
+        this.pageCache = new LinkedHashMap<Integer, LogMessage[]>(CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, LogMessage[]> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+    }
+
+    @Override
+    public synchronized boolean add(LogMessage message) {
+
+        if (size - spilledCount == hotSize)
+            spill();
+
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+
+        timestamps[size] = toNanos(message.getTimestamp());
+        ids[size] = message.getId();
+        for (Iterator<ColumnIndex> i = indexes.values().iterator(); i.hasNext(); ) {
+
+            ColumnIndex index = i.next();
+            if (!index.add(size, message)) {
+                unindexedColumns.add(index.columnName);
+                i.remove();
+            }
+        }
+
+        hotEvents[size % hotSize] = message;
+        size++;
+        modCount++;
+
+        return true;
+    }
+
+    /**
+     * Updates the in-memory timestamp and the indexed column values of the event
+     * changed after it was added. The spilled event is left unchanged.
+     */
+    public synchronized void update(int index) {
+
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        if (index < spilledCount)
+            return;
+
+        LogMessage message = hotEvents[index % hotSize];
+        timestamps[index] = toNanos(message.getTimestamp());
+        ids[index] = message.getId();
+        for (Iterator<ColumnIndex> i = indexes.values().iterator(); i.hasNext(); ) {
+
+            ColumnIndex columnIndex = i.next();
+            if (!columnIndex.add(index, message)) {
+                unindexedColumns.add(columnIndex.columnName);
+                i.remove();
+            }
+        }
+
+        modCount++;
+    }
+
+    @Override
+    public synchronized LogMessage get(int index) {
+
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        if (index >= spilledCount)
+            return hotEvents[index % hotSize];
+
+        int page = index / PAGE_SIZE;
+        int pageIndex = index % PAGE_SIZE;
+
+        LogMessage[] messages = pageCache.get(page);
+        if (messages == null || pageIndex >= messages.length) {
+            messages = readPage(page);
+            pageCache.put(page, messages);
+        }
+
+        return messages[pageIndex];
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+
+        closeFile();
+        Arrays.fill(hotEvents, null);
+        createDefaultIndexes();
+
+        timestamps = new long[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        offsets = new long[INITIAL_CAPACITY];
+        size = 0;
+        spilledCount = 0;
+        modCount++;
+    }
+
+    @Override
+    public synchronized void close() {
+        clear();
+    }
+
+    /**
+     * Returns the timestamp of the event, doesn't read the spilled event.
+     */
+    public synchronized Timestamp getTimestamp(int index) {
+
+        long nanos = timestamps[index];
+        if (nanos == NULL_TIMESTAMP)
+            return null;
+
+        Timestamp timestamp = new Timestamp(Math.floorDiv(nanos, NANOS_PER_SECOND) * 1000);
+        timestamp.setNanos((int) Math.floorMod(nanos, NANOS_PER_SECOND));
+        return timestamp;
+    }
+
+    private static long toNanos(Timestamp timestamp) {
+
+        if (timestamp == null)
+            return NULL_TIMESTAMP;
+
+        return Math.floorDiv(timestamp.getTime(), 1000) * NANOS_PER_SECOND + timestamp.getNanos();
+    }
+
+    /**
+     * Finds the events with the column value accepted by the predicate.
+     * The value is passed as <code>String.valueOf(message.getFieldOfName(columnName))</code>.
+     * <p>
+     * The indexed columns are checked using the in-memory values,
+     * each distinct value is checked once. The column filtered for the first time
+     * is indexed while all the events are read.
+     *
+     * @return indexes of the found events
+     */
+    public synchronized BitSet find(String columnName, Predicate<String> predicate) {
+
+        BitSet found = new BitSet(size);
+
+        if (LogConstants.TSTAMP_COLUMN.equals(columnName)) {
+            for (int i = 0; i < size; i++)
+                if (predicate.test(String.valueOf(getTimestamp(i))))
+                    found.set(i);
+            return found;
+        }
+
+        if (LogConstants.ID_COLUMN.equals(columnName)) {
+            for (int i = 0; i < size; i++)
+                if (predicate.test(String.valueOf(ids[i])))
+                    found.set(i);
+            return found;
+        }
+
+        ColumnIndex index = indexes.get(columnName);
+        if (index != null)
+            return index.find(predicate, size);
+
+        if (!unindexedColumns.contains(columnName))
+            index = new ColumnIndex(columnName);
+
+        for (int i = 0; i < size; i++) {
+
+            String value = String.valueOf(get(i).getFieldOfName(columnName));
+            if (predicate.test(value))
+                found.set(i);
+
+            if (index != null && !index.add(i, value))
+                index = null;
+        }
+
+        if (index != null)
+            indexes.put(columnName, index);
+        else
+            unindexedColumns.add(columnName);
+
+        return found;
+    }
+
+    private void createDefaultIndexes() {
+
+        indexes.clear();
+        unindexedColumns.clear();
+        for (String columnName : INDEXED_COLUMNS)
+            indexes.put(columnName, new ColumnIndex(columnName));
+    }
+
+    private void spill() {
+
+        LogMessage message = hotEvents[spilledCount % hotSize];
+        try {
+
+            if (output == null)
+                openFile();
+
+            if (spilledCount == offsets.length)
+                offsets = Arrays.copyOf(offsets, spilledCount * 2);
+            offsets[spilledCount] = fileLength;
+
+            byte[] body = message.getBody() != null ? message.getBody().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            output.writeInt(message.getId());
+            output.writeInt(body.length);
+            output.write(body);
+            fileLength += Integer.BYTES * 2 + body.length;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing trace events to " + file, e);
+        }
+
+        hotEvents[spilledCount % hotSize] = null;
+        spilledCount++;
+    }
+
+    private LogMessage[] readPage(int page) {
+
+        int first = page * PAGE_SIZE;
+        int last = Math.min(first + PAGE_SIZE, spilledCount);
+        long start = offsets[first];
+        long end = last < spilledCount ? offsets[last] : fileLength;
+
+        try {
+
+            output.flush();
+            byte[] bytes = new byte[(int) (end - start)];
+            input.seek(start);
+            input.readFully(bytes);
+
+            DataInputStream pageInput = new DataInputStream(new ByteArrayInputStream(bytes));
+            LogMessage[] messages = new LogMessage[last - first];
+            for (int i = 0; i < messages.length; i++) {
+
+                int id = pageInput.readInt();
+                byte[] body = new byte[pageInput.readInt()];
+                pageInput.readFully(body);
+
+                messages[i] = new LogMessage(new String(body, StandardCharsets.UTF_8));
+                messages[i].setId(id);
+            }
+
+            return messages;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading trace events from " + file, e);
+        }
+    }
+
+    private void openFile() throws IOException {
+
+        file = File.createTempFile("trace-events-", ".dat");
+        file.deleteOnExit();
+
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        input = new RandomAccessFile(file, "r");
+        fileLength = 0;
+    }
+
+    private void closeFile() {
+
+        pageCache.clear();
+        if (file == null)
+            return;
+
+        try {
+            output.close();
+            input.close();
+
+        } catch (IOException e) {
+            Log.error("Error closing " + file, e);
+
+        } finally {
+            if (!file.delete())
+                Log.debug("Unable to delete " + file);
+
+            file = null;
+            output = null;
+            input = null;
+        }
+    }
+
+    /**
+     * Dictionary encoded column values of all the events.
+     */
+    private static class ColumnIndex {
+
+        private final String columnName;
+        private final Map<String, Integer> codes;
+        private final List<String> values;
+        private int[] rowCodes;
+        private long valuesLength;
+
+        ColumnIndex(String columnName) {
+            this.columnName = columnName;
+            this.codes = new HashMap<>();
+            this.values = new ArrayList<>();
+            this.rowCodes = new int[INITIAL_CAPACITY];
+        }
+
+        boolean add(int row, LogMessage message) {
+            return add(row, String.valueOf(message.getFieldOfName(columnName)));
+        }
+
+        /**
+         * @return false if the distinct values are too long to be kept in memory,
+         * the index is not usable after that
+         */
+        boolean add(int row, String value) {
+
+            Integer code = codes.get(value);
+            if (code == null) {
+
+                valuesLength += value.length();
+                if (valuesLength > MAX_INDEXED_CHARS)
+                    return false;
+
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+
+            if (row == rowCodes.length)
+                rowCodes = Arrays.copyOf(rowCodes, row * 2);
+            rowCodes[row] = code;
+
+            return true;
+        }
+
+        BitSet find(Predicate<String> predicate, int size) {
+
+            BitSet matchedCodes = new BitSet(values.size());
+            for (int i = 0; i < values.size(); i++)
+                if (predicate.test(values.get(i)))
+                    matchedCodes.set(i);
+
+            BitSet found = new BitSet(size);
+            for (int i = 0; i < size; i++)
+                if (matchedCodes.get(rowCodes[i]))
+                    found.set(i);
+
+            return found;
+        }
+
+    } // ColumnIndex class
+
+}
@@ -0,0 +1,246 @@
+package org.executequery.gui.browser.managment.tracemanager.net;
+
+import org.executequery.log.Log;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.executequery.gui.browser.managment.tracemanager.net.AnaliseRow.*;
+
+/**
+ * Compact summaries of the analysed trace events.
+ * <p>
+ * Only the values used by the analysis are kept: the index of the message, the timestamp,
+ * the event type, the statement text or the procedure name, the plan and the counters.
+ * Texts are dictionary encoded, so the rows are regrouped without reading the messages again.
+ */
+public class AnaliseEvents {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Dictionary types = new Dictionary();
+    private final Dictionary statements = new Dictionary();
+    private final Dictionary procedures = new Dictionary();
+    private final Dictionary plans = new Dictionary();
+
+    /**
+     * Statement texts as they were in the first message with the same normalized text
+     */
+    private final List<String> displayStatements = new ArrayList<>();
+
+    private int size;
+    private int[] messageIndexes;
+    private long[] timestamps;
+    private int[] typeCodes;
+    private int[] textCodes;
+    private int[] planCodes;
+    private long[] values;
+
+    public AnaliseEvents() {
+        clear();
+    }
+
+    /**
+     * Adds the summary of the message if the message has the timestamp
+     * and either the statement text or the procedure name.
+     *
+     * @param messageIndex index of the message in the list of all the messages
+     */
+    public void add(int messageIndex, LogMessage msg) {
+
+        if (msg.getTimestamp() == null)
+            return;
+
+        String statementText = msg.getStatementText();
+        if (statementText == null && msg.getProcedureName() == null)
+            return;
+
+        if (size == messageIndexes.length) {
+            int capacity = size * 2;
+            messageIndexes = Arrays.copyOf(messageIndexes, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            textCodes = Arrays.copyOf(textCodes, capacity);
+            planCodes = Arrays.copyOf(planCodes, capacity);
+            values = Arrays.copyOf(values, capacity * TYPES.length);
+        }
+
+        messageIndexes[size] = messageIndex;
+        timestamps[size] = toNanos(msg.getTimestamp());
+        typeCodes[size] = types.code(msg.getTypeEvent());
+
+        if (statementText != null) {
+            int code = statements.code(normalizeStatement(statementText));
+            if (code == displayStatements.size())
+                displayStatements.add(statementText);
+            textCodes[size] = code;
+
+        } else
+            textCodes[size] = -procedures.code(msg.getProcedureName()) - 1;
+
+        planCodes[size] = msg.getPlanText() != null ? plans.code(msg.getPlanText()) : -1;
+
+        for (int type = TIME; type < TYPES.length; type++) {
+
+            Long value = getValueFromType(msg, type);
+            if (value == null) {
+                value = 0L;
+                Log.debug("calculate error for type '" + TYPES[type] + "': trace id = " + msg.getId());
+            }
+            values[size * TYPES.length + type] = value;
+        }
+
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+
+        types.clear();
+        statements.clear();
+        procedures.clear();
+        plans.clear();
+        displayStatements.clear();
+
+        size = 0;
+        messageIndexes = new int[INITIAL_CAPACITY];
+        timestamps = new long[INITIAL_CAPACITY];
+        typeCodes = new int[INITIAL_CAPACITY];
+        textCodes = new int[INITIAL_CAPACITY];
+        planCodes = new int[INITIAL_CAPACITY];
+        values = new long[INITIAL_CAPACITY * TYPES.length];
+    }
+
+    public int getMessageIndex(int event) {
+        return messageIndexes[event];
+    }
+
+    /**
+     * @return the timestamp in nanoseconds, see {@link #toNanos(Timestamp)}
+     */
+    public long getTimestamp(int event) {
+        return timestamps[event];
+    }
+
+    public String getTypeEvent(int event) {
+        return types.value(typeCodes[event]);
+    }
+
+    public int getTypeCode(int event) {
+        return typeCodes[event];
+    }
+
+    public boolean isProcedure(int event) {
+        return textCodes[event] < 0;
+    }
+
+    /**
+     * @return the code of the normalized statement text or of the procedure name,
+     * the codes of the statements and the procedures are independent
+     */
+    public int getTextCode(int event) {
+        return isProcedure(event) ? -textCodes[event] - 1 : textCodes[event];
+    }
+
+    /**
+     * @return the statement text with the collapsed whitespaces or the procedure name
+     */
+    public String getText(int event) {
+        return isProcedure(event) ? procedures.value(getTextCode(event)) : statements.value(getTextCode(event));
+    }
+
+    /**
+     * @return the statement text of the first message with the same normalized text or the procedure name
+     */
+    public String getDisplayText(int event) {
+        return isProcedure(event) ? procedures.value(getTextCode(event)) : displayStatements.get(getTextCode(event));
+    }
+
+    public String getPlanText(int event) {
+        return planCodes[event] >= 0 ? plans.value(planCodes[event]) : null;
+    }
+
+    public long getValue(int event, int type) {
+        return values[event * TYPES.length + type];
+    }
+
+    public static long toNanos(Timestamp timestamp) {
+        return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000_000L + timestamp.getNanos();
+    }
+
+    private static Long getValueFromType(LogMessage msg, int type) {
+        switch (type) {
+            case READ:
+                return msg.getCountReads();
+            case FETCH:
+                return msg.getCountFetches();
+            case WRITE:
+                return msg.getCountWrites();
+            case MARK:
+                return msg.getCountMarks();
+            case RSORT:
+                return msg.getRamCacheMemory();
+            case DSORT:
+                return msg.getDiskCacheMemory();
+            default:
+                return msg.getTimeExecution();
+        }
+    }
+
+    private static String normalizeStatement(String statementText) {
+
+        StringBuilder sb = new StringBuilder(statementText.length());
+        boolean whitespace = false;
+        for (int i = 0; i < statementText.length(); i++) {
+
+            char c = statementText.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = sb.length() > 0;
+                continue;
+            }
+
+            if (whitespace)
+                sb.append(' ');
+            sb.append(c);
+            whitespace = false;
+        }
+
+        return sb.toString();
+    }
+
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+
+            return code;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        void clear() {
+            codes.clear();
+            values.clear();
+        }
+
+    } // Dictionary class
+
+}
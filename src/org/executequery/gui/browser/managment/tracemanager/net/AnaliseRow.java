@@ -1,15 +1,20 @@
 package org.executequery.gui.browser.managment.tracemanager.net;
 
 import org.executequery.localization.Bundles;
-import org.executequery.log.Log;
 
 import java.awt.*;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class AnaliseRow {
-    LogMessage logMessage;
-    StringBuilder logMessages;
+    String text;
+
+    /**
+     * Indexes of the row messages, the message bodies are loaded when requested
+     */
+    int[] messageIndexes = new int[4];
     public final static int TIME = 0;
     public final static int READ = TIME + 1;
     public final static int FETCH = READ + 1;
@@ -41,43 +46,44 @@ public class AnaliseRow {
             "TOTAL", "AVG", "MAX", "MIN", "STD_DEV"
     };
 
-    List<LogMessage>[] rows;
-    List<LogMessage> allRows;
+    long countAllRows;
     AnaliseValue[] average = new AnaliseValue[TYPES.length];
     AnaliseValue[] total = new AnaliseValue[TYPES.length];
     AnaliseValue[] max = new AnaliseValue[TYPES.length];
     AnaliseValue[] min = new AnaliseValue[TYPES.length];
     AnaliseValue[] std_dev = new AnaliseValue[TYPES.length];
     long[] count = new long[TYPES.length];
+    long[] sumOfSquares = new long[TYPES.length];
 
-    List<String> plans;
+    Set<String> plans;
     String planText;
 
-    public LogMessage getLogMessage() {
-        return logMessage;
-    }
-
-    public String getLogMessages() {
-        return logMessages.toString();
+    /**
+     * Returns the statement text of the first message or the procedure name.
+     */
+    public String getText() {
+        return text;
     }
 
-    public void setLogMessage(LogMessage logMessage) {
-        this.logMessage = logMessage;
+    /**
+     * Returns the bodies of the row messages loaded from the list of all the messages.
+     */
+    public String getLogMessages(List<LogMessage> messages) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < countAllRows; i++)
+            sb.append(messages.get(messageIndexes[i]).getBody()).append("\n");
+        return sb.toString();
     }
 
     public AnaliseRow() {
-        allRows = new ArrayList<>();
-        logMessages = new StringBuilder();
-        rows = new List[TYPES.length];
         for (int i = 0; i < TYPES.length; i++) {
-            rows[i] = new ArrayList<>();
             total[i] = new AnaliseValue(0, i);
             max[i] = new AnaliseValue(0, i);
             min[i] = new AnaliseValue(-1, i);
             average[i] = new AnaliseValue(0, i);
             std_dev[i] = new AnaliseValue(0, i);
         }
-        plans = new ArrayList<>();
+        plans = new LinkedHashSet<>();
     }
 
     public AnaliseValue[] getAverage() {
@@ -96,38 +102,27 @@ public class AnaliseRow {
         return min;
     }
 
-    public List<LogMessage>[] getRows() {
-        return rows;
-    }
-
     public long[] getCount() {
         return count;
     }
 
     public long getCountAllRows() {
-        return allRows.size();
+        return countAllRows;
     }
 
     public AnaliseValue[] getStd_dev() {
         return std_dev;
     }
 
-    void addMessage(LogMessage msg, int type) {
-        Long currentValue = getValueFromType(msg, type);
-        if (currentValue == null) {
-            currentValue = 0L;
-            Log.debug("calculate error for type '" + TYPES[type] + "': trace id = " + msg.getId());
-        }
-        if (logMessage == null)
-            logMessage = msg;
-        rows[type].add(msg);
+    void addValue(long currentValue, int type) {
         count[type]++;
         total[type].longValue += currentValue;
+        sumOfSquares[type] += currentValue * currentValue;
         if (currentValue > max[type].longValue)
             max[type].longValue = currentValue;
         if (currentValue < min[type].longValue || min[type].longValue == -1)
             min[type].longValue = currentValue;
-
+        calculateValues(type);
     }
 
     public void calculateValues() {
@@ -140,40 +135,29 @@ public class AnaliseRow {
         if (count[type] > 0) {
             average[type].longValue = total[type].longValue / count[type];
 
-            long dispersion = 0;
             if (count[type] > 1) {
-                for (LogMessage row : rows[type]) {
-                    Long value = getValueFromType(row, type);
-                    if (value == null)
-                        value = 0L;
-                    dispersion += (value - average[type].longValue) * (value - average[type].longValue);
-                }
+                // sum of (value - avg)^2 expanded to be calculated from the running sums,
+                // the long overflow of the intermediate terms doesn't affect the result
+                long avg = average[type].longValue;
+                long dispersion = sumOfSquares[type] - 2 * avg * total[type].longValue + count[type] * avg * avg;
                 dispersion = dispersion / count[type] - 1;
                 std_dev[type].longValue = (long) Math.sqrt(dispersion);
             }
         }
     }
 
-    public void addMessage(LogMessage msg) {
-        allRows.add(msg);
-        logMessages.append(msg.getBody()).append("\n");
-        if (msg.getPlanText() != null) {
-            if (plans.isEmpty())
-                plans.add(msg.getPlanText());
-            else {
-                boolean finded = false;
-                for (String plan : plans) {
-                    if (plan.contentEquals(msg.getPlanText())) {
-                        finded = true;
-                        break;
-                    }
-                }
-                if (!finded)
-                    plans.add(msg.getPlanText());
-            }
-        }
+    public void addEvent(AnaliseEvents events, int event) {
+        if (text == null)
+            text = events.getDisplayText(event);
+        if (countAllRows == messageIndexes.length)
+            messageIndexes = Arrays.copyOf(messageIndexes, messageIndexes.length * 2);
+        messageIndexes[(int) countAllRows] = events.getMessageIndex(event);
+        countAllRows++;
+        String eventPlan = events.getPlanText(event);
+        if (eventPlan != null && plans.add(eventPlan))
+            planText = null;
         for (int i = TIME; i < TYPES.length; i++) {
-            addMessage(msg, i);
+            addValue(events.getValue(event, i), i);
         }
     }
 
@@ -192,25 +176,6 @@ public class AnaliseRow {
         return planText;
     }
 
-    Long getValueFromType(LogMessage msg, int type) {
-        switch (type) {
-            case READ:
-                return msg.getCountReads();
-            case FETCH:
-                return msg.getCountFetches();
-            case WRITE:
-                return msg.getCountWrites();
-            case MARK:
-                return msg.getCountMarks();
-            case RSORT:
-                return msg.getRamCacheMemory();
-            case DSORT:
-                return msg.getDiskCacheMemory();
-            default:
-                return msg.getTimeExecution();
-        }
-    }
-
     public AnaliseValue getValueFromTypeAndParam(int type, int param) {
         switch (param) {
             case TOTAL:
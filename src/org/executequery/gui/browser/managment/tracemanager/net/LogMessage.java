@@ -12,12 +12,22 @@ import org.underworldlabs.traceparser.RedTraceParser;
 import org.underworldlabs.util.MiscUtils;
 
 import java.sql.Timestamp;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 
 public class LogMessage {
+
+    private static final Pattern FIRST_PARAM_PATTERN = Pattern.compile("param0 = .+\n");
+    private static final Pattern PARAMS_PATTERN = Pattern.compile("(param.+\n)+");
+    private static final Pattern GLOBAL_COUNTERS_PATTERN = Pattern.compile("[\\d]+ ms.+\n");
+    private static final Pattern RECORDS_FETCHED_PATTERN = Pattern.compile("[\\d]+ records fetched");
+
+    /**
+     * Lexer and parser instances reused by the messages parsed in the same thread
+     */
+    private static final ThreadLocal<TraceParser> TRACE_PARSER = ThreadLocal.withInitial(TraceParser::new);
+
     private int id;
     private Timestamp timestamp;
     private String idProcess;
@@ -91,8 +101,7 @@ public class LogMessage {
         RedTraceParser parser = buildParser(body);
         try {
             ParseTree tree = parser.parse();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(new RedTraceBaseListener() {
+            ParseTreeWalker.DEFAULT.walk(new RedTraceBaseListener() {
                 @Override
                 public void enterDatabase_event(RedTraceParser.Database_eventContext ctx) {
                     setTypeEvent(ctx.type_database_event().getText());
@@ -307,8 +316,7 @@ public class LogMessage {
         }
     }
 
-    private String findOfRegex(String regex, String str) {
-        Pattern pattern = Pattern.compile(regex);
+    private String findOfRegex(Pattern pattern, String str) {
         Matcher m = pattern.matcher(str);
         if (m.find()) {
 
@@ -406,17 +414,16 @@ public class LogMessage {
         if (ctx != null && (ctx.global_counters() == null && ctx.plan() == null && ctx.params() == null && ctx.table_counters() == null)) {
             String query = textFromRuleContext(ctx);
             if (query != null) {
-                if (isFindOfRegex("param0 = .+\n", query)) {
-                    paramText = findOfRegex("(param.+\n)+", query);
+                if (isFindOfRegex(FIRST_PARAM_PATTERN, query)) {
+                    paramText = findOfRegex(PARAMS_PATTERN, query);
                     if (paramText != null)
                         query = query.replace(paramText, "").trim();
                 }
-                if (isFindOfRegex("[\\d]+ ms.+\n", query)) {
-                    String global_counters = findOfRegex("[\\d]+ ms.+\n", query);
+                if (isFindOfRegex(GLOBAL_COUNTERS_PATTERN, query)) {
+                    String global_counters = findOfRegex(GLOBAL_COUNTERS_PATTERN, query);
                     RedTraceParser redTraceParser = buildParser(global_counters);
                         ParseTree redTree = redTraceParser.global_counters();
-                        ParseTreeWalker redWalker = new ParseTreeWalker();
-                        redWalker.walk(new RedTraceBaseListener() {
+                        ParseTreeWalker.DEFAULT.walk(new RedTraceBaseListener() {
                             @Override
                             public void enterGlobal_counters(RedTraceParser.Global_countersContext ctx) {
                                 setGlobalCounters(ctx);
@@ -424,12 +431,11 @@ public class LogMessage {
                         }, redTree);
                         query = query.replace(global_counters, "").trim();
                     }
-                    if (isFindOfRegex("[\\d]+ records fetched", query)) {
-                        String records_fetched = findOfRegex("[\\d]+ records fetched", query);
+                    if (isFindOfRegex(RECORDS_FETCHED_PATTERN, query)) {
+                        String records_fetched = findOfRegex(RECORDS_FETCHED_PATTERN, query);
                         RedTraceParser redTraceParser = buildParser(records_fetched);
                         ParseTree redTree = redTraceParser.records_fetched();
-                        ParseTreeWalker redWalker = new ParseTreeWalker();
-                        redWalker.walk(new RedTraceBaseListener() {
+                        ParseTreeWalker.DEFAULT.walk(new RedTraceBaseListener() {
                             @Override
                             public void enterRecords_fetched(RedTraceParser.Records_fetchedContext ctx) {
                                 setFetchedRecords(getLongFromString(textFromRuleContext(ctx.id())));
@@ -485,27 +491,13 @@ public class LogMessage {
         }
     }
 
-    private boolean isFindOfRegex(String regex, String str) {
-        Pattern pattern = Pattern.compile(regex);
+    private boolean isFindOfRegex(Pattern pattern, String str) {
         Matcher m = pattern.matcher(str);
         return (m.find());
     }
 
     private RedTraceParser buildParser(String str) {
-        RedTraceLexer lexer = new RedTraceLexer(CharStreams.fromString(str));
-        List<? extends ANTLRErrorListener> listeners = lexer.getErrorListeners();
-        for (int i = 0; i < listeners.size(); i++) {
-            if (listeners.get(i) instanceof ConsoleErrorListener)
-                lexer.removeErrorListener(listeners.get(i));
-        }
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        RedTraceParser parser = new RedTraceParser(tokens);
-        listeners = parser.getErrorListeners();
-        for (int i = 0; i < listeners.size(); i++) {
-            if (listeners.get(i) instanceof ConsoleErrorListener)
-                parser.removeErrorListener(listeners.get(i));
-        }
-        return parser;
+        return TRACE_PARSER.get().reset(str);
     }
 
     public int getId() {
@@ -1234,7 +1226,7 @@ public class LogMessage {
     private Field parseField(String body, String regex, String[] excludedRegex) {
         Field field = new Field();
         try {
-            field.field = findOfRegex(regex, body);
+            field.field = findOfRegex(Pattern.compile(regex), body);
             field.body = body.replace(field.field, "").trim();
             for (int i = 0; i < excludedRegex.length; i++)
                 field.field = field.field.replace(excludedRegex[i], "");
@@ -1280,4 +1272,32 @@ public class LogMessage {
         public String field;
         public String body;
     }
+
+    /**
+     * Lexer and parser pair that is reset for every parsed text
+     * instead of being created again. The parse trees built before
+     * the reset stay valid, since they keep references to own tokens only.
+     */
+    private static class TraceParser {
+
+        private final RedTraceLexer lexer;
+        private final RedTraceParser parser;
+
+        TraceParser() {
+
+            lexer = new RedTraceLexer(CharStreams.fromString(""));
+            lexer.removeErrorListener(ConsoleErrorListener.INSTANCE);
+
+            parser = new RedTraceParser(new CommonTokenStream(lexer));
+            parser.removeErrorListener(ConsoleErrorListener.INSTANCE);
+        }
+
+        RedTraceParser reset(String str) {
+            lexer.setInputStream(CharStreams.fromString(str));
+            parser.setTokenStream(new CommonTokenStream(lexer));
+            return parser;
+        }
+
+    } // TraceParser class
+
 }
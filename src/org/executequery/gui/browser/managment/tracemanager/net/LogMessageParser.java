@@ -0,0 +1,79 @@
+package org.executequery.gui.browser.managment.tracemanager.net;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Parses the trace events on several threads.
+ * <p>
+ * Parsed messages are passed to the consumer in the order the events were submitted,
+ * always in the thread calling {@link #submit(String)} and {@link #finish()}.
+ * The count of the events being parsed at the same time is limited,
+ * so the whole trace is never kept in memory as text.
+ */
+public class LogMessageParser implements AutoCloseable {
+
+    private static final int PENDING_PER_THREAD = 64;
+
+    private final Consumer<LogMessage> consumer;
+    private final ExecutorService executor;
+    private final Deque<Future<LogMessage>> pending;
+    private final int maxPendingCount;
+
+    public LogMessageParser(Consumer<LogMessage> consumer) {
+        this(Runtime.getRuntime().availableProcessors(), consumer);
+    }
+
+    public LogMessageParser(int threadCount, Consumer<LogMessage> consumer) {
+        this.consumer = consumer;
+        this.executor = threadCount > 1 ? Executors.newFixedThreadPool(threadCount, this::newThread) : null;
+        this.pending = new ArrayDeque<>();
+        this.maxPendingCount = threadCount * PENDING_PER_THREAD;
+    }
+
+    /**
+     * Submits the event text to be parsed and passes all
+     * the messages parsed by this time to the consumer.
+     * Blocks if too many events are waiting to be parsed.
+     */
+    public void submit(String body) throws InterruptedException, ExecutionException {
+
+        if (executor == null) {
+            consumer.accept(new LogMessage(body));
+            return;
+        }
+
+        pending.add(executor.submit(() -> new LogMessage(body)));
+        while (!pending.isEmpty() && (pending.size() > maxPendingCount || pending.peek().isDone()))
+            consumer.accept(pending.poll().get());
+    }
+
+    /**
+     * Waits for all the submitted events and passes them to the consumer.
+     */
+    public void finish() throws InterruptedException, ExecutionException {
+        while (!pending.isEmpty())
+            consumer.accept(pending.poll().get());
+    }
+
+    @Override
+    public void close() {
+
+        pending.clear();
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    private Thread newThread(Runnable runnable) {
+
+        Thread thread = new Thread(runnable, "TraceLogParser");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+}
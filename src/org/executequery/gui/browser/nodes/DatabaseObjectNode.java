@@ -25,6 +25,7 @@ import org.executequery.databaseobjects.NamedObject;
 import org.executequery.databaseobjects.impl.AbstractTableObject;
 import org.executequery.databaseobjects.impl.DatabaseTableColumn;
 import org.executequery.databaseobjects.impl.DefaultDatabaseColumn;
+import org.executequery.databaseobjects.impl.DefaultDatabaseMetaTag;
 import org.executequery.databaseobjects.impl.DefaultDatabaseView;
 import org.executequery.gui.browser.nodes.tableNode.DatabaseTableNode;
 import org.executequery.gui.browser.tree.RETreePath;
@@ -96,8 +97,14 @@ public class DatabaseObjectNode extends DefaultMutableTreeNode {
         NamedObject namedObject = getDatabaseObject();
 
         int result = namedObject.drop();
-        if (result >= 0)
-            namedObject.getParent().getObjects().remove(namedObject);
+        if (result >= 0) {
+
+            NamedObject parent = namedObject.getParent();
+            if (parent instanceof DefaultDatabaseMetaTag)
+                ((DefaultDatabaseMetaTag) parent).removeObject(namedObject);
+            else
+                parent.getObjects().remove(namedObject);
+        }
 
         return result;
     }
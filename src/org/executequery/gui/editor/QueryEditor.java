@@ -20,6 +20,7 @@
 
 package org.executequery.gui.editor;
 
+import org.executequery.Constants;
 import org.executequery.EventMediator;
 import org.executequery.GUIUtilities;
 import org.executequery.base.DefaultTabView;
@@ -51,6 +52,7 @@ import org.underworldlabs.util.MiscUtils;
 import org.underworldlabs.util.SystemProperties;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import javax.swing.text.JTextComponent;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -137,6 +139,8 @@ public class QueryEditor extends DefaultTabView
     private boolean autosaveEnabled;
     private boolean executeToFile;
 
+    private QueryEditorAutosaver autosaver;
+
     public QueryEditor() {
         this(null, null, -1);
     }
@@ -179,8 +183,13 @@ public class QueryEditor extends DefaultTabView
         splitPane.addPropertyChangeListener("dividerLocation", this);
         isContentChanged = false;
 
-        if (text != null)
-            loadText(text);
+        String loadedText = text != null ? QueryEditorAutosaver.recover(absolutePath, text) : null;
+        if (loadedText != null)
+            loadText(loadedText);
+
+        // the same instance is returned if there is nothing to recover
+        boolean recovered = loadedText != text;
+        autosaver = new QueryEditorAutosaver(this, loadedText != null ? loadedText : Constants.EMPTY, recovered);
     }
 
     private void init() {
@@ -1161,8 +1170,8 @@ public class QueryEditor extends DefaultTabView
      */
     public void setEditorText(String text) {
         editorPanel.setQueryAreaText(text);
-        if (autosaveEnabled)
-            save(false);
+        if (autosaveEnabled && autosaver != null)
+            autosaver.changed();
     }
 
     /**
@@ -1333,6 +1342,9 @@ public class QueryEditor extends DefaultTabView
         boolean saved = writer.write(text, scriptFile, saveAs);
         if (saved) {
 
+            if (autosaver != null)
+                autosaver.saved(oldAbsolutePath, text);
+
             GUIUtilities.setTabTitleForComponent(this, getDisplayName());
             statusBar.setStatus(bundleString("FileSavedTo", scriptFile.getFileName()));
 
@@ -1374,12 +1386,29 @@ public class QueryEditor extends DefaultTabView
 
         if (isContentChanged && autosaveEnabled) {
             isContentChanged = false;
-            save(false);
+            if (autosaver != null)
+                autosaver.changed();
 
         } else if (isContentChanged)
             statusBar.setStatus(bundleString("UnsavedChanges"));
     }
 
+    /**
+     * Passes the text change to the autosave journal.
+     */
+    void documentChanged(DocumentEvent e) {
+        if (autosaveEnabled && autosaver != null)
+            autosaver.edited(e);
+    }
+
+    /**
+     * Notifies that the text was saved in the background.
+     */
+    void autosaved() {
+        if (!isQueryEditorClosed)
+            statusBar.setStatus(bundleString("FileSavedTo", scriptFile.getFileName()));
+    }
+
     // ---------------------------------------------
     // ConnectionListener implementation
     // ---------------------------------------------
@@ -1395,6 +1424,7 @@ public class QueryEditor extends DefaultTabView
          * a call to removeAll() is a workaround for now
          */
 
+        autosaver.dispose();
         isQueryEditorClosed = true;
         popup.removeAll();
 
@@ -1526,6 +1556,17 @@ public class QueryEditor extends DefaultTabView
     }
 
     public void setAutosaveEnabled(boolean autosaveEnabled) {
+
+        if (autosaver != null && autosaveEnabled != this.autosaveEnabled) {
+
+            // the changes made while autosave was disabled are not journaled,
+            // so the journal is restarted from the current text
+            if (autosaveEnabled)
+                autosaver.snapshot();
+            else
+                autosaver.flush();
+        }
+
         this.autosaveEnabled = autosaveEnabled;
     }
 
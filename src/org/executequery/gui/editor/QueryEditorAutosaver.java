@@ -0,0 +1,446 @@
+package org.executequery.gui.editor;
+
+import org.executequery.gui.text.LineSeparator;
+import org.executequery.log.Log;
+import org.underworldlabs.util.MiscUtils;
+import org.underworldlabs.util.SystemProperties;
+
+import javax.swing.*;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Saves the query editor text in the background.
+ * <p>
+ * Changes are coalesced: the text is saved when the editor stays unchanged for {@link #DELAY} ms.
+ * The text is written to the temporary file which then replaces the script file.
+ * <p>
+ * Each edit is also appended to the journal of the script, so the text typed after the last save
+ * is restored by {@link #recover(String, String)} if the application was terminated unexpectedly.
+ * The journal is removed when the text is saved.
+ * <p>
+ * All the files are written by the single background thread in the order of the requests.
+ */
+public class QueryEditorAutosaver {
+
+    private static final int DELAY = 1000;
+    private static final int SHUTDOWN_TIMEOUT = 10;
+
+    private static final byte INSERT = 'I';
+    private static final byte REMOVE = 'R';
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(QueryEditorAutosaver::newThread);
+
+    /**
+     * Journals by the script path, used by the writer thread only.
+     */
+    private static final Map<String, Journal> JOURNALS = new HashMap<>();
+
+    /**
+     * Content of the files waiting to be written by {@link #writeLater(File, String, String)}.
+     */
+    private static final Map<File, String> PENDING_FILES = new HashMap<>();
+
+    private static final Set<QueryEditorAutosaver> AUTOSAVERS = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final QueryEditor queryEditor;
+    private final Timer timer;
+
+    /**
+     * Creates the autosaver of the editor with the specified text loaded from the script file.
+     *
+     * @param recovered true if the text was restored by {@link #recover(String, String)},
+     *                  such text is saved at once
+     */
+    QueryEditorAutosaver(QueryEditor queryEditor, String text, boolean recovered) {
+
+        this.queryEditor = queryEditor;
+        this.timer = new Timer(DELAY, e -> save());
+        this.timer.setRepeats(false);
+
+        if (recovered) {
+            save();
+
+        } else {
+            String path = queryEditor.getAbsolutePath();
+            WRITER.execute(() -> journal(path).setBase(text));
+        }
+
+        AUTOSAVERS.add(this);
+    }
+
+    /**
+     * Appends the document change to the journal and restarts the save delay.
+     */
+    void edited(DocumentEvent e) {
+
+        String path = queryEditor.getAbsolutePath();
+        int offset = e.getOffset();
+        int length = e.getLength();
+
+        if (e.getType() == DocumentEvent.EventType.INSERT) {
+
+            try {
+                String text = e.getDocument().getText(offset, length);
+                WRITER.execute(() -> journal(path).insert(offset, text));
+
+            } catch (BadLocationException ex) {
+                Log.error("Unable to journal the inserted text", ex);
+            }
+
+        } else if (e.getType() == DocumentEvent.EventType.REMOVE)
+            WRITER.execute(() -> journal(path).remove(offset, length));
+
+        changed();
+    }
+
+    /**
+     * Restarts the save delay.
+     */
+    void changed() {
+        timer.restart();
+    }
+
+    /**
+     * Saves the pending changes without waiting for the delay.
+     */
+    void flush() {
+
+        if (timer.isRunning()) {
+            timer.stop();
+            save();
+        }
+    }
+
+    /**
+     * Saves the current text at once, so the next journaled changes
+     * are applied to it by {@link #recover(String, String)}.
+     */
+    void snapshot() {
+
+        timer.stop();
+        save();
+    }
+
+    /**
+     * Notifies that the text was saved by the editor, the journal is not needed anymore.
+     *
+     * @param oldPath path of the script before the save
+     */
+    void saved(String oldPath, String text) {
+
+        timer.stop();
+
+        String path = queryEditor.getAbsolutePath();
+        WRITER.execute(() -> {
+            if (!path.equals(oldPath))
+                journal(oldPath).delete();
+            journal(path).setBase(text);
+        });
+    }
+
+    void dispose() {
+
+        flush();
+        AUTOSAVERS.remove(this);
+    }
+
+    private void save() {
+
+        String path = queryEditor.getAbsolutePath();
+        String text = queryEditor.getEditorText();
+        String charset = SystemProperties.getProperty("user", "system.file.encoding");
+        LineSeparator lineSeparator = lineSeparator();
+
+        WRITER.execute(() -> {
+            try {
+
+                write(new File(path), text.replaceAll("\n", lineSeparator.value), charset);
+                journal(path).setBase(text);
+                SwingUtilities.invokeLater(queryEditor::autosaved);
+
+            } catch (IOException e) {
+                Log.error("Error saving " + path, e);
+            }
+        });
+    }
+
+    /**
+     * Applies the journal of the script to the text loaded from the script file.
+     *
+     * @return the text with the journal changes or the same text if there is no valid journal
+     */
+    static String recover(String path, String text) {
+
+        File file = journalFile(path);
+        if (!file.exists())
+            return text;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+            if (!path.equals(input.readUTF()))
+                return text;
+
+            int baseLength = input.readInt();
+            int baseHash = input.readInt();
+
+            // the saved text has the line separators replaced
+            String base = text;
+            if (base.length() != baseLength || base.hashCode() != baseHash) {
+
+                base = text.replace(lineSeparator().value, "\n");
+                if (base.length() != baseLength || base.hashCode() != baseHash) {
+
+                    Log.warning("Journal " + file + " doesn't match " + path + ", skipped");
+                    return text;
+                }
+            }
+
+            StringBuilder sb = new StringBuilder(base);
+            int count = Journal.replay(input, sb, file.length());
+            if (count > 0)
+                Log.info(String.format("Recovered %d unsaved changes of %s", count, path));
+
+            return count > 0 ? sb.toString() : text;
+
+        } catch (IOException e) {
+
+            Log.error("Error reading journal " + file, e);
+            return text;
+        }
+    }
+
+    /**
+     * Writes the file content in the background, the content waiting to be written
+     * is replaced if the same file is requested again.
+     */
+    static void writeLater(File file, String content, String charset) {
+
+        synchronized (PENDING_FILES) {
+            if (PENDING_FILES.put(file, content) != null)
+                return;
+        }
+
+        WRITER.execute(() -> {
+
+            String pendingContent;
+            synchronized (PENDING_FILES) {
+                pendingContent = PENDING_FILES.remove(file);
+            }
+
+            try {
+                write(file, pendingContent, charset);
+
+            } catch (IOException e) {
+                Log.error("Error writing " + file, e);
+            }
+        });
+    }
+
+    /**
+     * Saves the pending changes of all the editors and waits for the writes to complete.
+     */
+    public static void shutdown() {
+
+        for (QueryEditorAutosaver autosaver : new ArrayList<>(AUTOSAVERS))
+            autosaver.flush();
+
+        try {
+            WRITER.submit(() -> JOURNALS.values().forEach(Journal::close)).get(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+
+        } catch (TimeoutException e) {
+            Log.warning("Query editors autosave is not completed");
+
+        } catch (ExecutionException e) {
+            Log.error("Error closing the query editor journals", e);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the content to the temporary file and replaces the file with it.
+     */
+    private static void write(File file, String content, String charset) throws IOException {
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        Charset encoding = MiscUtils.isNull(charset) ? Charset.defaultCharset() : Charset.forName(charset);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), encoding))) {
+            writer.write(content);
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Journal journal(String path) {
+        return JOURNALS.computeIfAbsent(path, Journal::new);
+    }
+
+    private static File journalFile(String path) {
+        return new File(QueryEditorHistory.editorDirectory() + "journal", Integer.toHexString(path.hashCode()) + ".journal");
+    }
+
+    private static LineSeparator lineSeparator() {
+        return LineSeparator.valueForIndex(SystemProperties.getIntProperty("user", "general.line.separator"));
+    }
+
+    private static Thread newThread(Runnable runnable) {
+
+        Thread thread = new Thread(runnable, "QueryEditorAutosave");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Changes of the script text made after the last save.
+     * The journal starts with the script path and the length and hash of the saved text.
+     */
+    private static class Journal {
+
+        private final String path;
+        private final File file;
+
+        private DataOutputStream output;
+        private int baseLength;
+        private int baseHash;
+
+        Journal(String path) {
+            this.path = path;
+            this.file = journalFile(path);
+        }
+
+        /**
+         * Sets the text the next changes are applied to and removes the previous changes.
+         */
+        void setBase(String text) {
+
+            delete();
+            baseLength = text.length();
+            baseHash = text.hashCode();
+        }
+
+        void insert(int offset, String text) {
+
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            append(INSERT, offset, bytes.length, bytes);
+        }
+
+        void remove(int offset, int length) {
+            append(REMOVE, offset, length, null);
+        }
+
+        private void append(byte type, int offset, int length, byte[] bytes) {
+
+            try {
+
+                if (output == null)
+                    open();
+
+                output.writeByte(type);
+                output.writeInt(offset);
+                output.writeInt(length);
+                if (bytes != null)
+                    output.write(bytes);
+                output.flush();
+
+            } catch (IOException e) {
+
+                Log.error("Error writing journal " + file, e);
+                close();
+            }
+        }
+
+        private void open() throws IOException {
+
+            File directory = file.getParentFile();
+            if (!directory.exists() && !directory.mkdirs())
+                throw new IOException("Unable to create " + directory);
+
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)));
+            output.writeUTF(path);
+            output.writeInt(baseLength);
+            output.writeInt(baseHash);
+        }
+
+        void close() {
+
+            if (output == null)
+                return;
+
+            try {
+                output.close();
+
+            } catch (IOException e) {
+                Log.error("Error closing journal " + file, e);
+
+            } finally {
+                output = null;
+            }
+        }
+
+        void delete() {
+
+            close();
+            if (file.exists() && !file.delete())
+                Log.warning("Unable to delete journal " + file);
+        }
+
+        /**
+         * Applies the journal changes to the text, the incomplete or invalid change ends the replay.
+         *
+         * @param maxLength maximum length of the inserted text in bytes
+         * @return count of the applied changes
+         */
+        static int replay(DataInputStream input, StringBuilder text, long maxLength) throws IOException {
+
+            int count = 0;
+            try {
+
+                while (true) {
+
+                    byte type = input.readByte();
+                    int offset = input.readInt();
+                    int length = input.readInt();
+                    if (offset < 0 || offset > text.length() || length < 0 || length > maxLength)
+                        break;
+
+                    if (type == INSERT) {
+
+                        byte[] bytes = new byte[length];
+                        input.readFully(bytes);
+                        text.insert(offset, new String(bytes, StandardCharsets.UTF_8));
+
+                    } else if (type == REMOVE && offset + length <= text.length()) {
+                        text.delete(offset, offset + length);
+
+                    } else
+                        break;
+
+                    count++;
+                }
+
+            } catch (EOFException e) {
+                // end of the journal
+            }
+
+            return count;
+        }
+
+    } // Journal class
+
+}
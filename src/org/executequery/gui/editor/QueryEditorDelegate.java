@@ -259,7 +259,7 @@ public class QueryEditorDelegate implements QueryDelegate {
         queryEditor.setLeftStatusText(text);
     }
 
-    public void statementExecuted(String statement) {
+    public void statementExecuted(String statement, long executionTime, long rowCount) {
 
         String _query = statement.toUpperCase();
 
@@ -272,7 +272,7 @@ public class QueryEditorDelegate implements QueryDelegate {
 
         }
 
-        addSqlCommandToHistory(statement);
+        addSqlCommandToHistory(statement, executionTime, rowCount);
     }
 
     /**
@@ -306,12 +306,13 @@ public class QueryEditorDelegate implements QueryDelegate {
         return "";
     }
 
-    private void addSqlCommandToHistory(final String query) {
+    private void addSqlCommandToHistory(final String query, final long executionTime, final long rowCount) {
 
         ThreadUtils.startWorker(new Runnable() {
             public void run() {
 
-                sqlCommandHistoryRepository().addSqlCommand(query, queryEditor.getSelectedConnection().getId());
+                sqlCommandHistoryRepository().addSqlCommand(
+                        query, queryEditor.getSelectedConnection().getId(), executionTime, rowCount);
             }
         });
 
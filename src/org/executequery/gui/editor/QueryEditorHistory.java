@@ -1,6 +1,5 @@
 package org.executequery.gui.editor;
 
-import org.executequery.Constants;
 import org.executequery.GUIUtilities;
 import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.gui.editor.autocomplete.Parameter;
@@ -182,28 +181,18 @@ public class QueryEditorHistory {
 
     private static void saveEditors() {
 
-        String charset = SystemProperties.getProperty("user", "system.file.encoding");
-        if (charset == null)
-            charset = Constants.EMPTY;
-
-        try {
-            FileOutputStream fileOutputStream = new FileOutputStream(historyFile(), false);
-            Writer writer = new OutputStreamWriter(fileOutputStream, charset);
-
-            for (String key : editors().keySet()) {
-                for (PathNumber pathNumber : editors().get(key)) {
-                    writer.append(key).append(";")
-                            .append(pathNumber.path).append(";")
-                            .append(String.valueOf(pathNumber.number)).append(";")
-                            .append(String.valueOf(pathNumber.splitDividerLocation)).append(";")
-                            .append(String.valueOf(pathNumber.autosaveEnabled)).append("\n");
-                }
+        StringBuilder sb = new StringBuilder();
+        for (String key : editors().keySet()) {
+            for (PathNumber pathNumber : editors().get(key)) {
+                sb.append(key).append(";")
+                        .append(pathNumber.path).append(";")
+                        .append(pathNumber.number).append(";")
+                        .append(pathNumber.splitDividerLocation).append(";")
+                        .append(pathNumber.autosaveEnabled).append("\n");
             }
-            writer.flush();
-
-        } catch (IOException e) {
-            Log.error(e.getMessage(), e);
         }
+
+        QueryEditorAutosaver.writeLater(historyFile(), sb.toString(), SystemProperties.getProperty("user", "system.file.encoding"));
     }
 
     private static void sortNumbers() {
@@ -221,15 +210,13 @@ public class QueryEditorHistory {
     }
 
     private static void saveNumbers() {
-        try {
-            FileWriter writer = new FileWriter(numbersFile(), false);
-            sortNumbers();
-            for (int i = 0; i < numbers().size(); i++)
-                writer.append(numbers().get(i) + System.lineSeparator());
-            writer.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+
+        sortNumbers();
+        StringBuilder sb = new StringBuilder();
+        for (Integer number : numbers())
+            sb.append(number).append(System.lineSeparator());
+
+        QueryEditorAutosaver.writeLater(numbersFile(), sb.toString(), null);
     }
 
     public static int getMinNumber() {
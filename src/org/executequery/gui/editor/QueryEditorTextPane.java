@@ -830,12 +830,14 @@ public class QueryEditorTextPane extends SQLTextArea
      */
     @Override
     public void insertUpdate(DocumentEvent e) {
+        editorPanel.documentChanged(e);
         editorPanel.setContentChanged(true);
         super.insertUpdate(e);
     }
 
     @Override
     public void removeUpdate(DocumentEvent e) {
+        editorPanel.documentChanged(e);
         editorPanel.setContentChanged(true);
         super.removeUpdate(e);
     }
@@ -32,6 +32,7 @@ import org.underworldlabs.util.SystemProperties;
 
 import javax.swing.*;
 import javax.swing.border.Border;
+import javax.swing.event.DocumentEvent;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import java.awt.*;
@@ -528,6 +529,15 @@ public class QueryEditorTextPanel extends JPanel {
         queryEditor.setContentChanged(contentChanged);
     }
 
+    /**
+     * Propagates the text change to the parent QueryEditor object.
+     *
+     * @param e the document event
+     */
+    public void documentChanged(DocumentEvent e) {
+        queryEditor.documentChanged(e);
+    }
+
     public void editorShortcutsUpdated() {
         queryPane.editorShortcutsUpdated();
     }
@@ -196,12 +196,25 @@ public class ResultSetTablePopupMenu extends JPopupMenu
 
     @SuppressWarnings("unused")
     public void exportTable(ActionEvent e) {
-        if (tableObject != null)
+        if (tableObject != null && isWholeTableShown())
+            new ExportDataPanel(tableObject, resultSetTableModel());
+        else if (tableObject != null)
             new ExportDataPanel(resultSetTableModel(), tableObject.getName(), tableObject.getColumns());
         else
             new ExportDataPanel(resultSetTableModel(), null);
     }
 
+    /**
+     * Checks the table data is shown as read: unsorted and with all the columns,
+     * only then the table may be exported by reading it again.
+     */
+    private boolean isWholeTableShown() {
+
+        ResultSetTableModel model = resultSetTableModel();
+        return !((TableSorter) table.getModel()).isSorting()
+                && model.getColumnCount() == model.getColumnHeaders().size();
+    }
+
     @SuppressWarnings("unused")
     public void copySelectedColumnNames(ActionEvent e) {
         table.copySelectedColumnNames();
@@ -26,6 +26,7 @@ import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.text.SQLTextArea;
 import org.executequery.localization.Bundles;
 import org.executequery.repository.RepositoryCache;
+import org.executequery.repository.SqlCommandHistoryEntry;
 import org.executequery.repository.SqlCommandHistoryRepository;
 import org.underworldlabs.swing.AbstractBaseDialog;
 import org.underworldlabs.swing.FlatSplitPane;
@@ -36,9 +37,9 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.util.Date;
+import java.util.List;
 import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The History Dialog displays the executed SQL statement history
@@ -74,6 +75,7 @@ public class SQLHistoryDialog extends AbstractBaseDialog {
     // ---
 
     private Vector<String> data;
+    private List<SqlCommandHistoryEntry> entries;
     private final QueryEditor queryEditor;
 
     public SQLHistoryDialog(Vector<String> data, QueryEditor queryEditor) {
@@ -108,7 +110,13 @@ public class SQLHistoryDialog extends AbstractBaseDialog {
 
         // --- history list ---
 
-        historyList = new JList<>(data);
+        historyList = new JList<String>(data) {
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                return toolTipForIndex(locationToIndex(e.getPoint()));
+            }
+        };
+        ToolTipManager.sharedInstance().registerComponent(historyList);
         historyList.setFixedCellHeight(20);
         historyList.addListSelectionListener(e -> updateTextPanel());
 
@@ -208,6 +216,7 @@ public class SQLHistoryDialog extends AbstractBaseDialog {
      */
     public void setHistoryData(Vector<String> data) {
         this.data = data;
+        this.entries = null;
         historyList.setListData(data);
     }
 
@@ -227,25 +236,29 @@ public class SQLHistoryDialog extends AbstractBaseDialog {
     }
 
     private void clearHistory() {
-        sqlCommandHistoryRepository().clearSqlCommandHistory(queryEditor.getSelectedConnection().getId());
+        sqlCommandHistoryRepository().clearSqlCommandHistory(connectionId());
         setHistoryData(new Vector<>(0));
     }
 
+    private String connectionId() {
+        return queryEditor.getSelectedConnection() != null ?
+                queryEditor.getSelectedConnection().getId() :
+                QueryEditorHistory.NULL_CONNECTION;
+    }
+
     private SqlCommandHistoryRepository sqlCommandHistoryRepository() {
         return (SqlCommandHistoryRepository) RepositoryCache.load(SqlCommandHistoryRepository.REPOSITORY_ID);
     }
 
     private void search(String text, int start) {
 
-        Pattern pattern = Pattern.compile("\\b" + text, Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(Constants.EMPTY);
-
-        for (int i = start, k = data.size(); i < k; i++) {
-            matcher.reset(data.get(i));
+        // the found indexes are ascending, so the first one after the start is the next match
+        List<Integer> found = sqlCommandHistoryRepository().findSqlCommands(connectionId(), text);
+        for (int index : found) {
 
-            if (matcher.find()) {
-                historyList.setSelectedIndex(i);
-                scrollToSelection(i);
+            if (index >= start && index < data.size()) {
+                historyList.setSelectedIndex(index);
+                scrollToSelection(index);
                 return;
             }
         }
@@ -330,6 +343,24 @@ public class SQLHistoryDialog extends AbstractBaseDialog {
         return index != -1 ? data.get(index) : Constants.EMPTY;
     }
 
+    private String toolTipForIndex(int index) {
+
+        if (index == -1)
+            return null;
+
+        if (entries == null)
+            entries = sqlCommandHistoryRepository().getSqlCommandHistoryEntries(connectionId());
+
+        if (index >= entries.size() || entries.get(index).getExecutedAt() == 0)
+            return null;
+
+        SqlCommandHistoryEntry entry = entries.get(index);
+        return bundleString("entryToolTip",
+                new Date(entry.getExecutedAt()),
+                entry.getExecutionTime() != SqlCommandHistoryEntry.UNKNOWN ? entry.getExecutionTime() : "-",
+                entry.getRowCount() != SqlCommandHistoryEntry.UNKNOWN ? entry.getRowCount() : "-");
+    }
+
     private static String bundleString(String key, Object... args) {
         return Bundles.get(SQLHistoryDialog.class, key, args);
     }
@@ -460,7 +460,6 @@ public class DefaultAutoCompletePopupProvider
 
         String lastDBObject = null;
         List<CustomToken> aliases = new ArrayList<>();
-        List<String> tableNames = databaseHost.getTableNames();
         SqlLexer lexer = new SqlLexer(CharStreams.fromString(query));
 
         while (true) {
@@ -477,27 +476,25 @@ public class DefaultAutoCompletePopupProvider
             }
 
             if (token.getType() == SqlLexer.IDENTIFIER || token.getType() == SqlLexer.QUOTE_IDENTIFIER) {
-                if (tableNames != null) {
-
-                    String tokenText = token.getText();
-                    if (!tokenText.isEmpty() && tokenText.charAt(0) >= 'A' && tokenText.charAt(0) <= 'z')
-                        tokenText = tokenText.toUpperCase();
-
-                    if (tokenText.startsWith("\"") && tokenText.endsWith("\"") && tokenText.length() > 1)
-                        tokenText = tokenText.substring(1, tokenText.length() - 1);
-
-                    if (lastDBObject != null) {
-                        CustomToken customToken = new CustomToken(token);
-                        customToken.setType(SqlLexerTokenMaker.ALIAS);
-                        customToken.setTableNameForAlias(lastDBObject);
-                        lastDBObject = null;
-                        aliases.add(customToken);
-
-                    } else if (tableNames.contains(tokenText)) {
-                        CustomToken customToken = new CustomToken(token);
-                        customToken.setType(SqlLexerTokenMaker.DB_OBJECT);
-                        lastDBObject = tokenText;
-                    }
+
+                String tokenText = token.getText();
+                if (!tokenText.isEmpty() && tokenText.charAt(0) >= 'A' && tokenText.charAt(0) <= 'z')
+                    tokenText = tokenText.toUpperCase();
+
+                if (tokenText.startsWith("\"") && tokenText.endsWith("\"") && tokenText.length() > 1)
+                    tokenText = tokenText.substring(1, tokenText.length() - 1);
+
+                if (lastDBObject != null) {
+                    CustomToken customToken = new CustomToken(token);
+                    customToken.setType(SqlLexerTokenMaker.ALIAS);
+                    customToken.setTableNameForAlias(lastDBObject);
+                    lastDBObject = null;
+                    aliases.add(customToken);
+
+                } else if (databaseHost.containsTable(tokenText)) {
+                    CustomToken customToken = new CustomToken(token);
+                    customToken.setType(SqlLexerTokenMaker.DB_OBJECT);
+                    lastDBObject = tokenText;
                 }
             }
 
@@ -13,9 +13,7 @@ import org.underworldlabs.swing.DefaultProgressDialog;
 import org.underworldlabs.swing.util.SwingWorker;
 
 import javax.swing.table.TableModel;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
@@ -25,12 +23,26 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 public abstract class AbstractExportHelper implements ExportHelper {
 
+    protected static final int WRITE_BUFFER_SIZE = 1 << 20;
+    protected static final int EXPORT_FETCH_SIZE = 10000;
+
+    private static final Object BLOB_FILE_LOCK = new Object();
+
     protected final ExportDataPanel parent;
     private DefaultProgressDialog progressDialog;
 
+    // --- table part export ---
+
+    private AbstractExportHelper owner;
+    private String partFilePath;
+    private int partNumber;
+    private boolean continuation;
+    private Throwable partError;
+
     protected AbstractExportHelper(ExportDataPanel parent) {
         this.parent = parent;
     }
@@ -46,7 +58,9 @@ public abstract class AbstractExportHelper implements ExportHelper {
             @Override
             public Object construct() {
 
-                if (data instanceof ResultSet)
+                if (data instanceof ParallelTableExporter)
+                    ((ParallelTableExporter) data).export(AbstractExportHelper.this);
+                else if (data instanceof ResultSet)
                     exportResultSet((ResultSet) data);
                 else if (data instanceof TableModel)
                     exportTableModel((TableModel) data);
@@ -68,6 +82,28 @@ public abstract class AbstractExportHelper implements ExportHelper {
 
     abstract void exportTableModel(TableModel tableModel);
 
+    /**
+     * Exports the table part read by the separate connection.
+     *
+     * @param resultSet    the part records
+     * @param owner        the helper running the whole export
+     * @param partNumber   the part number starting from 1
+     * @param filePath     the part output file
+     * @param continuation <code>true</code> if the part output is appended
+     *                     to the previous part output, so no headers should be written
+     * @return the part export error or <code>null</code>
+     */
+    final Throwable exportPart(ResultSet resultSet, AbstractExportHelper owner, int partNumber, String filePath, boolean continuation) {
+
+        this.owner = owner;
+        this.partNumber = partNumber;
+        this.partFilePath = filePath;
+        this.continuation = continuation;
+
+        exportResultSet(resultSet);
+        return partError;
+    }
+
     // --- export helper methods ---
 
     protected String getFormattedValue(Object value, String endlReplacement, String nullReplacement) {
@@ -77,17 +113,45 @@ public abstract class AbstractExportHelper implements ExportHelper {
         if (value instanceof RecordDataItem) {
             RecordDataItem recordDataItem = (RecordDataItem) value;
             if (!recordDataItem.isValueNull())
-                formattedValue = recordDataItem.getDisplayValue().toString().replaceAll("'", "''");
+                formattedValue = recordDataItem.getDisplayValue().toString().replace("'", "''");
 
         } else if (value != null)
-            formattedValue = value.toString().replaceAll("'", "''");
+            formattedValue = value.toString().replace("'", "''");
 
         if (!formattedValue.isEmpty() && endlReplacement != null)
-            formattedValue = formattedValue.replaceAll("\n", endlReplacement);
+            formattedValue = formattedValue.replace("\n", endlReplacement);
 
         return formattedValue;
     }
 
+    /**
+     * Creates the buffered writer for the export file. The writer is not
+     * flushed until the buffer is full, the output is compressed with gzip
+     * if it was selected.
+     */
+    protected Writer createFileWriter(String filePath) throws IOException {
+
+        OutputStream outputStream = new FileOutputStream(filePath, false);
+        if (parent.isCompressOutput())
+            outputStream = new GZIPOutputStream(outputStream, WRITE_BUFFER_SIZE);
+
+        return new BufferedWriter(new OutputStreamWriter(outputStream), WRITE_BUFFER_SIZE);
+    }
+
+    /**
+     * Asks the driver to fetch the exported records by large blocks.
+     */
+    protected void setExportFetchSize(ResultSet resultSet) {
+
+        try {
+            if (resultSet.getType() == ResultSet.TYPE_FORWARD_ONLY && resultSet.getFetchSize() < EXPORT_FETCH_SIZE)
+                resultSet.setFetchSize(EXPORT_FETCH_SIZE);
+
+        } catch (SQLException e) {
+            Log.debug("Unable to change the export fetch size: " + e.getMessage());
+        }
+    }
+
     protected List<ColumnData> getCreateColumnData(ResultSetMetaData metaData) throws SQLException {
 
         List<ColumnData> columns = new LinkedList<>();
@@ -129,11 +193,31 @@ public abstract class AbstractExportHelper implements ExportHelper {
         return false;
     }
 
+    protected final String getFilePath() {
+        return partFilePath != null ? partFilePath : parent.getFilePath();
+    }
+
+    /**
+     * Returns <code>true</code> if the output is appended
+     * to the output of the previous table part.
+     */
+    protected final boolean isContinuation() {
+        return continuation;
+    }
+
+    protected final boolean isExportPart() {
+        return owner != null;
+    }
+
     protected final boolean isFieldSelected(int col) {
         return parent.isFieldSelected(col);
     }
 
     protected final boolean isCancel() {
+
+        if (owner != null)
+            return owner.isCancel() || partError != null;
+
         return progressDialog == null || progressDialog.isCancel();
     }
 
@@ -141,6 +225,14 @@ public abstract class AbstractExportHelper implements ExportHelper {
 
     protected final String getCreateBlobFileName(Object data, int col, int row) {
 
+        if (partNumber > 0)
+            return "P" + partNumber + "_" + getBlobFileName(data, col, row);
+
+        return getBlobFileName(data, col, row);
+    }
+
+    private static String getBlobFileName(Object data, int col, int row) {
+
         if (data instanceof TableModel)
             return ((TableModel) data).getColumnName(col) + "_" + row;
 
@@ -192,7 +284,7 @@ public abstract class AbstractExportHelper implements ExportHelper {
 
                 stringValue = outputFile.getAbsolutePath();
 
-            } else {
+            } else synchronized (BLOB_FILE_LOCK) {
 
                 String startIndex = String.format("%08x", new File(blobFilePath).length());
                 String dataLength = String.format("%08x", lobData.length);
@@ -208,6 +300,13 @@ public abstract class AbstractExportHelper implements ExportHelper {
     // ---
 
     protected final void displayErrorMessage(Throwable e) {
+
+        if (owner != null) {
+            Log.error("Error exporting table part " + partNumber, e);
+            partError = e;
+            return;
+        }
+
         GUIUtilities.displayExceptionErrorDialog(bundleString("ErrorWritingToFile", e.getMessage()), e, this.getClass());
     }
 
@@ -23,7 +23,9 @@ package org.executequery.gui.exportData;
 import org.executequery.Constants;
 import org.executequery.GUIUtilities;
 import org.executequery.components.FileChooserDialog;
+import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.databaseobjects.DatabaseColumn;
+import org.executequery.databaseobjects.DatabaseTableObject;
 import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.resultset.AbstractLobRecordDataItem;
 import org.executequery.localization.Bundles;
@@ -76,6 +78,7 @@ public class ExportDataPanel extends AbstractBaseDialog {
 
     private JCheckBox addColumnHeadersCheck;
     private JCheckBox addQuotesCheck;
+    private JCheckBox compressOutputCheck;
     private JCheckBox saveBlobsIndividuallyCheck;
     private JCheckBox openQueryEditorCheck;
     private JCheckBox addCreateTableStatementCheck;
@@ -92,6 +95,10 @@ public class ExportDataPanel extends AbstractBaseDialog {
     private JLabel delimiterLabel;
     private JComboBox<?> columnDelimiterCombo;
 
+    private JLabel partCountLabel;
+    private JSpinner partCountSpinner;
+    private JCheckBox separatePartFilesCheck;
+
     private JButton browseFileButton;
     private JButton browseBlobFileButton;
     private JButton exportButton;
@@ -103,6 +110,8 @@ public class ExportDataPanel extends AbstractBaseDialog {
     private final String tableNameForExport;
     private final ParametersSaver parametersSaver;
     private final List<DatabaseColumn> databaseColumns;
+    private final DatabaseConnection sourceConnection;
+    private final DatabaseTableObject sourceTable;
 
     private Map<String, Component> components;
     private static String columnDelimiterComboName = "";
@@ -114,12 +123,28 @@ public class ExportDataPanel extends AbstractBaseDialog {
     }
 
     public ExportDataPanel(Object exportData, String tableNameForExport, List<DatabaseColumn> databaseColumns) {
+        this(exportData, tableNameForExport, databaseColumns, null);
+    }
+
+    /**
+     * Creates the export dialog for the whole table data,
+     * the table can be read again by several connections in parallel.
+     */
+    public ExportDataPanel(DatabaseTableObject sourceTable, Object exportData) {
+        this(exportData, sourceTable.getName(), sourceTable.getColumns(), sourceTable);
+    }
+
+    private ExportDataPanel(Object exportData, String tableNameForExport, List<DatabaseColumn> databaseColumns, DatabaseTableObject sourceTable) {
         super(GUIUtilities.getParentFrame(), TITLE, true);
 
         this.exportData = exportData;
         this.parametersSaver = new ParametersSaver();
         this.tableNameForExport = tableNameForExport;
         this.databaseColumns = databaseColumns;
+        this.sourceTable = sourceTable;
+        this.sourceConnection = sourceTable != null && sourceTable.getHost() != null ?
+                sourceTable.getHost().getDatabaseConnection() :
+                null;
 
         if (exportData == null) {
             GUIUtilities.displayWarningMessage(bundleString("NoDataForExport"));
@@ -195,6 +220,10 @@ public class ExportDataPanel extends AbstractBaseDialog {
         addQuotesCheck = WidgetFactory.createCheckBox("addQuotesCheck", bundleString("addQuotesCheck"));
         components.put(addQuotesCheck.getName(), addQuotesCheck);
 
+        compressOutputCheck = WidgetFactory.createCheckBox("compressOutputCheck", bundleString("compressOutputCheck"));
+        compressOutputCheck.addActionListener(e -> updateDialog());
+        components.put(compressOutputCheck.getName(), compressOutputCheck);
+
         openQueryEditorCheck = WidgetFactory.createCheckBox("openQueryEditorCheck", bundleString("openQueryEditorCheck"));
         components.put(openQueryEditorCheck.getName(), openQueryEditorCheck);
 
@@ -205,6 +234,15 @@ public class ExportDataPanel extends AbstractBaseDialog {
         saveBlobsIndividuallyCheck.setEnabled(isContainsBlob());
         components.put(saveBlobsIndividuallyCheck.getName(), saveBlobsIndividuallyCheck);
 
+        partCountLabel = new JLabel(bundleString("PartCountLabel"));
+        partCountSpinner = WidgetFactory.createSpinner("partCountSpinner", 1, 1, 32, 1);
+        partCountSpinner.setToolTipText(bundleString("PartCountToolTip"));
+        partCountSpinner.addChangeListener(e -> separatePartFilesCheck.setEnabled(getPartCount() > 1));
+
+        separatePartFilesCheck = WidgetFactory.createCheckBox("separatePartFilesCheck", bundleString("separatePartFilesCheck"));
+        separatePartFilesCheck.setEnabled(false);
+        components.put(separatePartFilesCheck.getName(), separatePartFilesCheck);
+
         replaceEndlCheck = WidgetFactory.createCheckBox("replaceEndlCheck", bundleString("replaceEndlLabel"));
         replaceEndlCheck.addActionListener(e -> replaceEndlField.setEnabled(replaceEndlCheck.isSelected()));
         components.put(replaceEndlCheck.getName(), replaceEndlCheck);
@@ -254,9 +292,15 @@ public class ExportDataPanel extends AbstractBaseDialog {
         gridBagHelper = new GridBagHelper().setInsets(5, 5, 5, 5).anchorNorthWest().fillHorizontally();
         optionsPanel.add(addColumnHeadersCheck, gridBagHelper.spanX().get());
         optionsPanel.add(addQuotesCheck, gridBagHelper.nextRowFirstCol().get());
+        optionsPanel.add(compressOutputCheck, gridBagHelper.nextRowFirstCol().get());
         optionsPanel.add(openQueryEditorCheck, gridBagHelper.nextRowFirstCol().get());
         optionsPanel.add(addCreateTableStatementCheck, gridBagHelper.nextRowFirstCol().get());
         optionsPanel.add(saveBlobsIndividuallyCheck, gridBagHelper.nextRowFirstCol().get());
+        if (isParallelExportAvailable()) {
+            optionsPanel.add(partCountLabel, gridBagHelper.leftGap(10).topGap(8).nextRowFirstCol().setMinWeightX().setWidth(1).get());
+            optionsPanel.add(partCountSpinner, gridBagHelper.nextCol().leftGap(5).topGap(5).setMaxWeightX().spanX().get());
+            optionsPanel.add(separatePartFilesCheck, gridBagHelper.leftGap(5).nextRowFirstCol().spanX().get());
+        }
         optionsPanel.add(replaceNullCheck, gridBagHelper.nextRowFirstCol().setMinWeightX().setWidth(1).get());
         optionsPanel.add(replaceNullField, gridBagHelper.nextCol().setMaxWeightX().spanX().get());
         optionsPanel.add(replaceEndlCheck, gridBagHelper.nextRowFirstCol().setMinWeightX().setWidth(1).get());
@@ -327,7 +371,7 @@ public class ExportDataPanel extends AbstractBaseDialog {
                 break;
             default:
                 showDelimiterPanel();
-                validExtension = ".csv";
+                validExtension = isCompressOutput() ? ".csv.gz" : ".csv";
         }
 
         updateFilePath(filePathField, validExtension);
@@ -336,6 +380,9 @@ public class ExportDataPanel extends AbstractBaseDialog {
     private void updateFilePath(JTextField field, String validExtension) {
 
         String filePath = field.getText();
+        if (filePath.toLowerCase().endsWith(".gz"))
+            filePath = filePath.substring(0, filePath.length() - ".gz".length());
+
         if (!filePath.isEmpty()) {
 
             int extensionIndex = filePath.lastIndexOf(".") - 1;
@@ -360,6 +407,7 @@ public class ExportDataPanel extends AbstractBaseDialog {
 
         addColumnHeadersCheck.setVisible(true);
         addQuotesCheck.setVisible(true);
+        compressOutputCheck.setVisible(true);
         openQueryEditorCheck.setVisible(false);
         addCreateTableStatementCheck.setVisible(false);
         delimiterLabel.setVisible(true);
@@ -379,6 +427,7 @@ public class ExportDataPanel extends AbstractBaseDialog {
 
         addColumnHeadersCheck.setVisible(true);
         addQuotesCheck.setVisible(false);
+        compressOutputCheck.setVisible(false);
         openQueryEditorCheck.setVisible(false);
         addCreateTableStatementCheck.setVisible(false);
         delimiterLabel.setVisible(false);
@@ -398,6 +447,7 @@ public class ExportDataPanel extends AbstractBaseDialog {
 
         addColumnHeadersCheck.setVisible(false);
         addQuotesCheck.setVisible(false);
+        compressOutputCheck.setVisible(false);
         openQueryEditorCheck.setVisible(false);
         addCreateTableStatementCheck.setVisible(false);
         delimiterLabel.setVisible(false);
@@ -417,6 +467,7 @@ public class ExportDataPanel extends AbstractBaseDialog {
 
         addColumnHeadersCheck.setVisible(false);
         addQuotesCheck.setVisible(false);
+        compressOutputCheck.setVisible(false);
         openQueryEditorCheck.setVisible(true);
         addCreateTableStatementCheck.setVisible(true);
         delimiterLabel.setVisible(false);
@@ -458,7 +509,7 @@ public class ExportDataPanel extends AbstractBaseDialog {
                     suffix = ".sql";
                     break;
                 default:
-                    suffix = ".csv";
+                    suffix = isCompressOutput() ? ".csv.gz" : ".csv";
             }
 
         } else if (!saveBlobsIndividuallyCheck.isSelected()) {
@@ -472,7 +523,19 @@ public class ExportDataPanel extends AbstractBaseDialog {
     private void export() {
 
         if (exportAllow()) {
-            Objects.requireNonNull(getExportHelper()).export(exportData);
+
+            Object data = exportData;
+            if (isParallelExportAvailable() && getPartCount() > 1) {
+                data = new ParallelTableExporter(
+                        sourceConnection,
+                        sourceTable,
+                        () -> (AbstractExportHelper) getExportHelper(),
+                        getPartCount(),
+                        isSeparatePartFiles()
+                );
+            }
+
+            Objects.requireNonNull(getExportHelper()).export(data);
             GUIUtilities.displayInformationMessage(bundleString("ResultSetExportComplete"));
             dispose();
         }
@@ -676,6 +739,10 @@ public class ExportDataPanel extends AbstractBaseDialog {
         return addQuotesCheck.isSelected();
     }
 
+    protected boolean isCompressOutput() {
+        return compressOutputCheck.isSelected() && getExportFileType() == DELIMITED;
+    }
+
     protected boolean isSaveBlobsIndividually() {
         return saveBlobsIndividuallyCheck.isSelected();
     }
@@ -684,6 +751,23 @@ public class ExportDataPanel extends AbstractBaseDialog {
         return addCreateTableStatementCheck.isSelected();
     }
 
+    private boolean isParallelExportAvailable() {
+        return sourceTable != null && ParallelTableExporter.isSupported(sourceConnection);
+    }
+
+    private int getPartCount() {
+        return (int) partCountSpinner.getValue();
+    }
+
+    /**
+     * Returns <code>true</code> if the table parts should be written to separate files,
+     * the XML and XLSX parts can not be concatenated, so they are always separated.
+     */
+    private boolean isSeparatePartFiles() {
+        int type = getExportFileType();
+        return separatePartFilesCheck.isSelected() || type == XML || type == EXCEL;
+    }
+
     protected boolean isOpenQueryEditor() {
         return openQueryEditorCheck.isSelected();
     }
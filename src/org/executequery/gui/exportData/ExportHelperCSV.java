@@ -5,11 +5,14 @@ import org.executequery.gui.resultset.AbstractLobRecordDataItem;
 import org.executequery.gui.resultset.RecordDataItem;
 
 import javax.swing.table.TableModel;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Blob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ExportHelperCSV extends AbstractExportHelper {
@@ -21,26 +24,25 @@ public class ExportHelperCSV extends AbstractExportHelper {
     @Override
     protected void exportResultSet(ResultSet resultSet) {
 
-        String filePath = parent.getFilePath();
+        String filePath = getFilePath();
         String columnDelimiter = parent.getColumnDelimiter();
         String endlReplacement = parent.getEndlReplacement();
         String nullReplacement = parent.getNullReplacement();
 
-        boolean addHeaders = parent.isAddHeaders();
+        boolean addHeaders = parent.isAddHeaders() && !isContinuation();
         boolean addQuotes = parent.isAddQuotes();
         boolean saveBlobsIndividually = parent.isSaveBlobsIndividually();
 
-        try {
+        try (Writer writer = createFileWriter(filePath)) {
 
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            List<ColumnData> columns = getCreateColumnData(metaData);
-            int columnCount = metaData.getColumnCount();
+            setExportFetchSize(resultSet);
 
-            StringBuilder resultText = new StringBuilder();
-            PrintWriter writer = new PrintWriter(new FileWriter(filePath, false), true);
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            ColumnReader[] columnReaders = createColumnReaders(getCreateColumnData(metaData),
+                    addQuotes, saveBlobsIndividually, endlReplacement, nullReplacement);
 
             if (addHeaders)
-                writer.println(getHeaders(columnCount, columnDelimiter, metaData));
+                writeLine(writer, getHeaders(metaData.getColumnCount(), columnDelimiter, metaData));
 
             int row = 0;
             while (resultSet.next()) {
@@ -48,39 +50,18 @@ public class ExportHelperCSV extends AbstractExportHelper {
                 if (isCancel())
                     break;
 
-                for (int col = 1; col < columnCount + 1; col++) {
+                for (int i = 0; i < columnReaders.length; i++) {
 
-                    if (isCancel())
-                        break;
-
-                    if (!isFieldSelected(col - 1))
-                        continue;
-
-                    String stringValue = null;
-                    Object value = resultSet.getObject(col);
-                    ColumnData columnData = columns.get(col - 1);
-
-                    if (value != null) {
-                        stringValue = getFormattedValue(value, endlReplacement, nullReplacement);
-
-                        if (isCharType(columnData) && addQuotes && !stringValue.isEmpty()) {
-                            stringValue = "\"" + stringValue + "\"";
-
-                        } else if (isBlobType(columnData)) {
-                            stringValue = writeBlob(resultSet.getBlob(col), saveBlobsIndividually, getCreateBlobFileName(columnData, col, row));
-                        }
-                    }
+                    if (i > 0)
+                        writer.write(columnDelimiter);
 
-                    resultText.append(stringValue != null ? stringValue : nullReplacement);
-                    resultText.append(columnDelimiter);
+                    String stringValue = columnReaders[i].read(resultSet, row);
+                    writer.write(stringValue != null ? stringValue : nullReplacement);
                 }
-                resultText.deleteCharAt(resultText.length() - 1);
 
-                writer.println(resultText);
-                resultText.setLength(0);
+                writeLine(writer, null);
                 row++;
             }
-            writer.close();
 
         } catch (Exception e) {
             displayErrorMessage(e);
@@ -90,7 +71,7 @@ public class ExportHelperCSV extends AbstractExportHelper {
     @Override
     protected void exportTableModel(TableModel tableModel) {
 
-        String filePath = parent.getFilePath();
+        String filePath = getFilePath();
         String columnDelimiter = parent.getColumnDelimiter();
         String endlReplacement = parent.getEndlReplacement();
         String nullReplacement = parent.getNullReplacement();
@@ -101,26 +82,23 @@ public class ExportHelperCSV extends AbstractExportHelper {
 
         int rowCount = tableModel.getRowCount();
         int columnCount = tableModel.getColumnCount();
+        int[] selectedColumns = getSelectedColumns(columnCount);
 
-        try {
-            StringBuilder resultText = new StringBuilder();
-            PrintWriter writer = new PrintWriter(new FileWriter(filePath, false), true);
+        try (Writer writer = createFileWriter(filePath)) {
 
             if (addHeaders)
-                writer.println(getHeaders(columnCount, columnDelimiter, tableModel));
+                writeLine(writer, getHeaders(columnCount, columnDelimiter, tableModel));
 
             for (int row = 0; row < rowCount; row++) {
 
                 if (isCancel())
                     break;
 
-                for (int col = 0; col < columnCount; col++) {
+                for (int i = 0; i < selectedColumns.length; i++) {
 
-                    if (isCancel())
-                        break;
-
-                    if (!isFieldSelected(col))
-                        continue;
+                    int col = selectedColumns[i];
+                    if (i > 0)
+                        writer.write(columnDelimiter);
 
                     String stringValue = null;
                     Object value = tableModel.getValueAt(row, col);
@@ -128,6 +106,7 @@ public class ExportHelperCSV extends AbstractExportHelper {
                         RecordDataItem rdi = (RecordDataItem) value;
 
                         if (!rdi.isValueNull()) {
+
                             stringValue = getFormattedValue(rdi, endlReplacement, nullReplacement);
 
                             if (isCharType(rdi) && addQuotes && !stringValue.isEmpty()) {
@@ -146,21 +125,99 @@ public class ExportHelperCSV extends AbstractExportHelper {
                         }
                     }
 
-                    resultText.append(stringValue != null ? stringValue : nullReplacement);
-                    resultText.append(columnDelimiter);
+                    writer.write(stringValue != null ? stringValue : nullReplacement);
                 }
-                resultText.deleteCharAt(resultText.length() - 1);
 
-                writer.println(resultText);
-                resultText.setLength(0);
+                writeLine(writer, null);
             }
-            writer.close();
 
         } catch (Exception e) {
             displayErrorMessage(e);
         }
     }
 
+    /**
+     * Creates the readers of the selected result set columns, each column is read
+     * by the getter of its type, so the integer and string values are not boxed
+     * and the value type is not checked for every cell.
+     */
+    private ColumnReader[] createColumnReaders(List<ColumnData> columns, boolean addQuotes, boolean saveBlobsIndividually,
+                                               String endlReplacement, String nullReplacement) {
+
+        List<ColumnReader> columnReaders = new ArrayList<>(columns.size());
+        for (int col = 0; col < columns.size(); col++) {
+            if (isFieldSelected(col)) {
+
+                int index = col + 1;
+                ColumnData columnData = columns.get(col);
+                boolean quoted = addQuotes && isCharType(columnData);
+
+                if (quoted || (isCharType(columnData) && !isBlobType(columnData))) {
+                    columnReaders.add((resultSet, row) -> {
+
+                        String value = resultSet.getString(index);
+                        if (value == null)
+                            return null;
+
+                        value = getFormattedValue(value, endlReplacement, nullReplacement);
+                        return quoted && !value.isEmpty() ? "\"" + value + "\"" : value;
+                    });
+
+                } else if (isBlobType(columnData)) {
+                    columnReaders.add((resultSet, row) -> {
+
+                        Blob value = resultSet.getBlob(index);
+                        return value != null ?
+                                writeBlob(value, saveBlobsIndividually, getCreateBlobFileName(columnData, index, row)) :
+                                null;
+                    });
+
+                } else if (isIntegerType(columnData)) {
+                    columnReaders.add((resultSet, row) -> {
+
+                        long value = resultSet.getLong(index);
+                        return resultSet.wasNull() ? null : Long.toString(value);
+                    });
+
+                } else {
+                    columnReaders.add((resultSet, row) -> {
+
+                        Object value = resultSet.getObject(index);
+                        return value != null ? getFormattedValue(value, endlReplacement, nullReplacement) : null;
+                    });
+                }
+            }
+        }
+
+        return columnReaders.toArray(new ColumnReader[0]);
+    }
+
+    private static boolean isIntegerType(ColumnData columnData) {
+
+        int type = columnData.getSQLType();
+        return type == Types.TINYINT || type == Types.SMALLINT || type == Types.INTEGER || type == Types.BIGINT;
+    }
+
+    private int[] getSelectedColumns(int columnCount) {
+
+        int[] selectedColumns = new int[columnCount];
+        int selectedCount = 0;
+        for (int col = 0; col < columnCount; col++)
+            if (isFieldSelected(col))
+                selectedColumns[selectedCount++] = col;
+
+        int[] result = new int[selectedCount];
+        System.arraycopy(selectedColumns, 0, result, 0, selectedCount);
+        return result;
+    }
+
+    private static void writeLine(Writer writer, String line) throws IOException {
+
+        if (line != null)
+            writer.write(line);
+        writer.write(System.lineSeparator());
+    }
+
     private String getHeaders(int columnCount, String columnDelimiter, Object columnData) throws SQLException {
 
         StringBuilder sb = new StringBuilder();
@@ -181,4 +238,16 @@ public class ExportHelperCSV extends AbstractExportHelper {
         return sb.deleteCharAt(sb.length() - 1).toString().trim();
     }
 
+    /**
+     * Reads the value of the result set column, resolved once before the export started.
+     */
+    private interface ColumnReader {
+
+        /**
+         * @return the column value of the current record or <code>null</code> if the value is null
+         */
+        String read(ResultSet resultSet, int row) throws SQLException, IOException;
+
+    } // ColumnReader interface
+
 }
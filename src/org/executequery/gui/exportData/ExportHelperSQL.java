@@ -31,7 +31,7 @@ public class ExportHelperSQL extends AbstractExportHelper {
     void exportResultSet(ResultSet resultSet) {
 
         String tableName = parent.getExportTableName();
-        boolean addCreateTableStatement = parent.isAddCreateTableStatement();
+        boolean addCreateTableStatement = parent.isAddCreateTableStatement() && !isContinuation();
         boolean saveBlobsIndividually = parent.isSaveBlobsIndividually();
 
         StringBuilder result = new StringBuilder();
@@ -45,7 +45,7 @@ public class ExportHelperSQL extends AbstractExportHelper {
             String insertTemplate = getInsertTemplate(tableName, columnCount, columns);
             if (addCreateTableStatement)
                 result.append(getCreateTableStatement(databaseColumns, tableName, metaData));
-            if (!saveBlobsIndividually && parent.isContainsBlob())
+            if (!saveBlobsIndividually && parent.isContainsBlob() && !isContinuation())
                 result.append(getSetBlobFileStatement());
 
             // --- add values to script ---
@@ -194,11 +194,11 @@ public class ExportHelperSQL extends AbstractExportHelper {
 
     private void write(String text) throws IOException {
 
-        PrintWriter writer = new PrintWriter(new FileWriter(parent.getFilePath(), false), true);
+        PrintWriter writer = new PrintWriter(new FileWriter(getFilePath(), false), true);
         writer.println(text);
         writer.close();
 
-        if (parent.isOpenQueryEditor()) {
+        if (parent.isOpenQueryEditor() && !isExportPart()) {
             GUIUtilities.addCentralPane(
                     QueryEditor.TITLE, QueryEditor.FRAME_ICON,
                     new QueryEditor(text), null, true
@@ -31,7 +31,7 @@ public class ExportHelperXLSX extends AbstractExportHelper {
     @Override
     void exportResultSet(ResultSet resultSet) {
 
-        String filePath = parent.getFilePath();
+        String filePath = getFilePath();
         String nullReplacement = parent.getNullReplacement();
 
         boolean addHeaders = parent.isAddHeaders();
@@ -107,7 +107,7 @@ public class ExportHelperXLSX extends AbstractExportHelper {
     @Override
     void exportTableModel(TableModel tableModel) {
 
-        String filePath = parent.getFilePath();
+        String filePath = getFilePath();
         String nullReplacement = parent.getNullReplacement();
 
         boolean addHeaders = parent.isAddHeaders();
@@ -19,7 +19,7 @@ public class ExportHelperXML extends AbstractExportHelper {
     @Override
     void exportResultSet(ResultSet resultSet) {
 
-        String filePath = parent.getFilePath();
+        String filePath = getFilePath();
         String nullReplacement = parent.getNullReplacement();
         boolean saveBlobsIndividually = parent.isSaveBlobsIndividually();
 
@@ -78,7 +78,7 @@ public class ExportHelperXML extends AbstractExportHelper {
     @Override
     void exportTableModel(TableModel tableModel) {
 
-        String filePath = parent.getFilePath();
+        String filePath = getFilePath();
         String nullReplacement = parent.getNullReplacement();
         boolean saveBlobsIndividually = parent.isSaveBlobsIndividually();
 
@@ -0,0 +1,388 @@
+package org.executequery.gui.exportData;
+
+import biz.redsoft.ITPB;
+import biz.redsoft.ITPBConstants;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.databaseobjects.DatabaseColumn;
+import org.executequery.databaseobjects.DatabaseTableObject;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.PooledConnection;
+import org.executequery.log.Log;
+import org.underworldlabs.util.DynamicLibraryLoader;
+import org.underworldlabs.util.MiscUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Exports the table by ranges read concurrently over several connections.
+ * <p>
+ * The table is split by the single-column integer primary key values or,
+ * if there is no such key, by the <code>RDB$DB_KEY</code> pointer page ranges.
+ * All the parts are read in the snapshot of the transaction that calculated
+ * the ranges (<code>isc_tpb_at_snapshot_number</code>, server version 4 and later),
+ * so the result is consistent as if the table was read by one transaction.
+ * <p>
+ * The parts are written to separate files or to temporary files
+ * concatenated in the part order when all the parts are ready.
+ */
+class ParallelTableExporter {
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final DatabaseConnection connection;
+    private final DatabaseTableObject table;
+    private final Supplier<AbstractExportHelper> helperFactory;
+    private final int partCount;
+    private final boolean separateFiles;
+
+    private final String tableName;
+    private final String columnList;
+
+    ParallelTableExporter(
+            DatabaseConnection connection, DatabaseTableObject table,
+            Supplier<AbstractExportHelper> helperFactory, int partCount, boolean separateFiles) {
+
+        this.connection = connection;
+        this.table = table;
+        this.helperFactory = helperFactory;
+        this.partCount = partCount;
+        this.separateFiles = separateFiles;
+
+        this.tableName = MiscUtils.getFormattedObject(table.getName(), connection);
+
+        StringBuilder sb = new StringBuilder();
+        for (DatabaseColumn column : table.getColumns())
+            sb.append(MiscUtils.getFormattedObject(column.getName(), connection)).append(", ");
+        this.columnList = sb.substring(0, sb.length() - 2);
+    }
+
+    /**
+     * Returns <code>true</code> if the table of the specified connection
+     * can be read by <code>RDB$DB_KEY</code> or primary key ranges.
+     * The table without the integer primary key is read by one part before Firebird 4.
+     */
+    static boolean isSupported(DatabaseConnection connection) {
+        return connection != null && connection.isConnected() && connection.getMajorServerVersion() >= 3;
+    }
+
+    void export(AbstractExportHelper owner) {
+
+        String filePath = owner.getFilePath();
+        List<String> partFiles = new ArrayList<>();
+
+        Connection snapshotConnection = null;
+        try {
+
+            // --- calculate ranges in the snapshot shared by the parts ---
+
+            snapshotConnection = openConnection(-1);
+            List<Range> ranges = createRanges(snapshotConnection);
+            long snapshotNumber = ConnectionManager.getCurrentSnapshotTransaction(connection, snapshotConnection);
+            if (snapshotNumber <= 0)
+                Log.warning("Shared snapshot is not supported by the server, table parts are read in own transactions");
+
+            Log.info(String.format("Exporting table %s by %d part(s) of %s ranges", table.getName(), ranges.size(),
+                    ranges.get(0).keyColumn != null ? ranges.get(0).keyColumn : "RDB$DB_KEY"));
+
+            // --- export parts ---
+
+            ExecutorService workers = Executors.newFixedThreadPool(ranges.size());
+            List<Future<Throwable>> results = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+
+                int partNumber = i + 1;
+                Range range = ranges.get(i);
+                String partFile = separateFiles ? getPartFilePath(filePath, partNumber) : filePath + PART_SUFFIX + partNumber;
+                partFiles.add(partFile);
+
+                results.add(workers.submit(() -> exportPart(owner, range, partNumber, partFile, snapshotNumber)));
+            }
+            workers.shutdown();
+
+            Throwable error = null;
+            for (Future<Throwable> result : results) {
+                Throwable partError = result.get();
+                if (error == null)
+                    error = partError;
+            }
+
+            snapshotConnection.commit();
+
+            if (error != null)
+                throw error;
+
+            if (!separateFiles && !owner.isCancel())
+                concatenate(partFiles, filePath);
+
+        } catch (ExecutionException e) {
+            owner.displayErrorMessage(e.getCause());
+
+        } catch (Throwable e) {
+            owner.displayErrorMessage(e);
+
+        } finally {
+
+            if (!separateFiles)
+                for (String partFile : partFiles)
+                    //noinspection ResultOfMethodCallIgnored
+                    new File(partFile).delete();
+
+            close(snapshotConnection);
+        }
+    }
+
+    private Throwable exportPart(AbstractExportHelper owner, Range range, int partNumber, String partFile, long snapshotNumber) {
+
+        Connection partConnection = null;
+        try {
+
+            partConnection = openConnection(snapshotNumber);
+            try (PreparedStatement statement = partConnection.prepareStatement(range.getQuery(tableName, columnList))) {
+
+                range.setParameters(statement);
+                try (ResultSet resultSet = statement.executeQuery()) {
+
+                    AbstractExportHelper helper = helperFactory.get();
+                    return helper.exportPart(resultSet, owner, partNumber, partFile, !separateFiles && partNumber > 1);
+                }
+            }
+
+        } catch (Exception e) {
+            Log.error("Error exporting table part " + partNumber, e);
+            return e;
+
+        } finally {
+            close(partConnection);
+        }
+    }
+
+    private List<Range> createRanges(Connection connection) throws SQLException {
+
+        List<Range> ranges = new ArrayList<>();
+
+        DatabaseColumn keyColumn = getIntegerPrimaryKey();
+        if (keyColumn != null) {
+
+            String keyName = MiscUtils.getFormattedObject(keyColumn.getName(), this.connection);
+            String query = "SELECT MIN(" + keyName + "), MAX(" + keyName + ") FROM " + tableName;
+            try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(query)) {
+
+                long min = rs.next() ? rs.getLong(1) : 0;
+                long max = rs.getLong(2);
+                if (rs.wasNull())
+                    max = min;
+
+                // the keys span may exceed Long.MAX_VALUE, so it is computed as unsigned
+                long step = Long.divideUnsigned(max - min, partCount) + 1;
+                for (long lower = min; ranges.size() < partCount; lower += step) {
+
+                    boolean last = ranges.size() == partCount - 1 || Long.compareUnsigned(max - lower, step) < 0;
+                    ranges.add(new Range(keyName, ranges.isEmpty() ? null : lower, last ? null : lower + step));
+                    if (last)
+                        break;
+                }
+            }
+
+        } else if (this.connection.getMajorServerVersion() >= 4) {
+
+            // MAKE_DBKEY is available since Firebird 4
+            String query = "SELECT R.RDB$RELATION_ID, COUNT(P.RDB$PAGE_NUMBER)\n" +
+                    "FROM RDB$RELATIONS R LEFT JOIN RDB$PAGES P\n" +
+                    "ON P.RDB$RELATION_ID = R.RDB$RELATION_ID AND P.RDB$PAGE_TYPE = 4\n" +
+                    "WHERE R.RDB$RELATION_NAME = ?\n" +
+                    "GROUP BY R.RDB$RELATION_ID";
+
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+
+                statement.setString(1, table.getName());
+                try (ResultSet rs = statement.executeQuery()) {
+
+                    int relationId = rs.next() ? rs.getInt(1) : -1;
+                    long pointerPages = relationId >= 0 ? rs.getLong(2) : 0;
+
+                    int count = (int) Math.max(Math.min(partCount, pointerPages), 1);
+                    for (int i = 0; i < count; i++) {
+                        ranges.add(new Range(
+                                relationId,
+                                i == 0 ? null : pointerPages * i / count,
+                                i == count - 1 ? null : pointerPages * (i + 1) / count
+                        ));
+                    }
+                }
+            }
+        }
+
+        if (ranges.isEmpty())
+            ranges.add(new Range(null, null, null));
+
+        return ranges;
+    }
+
+    private DatabaseColumn getIntegerPrimaryKey() {
+
+        DatabaseColumn keyColumn = null;
+        for (DatabaseColumn column : table.getColumns()) {
+            if (column.isPrimaryKey()) {
+
+                if (keyColumn != null)
+                    return null;
+                keyColumn = column;
+            }
+        }
+
+        if (keyColumn == null)
+            return null;
+
+        int type = keyColumn.getTypeInt();
+        return type == Types.SMALLINT || type == Types.INTEGER || type == Types.BIGINT ? keyColumn : null;
+    }
+
+    private Connection openConnection(long snapshotNumber) throws SQLException {
+
+        ITPB tpb = null;
+        try {
+            tpb = (ITPB) DynamicLibraryLoader.loadingObjectFromClassLoaderWithCS(
+                    connection.getDriverMajorVersion(),
+                    ConnectionManager.getClassLoaderForDatabaseConnection(connection),
+                    "ITPBImpl"
+            );
+
+            tpb.initTPB();
+            tpb.addArgument(ITPBConstants.isc_tpb_read);
+            tpb.addArgument(ITPBConstants.isc_tpb_wait);
+            tpb.addArgument(ITPBConstants.isc_tpb_concurrency);
+            if (snapshotNumber > 0)
+                tpb.addArgument(ITPBConstants.isc_tpb_at_snapshot_number, snapshotNumber);
+
+        } catch (ClassNotFoundException e) {
+            Log.error(e.getMessage(), e);
+        }
+
+        Connection partConnection = ConnectionManager.getTemporaryConnection(connection, tpb);
+        if (partConnection == null)
+            throw new SQLException(connection.getName() + ": unable to open connection");
+
+        partConnection.setAutoCommit(false);
+        return partConnection;
+    }
+
+    private static void close(Connection connection) {
+
+        if (connection == null)
+            return;
+
+        try {
+            connection.rollback();
+            if (connection instanceof PooledConnection)
+                ((PooledConnection) connection).setCloseOnReturn(true);
+            connection.close();
+
+        } catch (SQLException e) {
+            Log.debug("Error closing export connection: " + e.getMessage());
+        }
+    }
+
+    private static void concatenate(List<String> partFiles, String filePath) throws IOException {
+
+        try (FileChannel output = new FileOutputStream(filePath, false).getChannel()) {
+            for (String partFile : partFiles) {
+                try (FileChannel input = new FileInputStream(partFile).getChannel()) {
+
+                    long position = 0;
+                    long size = input.size();
+                    while (position < size)
+                        position += input.transferTo(position, size - position, output);
+                }
+            }
+        }
+    }
+
+    static String getPartFilePath(String filePath, int partNumber) {
+
+        File file = new File(filePath);
+        String name = file.getName();
+
+        int extensionIndex = name.toLowerCase().endsWith(".gz") ?
+                name.lastIndexOf('.', name.length() - ".gz".length() - 1) :
+                name.lastIndexOf('.');
+        if (extensionIndex < 0)
+            extensionIndex = name.length();
+
+        String partName = name.substring(0, extensionIndex) + "_part" + partNumber + name.substring(extensionIndex);
+        return new File(file.getAbsoluteFile().getParentFile(), partName).getPath();
+    }
+
+    /**
+     * Table part bounds, the lower bound is inclusive and the upper one is exclusive,
+     * <code>null</code> bound means the range is not limited from this side.
+     */
+    private static class Range {
+
+        private final String keyColumn;
+        private final int relationId;
+        private final Long lower;
+        private final Long upper;
+
+        Range(String keyColumn, Long lower, Long upper) {
+            this.keyColumn = keyColumn;
+            this.relationId = -1;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        Range(int relationId, Long lower, Long upper) {
+            this.keyColumn = null;
+            this.relationId = relationId;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        String getQuery(String tableName, String columnList) {
+
+            String bound = keyColumn != null ? keyColumn : "RDB$DB_KEY";
+            String lowerValue = keyColumn != null ? "?" : "MAKE_DBKEY(" + relationId + ", 0, 0, ?)";
+            String upperValue = keyColumn != null ? "?" : "MAKE_DBKEY(" + relationId + ", 0, 0, ?)";
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("SELECT ").append(columnList).append(" FROM ").append(tableName);
+            if (lower != null || upper != null) {
+
+                sb.append(" WHERE ");
+                if (lower != null)
+                    sb.append(bound).append(" >= ").append(lowerValue);
+                if (lower != null && upper != null)
+                    sb.append(" AND ");
+                if (upper != null)
+                    sb.append(bound).append(" < ").append(upperValue);
+            }
+
+            if (keyColumn != null)
+                sb.append(" ORDER BY ").append(keyColumn);
+
+            return sb.toString();
+        }
+
+        void setParameters(PreparedStatement statement) throws SQLException {
+
+            int index = 1;
+            if (lower != null)
+                statement.setLong(index++, lower);
+            if (upper != null)
+                statement.setLong(index, upper);
+        }
+
+    } // Range class
+
+}
@@ -2,13 +2,17 @@ package org.executequery.gui.importData;
 
 import org.executequery.GUIUtilities;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
+import org.executequery.datasource.BulkLoader;
 import org.executequery.localization.Bundles;
 import org.executequery.log.Log;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.sql.PreparedStatement;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -19,6 +23,8 @@ import java.util.List;
 
 abstract class AbstractImportHelper implements ImportHelper {
 
+    private static final long PROGRESS_UPDATE_INTERVAL = 250;
+
     private final List<String> headers;
 
     protected final ImportDataPanel parent;
@@ -32,6 +38,17 @@ abstract class AbstractImportHelper implements ImportHelper {
     protected String delimiter = ";;;";
     protected int addedRecordsCount;
 
+    /**
+     * Number of the source bytes read, if known by the helper
+     */
+    protected long processedBytes = -1;
+
+    private ParallelImportWriter parallelWriter;
+    private BulkLoader bulkLoader;
+    private FileChannel lobFileChannel;
+    private long importStartTime;
+    private long lastProgressUpdateTime;
+
     protected AbstractImportHelper(ImportDataPanel parent, String pathToFile, String pathToLob, int previewRowCount, boolean isFirstRowHeaders) {
         this.headers = new LinkedList<>();
         this.parent = parent;
@@ -71,8 +88,15 @@ abstract class AbstractImportHelper implements ImportHelper {
             PreparedStatement insertStatement,
             DefaultStatementExecutor executor) {
 
+        if (parallelWriter != null)
+            insertStatement = parallelWriter.getStatement();
+        else if (bulkLoader != null)
+            insertStatement = bulkLoader.getStatement();
+
         this.insertStatement = insertStatement;
         this.executor = executor;
+        this.importStartTime = System.currentTimeMillis();
+        this.lastProgressUpdateTime = 0;
 
         try {
 
@@ -86,16 +110,62 @@ abstract class AbstractImportHelper implements ImportHelper {
             );
 
         } catch (DateTimeParseException e) {
+            rollbackBulkLoader();
             GUIUtilities.displayExceptionErrorDialog(bundleString("DateTimeFormatErrorMessage") + "\n" + e.getMessage(), e, this.getClass());
 
         } catch (Exception e) {
+            rollbackBulkLoader();
             GUIUtilities.displayExceptionErrorDialog(bundleString("ImportDataErrorMessage") + "\n" + e.getMessage(), e, this.getClass());
 
         } finally {
+            if (parallelWriter != null)
+                parallelWriter.cancel();
+            closeBulkLoader();
+            closeLobFile();
             executor.releaseResources();
         }
     }
 
+    /**
+     * Rolls back the rows of the failed batch, the batch API keeps its own transaction
+     * not rolled back by the executor connection.
+     */
+    private void rollbackBulkLoader() {
+
+        if (bulkLoader == null)
+            return;
+
+        try {
+            bulkLoader.rollback();
+
+        } catch (SQLException e) {
+            Log.error("Error rolling back the import", e);
+        }
+    }
+
+    private void closeBulkLoader() {
+
+        if (bulkLoader == null)
+            return;
+
+        try {
+            bulkLoader.close();
+
+        } catch (SQLException e) {
+            Log.debug("Error closing bulk loader", e);
+        }
+    }
+
+    @Override
+    public void setParallelWriter(ParallelImportWriter parallelWriter) {
+        this.parallelWriter = parallelWriter;
+    }
+
+    @Override
+    public void setBulkLoader(BulkLoader bulkLoader) {
+        this.bulkLoader = bulkLoader;
+    }
+
     @Override
     public final List<String> getHeaders() {
         return headers;
@@ -133,7 +203,7 @@ abstract class AbstractImportHelper implements ImportHelper {
             int startIndex = Integer.parseInt(parameter.substring(2).split("_")[0], 16);
             int endIndex = startIndex + Integer.parseInt(parameter.split("_")[1], 16);
 
-            value = Arrays.copyOfRange(Files.readAllBytes(Paths.get(pathToLob)), startIndex, endIndex);
+            value = readLobFile(startIndex, endIndex - startIndex);
 
         } else {
 
@@ -147,16 +217,66 @@ abstract class AbstractImportHelper implements ImportHelper {
         return value;
     }
 
+    private byte[] readLobFile(long position, int length) throws IOException {
+
+        if (lobFileChannel == null)
+            lobFileChannel = FileChannel.open(Paths.get(pathToLob), StandardOpenOption.READ);
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (lobFileChannel.read(buffer, position + buffer.position()) < 0)
+                break;
+        }
+
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private void closeLobFile() {
+
+        if (lobFileChannel != null) {
+            try {
+                lobFileChannel.close();
+            } catch (IOException e) {
+                Log.debug("Error closing LOB file", e);
+            }
+            lobFileChannel = null;
+        }
+    }
+
     protected void updateProgressLabel(int executorIndex, boolean execute, boolean finish) throws SQLException {
 
-        parent.setProgressLabel(String.format(bundleString("RecordsAddedLabel"), executorIndex));
+        if (execute)
+            execute();
+
+        if (finish && parallelWriter != null)
+            parallelWriter.finish();
+
+        if (parallelWriter != null)
+            executorIndex = (int) parallelWriter.getInsertedCount();
+
+        long currentTime = System.currentTimeMillis();
+        if (finish || currentTime - lastProgressUpdateTime >= PROGRESS_UPDATE_INTERVAL) {
+            parent.setProgressLabel(String.format(bundleString("RecordsAddedLabel"), executorIndex) + getThroughput(executorIndex, currentTime));
+            lastProgressUpdateTime = currentTime;
+        }
+
         if (finish) {
             Log.info("Import finished, " + executorIndex + " records was added");
             addedRecordsCount = executorIndex;
         }
+    }
 
-        if (execute)
-            execute();
+    private String getThroughput(int executorIndex, long currentTime) {
+
+        double seconds = (currentTime - importStartTime) / 1000d;
+        if (seconds <= 0)
+            return "";
+
+        long rowsPerSecond = Math.round(executorIndex / seconds);
+        if (processedBytes < 0)
+            return " " + String.format(bundleString("RowsThroughputLabel"), rowsPerSecond);
+
+        return " " + String.format(bundleString("ThroughputLabel"), rowsPerSecond, processedBytes / seconds / (1024 * 1024));
     }
 
     protected final String bundleString(String key) {
@@ -165,7 +285,11 @@ abstract class AbstractImportHelper implements ImportHelper {
 
     private void execute() throws SQLException {
         insertStatement.executeBatch();
-        executor.getConnection().commit();
+
+        if (bulkLoader != null)
+            bulkLoader.commit();
+        else
+            executor.getConnection().commit();
     }
 
 }
@@ -0,0 +1,108 @@
+package org.executequery.gui.importData;
+
+import org.executequery.log.Log;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of the table copy saved to the file after every commit,
+ * so the interrupted copy continues from the last committed rows.
+ * <p>
+ * The copied part of the table is identified by the table name and the lower
+ * bound of its key range. The part is either completed or has the key value
+ * of the last committed row. The key ranges of the table are saved too, so the resumed
+ * copy splits the table by the same bounds.
+ */
+class CopyCheckpoint {
+
+    private static final String DONE = "done";
+
+    private final File file;
+    private final Properties properties;
+
+    CopyCheckpoint(File file) {
+
+        this.file = file;
+        this.properties = new Properties();
+
+        if (file.exists()) {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                properties.load(inputStream);
+
+            } catch (IOException e) {
+                Log.error("Error reading copy checkpoint " + file, e);
+            }
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return properties.isEmpty();
+    }
+
+    /**
+     * @return the key range bounds the table was split by or <code>null</code> if not saved
+     */
+    synchronized String getRanges(String table) {
+        return properties.getProperty(table + "#ranges");
+    }
+
+    synchronized void setRanges(String table, String ranges) throws IOException {
+        properties.setProperty(table + "#ranges", ranges);
+        save();
+    }
+
+    synchronized boolean isDone(String table, Object lowerBound) {
+        return DONE.equals(properties.getProperty(key(table, lowerBound)));
+    }
+
+    /**
+     * @return the key value of the last committed row or <code>null</code> if there is no such row
+     */
+    synchronized Long getLastKey(String table, Object lowerBound) {
+
+        String value = properties.getProperty(key(table, lowerBound));
+        return value != null && !DONE.equals(value) ? Long.valueOf(value) : null;
+    }
+
+    synchronized void setLastKey(String table, Object lowerBound, Object lastKey) throws IOException {
+        properties.setProperty(key(table, lowerBound), String.valueOf(lastKey));
+        save();
+    }
+
+    synchronized void setDone(String table, Object lowerBound) throws IOException {
+        properties.setProperty(key(table, lowerBound), DONE);
+        save();
+    }
+
+    /**
+     * Removes the checkpoint file when the copy is completed.
+     */
+    synchronized void delete() {
+
+        properties.clear();
+        if (file.exists() && !file.delete())
+            Log.warning("Unable to delete copy checkpoint " + file);
+    }
+
+    private void save() throws IOException {
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs())
+            throw new IOException("Unable to create directory " + parent);
+
+        File temporaryFile = new File(parent, file.getName() + ".tmp");
+        try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+            properties.store(outputStream, null);
+        }
+
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String key(String table, Object lowerBound) {
+        return table + "@" + (lowerBound != null ? lowerBound : "");
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.executequery.gui.importData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of the delimited text records.
+ * <p>
+ * Values may be enclosed in double quotes, in this case they can contain
+ * delimiters and line breaks, and the doubled quote is read as the quote itself.
+ */
+class CsvRecordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final char QUOTE = '"';
+
+    private final Reader reader;
+    private final char[] delimiter;
+    private final char[] buffer;
+    private final StringBuilder value;
+    private final List<String> record;
+
+    private int position;
+    private int limit;
+
+    CsvRecordReader(Reader reader, String delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter.toCharArray();
+        this.buffer = new char[BUFFER_SIZE];
+        this.value = new StringBuilder();
+        this.record = new ArrayList<>();
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record values or <code>null</code> if the end of the stream is reached.
+     * Returned array is not reused by the following calls.
+     */
+    String[] next() throws IOException {
+
+        record.clear();
+        value.setLength(0);
+
+        boolean quoted = false;
+        boolean valueStart = true;
+
+        while (fill()) {
+
+            char c = buffer[position];
+
+            if (quoted) {
+
+                position++;
+                if (c == QUOTE) {
+
+                    if (fill() && buffer[position] == QUOTE) {
+                        value.append(QUOTE);
+                        position++;
+
+                    } else
+                        quoted = false;
+
+                } else
+                    value.append(c);
+
+                continue;
+            }
+
+            if (c == QUOTE && valueStart) {
+                quoted = true;
+                valueStart = false;
+                position++;
+                continue;
+            }
+
+            if (c == '\n' || c == '\r') {
+
+                position++;
+                if (c == '\r' && fill() && buffer[position] == '\n')
+                    position++;
+
+                // skip empty lines
+                if (record.isEmpty() && valueStart)
+                    continue;
+
+                break;
+            }
+
+            if (c == delimiter[0] && matchDelimiter()) {
+                addValue();
+                valueStart = true;
+                continue;
+            }
+
+            value.append(c);
+            valueStart = false;
+            position++;
+        }
+
+        if (record.isEmpty() && valueStart)
+            return null;
+
+        addValue();
+        return record.toArray(new String[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void addValue() {
+        record.add(value.toString());
+        value.setLength(0);
+    }
+
+    private boolean matchDelimiter() throws IOException {
+
+        if (delimiter.length == 1) {
+            position++;
+            return true;
+        }
+
+        // make sure the whole delimiter is in the buffer
+        if (limit - position < delimiter.length) {
+
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+
+            int read;
+            while (limit < delimiter.length && (read = reader.read(buffer, limit, buffer.length - limit)) != -1)
+                limit += read;
+        }
+
+        if (limit - position < delimiter.length)
+            return false;
+
+        for (int i = 1; i < delimiter.length; i++)
+            if (buffer[position + i] != delimiter[i])
+                return false;
+
+        position += delimiter.length;
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+
+        if (position < limit)
+            return true;
+
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+
+        if (limit < 0) {
+            limit = 0;
+            return false;
+        }
+
+        return true;
+    }
+
+}
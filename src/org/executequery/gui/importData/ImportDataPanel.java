@@ -6,10 +6,12 @@ import org.executequery.GUIUtilities;
 import org.executequery.base.DefaultTabViewActionPanel;
 import org.executequery.components.FileChooserDialog;
 import org.executequery.databasemediators.ConnectionMediator;
+import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.databasemediators.QueryTypes;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.databaseobjects.DatabaseColumn;
 import org.executequery.databaseobjects.impl.DefaultDatabaseHost;
+import org.executequery.datasource.BulkLoader;
 import org.executequery.gui.NamedView;
 import org.executequery.gui.WidgetFactory;
 import org.executequery.gui.editor.ResultSetTablePopupMenu;
@@ -17,6 +19,8 @@ import org.executequery.gui.exportData.ExportDataPanel;
 import org.executequery.gui.resultset.ResultSetTable;
 import org.executequery.gui.resultset.ResultSetTableModel;
 import org.executequery.localization.Bundles;
+import org.executequery.log.Log;
+import org.executequery.util.UserSettingsProperties;
 import org.underworldlabs.swing.ConnectionsComboBox;
 import org.underworldlabs.swing.FlatSplitPane;
 import org.underworldlabs.swing.layouts.GridBagHelper;
@@ -82,6 +86,7 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
     private JSpinner firstImportedRowSelector;
     private JSpinner lastImportedRowSelector;
     private JSpinner commitStepSelector;
+    private JSpinner threadsSelector;
 
     private DefaultTableModel filePreviewTableModel;
     private JTable filePreviewTable;
@@ -96,6 +101,7 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
     private JButton browseLobFileButton;
     private JButton correlateButton;
     private JButton startImportButton;
+    private JButton copyTablesButton;
 
     private JLabel progressLabel;
 
@@ -108,6 +114,7 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
     private List<String> sourceTablesList;
 
     private boolean isCancel;
+    private volatile TableCopyEngine copyEngine;
     private String pathToFile;
     private String pathToLob;
     private String fileName;
@@ -181,6 +188,8 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
         firstImportedRowSelector = WidgetFactory.createSpinner("firstImportedRowSelector", 0, 0, Integer.MAX_VALUE, 1);
         lastImportedRowSelector = WidgetFactory.createSpinner("lastImportedRowSelector", 999999999, 0, Integer.MAX_VALUE, 1);
         commitStepSelector = WidgetFactory.createSpinner("commitStepSelector", 100, 100, 1000000, 100);
+        threadsSelector = WidgetFactory.createSpinner("threadsSelector", 1, 1, 32, 1);
+        threadsSelector.setToolTipText(bundleString("ThreadsSelectorToolTip"));
 
         sheetNumberSpinner = WidgetFactory.createSpinner("sheetNumberSpinner", 1, 1, 1, 1);
         sheetNumberSpinner.addChangeListener(e -> previewSourceFile(false));
@@ -254,6 +263,10 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
             importData();
         });
 
+        copyTablesButton = WidgetFactory.createButton("copyTablesButton", bundleString("CopyTablesButtonText"));
+        copyTablesButton.setToolTipText(bundleString("CopyTablesButtonToolTip"));
+        copyTablesButton.addActionListener(e -> copyTables());
+
         // --- panels ---
 
         importFilePanel = new JPanel(new GridBagLayout());
@@ -350,6 +363,7 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
         importConnectionPanel.add(sourceConnectionsCombo, gridBagHelper.nextCol().setMaxWeightX().topGap(5).get());
         importConnectionPanel.add(new JLabel(bundleString("sourceTableLabel")), gridBagHelper.setMinWeightX().topGap(8).nextCol().get());
         importConnectionPanel.add(sourceTableCombo, gridBagHelper.nextCol().topGap(5).setMaxWeightX().get());
+        importConnectionPanel.add(copyTablesButton, gridBagHelper.nextCol().topGap(5).setMinWeightX().get());
         importConnectionPanel.add(connectionPreviewScrollPane, gridBagHelper.nextRowFirstCol().fillBoth().spanX().spanY().get());
 
         // --- start import panel ---
@@ -400,6 +414,8 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
         bottomPanel.add(lastImportedRowSelector, gridBagHelper.nextCol().rightGap(10).setMaxWeightX().get());
         bottomPanel.add(new JLabel(bundleString("CommitSelectorLabel")), gridBagHelper.nextCol().rightGap(0).setMinWeightX().get());
         bottomPanel.add(commitStepSelector, gridBagHelper.nextCol().rightGap(10).setMaxWeightX().get());
+        bottomPanel.add(new JLabel(bundleString("ThreadsSelectorLabel")), gridBagHelper.nextCol().rightGap(0).setMinWeightX().get());
+        bottomPanel.add(threadsSelector, gridBagHelper.nextCol().rightGap(10).setMaxWeightX().get());
         bottomPanel.add(progressLabel, gridBagHelper.nextCol().rightGap(3).spanX().setMinWeightX().get());
 
         // --- panels settings ---
@@ -668,6 +684,7 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
 
         isCancel = false;
         pathToLob = !lobFileField.getText().trim().isEmpty() ? lobFileField.getText().trim() : null;
+        int threadCount = getThreadCount();
 
         SwingWorker worker = new SwingWorker("ImportData") {
 
@@ -681,6 +698,18 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
 
                 if (eraseTableCheck.isSelected())
                     eraseTable(Objects.requireNonNull(targetTableCombo.getSelectedItem()).toString());
+
+                if (threadCount > 1) {
+                    thisImportHelper.setParallelWriter(new ParallelImportWriter(
+                            executor.getDatabaseConnection(),
+                            insertQuery.toString(),
+                            insertStatement,
+                            threadCount
+                    ));
+
+                } else
+                    thisImportHelper.setBulkLoader(createBulkLoader(executor, insertStatement, insertQuery.toString()));
+
                 thisImportHelper.importData(sourceColumnList, valuesIndexes, insertStatement, executor);
 
                 return null;
@@ -700,8 +729,113 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
         worker.start();
     }
 
+    // --- copy tables methods ---
+
+    private void copyTables() {
+
+        if (copyEngine != null) {
+            copyTablesButton.setEnabled(false);
+            copyEngine.cancel();
+            return;
+        }
+
+        DatabaseConnection source = sourceConnectionsCombo.getSelectedConnection();
+        DatabaseConnection target = targetConnectionsCombo.getSelectedConnection();
+        if (source == null || target == null || source == target) {
+            GUIUtilities.displayWarningMessage(bundleString("CopyTablesSameConnection"));
+            return;
+        }
+
+        CopyCheckpoint checkpoint = new CopyCheckpoint(getCheckpointFile(source, target));
+        if (!checkpoint.isEmpty()) {
+
+            int result = GUIUtilities.displayYesNoCancelDialog(bundleString("CopyTablesResume"), bundleString("CopyTablesButtonText"));
+            if (result == JOptionPane.NO_OPTION)
+                checkpoint.delete();
+            else if (result != JOptionPane.YES_OPTION)
+                return;
+
+        } else if (GUIUtilities.displayConfirmCancelDialog(bundleString("CopyTablesConfirm", source.getName(), target.getName())) != JOptionPane.YES_OPTION)
+            return;
+
+        int threadCount = getThreadCount();
+        copyEngine = new TableCopyEngine(source, target, threadCount, threadCount, checkpoint, this::updateCopyProgress);
+
+        SwingWorker worker = new SwingWorker("CopyTables") {
+
+            private final TableCopyEngine engine = copyEngine;
+            private Exception error;
+
+            @Override
+            public Object construct() {
+
+                progressLabel.setVisible(true);
+                copyTablesButton.setText(Bundles.getCommon("cancel.button"));
+                startImportButton.setEnabled(false);
+
+                try {
+                    engine.prepare();
+                    updateCopyProgress();
+                    engine.copy();
+
+                } catch (Exception e) {
+                    Log.error("Error copying tables", e);
+                    error = e;
+                }
+
+                return null;
+            }
+
+            @Override
+            public void finished() {
+
+                copyEngine = null;
+                progressLabel.setVisible(false);
+                copyTablesButton.setEnabled(true);
+                copyTablesButton.setText(bundleString("CopyTablesButtonText"));
+                startImportButton.setEnabled(true);
+
+                if (error != null)
+                    GUIUtilities.displayExceptionErrorDialog(bundleString("CopyTablesError") + "\n" + error.getMessage(), error, ImportDataPanel.class);
+                else if (!engine.isCancelled())
+                    GUIUtilities.displayInformationMessage(bundleString("CopyTablesFinished", engine.getTableCount(), engine.getCopiedRowCount()));
+            }
+        };
+
+        worker.start();
+    }
+
+    private void updateCopyProgress() {
+
+        TableCopyEngine engine = copyEngine;
+        if (engine != null)
+            SwingUtilities.invokeLater(() -> setProgressLabel(bundleString("CopyTablesProgress",
+                    engine.getCompletedTableCount(), engine.getTableCount(), engine.getCopiedRowCount())));
+    }
+
+    private static File getCheckpointFile(DatabaseConnection source, DatabaseConnection target) {
+
+        String name = (source.getId() + "_" + target.getId()).replaceAll("[^\\w.-]", "_");
+        return new File(new UserSettingsProperties().getUserSettingsDirectory() + "copy-checkpoints", name + ".properties");
+    }
+
     // --- helper methods ---
 
+    private BulkLoader createBulkLoader(DefaultStatementExecutor executor, PreparedStatement insertStatement, String insertQuery) {
+
+        try {
+            BulkLoader bulkLoader = BulkLoader.create(executor.getDatabaseConnection(), insertStatement, insertQuery);
+            if (bulkLoader.isNative())
+                Log.info("Importing data using Firebird batch API");
+
+            return bulkLoader;
+
+        } catch (SQLException e) {
+            Log.warning("Unable to create bulk loader, JDBC batches are used: " + e.getMessage());
+            return null;
+        }
+    }
+
     private ImportHelper getImportHelper(String fileType) {
 
         ImportHelper importHelper = null;
@@ -889,6 +1023,10 @@ public class ImportDataPanel extends DefaultTabViewActionPanel
         return (int) commitStepSelector.getValue();
     }
 
+    public int getThreadCount() {
+        return (int) threadsSelector.getValue();
+    }
+
     public int getSheetNumber() {
         return (int) sheetNumberSpinner.getValue();
     }
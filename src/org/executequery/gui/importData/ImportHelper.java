@@ -1,6 +1,7 @@
 package org.executequery.gui.importData;
 
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
+import org.executequery.datasource.BulkLoader;
 
 import javax.swing.*;
 import java.sql.PreparedStatement;
@@ -34,4 +35,8 @@ interface ImportHelper {
 
     int getAddedRecordsCount();
 
+    void setParallelWriter(ParallelImportWriter parallelWriter);
+
+    void setBulkLoader(BulkLoader bulkLoader);
+
 }
@@ -1,20 +1,15 @@
 package org.executequery.gui.importData;
 
-import org.executequery.GUIUtilities;
-import org.underworldlabs.swing.plaf.UIUtils;
-import org.underworldlabs.util.MiscUtils;
-
 import javax.swing.*;
-import java.io.FileReader;
-import java.io.IOException;
-import java.nio.file.Paths;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
-import java.sql.Statement;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.sql.ParameterMetaData;
 import java.util.*;
 
 class ImportHelperCSV extends AbstractImportHelper {
 
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
     private final String sourceDelimiter;
 
     public ImportHelperCSV(ImportDataPanel parent, String pathToFile, String pathToLob, int previewRowCount, boolean isFirstRowHeaders) {
@@ -33,61 +28,103 @@ class ImportHelperCSV extends AbstractImportHelper {
             int batchStep,
             JTable mappingTable) throws Exception {
 
-        Statement sourceFileStatement = getCreateStatement();
-        if (sourceFileStatement == null)
-            return;
-
-        String[] sourceFields = sourceColumnList.toString().split(",");
         int executorIndex = 0;
         int linesCount = 0;
 
-        String sourceSelectQuery = "SELECT " + sourceColumnList + " FROM " + MiscUtils.getFormattedObject(parent.getFileName(), executor.getDatabaseConnection());
-        ResultSet sourceFileData = sourceFileStatement.executeQuery(sourceSelectQuery);
-        while (sourceFileData.next()) {
+        processedBytes = 0;
+        try (
+                CountingInputStream inputStream = new CountingInputStream(new FileInputStream(pathToFile));
+                CsvRecordReader recordReader = new CsvRecordReader(
+                        new InputStreamReader(inputStream, Charset.defaultCharset()), sourceDelimiter)
+        ) {
+
+            String[] headers = isFirstRowHeaders ? recordReader.next() : null;
+            ValueConverter[] converters = createConverters(headers, valuesIndexes, mappingTable);
 
-            if (parent.isCancel() || linesCount > lastRow)
-                break;
+            String[] record;
+            while ((record = recordReader.next()) != null) {
 
-            if (linesCount < firstRow) {
+                if (parent.isCancel() || linesCount > lastRow)
+                    break;
+
+                if (linesCount < firstRow) {
+                    linesCount++;
+                    continue;
+                }
+
+                for (ValueConverter converter : converters)
+                    converter.setParameter(record);
+                insertStatement.addBatch();
+
+                processedBytes = inputStream.getCount();
+                boolean execute = executorIndex % batchStep == 0 && executorIndex != 0;
+                updateProgressLabel(executorIndex, execute, false);
                 linesCount++;
-                continue;
+                executorIndex++;
             }
+        }
 
-            int fieldIndex = 0;
-            int mappedIndex = 0;
-            for (boolean valueIndex : valuesIndexes) {
-                if (valueIndex) {
+        updateProgressLabel(executorIndex, true, true);
+    }
 
-                    int columnType = insertStatement.getParameterMetaData().getParameterType(fieldIndex + 1);
-                    String columnTypeName = insertStatement.getParameterMetaData().getParameterTypeName(fieldIndex + 1);
-                    String columnProperty = mappingTable.getValueAt(mappedIndex, 3).toString();
+    /**
+     * Creates the converters of the mapped columns. The source field names are taken
+     * from the mapping table, since the quoted header names may contain commas.
+     */
+    private ValueConverter[] createConverters(
+            String[] headers, boolean[] valuesIndexes, JTable mappingTable) throws Exception {
+
+        ParameterMetaData parameterMetaData = insertStatement.getParameterMetaData();
+        List<ValueConverter> converters = new ArrayList<>(valuesIndexes.length);
+
+        int fieldIndex = 0;
+        int mappedIndex = 0;
+        for (boolean valueIndex : valuesIndexes) {
+            if (valueIndex) {
+
+                int parameterIndex = fieldIndex + 1;
+                int columnType = parameterMetaData.getParameterType(parameterIndex);
+                String columnTypeName = parameterMetaData.getParameterTypeName(parameterIndex);
+                String sourceField = mappingTable.getValueAt(mappedIndex, 2).toString();
+                String columnProperty = mappingTable.getValueAt(mappedIndex, 3).toString();
+
+                ValueType valueType = ValueType.STRING;
+                if (parent.isTimeType(columnTypeName))
+                    valueType = ValueType.TIME;
+                else if (parent.isBlobType(columnTypeName) && columnProperty.equals("true"))
+                    valueType = ValueType.BLOB_FILE;
+
+                converters.add(new ValueConverter(
+                        parameterIndex,
+                        getSourceIndex(sourceField, headers),
+                        columnType,
+                        valueType
+                ));
+
+                fieldIndex++;
+            }
+            mappedIndex++;
+        }
 
-                    Object insertParameter = sourceFileData.getString(sourceFields[fieldIndex]);
-                    if (insertParameter == null || insertParameter.toString().isEmpty()) {
-                        insertStatement.setNull(fieldIndex + 1, columnType);
+        return converters.toArray(new ValueConverter[0]);
+    }
 
-                    } else {
-                        if (parent.isTimeType(columnTypeName))
-                            insertParameter = getFormattedTimeValue(insertParameter);
-                        else if (parent.isBlobType(columnTypeName) && columnProperty.equals("true"))
-                            insertParameter = getFormattedBlobValue(insertParameter, false);
+    private int getSourceIndex(String sourceField, String[] headers) throws IOException {
 
-                        insertStatement.setObject(fieldIndex + 1, insertParameter);
-                    }
+        if (headers != null) {
+            for (int i = 0; i < headers.length; i++)
+                if (headers[i].trim().equals(sourceField.trim()))
+                    return i;
 
-                    fieldIndex++;
-                }
-                mappedIndex++;
+        } else if (sourceField.startsWith("COLUMN")) {
+            try {
+                return Integer.parseInt(sourceField.substring("COLUMN".length())) - 1;
+            } catch (NumberFormatException e) {
+                // source column not found
             }
-            insertStatement.addBatch();
-
-            boolean execute = executorIndex % batchStep == 0 && executorIndex != 0;
-            updateProgressLabel(executorIndex, execute, false);
-            linesCount++;
-            executorIndex++;
         }
 
-        updateProgressLabel(executorIndex, true, true);
+        throw new IOException("Column " + sourceField + " not found in " + pathToFile);
     }
 
     @Override
@@ -102,7 +139,7 @@ class ImportHelperCSV extends AbstractImportHelper {
             for (int rowIndex = 0; rowIndex < previewRowCount && scanner.hasNextLine(); rowIndex++) {
 
                 if (rowIndex == 0 && isFirstRowHeaders) {
-                    createHeaders(Arrays.asList(scanner.nextLine().split(delimiter)));
+                    createHeaders(Arrays.asList(parseRecord(scanner.nextLine())));
                     continue;
                 }
 
@@ -111,34 +148,104 @@ class ImportHelperCSV extends AbstractImportHelper {
         }
 
         if (!isFirstRowHeaders)
-            createHeaders(readData.get(0).split(delimiter).length);
+            createHeaders(parseRecord(readData.get(0)).length);
 
         return readData;
     }
 
-    private Statement getCreateStatement() {
+    /**
+     * Splits the line by the same rules as the imported records are read.
+     */
+    private String[] parseRecord(String line) throws IOException {
 
-        Statement statement = null;
-        try {
+        try (CsvRecordReader recordReader = new CsvRecordReader(new StringReader(line), sourceDelimiter)) {
+            String[] record = recordReader.next();
+            return record != null ? record : new String[0];
+        }
+    }
 
-            Properties properties = new Properties();
-            properties.setProperty("separator", sourceDelimiter);
-            if (!isFirstRowHeaders) {
-                properties.setProperty("suppressHeaders", "true");
-                properties.setProperty("defectiveHeaders", "true");
+    private enum ValueType {
+        STRING,
+        TIME,
+        BLOB_FILE
+    }
+
+    /**
+     * Sets the insert statement parameter from the source record value,
+     * all the type checks are resolved once before the import started.
+     */
+    private class ValueConverter {
+
+        private final int parameterIndex;
+        private final int sourceIndex;
+        private final int columnType;
+        private final ValueType valueType;
+
+        ValueConverter(int parameterIndex, int sourceIndex, int columnType, ValueType valueType) {
+            this.parameterIndex = parameterIndex;
+            this.sourceIndex = sourceIndex;
+            this.columnType = columnType;
+            this.valueType = valueType;
+        }
+
+        void setParameter(String[] record) throws Exception {
+
+            String value = sourceIndex < record.length ? record[sourceIndex] : null;
+            if (value == null || value.isEmpty()) {
+                insertStatement.setNull(parameterIndex, columnType);
+                return;
             }
 
-            String connectionUrl = "jdbc:relique:csv:" + Paths.get(pathToFile).getParent().toString();
-            if (UIUtils.isWindows())
-                connectionUrl = connectionUrl.replace("\\", "/");
+            switch (valueType) {
+
+                case TIME:
+                    insertStatement.setObject(parameterIndex, getFormattedTimeValue(value));
+                    break;
 
-            statement = DriverManager.getConnection(connectionUrl, properties).createStatement();
+                case BLOB_FILE:
+                    insertStatement.setObject(parameterIndex, getFormattedBlobValue(value, false));
+                    break;
 
-        } catch (Exception e) {
-            GUIUtilities.displayExceptionErrorDialog(bundleString("ImportDataErrorMessage") + "\n" + e.getMessage(), e, this.getClass());
+                default:
+                    insertStatement.setString(parameterIndex, value);
+                    break;
+            }
         }
 
-        return statement;
-    }
+    } // ValueConverter class
+
+    private static class CountingInputStream extends BufferedInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in, READ_BUFFER_SIZE);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+
+            int value = super.read();
+            if (value >= 0)
+                count++;
+
+            return value;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count += read;
+
+            return read;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+    } // CountingInputStream class
 
 }
@@ -11,6 +11,7 @@ import org.executequery.sql.SqlStatementResult;
 import org.underworldlabs.util.MiscUtils;
 
 import javax.swing.*;
+import java.sql.ParameterMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -21,6 +22,9 @@ import java.util.stream.Collectors;
 
 public class ImportHelperDB extends AbstractImportHelper {
 
+    private static final int READ_BATCH_SIZE = 1000;
+    private static final int READ_QUEUE_CAPACITY = 4;
+
     private final String sourceTableName;
     private final DatabaseConnection sourceConnection;
 
@@ -50,49 +54,79 @@ public class ImportHelperDB extends AbstractImportHelper {
         if (sourceFileData == null)
             return;
 
-        while (sourceFileData.next()) {
+        // --- resolve the columns and the parameter types once ---
 
-            if (parent.isCancel() || linesCount > lastRow)
-                break;
+        int[] sourceIndexes = new int[sourceFields.length];
+        for (int i = 0; i < sourceFields.length; i++)
+            sourceIndexes[i] = sourceFileData.findColumn(sourceFields[i].trim()) - 1;
 
-            if (linesCount < firstRow) {
-                linesCount++;
-                continue;
-            }
+        int parameterCount = 0;
+        for (boolean valueIndex : valuesIndexes)
+            if (valueIndex)
+                parameterCount++;
+
+        int[] columnTypes = new int[parameterCount];
+        boolean[] integerTypes = new boolean[parameterCount];
+        ParameterMetaData parameterMetaData = insertStatement.getParameterMetaData();
+        for (int i = 0; i < parameterCount; i++) {
+            columnTypes[i] = parameterMetaData.getParameterType(i + 1);
+            integerTypes[i] = parent.isIntegerType(parameterMetaData.getParameterTypeName(i + 1));
+        }
 
-            int fieldIndex = 0;
-            for (boolean valueIndex : valuesIndexes) {
-                if (valueIndex) {
+        // --- the source is read by the own thread while the rows are inserted ---
 
-                    int columnType = insertStatement.getParameterMetaData().getParameterType(fieldIndex + 1);
-                    String columnTypeName = insertStatement.getParameterMetaData().getParameterTypeName(fieldIndex + 1);
+        RowBatchReader reader = new RowBatchReader(sourceFileData, READ_BATCH_SIZE, READ_QUEUE_CAPACITY, 0);
+        reader.start("ImportDataReader");
+        try {
 
-                    Object insertParameter = sourceFileData.getString(sourceFields[fieldIndex]);
-                    if (insertParameter == null || insertParameter.toString().isEmpty() || insertParameter.toString().equalsIgnoreCase("null")) {
-                        insertStatement.setNull(fieldIndex + 1, columnType);
+            RowBatchReader.RowBatch batch;
+            readLoop:
+            while ((batch = reader.next()) != null) {
+                for (int row = 0; row < batch.size; row++) {
 
-                    } else {
-                        if (parent.isIntegerType(columnTypeName))
-                            insertParameter = getFormattedIntValue(insertParameter);
+                    if (parent.isCancel() || linesCount > lastRow)
+                        break readLoop;
 
-                        insertStatement.setObject(fieldIndex + 1, insertParameter);
+                    if (linesCount < firstRow) {
+                        linesCount++;
+                        continue;
                     }
 
-                    fieldIndex++;
+                    Object[] values = batch.rows[row];
+                    for (int fieldIndex = 0; fieldIndex < parameterCount; fieldIndex++) {
+
+                        Object insertParameter = values[sourceIndexes[fieldIndex]];
+                        if (insertParameter == null || isEmptyString(insertParameter)) {
+                            insertStatement.setNull(fieldIndex + 1, columnTypes[fieldIndex]);
+
+                        } else {
+                            if (integerTypes[fieldIndex])
+                                insertParameter = getFormattedIntValue(insertParameter);
+
+                            insertStatement.setObject(fieldIndex + 1, insertParameter);
+                        }
+                    }
+                    insertStatement.addBatch();
+
+                    boolean execute = executorIndex % batchStep == 0 && executorIndex != 0;
+                    updateProgressLabel(executorIndex, execute, false);
+                    linesCount++;
+                    executorIndex++;
                 }
             }
-            insertStatement.addBatch();
 
-            boolean execute = executorIndex % batchStep == 0 && executorIndex != 0;
-            updateProgressLabel(executorIndex, execute, false);
-            linesCount++;
-            executorIndex++;
+        } finally {
+            reader.stop();
         }
 
         updateProgressLabel(executorIndex, true, true);
         sourceExecutor.releaseResources();
     }
 
+    private static boolean isEmptyString(Object value) {
+        return value instanceof String && (((String) value).isEmpty() || ((String) value).equalsIgnoreCase("null"));
+    }
+
     @Override
     public List<String> getPreviewData() {
         return null;
@@ -0,0 +1,358 @@
+package org.executequery.gui.importData;
+
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.databasemediators.spi.DefaultStatementExecutor;
+import org.executequery.datasource.BulkLoader;
+import org.executequery.log.Log;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts the imported records using several connections.
+ * <p>
+ * The import helper fills the statement returned by {@link #getStatement()}
+ * as usual. Parameter values of the added records are buffered by columns and the records
+ * are handed over to the worker connections by chunks (one chunk per commit step).
+ * Each worker adds its chunks to the {@link BulkLoader} and executes them as batches
+ * in own transactions, using the Firebird batch API where the server supports it.
+ */
+class ParallelImportWriter {
+
+    private static final int INITIAL_CHUNK_CAPACITY = 256;
+
+    private static final Chunk END_OF_DATA = new Chunk();
+
+    private final DatabaseConnection connection;
+    private final String insertQuery;
+    private final PreparedStatement templateStatement;
+    private final PreparedStatement statement;
+
+    private final BlockingQueue<Chunk> chunks;
+    private final ExecutorService workers;
+    private final List<Future<?>> results;
+    private final List<String> errors;
+    private final AtomicLong insertedCount;
+
+    private Chunk currentChunk;
+
+    private volatile boolean cancelled;
+    private boolean finished;
+
+    ParallelImportWriter(DatabaseConnection connection, String insertQuery, PreparedStatement templateStatement, int threadCount) {
+
+        this.connection = connection;
+        this.insertQuery = insertQuery;
+        this.templateStatement = templateStatement;
+        this.statement = createStatementProxy();
+
+        this.chunks = new ArrayBlockingQueue<>(threadCount * 2);
+        this.errors = Collections.synchronizedList(new ArrayList<>());
+        this.insertedCount = new AtomicLong();
+        this.currentChunk = new Chunk();
+
+        workers = Executors.newFixedThreadPool(threadCount);
+        results = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            int workerNumber = i + 1;
+            results.add(workers.submit(() -> insertChunks(workerNumber)));
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * Returns the statement to be filled by the import helper.
+     * Values of the parameter setters are buffered, <code>addBatch()</code> completes
+     * the buffered record, other calls are passed to the template statement.
+     */
+    PreparedStatement getStatement() {
+        return statement;
+    }
+
+    long getInsertedCount() {
+        return insertedCount.get();
+    }
+
+    /**
+     * Hands the records added since the previous call over to the workers.
+     * Blocks if all the workers are busy.
+     *
+     * @throws SQLException if some worker has failed
+     */
+    void submit() throws SQLException {
+
+        checkErrors();
+        if (currentChunk.isEmpty())
+            return;
+
+        put(currentChunk);
+        currentChunk = new Chunk();
+    }
+
+    /**
+     * Submits the rest of the records and waits for the workers to complete.
+     *
+     * @throws SQLException with the combined report if some workers have failed
+     */
+    void finish() throws SQLException {
+
+        if (finished)
+            return;
+
+        try {
+
+            if (!currentChunk.isEmpty())
+                put(currentChunk);
+            currentChunk = new Chunk();
+
+            for (int i = 0; i < results.size(); i++)
+                put(END_OF_DATA);
+
+            for (Future<?> result : results)
+                result.get();
+
+        } catch (InterruptedException | ExecutionException e) {
+            errors.add(e.getMessage());
+
+        } finally {
+            finished = true;
+        }
+
+        checkErrors();
+    }
+
+    /**
+     * Stops all the workers, the chunks not committed yet are discarded.
+     */
+    void cancel() {
+
+        if (finished)
+            return;
+
+        cancelled = true;
+        chunks.clear();
+        for (int i = 0; i < results.size(); i++)
+            chunks.offer(END_OF_DATA);
+
+        finished = true;
+    }
+
+    private void put(Chunk chunk) throws SQLException {
+
+        try {
+            while (!cancelled) {
+                if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS))
+                    return;
+                checkErrors();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+
+    private void checkErrors() throws SQLException {
+
+        if (!errors.isEmpty()) {
+            synchronized (errors) {
+                throw new SQLException(String.join("\n", errors));
+            }
+        }
+    }
+
+    private Void insertChunks(int workerNumber) throws InterruptedException {
+
+        DefaultStatementExecutor executor = new DefaultStatementExecutor();
+        executor.setCommitMode(false);
+        executor.setKeepAlive(true);
+        executor.setDatabaseConnection(connection);
+
+        boolean failed = false;
+        BulkLoader bulkLoader = null;
+        try {
+
+            PreparedStatement insertStatement = executor.getPreparedStatement(insertQuery);
+            if (insertStatement == null)
+                throw new SQLException(executor.getDatabaseConnection().getName() + ": unable to open connection");
+            insertStatement.setEscapeProcessing(true);
+
+            bulkLoader = BulkLoader.create(connection, insertStatement, insertQuery);
+
+            Chunk chunk;
+            while ((chunk = chunks.take()) != END_OF_DATA) {
+
+                if (failed || cancelled || !errors.isEmpty())
+                    continue;
+
+                try {
+
+                    for (int row = 0; row < chunk.size; row++) {
+                        for (int column = 0; column < chunk.columns.length; column++)
+                            bulkLoader.setParameter(column + 1, chunk.columns[column][row]);
+                        bulkLoader.addRow();
+                    }
+
+                    String error = bulkLoader.execute().getFirstError();
+                    if (error != null)
+                        throw new SQLException(error);
+
+                    bulkLoader.commit();
+                    insertedCount.addAndGet(chunk.size);
+
+                } catch (Exception e) {
+
+                    failed = true;
+                    rollback(bulkLoader);
+                    errors.add(String.format("[%d] %s", workerNumber, e.getMessage()));
+                    Log.error("Import worker " + workerNumber + " failed", e);
+                }
+            }
+
+        } catch (SQLException e) {
+
+            errors.add(String.format("[%d] %s", workerNumber, e.getMessage()));
+            Log.error("Import worker " + workerNumber + " failed", e);
+
+        } finally {
+            close(bulkLoader);
+            executor.releaseResources();
+        }
+
+        return null;
+    }
+
+    private static void close(BulkLoader bulkLoader) {
+
+        if (bulkLoader == null)
+            return;
+
+        try {
+            bulkLoader.close();
+
+        } catch (SQLException e) {
+            Log.debug("Error closing bulk loader", e);
+        }
+    }
+
+    private static void rollback(BulkLoader bulkLoader) {
+
+        try {
+            bulkLoader.rollback();
+
+        } catch (SQLException e) {
+            Log.error("Error rolling back the import chunk", e);
+        }
+    }
+
+    private PreparedStatement createStatementProxy() {
+
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+
+                    if (isParameterSetter(method)) {
+                        currentChunk.set((Integer) args[0], method.getName().equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+
+                    switch (method.getName()) {
+
+                        case "addBatch":
+                            if (method.getParameterCount() == 0) {
+                                currentChunk.addRow();
+                                return null;
+                            }
+                            break;
+
+                        case "clearParameters":
+                            currentChunk.clearRow();
+                            return null;
+
+                        case "clearBatch":
+                            currentChunk.clear();
+                            return null;
+
+                        case "executeBatch":
+                            submit();
+                            return new int[0];
+                    }
+
+                    try {
+                        return method.invoke(templateStatement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static boolean isParameterSetter(Method method) {
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        return method.getName().startsWith("set")
+                && parameterTypes.length >= 2
+                && parameterTypes[0] == int.class;
+    }
+
+    /**
+     * Parameter values of the buffered records stored by columns.
+     */
+    private static class Chunk {
+
+        private Object[][] columns = new Object[0][];
+        private int capacity = INITIAL_CHUNK_CAPACITY;
+        private int size;
+
+        /**
+         * Sets the value of the current record
+         */
+        void set(int parameterIndex, Object value) {
+
+            if (parameterIndex > columns.length) {
+
+                int count = columns.length;
+                columns = Arrays.copyOf(columns, parameterIndex);
+                for (int i = count; i < parameterIndex; i++)
+                    columns[i] = new Object[capacity];
+            }
+
+            columns[parameterIndex - 1][size] = value;
+        }
+
+        void addRow() {
+
+            if (++size == capacity) {
+                capacity *= 2;
+                for (int i = 0; i < columns.length; i++)
+                    columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+
+        void clearRow() {
+            for (Object[] column : columns)
+                column[size] = null;
+        }
+
+        void clear() {
+            for (Object[] column : columns)
+                Arrays.fill(column, 0, size + 1, null);
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+    } // Chunk class
+
+}
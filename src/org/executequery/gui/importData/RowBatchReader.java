@@ -0,0 +1,215 @@
+package org.executequery.gui.importData;
+
+import org.executequery.log.Log;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the result set on the own thread into the bounded queue of row batches,
+ * so the next rows are fetched while the previous ones are written.
+ * <p>
+ * The values are read by the column types: the binary values as bytes,
+ * the character LOBs as strings and the others as objects.
+ */
+class RowBatchReader {
+
+    private static final RowBatch END_OF_DATA = new RowBatch(0, 0);
+
+    private final ResultSet resultSet;
+    private final int batchSize;
+    private final int[] columnTypes;
+    private final int keyColumn;
+    private final BlockingQueue<RowBatch> batches;
+
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    private boolean finished;
+    private Thread thread;
+
+    /**
+     * @param keyColumn the 1-based index of the column the last value of
+     *                  which is kept in the batch, 0 if not needed
+     */
+    RowBatchReader(ResultSet resultSet, int batchSize, int queueCapacity, int keyColumn) throws SQLException {
+
+        this.resultSet = resultSet;
+        this.batchSize = batchSize;
+        this.keyColumn = keyColumn;
+        this.batches = new ArrayBlockingQueue<>(queueCapacity);
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        this.columnTypes = new int[metaData.getColumnCount()];
+        for (int i = 0; i < columnTypes.length; i++)
+            columnTypes[i] = metaData.getColumnType(i + 1);
+    }
+
+    void start(String name) {
+
+        thread = new Thread(this::read, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    int getColumnCount() {
+        return columnTypes.length;
+    }
+
+    /**
+     * Returns the next batch, waits for the reader if needed.
+     *
+     * @return the next batch or <code>null</code> if all the rows are read
+     * @throws SQLException if the reader has failed
+     */
+    RowBatch next() throws SQLException {
+
+        if (finished)
+            return null;
+
+        try {
+
+            RowBatch batch = batches.take();
+            if (batch == END_OF_DATA) {
+
+                finished = true;
+                if (error != null)
+                    throw error instanceof SQLException ? (SQLException) error : new SQLException(error);
+
+                return null;
+            }
+
+            return batch;
+
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * Stops the reader, the batches not taken yet are discarded.
+     */
+    void cancel() {
+
+        cancelled = true;
+        batches.clear();
+    }
+
+    /**
+     * Cancels the reader and waits for the reading thread to finish,
+     * so the result set may be closed after that.
+     */
+    void stop() {
+
+        cancel();
+        if (thread == null)
+            return;
+
+        thread.interrupt();
+        try {
+            thread.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void read() {
+
+        try {
+
+            RowBatch batch = new RowBatch(batchSize, columnTypes.length);
+            while (!cancelled && resultSet.next()) {
+
+                Object[] row = batch.rows[batch.size];
+                for (int i = 0; i < columnTypes.length; i++)
+                    row[i] = readValue(i + 1, columnTypes[i]);
+
+                if (keyColumn > 0)
+                    batch.lastKey = row[keyColumn - 1];
+
+                if (++batch.size == batchSize) {
+                    put(batch);
+                    batch = new RowBatch(batchSize, columnTypes.length);
+                }
+            }
+
+            if (batch.size > 0)
+                put(batch);
+
+        } catch (InterruptedException e) {
+            cancelled = true;
+
+        } catch (Throwable e) {
+            error = e;
+            batches.clear();
+            Log.error("Error reading source rows", e);
+
+        } finally {
+            finish();
+        }
+    }
+
+    private void finish() {
+
+        try {
+            while (!batches.offer(END_OF_DATA, 100, TimeUnit.MILLISECONDS))
+                if (cancelled)
+                    batches.clear();
+
+        } catch (InterruptedException e) {
+            batches.clear();
+            batches.offer(END_OF_DATA);
+        }
+    }
+
+    private void put(RowBatch batch) throws InterruptedException {
+
+        while (!cancelled)
+            if (batches.offer(batch, 100, TimeUnit.MILLISECONDS))
+                return;
+    }
+
+    private Object readValue(int column, int type) throws SQLException {
+
+        switch (type) {
+
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return resultSet.getBytes(column);
+
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return resultSet.getString(column);
+
+            default:
+                return resultSet.getObject(column);
+        }
+    }
+
+    /**
+     * Rows read from the source, <code>rows[0..size)</code> are filled.
+     */
+    static class RowBatch {
+
+        final Object[][] rows;
+        int size;
+        Object lastKey;
+
+        RowBatch(int capacity, int columnCount) {
+            this.rows = new Object[capacity][columnCount];
+        }
+
+    } // RowBatch class
+
+}
@@ -0,0 +1,608 @@
+package org.executequery.gui.importData;
+
+import biz.redsoft.ITPB;
+import biz.redsoft.ITPBConstants;
+import org.executequery.databasemediators.ConnectionMediator;
+import org.executequery.databasemediators.DatabaseConnection;
+import org.executequery.databaseobjects.DatabaseColumn;
+import org.executequery.databaseobjects.DatabaseTable;
+import org.executequery.databaseobjects.NamedObject;
+import org.executequery.databaseobjects.impl.ColumnConstraint;
+import org.executequery.databaseobjects.impl.DefaultDatabaseHost;
+import org.executequery.datasource.BulkLoader;
+import org.executequery.datasource.ConnectionManager;
+import org.executequery.datasource.PooledConnection;
+import org.executequery.log.Log;
+import org.underworldlabs.util.DynamicLibraryLoader;
+import org.underworldlabs.util.MiscUtils;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies all the user tables of the source connection to the tables
+ * of the same names of the target connection.
+ * <p>
+ * The tables are copied by levels of the foreign key dependencies: the tables
+ * of the level reference only the tables of the previous levels, so the tables
+ * of one level are copied in parallel. The tables with the single-column integer
+ * primary key are split into the key ranges copied in parallel too.
+ * <p>
+ * Every part is read by {@link RowBatchReader} on its own source connection
+ * and inserted by {@link BulkLoader} on its own target connection. The source parts
+ * are read in the snapshot of the transaction started with the copy
+ * (server version 4 and later), otherwise every part is read in its own transaction.
+ * <p>
+ * The parts with the key are committed after every batch and the key of the last
+ * committed row is saved to {@link CopyCheckpoint}, so the interrupted copy is
+ * continued from the next row. The parts without the key are committed at once
+ * and copied again if interrupted.
+ */
+class TableCopyEngine {
+
+    private static final int BATCH_SIZE = 5000;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private final DatabaseConnection source;
+    private final DatabaseConnection target;
+    private final int threadCount;
+    private final int rangeCount;
+    private final CopyCheckpoint checkpoint;
+    private final Runnable progressListener;
+
+    private final List<TableCopy> tables;
+    private final Set<RowBatchReader> readers;
+    private final AtomicLong copiedRowCount;
+    private final AtomicInteger completedTableCount;
+
+    private volatile boolean cancelled;
+
+    /**
+     * @param threadCount      the number of the parts copied at once
+     * @param rangeCount       the number of the key ranges the table is split into
+     * @param progressListener called from the copying threads after every commit
+     */
+    TableCopyEngine(DatabaseConnection source, DatabaseConnection target, int threadCount, int rangeCount,
+                    CopyCheckpoint checkpoint, Runnable progressListener) {
+
+        this.source = source;
+        this.target = target;
+        this.threadCount = Math.max(threadCount, 1);
+        this.rangeCount = Math.max(rangeCount, 1);
+        this.checkpoint = checkpoint;
+        this.progressListener = progressListener;
+
+        this.tables = new ArrayList<>();
+        this.readers = ConcurrentHashMap.newKeySet();
+        this.copiedRowCount = new AtomicLong();
+        this.completedTableCount = new AtomicInteger();
+    }
+
+    /**
+     * Loads the tables and the columns present in both the connections.
+     */
+    void prepare() {
+
+        Map<String, DatabaseTable> targetTables = new HashMap<>();
+        DefaultDatabaseHost targetHost = openHost(target);
+        try {
+            for (DatabaseTable table : getUserTables(targetHost))
+                targetTables.put(table.getName(), table);
+
+            DefaultDatabaseHost sourceHost = openHost(source);
+            try {
+                for (DatabaseTable sourceTable : getUserTables(sourceHost)) {
+
+                    DatabaseTable targetTable = targetTables.get(sourceTable.getName());
+                    if (targetTable == null) {
+                        Log.warning("Table " + sourceTable.getName() + " not found in " + target.getName() + ", skipped");
+                        continue;
+                    }
+
+                    TableCopy table = new TableCopy(sourceTable, targetTable);
+                    if (!table.columns.isEmpty())
+                        tables.add(table);
+                }
+
+            } finally {
+                sourceHost.close();
+            }
+
+        } finally {
+            targetHost.close();
+        }
+    }
+
+    void copy() throws Exception {
+
+        List<List<TableCopy>> levels = getDependencyLevels();
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+
+        Connection snapshotConnection = null;
+        try {
+
+            snapshotConnection = openSourceConnection(-1);
+            long snapshotNumber = ConnectionManager.getCurrentSnapshotTransaction(source, snapshotConnection);
+            if (snapshotNumber <= 0)
+                Log.warning("Shared snapshot is not supported by the server, table parts are read in own transactions");
+
+            for (int i = 0; i < levels.size() && !cancelled; i++) {
+
+                List<Future<?>> results = new ArrayList<>();
+                for (TableCopy table : levels.get(i)) {
+
+                    List<Range> ranges = getRanges(snapshotConnection, table);
+                    table.remainingRanges.set(ranges.size());
+                    Log.info(String.format("Copying table %s by %d part(s)", table.name, ranges.size()));
+
+                    for (Range range : ranges)
+                        results.add(workers.submit(() -> {
+                            copyRange(table, range, snapshotNumber);
+                            return null;
+                        }));
+                }
+
+                for (Future<?> result : results) {
+                    try {
+                        result.get();
+
+                    } catch (ExecutionException e) {
+                        cancel();
+                        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+
+            if (!cancelled)
+                checkpoint.delete();
+
+        } finally {
+            workers.shutdownNow();
+            close(snapshotConnection);
+        }
+    }
+
+    void cancel() {
+
+        cancelled = true;
+        readers.forEach(RowBatchReader::cancel);
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    int getTableCount() {
+        return tables.size();
+    }
+
+    int getCompletedTableCount() {
+        return completedTableCount.get();
+    }
+
+    long getCopiedRowCount() {
+        return copiedRowCount.get();
+    }
+
+    // --- copying ---
+
+    private void copyRange(TableCopy table, Range range, long snapshotNumber) throws SQLException, IOException {
+
+        if (cancelled)
+            return;
+
+        if (checkpoint.isDone(table.name, range.lower)) {
+            completeRange(table);
+            return;
+        }
+
+        boolean keyed = table.keyIndex > 0;
+        Long lastKey = keyed ? checkpoint.getLastKey(table.name, range.lower) : null;
+
+        Connection sourceConnection = null;
+        Connection targetConnection = null;
+        RowBatchReader reader = null;
+        try {
+
+            sourceConnection = openSourceConnection(snapshotNumber);
+            targetConnection = ConnectionManager.getTemporaryConnection(target);
+            if (targetConnection == null)
+                throw new SQLException(target.getName() + ": unable to open connection");
+            targetConnection.setAutoCommit(false);
+
+            try (PreparedStatement selectStatement = sourceConnection.prepareStatement(table.getSelectQuery(range, lastKey));
+                 PreparedStatement insertStatement = targetConnection.prepareStatement(table.getInsertQuery());
+                 BulkLoader loader = BulkLoader.create(target, insertStatement, table.getInsertQuery())) {
+
+                range.setParameters(selectStatement, lastKey);
+                ResultSet resultSet = selectStatement.executeQuery();
+
+                reader = new RowBatchReader(resultSet, BATCH_SIZE, QUEUE_CAPACITY, table.keyIndex);
+                readers.add(reader);
+                reader.start("TableCopyReader-" + table.name);
+
+                RowBatchReader.RowBatch batch;
+                while ((batch = reader.next()) != null && !cancelled) {
+
+                    for (int row = 0; row < batch.size; row++) {
+
+                        Object[] values = batch.rows[row];
+                        for (int i = 0; i < values.length; i++) {
+                            if (table.blobs[i] && values[i] instanceof byte[])
+                                loader.setBlob(i + 1, (byte[]) values[i]);
+                            else
+                                loader.setObject(i + 1, values[i]);
+                        }
+                        loader.addRow();
+                    }
+
+                    BulkLoader.Result result = loader.execute();
+                    if (result.getErrorCount() > 0) {
+                        loader.rollback();
+                        throw new SQLException(table.name + ": " + result.getFirstError());
+                    }
+
+                    if (keyed) {
+                        loader.commit();
+                        checkpoint.setLastKey(table.name, range.lower, batch.lastKey);
+                    }
+
+                    copiedRowCount.addAndGet(batch.size);
+                    progressListener.run();
+                }
+
+                if (cancelled) {
+                    loader.rollback();
+                    return;
+                }
+
+                if (!keyed)
+                    loader.commit();
+                checkpoint.setDone(table.name, range.lower);
+                completeRange(table);
+            }
+
+        } finally {
+
+            if (reader != null) {
+                reader.stop();
+                readers.remove(reader);
+            }
+
+            close(sourceConnection);
+            close(targetConnection);
+        }
+    }
+
+    private void completeRange(TableCopy table) {
+
+        if (table.remainingRanges.decrementAndGet() == 0) {
+            completedTableCount.incrementAndGet();
+            progressListener.run();
+        }
+    }
+
+    // --- tables order and ranges ---
+
+    /**
+     * Groups the tables by the foreign key dependencies, the tables
+     * of the cyclic references are placed to the last level.
+     */
+    private List<List<TableCopy>> getDependencyLevels() {
+
+        List<List<TableCopy>> levels = new ArrayList<>();
+        Set<String> placed = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        tables.forEach(table -> names.add(table.name));
+
+        List<TableCopy> remaining = new ArrayList<>(tables);
+        while (!remaining.isEmpty()) {
+
+            List<TableCopy> level = new ArrayList<>();
+            for (TableCopy table : remaining) {
+
+                boolean ready = true;
+                for (String dependency : table.dependencies)
+                    if (!dependency.equals(table.name) && names.contains(dependency) && !placed.contains(dependency))
+                        ready = false;
+
+                if (ready)
+                    level.add(table);
+            }
+
+            if (level.isEmpty()) {
+                Log.warning("Cyclic foreign key references found, tables are copied in arbitrary order: " + remaining);
+                level.addAll(remaining);
+            }
+
+            level.forEach(table -> placed.add(table.name));
+            remaining.removeAll(level);
+            levels.add(level);
+        }
+
+        return levels;
+    }
+
+    private List<Range> getRanges(Connection connection, TableCopy table) throws SQLException, IOException {
+
+        String savedRanges = checkpoint.getRanges(table.name);
+        if (savedRanges != null)
+            return Range.parse(savedRanges);
+
+        List<Range> ranges = new ArrayList<>();
+
+        // the table referencing itself is copied in the key order by one part
+        int count = table.dependencies.contains(table.name) ? 1 : rangeCount;
+        if (table.keyIndex > 0 && count > 1) {
+
+            String query = "SELECT MIN(" + table.keyColumn + "), MAX(" + table.keyColumn + ") FROM " + table.sourceName;
+            try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(query)) {
+
+                long min = rs.next() ? rs.getLong(1) : 0;
+                long max = rs.getLong(2);
+                if (rs.wasNull())
+                    max = min;
+
+                // the keys span may exceed Long.MAX_VALUE, so it is computed as unsigned
+                long step = Long.divideUnsigned(max - min, count) + 1;
+                for (long lower = min; ranges.size() < count; lower += step) {
+
+                    boolean last = ranges.size() == count - 1 || Long.compareUnsigned(max - lower, step) < 0;
+                    ranges.add(new Range(ranges.isEmpty() ? null : lower, last ? null : lower + step));
+                    if (last)
+                        break;
+                }
+            }
+        }
+
+        if (ranges.isEmpty())
+            ranges.add(new Range(null, null));
+
+        checkpoint.setRanges(table.name, Range.format(ranges));
+        return ranges;
+    }
+
+    // --- connections ---
+
+    private static DefaultDatabaseHost openHost(DatabaseConnection connection) {
+
+        DefaultDatabaseHost host = new DefaultDatabaseHost(connection);
+        if (!host.isConnected())
+            ConnectionMediator.getInstance().connect(connection, true);
+
+        return host;
+    }
+
+    private static List<DatabaseTable> getUserTables(DefaultDatabaseHost host) {
+
+        List<DatabaseTable> userTables = new ArrayList<>();
+        for (NamedObject table : host.getTables())
+            if (table instanceof DatabaseTable && !table.isSystem())
+                userTables.add((DatabaseTable) table);
+
+        return userTables;
+    }
+
+    private Connection openSourceConnection(long snapshotNumber) throws SQLException {
+
+        ITPB tpb = null;
+        try {
+            tpb = (ITPB) DynamicLibraryLoader.loadingObjectFromClassLoaderWithCS(
+                    source.getDriverMajorVersion(),
+                    ConnectionManager.getClassLoaderForDatabaseConnection(source),
+                    "ITPBImpl"
+            );
+
+            tpb.initTPB();
+            tpb.addArgument(ITPBConstants.isc_tpb_read);
+            tpb.addArgument(ITPBConstants.isc_tpb_wait);
+            tpb.addArgument(ITPBConstants.isc_tpb_concurrency);
+            if (snapshotNumber > 0)
+                tpb.addArgument(ITPBConstants.isc_tpb_at_snapshot_number, snapshotNumber);
+
+        } catch (ClassNotFoundException e) {
+            Log.error(e.getMessage(), e);
+        }
+
+        Connection connection = ConnectionManager.getTemporaryConnection(source, tpb);
+        if (connection == null)
+            throw new SQLException(source.getName() + ": unable to open connection");
+
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private static void close(Connection connection) {
+
+        if (connection == null)
+            return;
+
+        try {
+            connection.rollback();
+            if (connection instanceof PooledConnection)
+                ((PooledConnection) connection).setCloseOnReturn(true);
+            connection.close();
+
+        } catch (SQLException e) {
+            Log.debug("Error closing copy connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Source and target table of the copy and the columns present in both of them.
+     */
+    private class TableCopy {
+
+        private final String name;
+        private final String sourceName;
+        private final String targetName;
+        private final List<String> columns;
+        private final boolean[] blobs;
+        private final Set<String> dependencies;
+        private final AtomicInteger remainingRanges;
+
+        private String keyColumn;
+        private int keyIndex;
+
+        TableCopy(DatabaseTable sourceTable, DatabaseTable targetTable) {
+
+            this.name = sourceTable.getName();
+            this.sourceName = MiscUtils.getFormattedObject(name, source);
+            this.targetName = MiscUtils.getFormattedObject(name, target);
+            this.columns = new ArrayList<>();
+            this.dependencies = new HashSet<>();
+            this.remainingRanges = new AtomicInteger();
+
+            Map<String, DatabaseColumn> targetColumns = new HashMap<>();
+            for (DatabaseColumn column : targetTable.getColumns())
+                if (!isComputed(column))
+                    targetColumns.put(column.getName(), column);
+
+            List<Boolean> blobList = new ArrayList<>();
+            DatabaseColumn primaryKey = null;
+            int primaryKeyCount = 0;
+            for (DatabaseColumn column : sourceTable.getColumns()) {
+
+                if (column.isPrimaryKey()) {
+                    primaryKey = column;
+                    primaryKeyCount++;
+                }
+
+                DatabaseColumn targetColumn = targetColumns.get(column.getName());
+                if (targetColumn == null || isComputed(column))
+                    continue;
+
+                columns.add(column.getName());
+                blobList.add(targetColumn.getTypeInt() == Types.BLOB || targetColumn.getTypeInt() == Types.LONGVARBINARY);
+
+                if (column == primaryKey && primaryKeyCount == 1 && isIntegerType(column.getTypeInt())) {
+                    keyColumn = MiscUtils.getFormattedObject(column.getName(), source);
+                    keyIndex = columns.size();
+                }
+            }
+
+            if (primaryKeyCount != 1) {
+                keyColumn = null;
+                keyIndex = 0;
+            }
+
+            this.blobs = new boolean[blobList.size()];
+            for (int i = 0; i < blobs.length; i++)
+                blobs[i] = blobList.get(i);
+
+            List<ColumnConstraint> foreignKeys = sourceTable.getForeignKeys();
+            if (foreignKeys != null)
+                for (ColumnConstraint foreignKey : foreignKeys)
+                    dependencies.add(foreignKey.getReferencedTable());
+        }
+
+        String getSelectQuery(Range range, Long lastKey) {
+
+            StringBuilder sb = new StringBuilder("SELECT ");
+            for (String column : columns)
+                sb.append(MiscUtils.getFormattedObject(column, source)).append(", ");
+            sb.setLength(sb.length() - 2);
+            sb.append(" FROM ").append(sourceName);
+
+            if (keyColumn != null) {
+
+                List<String> conditions = new ArrayList<>();
+                if (lastKey != null)
+                    conditions.add(keyColumn + " > ?");
+                else if (range.lower != null)
+                    conditions.add(keyColumn + " >= ?");
+                if (range.upper != null)
+                    conditions.add(keyColumn + " < ?");
+
+                if (!conditions.isEmpty())
+                    sb.append(" WHERE ").append(String.join(" AND ", conditions));
+                sb.append(" ORDER BY ").append(keyColumn);
+            }
+
+            return sb.toString();
+        }
+
+        String getInsertQuery() {
+
+            StringBuilder sb = new StringBuilder("INSERT INTO ").append(targetName).append(" (");
+            for (String column : columns)
+                sb.append(MiscUtils.getFormattedObject(column, target)).append(", ");
+            sb.setLength(sb.length() - 2);
+            sb.append(") VALUES (");
+            for (int i = 0; i < columns.size(); i++)
+                sb.append(i > 0 ? ", ?" : "?");
+
+            return sb.append(")").toString();
+        }
+
+        private boolean isComputed(DatabaseColumn column) {
+            return !MiscUtils.isNull(column.getComputedSource());
+        }
+
+        private boolean isIntegerType(int type) {
+            return type == Types.SMALLINT || type == Types.INTEGER || type == Types.BIGINT;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+    } // TableCopy class
+
+    /**
+     * Key range of the table part, the lower bound is inclusive and the upper one
+     * is exclusive, <code>null</code> bound means the range is not limited from this side.
+     */
+    private static class Range {
+
+        private final Long lower;
+        private final Long upper;
+
+        Range(Long lower, Long upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        void setParameters(PreparedStatement statement, Long lastKey) throws SQLException {
+
+            int index = 1;
+            if (lastKey != null)
+                statement.setLong(index++, lastKey);
+            else if (lower != null)
+                statement.setLong(index++, lower);
+            if (upper != null)
+                statement.setLong(index, upper);
+        }
+
+        static String format(List<Range> ranges) {
+
+            StringJoiner joiner = new StringJoiner(";");
+            for (Range range : ranges)
+                joiner.add((range.lower != null ? range.lower : "") + ":" + (range.upper != null ? range.upper : ""));
+
+            return joiner.toString();
+        }
+
+        static List<Range> parse(String value) {
+
+            List<Range> ranges = new ArrayList<>();
+            for (String range : value.split(";")) {
+
+                String[] bounds = range.split(":", -1);
+                ranges.add(new Range(
+                        bounds[0].isEmpty() ? null : Long.valueOf(bounds[0]),
+                        bounds[1].isEmpty() ? null : Long.valueOf(bounds[1])
+                ));
+            }
+
+            return ranges;
+        }
+
+    } // Range class
+
+}
@@ -114,6 +114,14 @@ public class PropertiesEditorGeneral extends AbstractPropertiesBasePanel {
                 Boolean.valueOf(stringUserProperty(key))
         ));
 
+        key = "editor.script.quiet";
+        list.add(new UserPreference(
+                UserPreference.BOOLEAN_TYPE,
+                key,
+                bundledStaticString("QuietScriptExecution"),
+                Boolean.valueOf(stringUserProperty(key))
+        ));
+
         key = "editor.plan.explained";
         list.add(new UserPreference(
                 UserPreference.BOOLEAN_TYPE,
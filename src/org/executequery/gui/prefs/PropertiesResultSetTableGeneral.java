@@ -243,6 +243,22 @@ public class PropertiesResultSetTableGeneral extends AbstractPropertiesBasePanel
                 Integer.valueOf(stringUserProperty(key))
         ));
 
+        key = "results.table.prefetch.pages";
+        list.add(new UserPreference(
+                UserPreference.INTEGER_TYPE,
+                key,
+                bundledStaticString("PrefetchPages"),
+                Integer.valueOf(stringUserProperty(key))
+        ));
+
+        key = "results.table.columnar.storage";
+        list.add(new UserPreference(
+                UserPreference.BOOLEAN_TYPE,
+                key,
+                bundledStaticString("ColumnarResultSetStorage"),
+                Boolean.valueOf(stringUserProperty(key))
+        ));
+
         key = "browser.max.records";
         list.add(new UserPreference(
                 UserPreference.INTEGER_TYPE,
@@ -0,0 +1,528 @@
+package org.executequery.gui.resultset;
+
+import org.executequery.databaseobjects.Types;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Column-oriented storage of the result set values.
+ * <p>
+ * Each column keeps its values in a single primitive (or object) array
+ * chosen by the column data type plus the null bitmap. The <code>RecordDataItem</code>
+ * objects are created only when the row is requested (rendering, export etc.)
+ * and the small number of recently requested rows is cached.
+ */
+public class ColumnarTableData extends AbstractList<List<RecordDataItem>> {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int ROWS_CACHE_SIZE = 512;
+
+    private final List<ResultSetColumnHeader> columnHeaders;
+    private final RecordDataItemFactory recordDataItemFactory;
+    private final Column[] columns;
+    private final String[] charsets;
+    private final Map<Integer, List<RecordDataItem>> rowsCache;
+
+    private int rowCount;
+    private int capacity;
+
+    public ColumnarTableData(List<ResultSetColumnHeader> columnHeaders, RecordDataItemFactory recordDataItemFactory) {
+
+        this.columnHeaders = new ArrayList<>(columnHeaders);
+        this.recordDataItemFactory = recordDataItemFactory;
+        this.capacity = INITIAL_CAPACITY;
+
+        columns = new Column[columnHeaders.size()];
+        charsets = new String[columnHeaders.size()];
+        for (int i = 0; i < columns.length; i++)
+            columns[i] = createColumn(columnHeaders.get(i).getDataType(), capacity);
+
+        rowsCache = new LinkedHashMap<Integer, List<RecordDataItem>>(ROWS_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<RecordDataItem>> eldest) {
+                return size() > ROWS_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Copies values of the specified row items into the column storage.
+     * The items themselves are not retained, so the caller can reuse them.
+     */
+    public void appendRow(List<RecordDataItem> row) {
+
+        ensureCapacity(rowCount + 1);
+        for (int i = 0; i < columns.length; i++) {
+
+            RecordDataItem item = i < row.size() ? row.get(i) : null;
+            Object value = item != null ? item.getValue() : null;
+
+            if (value == null) {
+                columns[i].setNull(rowCount);
+
+            } else if (columns[i].accepts(value)) {
+                columns[i].set(rowCount, value);
+
+            } else {
+                columns[i] = columns[i].toObjectColumn(rowCount, capacity);
+                columns[i].set(rowCount, value);
+            }
+
+            if (charsets[i] == null && item instanceof ClobRecordDataItem)
+                charsets[i] = ((ClobRecordDataItem) item).getCharset();
+        }
+
+        rowCount++;
+    }
+
+    @Override
+    public boolean add(List<RecordDataItem> row) {
+
+        appendRow(row);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public List<RecordDataItem> get(int index) {
+
+        if (index < 0 || index >= rowCount)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rowCount);
+
+        List<RecordDataItem> row = rowsCache.get(index);
+        if (row == null) {
+            row = materializeRow(index);
+            rowsCache.put(index, row);
+        }
+
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public void clear() {
+
+        rowCount = 0;
+        capacity = INITIAL_CAPACITY;
+        rowsCache.clear();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = createColumn(columnHeaders.get(i).getDataType(), capacity);
+            charsets[i] = null;
+        }
+        modCount++;
+    }
+
+    /**
+     * Returns the estimated number of bytes occupied by the stored values.
+     */
+    public long estimateMemoryUsage() {
+
+        long size = 0;
+        for (Column column : columns)
+            size += column.estimateMemoryUsage(rowCount);
+
+        return size;
+    }
+
+    private List<RecordDataItem> materializeRow(int index) {
+
+        List<RecordDataItem> row = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+
+            RecordDataItem item = recordDataItemFactory.create(columnHeaders.get(i));
+            item.setValue(columns[i].isNull(index) ? null : columns[i].get(index));
+            if (item instanceof ClobRecordDataItem)
+                ((ClobRecordDataItem) item).setCharset(charsets[i]);
+
+            row.add(item);
+        }
+
+        return row;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+
+        if (minCapacity <= capacity)
+            return;
+
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+        for (Column column : columns)
+            column.grow(newCapacity);
+
+        capacity = newCapacity;
+    }
+
+    private static Column createColumn(int dataType, int capacity) {
+
+        switch (dataType) {
+
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new IntColumn(capacity);
+
+            case Types.BIGINT:
+                return new LongColumn(capacity);
+
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn(capacity);
+
+            case Types.REAL:
+                return new FloatColumn(capacity);
+
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return new BooleanColumn(capacity);
+
+            default:
+                return new ObjectColumn(capacity);
+        }
+    }
+
+    // --- memory estimation ---
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int RECORD_DATA_ITEM = 40;
+    private static final int ARRAY_LIST = 24 + OBJECT_HEADER;
+
+    /**
+     * Returns the estimated number of bytes occupied by the row-based
+     * (<code>List&lt;List&lt;RecordDataItem&gt;&gt;</code>) table data.
+     */
+    public static long estimateMemoryUsage(List<List<RecordDataItem>> tableData) {
+
+        long size = ARRAY_LIST + (long) tableData.size() * REFERENCE;
+        for (List<RecordDataItem> row : tableData) {
+
+            size += ARRAY_LIST + (long) row.size() * REFERENCE;
+            for (RecordDataItem item : row)
+                size += RECORD_DATA_ITEM + estimateValueSize(item.getValue());
+        }
+
+        return size;
+    }
+
+    static long estimateValueSize(Object value) {
+
+        if (value == null)
+            return 0;
+
+        if (value instanceof String)
+            return 40 + ((String) value).length();
+
+        if (value instanceof byte[])
+            return OBJECT_HEADER + ((byte[]) value).length;
+
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte
+                || value instanceof Float || value instanceof Boolean)
+            return OBJECT_HEADER;
+
+        if (value instanceof Long || value instanceof Double)
+            return OBJECT_HEADER + 8;
+
+        if (value instanceof BigInteger)
+            return 56;
+
+        if (value instanceof BigDecimal)
+            return 96;
+
+        if (value instanceof LocalDate || value instanceof LocalTime)
+            return 24;
+
+        if (value instanceof LocalDateTime || value instanceof OffsetTime)
+            return 72;
+
+        if (value instanceof OffsetDateTime)
+            return 96;
+
+        return 32;
+    }
+
+    // --- columns ---
+
+    private abstract static class Column {
+
+        protected BitSet nulls;
+
+        Column(int capacity) {
+            nulls = new BitSet(capacity);
+        }
+
+        boolean isNull(int index) {
+            return nulls.get(index);
+        }
+
+        void setNull(int index) {
+            nulls.set(index);
+        }
+
+        abstract boolean accepts(Object value);
+
+        abstract void set(int index, Object value);
+
+        abstract Object get(int index);
+
+        abstract void grow(int capacity);
+
+        abstract int slotSize();
+
+        long estimateMemoryUsage(int rowCount) {
+            return OBJECT_HEADER + (long) slotSize() * rowCount + nulls.size() / 8;
+        }
+
+        Column toObjectColumn(int rowCount, int capacity) {
+
+            ObjectColumn column = new ObjectColumn(capacity);
+            for (int i = 0; i < rowCount; i++) {
+                if (isNull(i))
+                    column.setNull(i);
+                else
+                    column.set(i, get(i));
+            }
+
+            return column;
+        }
+
+    } // class Column
+
+    private static class IntColumn extends Column {
+
+        private int[] values;
+
+        IntColumn(int capacity) {
+            super(capacity);
+            values = new int[capacity];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = (Integer) value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        int slotSize() {
+            return 4;
+        }
+
+    } // class IntColumn
+
+    private static class LongColumn extends Column {
+
+        private long[] values;
+
+        LongColumn(int capacity) {
+            super(capacity);
+            values = new long[capacity];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = (Long) value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        int slotSize() {
+            return 8;
+        }
+
+    } // class LongColumn
+
+    private static class DoubleColumn extends Column {
+
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+            super(capacity);
+            values = new double[capacity];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = (Double) value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        int slotSize() {
+            return 8;
+        }
+
+    } // class DoubleColumn
+
+    private static class FloatColumn extends Column {
+
+        private float[] values;
+
+        FloatColumn(int capacity) {
+            super(capacity);
+            values = new float[capacity];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Float;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = (Float) value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        int slotSize() {
+            return 4;
+        }
+
+    } // class FloatColumn
+
+    private static class BooleanColumn extends Column {
+
+        private final BitSet values;
+
+        BooleanColumn(int capacity) {
+            super(capacity);
+            values = new BitSet(capacity);
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Boolean;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values.set(index, (Boolean) value);
+        }
+
+        @Override
+        Object get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void grow(int capacity) {
+            // BitSet grows automatically
+        }
+
+        @Override
+        int slotSize() {
+            return 0;
+        }
+
+        @Override
+        long estimateMemoryUsage(int rowCount) {
+            return super.estimateMemoryUsage(rowCount) + values.size() / 8;
+        }
+
+    } // class BooleanColumn
+
+    private static class ObjectColumn extends Column {
+
+        private Object[] values;
+
+        ObjectColumn(int capacity) {
+            super(capacity);
+            values = new Object[capacity];
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        int slotSize() {
+            return REFERENCE;
+        }
+
+        @Override
+        long estimateMemoryUsage(int rowCount) {
+
+            long size = super.estimateMemoryUsage(rowCount);
+            for (int i = 0; i < rowCount; i++)
+                size += estimateValueSize(values[i]);
+
+            return size;
+        }
+
+    } // class ObjectColumn
+
+}
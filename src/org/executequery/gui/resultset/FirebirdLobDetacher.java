@@ -0,0 +1,76 @@
+package org.executequery.gui.resultset;
+
+import biz.redsoft.IFBBlob;
+import biz.redsoft.IFBClob;
+import org.executequery.datasource.PooledConnection;
+import org.executequery.datasource.PooledResultSet;
+import org.executequery.datasource.PooledStatement;
+import org.underworldlabs.util.DynamicLibraryLoader;
+import org.underworldlabs.util.PluginClassLoaderRegistry;
+
+import java.sql.*;
+
+/**
+ * Detaches the Jaybird LOB values of the fetched records,
+ * so they can be read after the result set is closed.
+ * <p>
+ * The pooled wrappers are unwrapped once per result set and the
+ * <code>FBClobImpl</code>/<code>FBBlobImpl</code> classes are taken from
+ * the plugin class loader shared for the driver. The detached value keeps only
+ * the blob id, the content is read when the cell is requested.
+ */
+class FirebirdLobDetacher {
+
+    private final ResultSet resultSet;
+    private final Connection connection;
+    private final Statement statement;
+    private final int driverVersion;
+
+    FirebirdLobDetacher(ResultSet resultSet) throws SQLException {
+
+        PooledStatement pooledStatement = (PooledStatement) ((PooledResultSet) resultSet).getStatement();
+        PooledConnection pooledConnection = (PooledConnection) pooledStatement.getConnection();
+
+        this.resultSet = resultSet;
+        this.connection = pooledConnection.unwrap(Connection.class);
+        this.statement = pooledStatement.getStatement();
+        this.driverVersion = pooledConnection.getDatabaseConnection().getDriverMajorVersion();
+    }
+
+    boolean isCreatedFor(ResultSet resultSet) {
+        return this.resultSet == resultSet;
+    }
+
+    IFBClob detach(Clob clob) throws SQLException, ClassNotFoundException {
+
+        IFBClob ifbClob = (IFBClob) newInstance("FBClobImpl");
+        ifbClob.detach(clob, statement);
+        return ifbClob;
+    }
+
+    IFBBlob detach(Blob blob) throws SQLException, ClassNotFoundException {
+
+        IFBBlob ifbBlob = (IFBBlob) newInstance("FBBlobImpl");
+        ifbBlob.detach(blob, statement);
+        return ifbBlob;
+    }
+
+    private Object newInstance(String shortClassName) throws ClassNotFoundException {
+
+        Class<?> implClass = getImplClass(shortClassName);
+        try {
+            return implClass.newInstance();
+
+        } catch (ReflectiveOperationException e) {
+            throw new ClassNotFoundException("Error creating instance of " + implClass.getName(), e);
+        }
+    }
+
+    private Class<?> getImplClass(String shortClassName) throws ClassNotFoundException {
+        return PluginClassLoaderRegistry.loadClass(
+                connection.getClass().getClassLoader(),
+                DynamicLibraryLoader.getFbPluginImplPath(driverVersion),
+                "biz.redsoft." + shortClassName);
+    }
+
+}
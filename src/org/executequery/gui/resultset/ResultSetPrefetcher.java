@@ -0,0 +1,188 @@
+package org.executequery.gui.resultset;
+
+import org.executequery.log.Log;
+import org.underworldlabs.swing.util.SwingWorker;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the result set records page by page in the background thread
+ * into the bounded queue, so the next page is usually ready
+ * by the time it is requested by the table model.
+ */
+class ResultSetPrefetcher {
+
+    private static final long POLL_TIMEOUT = 100;
+
+    /**
+     * Reads the current record of the result set.
+     */
+    interface RecordReader {
+        List<RecordDataItem> read(ResultSet resultSet) throws SQLException, InterruptedException;
+    }
+
+    private final ResultSet resultSet;
+    private final RecordReader recordReader;
+    private final int pageSize;
+    private final BlockingQueue<Page> pages;
+    private final CountDownLatch stopped;
+
+    private volatile boolean cancelled;
+    private boolean finished;
+
+    ResultSetPrefetcher(ResultSet resultSet, RecordReader recordReader, int pageSize, int maxPages) {
+        this.resultSet = resultSet;
+        this.recordReader = recordReader;
+        this.pageSize = Math.max(pageSize, 1);
+        this.pages = new ArrayBlockingQueue<>(Math.max(maxPages, 1));
+        this.stopped = new CountDownLatch(1);
+    }
+
+    void start() {
+
+        SwingWorker worker = new SwingWorker("ResultSetPrefetcher") {
+            @Override
+            public Object construct() {
+                produce();
+                return null;
+            }
+        };
+        worker.start();
+    }
+
+    /**
+     * Returns the next fetched page waiting for it if necessary,
+     * or <code>null</code> if all records were already returned.
+     *
+     * @throws SQLException         if the records reading failed
+     * @throws InterruptedException if the fetching was cancelled
+     */
+    List<List<RecordDataItem>> nextPage() throws SQLException, InterruptedException {
+
+        if (finished)
+            return null;
+
+        Page page = null;
+        while (page == null) {
+
+            if (cancelled)
+                throw new InterruptedException();
+
+            page = pages.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        if (page.last)
+            finished = true;
+
+        if (page.error instanceof SQLException)
+            throw (SQLException) page.error;
+        if (page.error instanceof InterruptedException)
+            throw (InterruptedException) page.error;
+        if (page.error != null)
+            throw new SQLException(page.error);
+
+        return page.rows;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    void cancel() {
+        cancelled = true;
+        pages.clear();
+    }
+
+    /**
+     * Cancels the prefetching and waits for the reading thread to leave
+     * the result set, so the result set may be closed after that.
+     */
+    void stop() {
+
+        cancel();
+        try {
+            stopped.await();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void produce() {
+        try {
+            readPages();
+
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    private void readPages() {
+
+        boolean last = false;
+        while (!last && !cancelled) {
+
+            Page page = new Page(pageSize);
+            try {
+
+                while (page.rows.size() < pageSize && !cancelled) {
+
+                    if (!resultSet.next()) {
+                        resultSet.close();
+                        last = true;
+                        break;
+                    }
+                    page.rows.add(recordReader.read(resultSet));
+                }
+
+            } catch (Exception e) {
+
+                page.error = e;
+                last = true;
+            }
+
+            page.last = last;
+            if (!put(page))
+                break;
+        }
+
+        if (cancelled)
+            Log.debug("Result set prefetching cancelled");
+    }
+
+    private boolean put(Page page) {
+
+        try {
+
+            while (!cancelled) {
+                if (pages.offer(page, POLL_TIMEOUT, TimeUnit.MILLISECONDS))
+                    return true;
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return false;
+    }
+
+    private static class Page {
+
+        private final List<List<RecordDataItem>> rows;
+        private Exception error;
+        private boolean last;
+
+        Page(int pageSize) {
+            rows = new ArrayList<>(pageSize);
+        }
+
+    } // class Page
+
+}
@@ -20,17 +20,12 @@
 
 package org.executequery.gui.resultset;
 
-import biz.redsoft.IFBBlob;
-import biz.redsoft.IFBClob;
 import org.apache.commons.lang.StringUtils;
 import org.executequery.GUIUtilities;
 import org.executequery.databasemediators.DatabaseConnection;
 import org.executequery.databasemediators.QueryTypes;
 import org.executequery.databasemediators.spi.DefaultStatementExecutor;
 import org.executequery.databaseobjects.Types;
-import org.executequery.datasource.PooledConnection;
-import org.executequery.datasource.PooledResultSet;
-import org.executequery.datasource.PooledStatement;
 import org.executequery.gui.browser.ColumnData;
 import org.executequery.gui.table.CreateTableSQLSyntax;
 import org.executequery.log.Log;
@@ -38,7 +33,6 @@ import org.executequery.sql.SqlStatementResult;
 import org.executequery.util.UserProperties;
 import org.underworldlabs.jdbc.DataSourceException;
 import org.underworldlabs.swing.table.AbstractSortableTableModel;
-import org.underworldlabs.util.DynamicLibraryLoader;
 import org.underworldlabs.util.MiscUtils;
 import org.underworldlabs.util.SystemProperties;
 
@@ -85,6 +79,26 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
      */
     private List<List<RecordDataItem>> tableData;
 
+    /**
+     * Whether the table values are kept in the column-oriented storage
+     */
+    private boolean columnarStorage;
+
+    /**
+     * The row items reused for each fetched record with the column-oriented storage
+     */
+    private List<RecordDataItem> fetchBuffer;
+
+    /**
+     * Background reader of the next table data pages
+     */
+    private volatile ResultSetPrefetcher prefetcher;
+
+    /**
+     * Detacher of the LOB values for the currently fetched result set
+     */
+    private volatile FirebirdLobDetacher lobDetacher;
+
     /**
      * result set meta data model
      */
@@ -132,6 +146,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
         recordDataItemFactory = new RecordDataItemFactory();
 
         holdMetaData = UserProperties.getInstance().getBooleanProperty("editor.results.metadata");
+        columnarStorage = !isTable && UserProperties.getInstance().getBooleanProperty("results.table.columnar.storage");
 
         if (resultSet != null)
             createTable(resultSet);
@@ -274,18 +289,25 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
 
     public synchronized void getDataForTable(ResultSet resultSet, int count, List<ColumnData> columnDataList) throws SQLException, InterruptedException {
+        stopPrefetching();
         recordCount = 0;
         this.columnDataList = columnDataList;
+        if (columnarStorage)
+            initColumnarStorage();
+
         long time = System.currentTimeMillis();
         fetchSize = SystemProperties.getIntProperty("user", "results.table.fetch.size");
         rsClose = false;
         rs = resultSet;
         this.count = count;
-        if (isTable)
+        if (isTable) {
             for (int i = 0; i < fetchSize && !rsClose; i++) {
                 fetchOneRecord(resultSet, count);
             }
-        else if (maxRecords > 0) {
+            if (!rsClose)
+                startPrefetching(resultSet, count);
+
+        } else if (maxRecords > 0) {
             for (int i = 0; i < maxRecords && !rsClose; i++) {
                 fetchOneRecord(resultSet, count);
             }
@@ -294,13 +316,44 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
         if (Log.isTraceEnabled()) {
 
             Log.trace("Finished populating table model - " + recordCount + " rows - [ "
-                    + MiscUtils.formatDuration(System.currentTimeMillis() - time) + "]");
+                    + MiscUtils.formatDuration(System.currentTimeMillis() - time) + "], "
+                    + (columnarStorage ? "columnar" : "row") + " storage - ~" + getMemoryPerRow() + " bytes per row");
         }
 
         fireTableStructureChanged();
 
     }
 
+    private void initColumnarStorage() {
+
+        tableData = new ColumnarTableData(columnHeaders, recordDataItemFactory);
+
+        fetchBuffer = new ArrayList<>(columnHeaders.size());
+        for (ResultSetColumnHeader header : columnHeaders)
+            fetchBuffer.add(recordDataItemFactory.create(header));
+    }
+
+    /**
+     * Returns the estimated number of bytes used to store one row
+     * of the loaded data. Useful to compare the row-based and
+     * the column-oriented storage on the same query.
+     */
+    public long getMemoryPerRow() {
+
+        if (tableData == null || tableData.isEmpty())
+            return 0;
+
+        long size = (tableData instanceof ColumnarTableData) ?
+                ((ColumnarTableData) tableData).estimateMemoryUsage() :
+                ColumnarTableData.estimateMemoryUsage(tableData);
+
+        return size / tableData.size();
+    }
+
+    public boolean isColumnarStorage() {
+        return columnarStorage;
+    }
+
     public void setFetchAll(boolean fetchAll) {
         this.fetchAll = fetchAll;
     }
@@ -313,15 +366,25 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
         if (!rsClose)
             try {
                 if (fetchAll) {
-                    fetchAllRecords(rs, count);
+                    if (prefetcher != null) {
+                        while (!rsClose && prefetcher != null)
+                            fetchPrefetchedPage();
+                        fireTableDataChanged();
+                    } else
+                        fetchAllRecords(rs, count);
                 } else {
-                    for (int i = 0; i < fetchSize && !rsClose; i++) {
-                        fetchOneRecord(rs, count);
+                    if (prefetcher != null) {
+                        fetchPrefetchedPage();
+                    } else {
+                        for (int i = 0; i < fetchSize && !rsClose; i++) {
+                            fetchOneRecord(rs, count);
+                        }
                     }
                     fireTableDataChanged();
                 }
             } catch (Exception e) {
                 rsClose = true;
+                stopPrefetching();
                 if (cancelled) {
                     cancelled = false;
                     fetchAll = false;
@@ -333,6 +396,46 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
             }
     }
 
+    private void startPrefetching(ResultSet resultSet, int count) {
+
+        int pages = SystemProperties.getIntProperty("user", "results.table.prefetch.pages");
+        if (pages <= 0 || columnarStorage)
+            return;
+
+        // the prefetching thread reads the values only, the column widths are measured by the consumer
+        ResultSetPrefetcher thisPrefetcher = new ResultSetPrefetcher(resultSet, rs -> readRecord(rs, count), fetchSize, pages);
+        prefetcher = thisPrefetcher;
+        thisPrefetcher.start();
+    }
+
+    private void stopPrefetching() {
+
+        ResultSetPrefetcher thisPrefetcher = prefetcher;
+        prefetcher = null;
+
+        if (thisPrefetcher != null)
+            thisPrefetcher.stop();
+    }
+
+    private void fetchPrefetchedPage() throws SQLException, InterruptedException {
+
+        ResultSetPrefetcher thisPrefetcher = prefetcher;
+        if (thisPrefetcher == null)
+            return;
+
+        List<List<RecordDataItem>> page = thisPrefetcher.nextPage();
+        if (page != null) {
+            page.forEach(this::updateColumnWidths);
+            recordCount += page.size();
+            tableData.addAll(page);
+        }
+
+        if (thisPrefetcher.isFinished()) {
+            prefetcher = null;
+            rsClose = true;
+        }
+    }
+
     private void fetchOneRecord(ResultSet resultSet, int count) throws SQLException, InterruptedException {
         if (resultSet.next())
             addingRecord(resultSet, count);
@@ -528,21 +631,28 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     private void addingRecord(ResultSet resultSet, int count) throws SQLException, InterruptedException {
 
+        recordCount++;
+
+        List<RecordDataItem> record = readRecord(resultSet, count);
+        updateColumnWidths(record);
+        tableData.add(record);
+    }
+
+    private List<RecordDataItem> readRecord(ResultSet resultSet, int count) throws SQLException, InterruptedException {
 
         if (interrupted || Thread.interrupted()) {
 
             throw new InterruptedException();
         }
 
-        recordCount++;
-        List<RecordDataItem> rowData = new ArrayList<RecordDataItem>(count);
+        List<RecordDataItem> rowData = columnarStorage ? fetchBuffer : new ArrayList<RecordDataItem>(count);
 
         for (int i = 1; i <= count; i++) {
 
-            zeroBaseIndex = i - 1;
+            int zeroBaseIndex = i - 1;
 
             ResultSetColumnHeader header = columnHeaders.get(zeroBaseIndex);
-            RecordDataItem value = recordDataItemFactory.create(header);
+            RecordDataItem value = columnarStorage ? rowData.get(zeroBaseIndex) : recordDataItemFactory.create(header);
 
             try {
 
@@ -579,12 +689,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                         Clob clob = resultSet.getClob(i);
                         if (clob != null && clob.getClass().getName().contains("org.firebirdsql.jdbc")) {
                             try {
-                                PooledResultSet pooledResultSet = (PooledResultSet) resultSet;
-                                PooledConnection connection = (PooledConnection) pooledResultSet.getStatement().getConnection();
-                                Connection unwrapCon = connection.unwrap(Connection.class);
-                                IFBClob ifbClob = (IFBClob) DynamicLibraryLoader.loadingObjectFromClassLoader(connection.getDatabaseConnection().getDriverMajorVersion(), unwrapCon, "FBClobImpl");
-                                ifbClob.detach(clob, ((PooledStatement) pooledResultSet.getStatement()).getStatement());
-                                value.setValue(ifbClob);
+                                value.setValue(getLobDetacher(resultSet).detach(clob));
                             } catch (ClassNotFoundException e) {
                                 e.printStackTrace();
                             }
@@ -606,12 +711,7 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                         Blob blob = resultSet.getBlob(i);
                         if (blob != null && blob.getClass().getName().contains("org.firebirdsql.jdbc")) {
                             try {
-                                PooledResultSet pooledResultSet = (PooledResultSet) resultSet;
-                                PooledConnection connection = (PooledConnection) pooledResultSet.getStatement().getConnection();
-                                Connection unwrapCon = connection.unwrap(Connection.class);
-                                IFBBlob ifbBlob = (IFBBlob) DynamicLibraryLoader.loadingObjectFromClassLoader(connection.getDatabaseConnection().getDriverMajorVersion(), unwrapCon, "FBBlobImpl");
-                                ifbBlob.detach(blob, ((PooledStatement) pooledResultSet.getStatement()).getStatement());
-                                value.setValue(ifbBlob);
+                                value.setValue(getLobDetacher(resultSet).detach(blob));
                             } catch (ClassNotFoundException e) {
                                 e.printStackTrace();
                             }
@@ -674,11 +774,27 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
             if (resultSet.wasNull())
                 value.setNull();
 
-            rowData.add(value);
+            if (!columnarStorage)
+                rowData.add(value);
+        }
+
+        return rowData;
+    }
+
+    /**
+     * Widens the column headers to the display values of the record.
+     * The font metrics are used, so it is not called by the prefetching thread.
+     */
+    private void updateColumnWidths(List<RecordDataItem> record) {
+
+        FontMetrics metrics = table.getFontMetrics(table.getFont());
+        for (int i = 0, n = Math.min(record.size(), columnHeaders.size()); i < n; i++) {
+
+            RecordDataItem value = record.get(i);
+            ResultSetColumnHeader header = columnHeaders.get(i);
             if (value.getDisplayValue() != null) {
 
                 int width = -1;
-                FontMetrics metrics = table.getFontMetrics(table.getFont());
 
                 int valueType = value.getDataType();
                 if (valueType == Types.DATE) {
@@ -714,12 +830,25 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
                     header.setColWidth(width + 5);
             }
         }
+    }
+
+    private FirebirdLobDetacher getLobDetacher(ResultSet resultSet) throws SQLException {
+
+        FirebirdLobDetacher detacher = lobDetacher;
+        if (detacher == null || !detacher.isCreatedFor(resultSet)) {
+            detacher = new FirebirdLobDetacher(resultSet);
+            lobDetacher = detacher;
+        }
 
-        tableData.add(rowData);
+        return detacher;
     }
 
     public void cancelFetch() {
         cancelled = true;
+
+        ResultSetPrefetcher thisPrefetcher = prefetcher;
+        if (thisPrefetcher != null)
+            thisPrefetcher.cancel();
     }
 
     public void interrupt() {
@@ -1156,6 +1285,8 @@ public class ResultSetTableModel extends AbstractSortableTableModel {
 
     public void closeResultSet() throws SQLException {
 
+        stopPrefetching();
+
         if (rs != null && !rs.isClosed())
             rs.close();
 
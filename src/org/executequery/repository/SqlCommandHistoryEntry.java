@@ -0,0 +1,47 @@
+package org.executequery.repository;
+
+/**
+ * Executed query stored in the SQL command history.
+ */
+public class SqlCommandHistoryEntry {
+
+    public static final long UNKNOWN = -1;
+
+    private final String query;
+    private final long executedAt;
+    private final long executionTime;
+    private final long rowCount;
+
+    public SqlCommandHistoryEntry(String query, long executedAt, long executionTime, long rowCount) {
+        this.query = query;
+        this.executedAt = executedAt;
+        this.executionTime = executionTime;
+        this.rowCount = rowCount;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns the execution moment in milliseconds, 0 for the entries imported from the old history.
+     */
+    public long getExecutedAt() {
+        return executedAt;
+    }
+
+    /**
+     * Returns the execution time in milliseconds or {@link #UNKNOWN}.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * Returns the affected row count or {@link #UNKNOWN}.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+}
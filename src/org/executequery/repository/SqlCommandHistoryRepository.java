@@ -20,6 +20,7 @@
 
 package org.executequery.repository;
 
+import java.util.List;
 import java.util.Vector;
 
 /**
@@ -33,8 +34,30 @@ public interface SqlCommandHistoryRepository extends Repository {
 
     void addSqlCommand(String query, String connectionID);
 
+    /**
+     * Adds the executed query to the history.
+     *
+     * @param executionTime execution time in milliseconds, -1 if unknown
+     * @param rowCount      affected row count, -1 if unknown
+     */
+    void addSqlCommand(String query, String connectionID, long executionTime, long rowCount);
+
+    /**
+     * Returns the history queries, the latest first.
+     */
     Vector<String> getSqlCommandHistory(String connectionID);
 
+    /**
+     * Returns the history entries, the latest first.
+     */
+    List<SqlCommandHistoryEntry> getSqlCommandHistoryEntries(String connectionID);
+
+    /**
+     * Returns indexes (in the order of {@link #getSqlCommandHistory(String)})
+     * of the queries containing a word starting with the specified text, case insensitive.
+     */
+    List<Integer> findSqlCommands(String connectionID, String text);
+
 }
 
 
@@ -0,0 +1,410 @@
+package org.executequery.repository.spi;
+
+import org.executequery.log.Log;
+import org.executequery.repository.SqlCommandHistoryEntry;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL command history of one connection.
+ * <p>
+ * All the entries are kept in memory, the file is written in the append-only manner:
+ * each executed query appends one record. Entries exceeding the history limit are dropped
+ * from memory only, the file is rewritten when it contains too many dropped records.
+ * <p>
+ * The search uses the trigram index built on the first search and updated by the added entries.
+ */
+class SqlCommandHistoryLog {
+
+    private static final int COMPACTION_MIN_RECORDS = 1000;
+    private static final int GRAM_LENGTH = 3;
+    private static final String REGEX_CHARS = "\\[](){}.*+?^$|";
+
+    private final File file;
+    private final List<SqlCommandHistoryEntry> entries;
+
+    /**
+     * Sequence number of the first entry in memory, the index keys the entries by their sequence numbers.
+     */
+    private int firstSequence;
+    private int fileRecordCount;
+    private DataOutputStream output;
+
+    private Vector<String> queries;
+    private Map<Long, Postings> index;
+
+    SqlCommandHistoryLog(File file) {
+        this.file = file;
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * Reads the history file, the incomplete record at the end of the file is discarded.
+     */
+    synchronized void load(int maxCount) {
+
+        if (!file.exists())
+            return;
+
+        long validLength = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+
+            while (true) {
+
+                SqlCommandHistoryEntry entry = readEntry(input, file.length() - validLength);
+                if (entry == null)
+                    break;
+
+                entries.add(entry);
+                fileRecordCount++;
+                validLength += recordLength(entry);
+            }
+
+        } catch (IOException e) {
+
+            if (Log.isDebugEnabled())
+                Log.debug("IO error reading SQL command history " + file, e);
+        }
+
+        if (validLength < file.length())
+            truncate(validLength);
+
+        evict(maxCount);
+        compactIfNeeded();
+    }
+
+    synchronized void add(String query, long executionTime, long rowCount, int maxCount) {
+
+        if (!entries.isEmpty() && entries.get(entries.size() - 1).getQuery().equals(query))
+            return;
+
+        SqlCommandHistoryEntry entry = new SqlCommandHistoryEntry(query, System.currentTimeMillis(), executionTime, rowCount);
+        entries.add(entry);
+        if (index != null)
+            addToIndex(firstSequence + entries.size() - 1, query);
+
+        evict(maxCount);
+        queries = null;
+
+        try {
+
+            if (output == null)
+                output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+
+            writeEntry(output, entry);
+            output.flush();
+            fileRecordCount++;
+
+        } catch (IOException e) {
+
+            if (Log.isDebugEnabled())
+                Log.debug("IO error storing SQL command history.", e);
+        }
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Adds the entries in the order they were executed, used to import the old history.
+     */
+    synchronized void addAll(List<SqlCommandHistoryEntry> imported, int maxCount) {
+
+        entries.addAll(imported);
+        evict(maxCount);
+        index = null;
+        queries = null;
+
+        rewrite();
+    }
+
+    synchronized void clear() {
+
+        closeOutput();
+        entries.clear();
+        firstSequence = 0;
+        index = null;
+        queries = null;
+
+        rewrite();
+    }
+
+    /**
+     * Returns the queries, the latest first. The returned vector is not changed by the later additions.
+     */
+    synchronized Vector<String> getQueries() {
+
+        if (queries == null) {
+
+            queries = new Vector<>(entries.size());
+            for (int i = entries.size() - 1; i >= 0; i--)
+                queries.add(entries.get(i).getQuery());
+        }
+
+        return queries;
+    }
+
+    synchronized List<SqlCommandHistoryEntry> getEntries() {
+
+        List<SqlCommandHistoryEntry> result = new ArrayList<>(entries);
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Returns indexes (the latest entry first) of the queries containing a word
+     * starting with the specified text. The text is treated as a regular expression
+     * like the history dialog does, the index is used for the plain text only.
+     */
+    synchronized List<Integer> find(String text) {
+
+        Matcher matcher = Pattern.compile("\\b" + text, Pattern.CASE_INSENSITIVE).matcher("");
+        List<Integer> found = new ArrayList<>();
+
+        if (text.length() < GRAM_LENGTH || !isPlainText(text)) {
+
+            for (int i = entries.size() - 1; i >= 0; i--)
+                if (matcher.reset(entries.get(i).getQuery()).find())
+                    found.add(entries.size() - 1 - i);
+
+            return found;
+        }
+
+        if (index == null)
+            buildIndex();
+
+        for (int sequence : candidates(text)) {
+
+            int i = sequence - firstSequence;
+            if (i >= 0 && matcher.reset(entries.get(i).getQuery()).find())
+                found.add(entries.size() - 1 - i);
+        }
+
+        return found;
+    }
+
+    /**
+     * Returns sequence numbers (descending) of the entries containing all the trigrams of the text.
+     */
+    private int[] candidates(String text) {
+
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+
+            Postings postings = index.get(gram(text, i));
+            if (postings == null)
+                return new int[0];
+            lists.add(postings);
+        }
+        lists.sort(Comparator.comparingInt(postings -> postings.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int count = result.length;
+        for (int i = 1; i < lists.size() && count > 0; i++)
+            count = lists.get(i).retain(result, count);
+
+        int[] descending = new int[count];
+        for (int i = 0; i < count; i++)
+            descending[i] = result[count - 1 - i];
+
+        return descending;
+    }
+
+    private void buildIndex() {
+
+        index = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++)
+            addToIndex(firstSequence + i, entries.get(i).getQuery());
+    }
+
+    private void addToIndex(int sequence, String query) {
+
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++)
+            index.computeIfAbsent(gram(query, i), key -> new Postings()).add(sequence);
+    }
+
+    private static long gram(String text, int start) {
+
+        long gram = 0;
+        for (int i = start; i < start + GRAM_LENGTH; i++)
+            gram = (gram << 16) | Character.toLowerCase(text.charAt(i));
+
+        return gram;
+    }
+
+    private static boolean isPlainText(String text) {
+
+        for (int i = 0; i < text.length(); i++)
+            if (REGEX_CHARS.indexOf(text.charAt(i)) >= 0)
+                return false;
+
+        return true;
+    }
+
+    private void evict(int maxCount) {
+
+        int excess = entries.size() - Math.max(maxCount, 1);
+        if (excess <= 0)
+            return;
+
+        entries.subList(0, excess).clear();
+        firstSequence += excess;
+
+        // postings of the dropped entries are skipped by the search and removed on the next build
+        if (index != null && firstSequence > entries.size())
+            index = null;
+    }
+
+    private void compactIfNeeded() {
+
+        if (fileRecordCount > COMPACTION_MIN_RECORDS && fileRecordCount > entries.size() * 2)
+            rewrite();
+    }
+
+    /**
+     * Writes the entries to the temporary file and replaces the history file with it.
+     */
+    private void rewrite() {
+
+        closeOutput();
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        try {
+
+            try (DataOutputStream tempOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+                for (SqlCommandHistoryEntry entry : entries)
+                    writeEntry(tempOutput, entry);
+            }
+
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            fileRecordCount = entries.size();
+
+        } catch (IOException e) {
+
+            if (Log.isDebugEnabled())
+                Log.debug("IO error compacting SQL command history " + file, e);
+        }
+    }
+
+    private void truncate(long length) {
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(length);
+
+        } catch (IOException e) {
+
+            if (Log.isDebugEnabled())
+                Log.debug("IO error repairing SQL command history " + file, e);
+        }
+    }
+
+    private void closeOutput() {
+
+        if (output == null)
+            return;
+
+        try {
+            output.close();
+
+        } catch (IOException e) {
+
+            if (Log.isDebugEnabled())
+                Log.debug("IO error closing SQL command history " + file, e);
+
+        } finally {
+            output = null;
+        }
+    }
+
+    private static void writeEntry(DataOutputStream output, SqlCommandHistoryEntry entry) throws IOException {
+
+        byte[] query = entry.getQuery().getBytes(StandardCharsets.UTF_8);
+        output.writeLong(entry.getExecutedAt());
+        output.writeLong(entry.getExecutionTime());
+        output.writeLong(entry.getRowCount());
+        output.writeInt(query.length);
+        output.write(query);
+    }
+
+    /**
+     * Returns the next entry or <code>null</code> at the end of the file or at the incomplete record.
+     */
+    private static SqlCommandHistoryEntry readEntry(DataInputStream input, long remaining) throws IOException {
+
+        try {
+
+            long executedAt = input.readLong();
+            long executionTime = input.readLong();
+            long rowCount = input.readLong();
+
+            int length = input.readInt();
+            if (length < 0 || length > remaining)
+                return null;
+
+            byte[] query = new byte[length];
+            input.readFully(query);
+
+            return new SqlCommandHistoryEntry(new String(query, StandardCharsets.UTF_8), executedAt, executionTime, rowCount);
+
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static long recordLength(SqlCommandHistoryEntry entry) {
+        return Long.BYTES * 3 + Integer.BYTES + entry.getQuery().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Ascending sequence numbers of the entries containing the trigram.
+     */
+    private static class Postings {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int sequence) {
+
+            if (size > 0 && values[size - 1] == sequence)
+                return;
+
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = sequence;
+        }
+
+        /**
+         * Keeps in the sorted array only the values contained in this list.
+         *
+         * @return new count of the values
+         */
+        int retain(int[] sorted, int count) {
+
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < count; i++) {
+
+                while (j < size && values[j] < sorted[i])
+                    j++;
+
+                if (j < size && values[j] == sorted[i])
+                    sorted[kept++] = sorted[i];
+            }
+
+            return kept;
+        }
+
+    } // Postings class
+
+}
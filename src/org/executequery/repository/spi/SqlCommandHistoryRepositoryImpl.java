@@ -21,6 +21,7 @@
 package org.executequery.repository.spi;
 
 import org.executequery.log.Log;
+import org.executequery.repository.SqlCommandHistoryEntry;
 import org.executequery.repository.SqlCommandHistoryRepository;
 import org.executequery.util.UserProperties;
 import org.executequery.util.UserSettingsProperties;
@@ -28,44 +29,31 @@ import org.underworldlabs.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Vector;
+import java.util.*;
 
+/**
+ * SQL command history stored in the append-only log files, one per connection.
+ * The history written by the previous versions as the serialized vector
+ * is imported on the first access.
+ */
 public class SqlCommandHistoryRepositoryImpl implements SqlCommandHistoryRepository {
 
     private static final String FILE_PATH = "sql-command.history";
 
-    private UserSettingsProperties settings;
-
-    public void addSqlCommand(String query, String connectionID) {
+    private static final String LOG_FILE_PATH = "sql-command.log";
 
-        if (!hasQueryAtZero(query, connectionID)) {
+    private final Map<String, SqlCommandHistoryLog> logs = new HashMap<>();
 
-            final Vector<String> history = getSqlCommandHistory(connectionID);
-
-            int size = history.size();
-            if (size == maxHistoryCount()) {
-
-                history.remove(size - 1);
-            }
+    private UserSettingsProperties settings;
 
-            history.add(0, query);
+    public void addSqlCommand(String query, String connectionID) {
 
-            writeHistory(history, connectionID);
-        }
+        addSqlCommand(query, connectionID, SqlCommandHistoryEntry.UNKNOWN, SqlCommandHistoryEntry.UNKNOWN);
     }
 
-    private boolean hasQueryAtZero(String query, String connectionID) {
+    public void addSqlCommand(String query, String connectionID, long executionTime, long rowCount) {
 
-        final Vector<String> history = getSqlCommandHistory(connectionID);
-
-        if (history.isEmpty()) {
-
-            return false;
-        }
-
-        String queryAtZero = history.get(0);
-
-        return (queryAtZero.compareTo(query) == 0);
+        historyLog(connectionID).add(query, executionTime, rowCount, maxHistoryCount());
     }
 
     private int maxHistoryCount() {
@@ -75,69 +63,82 @@ public class SqlCommandHistoryRepositoryImpl implements SqlCommandHistoryReposit
 
     public void clearSqlCommandHistory(String connectionID) {
 
-        writeHistory(new Vector<String>(0), connectionID);
+        historyLog(connectionID).clear();
     }
 
-    @SuppressWarnings("unchecked")
     public Vector<String> getSqlCommandHistory(String connectionID) {
 
-        try {
+        return historyLog(connectionID).getQueries();
+    }
 
-            File file = new File(filePath(connectionID));
+    public List<SqlCommandHistoryEntry> getSqlCommandHistoryEntries(String connectionID) {
 
-            if (!file.exists()) {
+        return historyLog(connectionID).getEntries();
+    }
 
-                return emptyHistory();
+    public List<Integer> findSqlCommands(String connectionID, String text) {
 
-            } else {
+        return historyLog(connectionID).find(text);
+    }
 
-                Object object = FileUtils.readObject(file);
+    private synchronized SqlCommandHistoryLog historyLog(String connectionID) {
 
-                if (object == null || !(object instanceof Vector)) {
+        SqlCommandHistoryLog historyLog = logs.get(connectionID);
+        if (historyLog == null) {
 
-                    return emptyHistory();
+            File file = new File(filePath(connectionID, LOG_FILE_PATH));
+            historyLog = new SqlCommandHistoryLog(file);
 
-                } else {
+            if (file.exists())
+                historyLog.load(maxHistoryCount());
+            else
+                importOldHistory(historyLog, connectionID);
 
-                    return (Vector<String>) object;
-                }
-            }
+            logs.put(connectionID, historyLog);
+        }
 
-        } catch (IOException e) {
+        return historyLog;
+    }
 
-            if (Log.isDebugEnabled()) {
+    @SuppressWarnings("unchecked")
+    private void importOldHistory(SqlCommandHistoryLog historyLog, String connectionID) {
 
-                Log.debug("IO error opening SQL command history.", e);
-            }
+        File file = new File(filePath(connectionID, FILE_PATH));
+        if (!file.exists())
+            return;
 
-            return emptyHistory();
-        }
+        try {
 
-    }
+            Object object = FileUtils.readObject(file);
+            if (object instanceof Vector) {
 
-    private void writeHistory(Vector<String> history, String connectionID) {
+                List<SqlCommandHistoryEntry> entries = new ArrayList<>();
+                for (String query : (Vector<String>) object)
+                    entries.add(new SqlCommandHistoryEntry(query, 0, SqlCommandHistoryEntry.UNKNOWN, SqlCommandHistoryEntry.UNKNOWN));
+                Collections.reverse(entries);
 
-        try {
+                historyLog.addAll(entries, maxHistoryCount());
+            }
+
+            // the old file is kept until the history is written to the log
+            boolean imported = new File(filePath(connectionID, LOG_FILE_PATH)).exists();
+            if (imported && !file.delete() && Log.isDebugEnabled()) {
 
-            FileUtils.writeObject(history, filePath(connectionID));
+                Log.debug("Unable to delete the old SQL command history " + file);
+            }
 
         } catch (IOException e) {
 
             if (Log.isDebugEnabled()) {
 
-                Log.debug("IO error storing SQL command history.", e);
+                Log.debug("IO error opening SQL command history.", e);
             }
 
         }
 
     }
 
-    private Vector<String> emptyHistory() {
-
-        return new Vector<String>();
-    }
-
-    private String filePath(String connectionID) {
+    private String filePath(String connectionID, String fileName) {
 
         if (settings == null) {
 
@@ -148,7 +149,7 @@ public class SqlCommandHistoryRepositoryImpl implements SqlCommandHistoryReposit
         if (!f_dir.exists()) {
             f_dir.mkdirs();
         }
-        return dir + connectionID + "." + FILE_PATH;
+        return dir + connectionID + "." + fileName;
     }
 
     public String getId() {
@@ -157,14 +158,3 @@ public class SqlCommandHistoryRepositoryImpl implements SqlCommandHistoryReposit
     }
 
 }
-
-
-
-
-
-
-
-
-
-
-
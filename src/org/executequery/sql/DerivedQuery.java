@@ -37,6 +37,7 @@ public final class DerivedQuery {
     private int typeObject;
     private String metaName;
     private String objectName;
+    private int lineNumber;
 
     public DerivedQuery(String originalQuery) {
         this(originalQuery, null, ";", false);
@@ -247,6 +248,17 @@ public final class DerivedQuery {
         return isSetTerm;
     }
 
+    /**
+     * @return the script line the query starts at or 0 if unknown
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public void setLineNumber(int lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
     public boolean isExecutable() {
         return StringUtils.isNotBlank(getDerivedQuery());
     }
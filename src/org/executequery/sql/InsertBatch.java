@@ -0,0 +1,164 @@
+package org.executequery.sql;
+
+import org.executequery.databasemediators.QueryTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Consecutive script INSERT statements of the same shape executed together.
+ * <p>
+ * The statements of the same shape insert the literal values into the same columns
+ * of the same table. The statements with the parameters, the blob file references
+ * or the returning clause are executed one by one.
+ */
+class InsertBatch {
+
+    private static final Pattern INSERT_VALUES = Pattern.compile(
+            "INSERT\\s+INTO\\s+(.+?)\\s*\\bVALUES\\s*\\(",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * max length of the batched INSERT statements text, chars
+     */
+    static final int MAX_LENGTH = 30_000;
+
+    private final int maxSize;
+    private final int maxLength;
+    private final List<DerivedQuery> queries;
+
+    private String shape;
+    private int length;
+
+    InsertBatch(int maxSize) {
+        this(maxSize, MAX_LENGTH);
+    }
+
+    InsertBatch(int maxSize, int maxLength) {
+        this.maxSize = maxSize;
+        this.maxLength = maxLength;
+        this.queries = new ArrayList<>(maxSize);
+    }
+
+    /**
+     * Returns the shape of the INSERT statement: the table and the column list.
+     *
+     * @return the shape or <code>null</code> if the statement can't be batched
+     */
+    static String shapeOf(DerivedQuery query) {
+
+        if (query.getQueryType() != QueryTypes.INSERT)
+            return null;
+
+        String sql = query.getQueryWithoutComments();
+        Matcher matcher = INSERT_VALUES.matcher(sql);
+        if (!matcher.lookingAt() || !hasLiteralValues(sql, matcher.end()))
+            return null;
+
+        return matcher.group(1).replaceAll("\\s+", " ").replaceAll(" ?([(),.]) ?", "$1").toUpperCase();
+    }
+
+    /**
+     * Checks the values list has no parameters and nothing follows it.
+     */
+    private static boolean hasLiteralValues(String sql, int start) {
+
+        int depth = 1;
+        char quote = 0;
+        for (int i = start; i < sql.length(); i++) {
+
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote)
+                    quote = 0;
+                continue;
+            }
+
+            switch (c) {
+
+                case '\'':
+                case '"':
+                    quote = c;
+                    break;
+
+                case '?':
+                case ':':
+                    return false;
+
+                case '(':
+                    depth++;
+                    break;
+
+                case ')':
+                    if (--depth == 0)
+                        return sql.substring(i + 1).trim().isEmpty();
+                    break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if the statement of the shape can be added to the batch
+     */
+    boolean accepts(String shape, DerivedQuery query) {
+        return queries.isEmpty() || (shape.equals(this.shape)
+                && queries.size() < maxSize
+                && length + query.getQueryWithoutComments().length() < maxLength);
+    }
+
+    void add(String shape, DerivedQuery query) {
+
+        if (queries.isEmpty())
+            this.shape = shape;
+
+        queries.add(query);
+        length += query.getQueryWithoutComments().length() + 2;
+    }
+
+    void clear() {
+        queries.clear();
+        shape = null;
+        length = 0;
+    }
+
+    boolean isEmpty() {
+        return queries.isEmpty();
+    }
+
+    int size() {
+        return queries.size();
+    }
+
+    List<DerivedQuery> getQueries() {
+        return queries;
+    }
+
+    int getFirstLineNumber() {
+        return queries.get(0).getLineNumber();
+    }
+
+    int getLastLineNumber() {
+        return queries.get(queries.size() - 1).getLineNumber();
+    }
+
+    /**
+     * @param from index of the first statement, inclusive
+     * @param to   index of the last statement, exclusive
+     * @return the statements of the batch range as the single Firebird <code>EXECUTE BLOCK</code>
+     */
+    String toExecuteBlock(int from, int to) {
+
+        StringBuilder sb = new StringBuilder(length + 32);
+        sb.append("EXECUTE BLOCK AS\nBEGIN\n");
+        for (DerivedQuery query : queries.subList(from, to))
+            sb.append(query.getQueryWithoutComments()).append(";\n");
+        sb.append("END");
+
+        return sb.toString();
+    }
+
+}
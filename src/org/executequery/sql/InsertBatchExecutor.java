@@ -0,0 +1,168 @@
+package org.executequery.sql;
+
+import org.executequery.log.Log;
+
+import java.sql.*;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Executes the batched script INSERT statements: as the <code>EXECUTE BLOCK</code>
+ * on Firebird or as the JDBC batch otherwise.
+ * <p>
+ * The statements of the failed batch are executed one by one, so the errors
+ * are reported with the line of the failed statement.
+ */
+class InsertBatchExecutor {
+
+    /**
+     * max INSERT statements in one <code>EXECUTE BLOCK</code>,
+     * each statement takes one of the 255 contexts allowed per Firebird request
+     */
+    private static final int MAX_EXECUTE_BLOCK_SIZE = 255;
+
+    private final Consumer<String> errorMessages;
+
+    private Connection connection;
+    private boolean executeBlockSupported;
+
+    /**
+     * @param errorMessages receives the error messages of the failed statements
+     */
+    InsertBatchExecutor(Consumer<String> errorMessages) {
+        this.errorMessages = errorMessages;
+    }
+
+    /**
+     * Executes the batched INSERT statements.
+     *
+     * @param stopOnError true to throw the error of the first failed statement
+     * @return the number of the inserted records
+     */
+    int execute(Connection connection, InsertBatch batch, boolean stopOnError) throws SQLException {
+
+        return isExecuteBlockSupported(connection) ?
+                executeBlock(connection, batch, stopOnError) :
+                executeJdbcBatch(connection, batch.getQueries(), stopOnError);
+    }
+
+    private int executeBlock(Connection connection, InsertBatch batch, boolean stopOnError) throws SQLException {
+
+        int result = 0;
+        for (int from = 0; from < batch.size(); from += MAX_EXECUTE_BLOCK_SIZE)
+            result += executeBlock(connection, batch, from, Math.min(from + MAX_EXECUTE_BLOCK_SIZE, batch.size()), stopOnError);
+
+        return result;
+    }
+
+    private int executeBlock(Connection connection, InsertBatch batch, int from, int to, boolean stopOnError) throws SQLException {
+
+        try (Statement statement = connection.createStatement()) {
+
+            statement.execute(batch.toExecuteBlock(from, to));
+            return to - from;
+
+        } catch (SQLException e) {
+            Log.warning("Batch execution failed, executing the statements one by one: " + e.getMessage());
+        }
+
+        // the failed block changes nothing, the statements are repeated to find the failed one
+        return executeEach(connection, batch.getQueries().subList(from, to), stopOnError);
+    }
+
+    private int executeJdbcBatch(Connection connection, List<DerivedQuery> queries, boolean stopOnError) throws SQLException {
+
+        int[] updateCounts;
+        BatchUpdateException batchException;
+        try (Statement statement = connection.createStatement()) {
+
+            for (DerivedQuery query : queries)
+                statement.addBatch(query.getQueryWithoutComments());
+
+            statement.executeBatch();
+            return queries.size();
+
+        } catch (BatchUpdateException e) {
+            updateCounts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+            batchException = e;
+        }
+
+        // the driver either stops on the failed statement or executes all the statements
+        int result = 0;
+        for (int i = 0; i < updateCounts.length && i < queries.size(); i++) {
+
+            if (updateCounts[i] != Statement.EXECUTE_FAILED) {
+                result++;
+                continue;
+            }
+
+            SQLException e = batchStatementException(batchException);
+            errorMessages.accept(errorMessage(queries.get(i), e));
+            if (stopOnError)
+                throw e;
+        }
+
+        if (updateCounts.length < queries.size())
+            result += executeEach(connection, queries.subList(updateCounts.length, queries.size()), stopOnError);
+
+        return result;
+    }
+
+    /**
+     * @return the exception of the failed batch statement with the driver error message
+     */
+    private static SQLException batchStatementException(BatchUpdateException batchException) {
+
+        StringBuilder message = new StringBuilder(String.valueOf(batchException.getMessage()));
+        SQLException next = batchException.getNextException();
+        if (next != null && next.getMessage() != null && !message.toString().contains(next.getMessage()))
+            message.append("\n").append(next.getMessage());
+
+        return new SQLException(message.toString(), batchException.getSQLState(), batchException.getErrorCode(), batchException);
+    }
+
+    private int executeEach(Connection connection, List<DerivedQuery> queries, boolean stopOnError) throws SQLException {
+
+        int result = 0;
+        try (Statement statement = connection.createStatement()) {
+
+            for (DerivedQuery query : queries) {
+                try {
+                    result += statement.executeUpdate(query.getQueryWithoutComments());
+
+                } catch (SQLException e) {
+
+                    errorMessages.accept(errorMessage(query, e));
+                    if (stopOnError)
+                        throw e;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private boolean isExecuteBlockSupported(Connection connection) throws SQLException {
+
+        if (connection != this.connection) {
+
+            DatabaseMetaData metaData = connection.getMetaData();
+            String productName = metaData.getDatabaseProductName().toLowerCase();
+
+            this.connection = connection;
+            this.executeBlockSupported = (productName.contains("firebird") || productName.contains("reddatabase"))
+                    && metaData.getDatabaseMajorVersion() >= 2;
+        }
+
+        return executeBlockSupported;
+    }
+
+    static String errorMessage(DerivedQuery query, Throwable e) {
+
+        if (query.getLineNumber() > 0)
+            return "Error executing statement at line " + query.getLineNumber() + ":\n" + e.getMessage();
+
+        return "Error executing statement:\n" + e.getMessage();
+    }
+
+}
@@ -85,8 +85,11 @@ public interface QueryDelegate {
     /**
      * Adds the specified SQL statement to the statement
      * history list if available.
+     *
+     * @param executionTime execution time in milliseconds, -1 if unknown
+     * @param rowCount      affected row count, -1 if unknown
      */
-    void statementExecuted(String statement);
+    void statementExecuted(String statement, long executionTime, long rowCount);
 
     /**
      * Notifies that am execution has finished.
@@ -64,8 +64,14 @@ import org.underworldlabs.util.KeyValuePair;
 import org.underworldlabs.util.MiscUtils;
 import org.underworldlabs.util.SystemProperties;
 
+import javax.swing.SwingUtilities;
+import java.io.StringReader;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -96,6 +102,23 @@ public class QueryDispatcher {
      */
     private boolean verboseLogging;
 
+    /**
+     * only the errors and the periodic statistics of the executing script are reported
+     */
+    private volatile boolean quietScript;
+
+    /**
+     * the output of the executing script is posted to the output pane by the batches
+     */
+    private volatile boolean postScriptOutput;
+
+    /**
+     * output messages of the executing script waiting to be shown,
+     * the script waits for the output pane when the queue is full
+     */
+    private final BlockingQueue<Runnable> pendingMessages = new LinkedBlockingQueue<>(MAX_PENDING_MESSAGES);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
     /**
      * indicates should print explained plan
      */
@@ -139,6 +162,12 @@ public class QueryDispatcher {
     private static final String DONE = " Done";
     private static final String COMMITTING_LAST = "Committing last transaction block...";
     private static final String ROLLING_BACK_LAST = "Rolling back last transaction block...";
+    private static final long SCRIPT_PROGRESS_INTERVAL = 250;
+    private static final long SCRIPT_STATISTICS_INTERVAL = 5000;
+    private static final int MAX_PENDING_MESSAGES = 10_000;
+    private static final long FLUSH_WAIT_TIMEOUT = 100;
+
+    private static final Pattern EXECUTE_BLOCK_PATTERN = Pattern.compile("execute.*block", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
 
     // ------------------------------------------------
 
@@ -633,9 +662,9 @@ public class QueryDispatcher {
                 }
 
                 end = System.currentTimeMillis();
-                statementExecuted(sql);
 
                 long timeTaken = end - start;
+                statementExecuted(sql, timeTaken, rowCount(result));
 
                 logExecutionTime(timeTaken, anyConnections);
 
@@ -911,7 +940,7 @@ public class QueryDispatcher {
             logExecutionTime(timeTaken, anyConnections);
 
 
-            statementExecuted(sql);
+            statementExecuted(sql, timeTaken, rowCount(result));
 
         } catch (SQLException e) {
 
@@ -1005,6 +1034,8 @@ public class QueryDispatcher {
         waiting = false;
         long totalDuration = 0L;
         querySender.setCloseConnectionAfterQuery(false);
+        quietScript = userProperties().getBooleanProperty("editor.script.quiet");
+        postScriptOutput = true;
 
         try {
 
@@ -1015,7 +1046,7 @@ public class QueryDispatcher {
 
 
             executing = true;
-            List<DerivedQuery> executableQueries = getExecutableQueries(script);
+            Iterator<DerivedQuery> executableQueries = new QueryTokenizer().queries(new StringReader(script));
 
             try {
                 DatabaseConnection databaseConnection = this.querySender.getDatabaseConnection();
@@ -1056,26 +1087,59 @@ public class QueryDispatcher {
             } catch (Exception e) {
                 // nothing to do
             }
-            setOutputMessage(querySender.getDatabaseConnection(),
-                    SqlMessages.ACTION_MESSAGE, "Found " + executableQueries.size() + " queries", anyConnections);
             start = System.currentTimeMillis();
             boolean stopOnError = SystemProperties.getBooleanProperty("user", "editor.stop.on.error");
             boolean error = false;
-            boolean moreThanOneQuery = executableQueries.size() > 1;
+            int queryCount = 0;
+            long lastProgressTime = 0L;
             String blobFilePath = "import";
             TreeSet<String> createsMetaNames = new TreeSet<>();
-            for (int i = 0; i < executableQueries.size(); i++) {
+
+            int batchSize = SystemProperties.getIntProperty("user", "editor.script.insert.batch.size");
+            InsertBatch batch = batchSize > 1 ? new InsertBatch(batchSize) : null;
+            InsertBatchExecutor batchExecutor = new InsertBatchExecutor(message -> setOutputMessage(
+                    querySender.getDatabaseConnection(), SqlMessages.ERROR_MESSAGE, message, true, anyConnections));
+
+            while (executableQueries.hasNext()) {
                 try {
-                    DerivedQuery query = executableQueries.get(i);
-                    setOutputMessage(querySender.getDatabaseConnection(),
-                            SqlMessages.ACTION_MESSAGE, (i + 1) + " query", anyConnections);
                     if (statementCancelled || Thread.interrupted()) {
 
                         throw new InterruptedException();
                     }
 
+                    DerivedQuery query = executableQueries.next();
+                    if (!query.isExecutable())
+                        continue;
+
+                    queryCount++;
+                    long now = System.currentTimeMillis();
+                    if (now - lastProgressTime >= (quietScript ? SCRIPT_STATISTICS_INTERVAL : SCRIPT_PROGRESS_INTERVAL)) {
+
+                        lastProgressTime = now;
+                        if (quietScript)
+                            showOutputMessage(querySender.getDatabaseConnection(), SqlMessages.ACTION_MESSAGE,
+                                    "Executed " + (queryCount - 1) + " queries in " + formatDuration(now - start), false, anyConnections);
+                        else
+                            setOutputMessage(querySender.getDatabaseConnection(),
+                                    SqlMessages.ACTION_MESSAGE, queryCount + " query", anyConnections);
+                    }
+
+                    String shape = batch != null ? InsertBatch.shapeOf(query) : null;
+                    if (batch != null && !batch.isEmpty() && (shape == null || !batch.accepts(shape, query))) {
+                        if (!executeInsertBatch(batch, batchExecutor, stopOnError, anyConnections)) {
+                            error = true;
+                            continue;
+                        }
+                        end = System.currentTimeMillis();
+                    }
+
+                    if (shape != null) {
+                        batch.add(shape, query);
+                        continue;
+                    }
+
                     String queryToExecute = query.getDerivedQuery();
-                    if (new SqlParser(queryToExecute).isExecuteBlock()) {
+                    if (isExecuteBlock(queryToExecute)) {
                         executeSQL(queryToExecute, true, anyConnections);
                         continue;
                     }
@@ -1284,14 +1348,31 @@ public class QueryDispatcher {
                 }
             }
 
+            if (batch != null && !batch.isEmpty() && !statementCancelled && !(error && stopOnError)) {
+                try {
+                    executeInsertBatch(batch, batchExecutor, stopOnError, anyConnections);
+                    end = System.currentTimeMillis();
+
+                } catch (SQLException e) {
+                    processException(e, anyConnections);
+
+                } finally {
+                    querySender.releaseResourcesWithoutCommit();
+                }
+            }
+
             if (end == 0)
                 end = System.currentTimeMillis();
 
+            quietScript = false;
             long timeTaken = end - start;
             totalDuration += timeTaken;
 
-            if (moreThanOneQuery)
+            if (queryCount > 1) {
+                setOutputMessage(querySender.getDatabaseConnection(),
+                        SqlMessages.ACTION_MESSAGE, "Executed " + queryCount + " queries", anyConnections);
                 logExecutionTime("Total execution time: %s", timeTaken, anyConnections);
+            }
 
             DatabaseObjectNode hostNode = ConnectionsTreePanel.getPanelFromBrowser().getHostNode(querySender.getDatabaseConnection());
             for (DatabaseObjectNode metaTagNode : hostNode.getChildObjects()) {
@@ -1305,7 +1386,7 @@ public class QueryDispatcher {
                         }
 
             }
-            statementExecuted(script);
+            statementExecuted(script, timeTaken, -1);
 
         } catch (InterruptedException e) {
 
@@ -1335,12 +1416,55 @@ public class QueryDispatcher {
 
         } finally {
 
+            quietScript = false;
+            postScriptOutput = false;
+            ThreadUtils.invokeAndWait(this::flushMessages);
             duration = formatDuration(totalDuration);
         }
 
         return DONE;
     }
 
+    /**
+     * Executes the batched INSERT statements of the script and clears the batch.
+     * The errors of the batch statements are reported with their script lines.
+     *
+     * @return false if the script is stopped on the error of the batch statement
+     */
+    private boolean executeInsertBatch(InsertBatch batch, InsertBatchExecutor batchExecutor,
+                                       boolean stopOnError, boolean anyConnections) throws SQLException {
+
+        try {
+
+            Connection connection = querySender.getPreparedConnection();
+            if (connection == null)
+                throw new SQLException("Connection=null or closed");
+
+            setOutputMessage(querySender.getDatabaseConnection(), SqlMessages.ACTION_MESSAGE,
+                    "Executing " + batch.size() + " queries in a batch, lines "
+                            + batch.getFirstLineNumber() + "-" + batch.getLastLineNumber(), anyConnections);
+
+            long start = System.currentTimeMillis();
+            try {
+
+                int updateCount = batchExecutor.execute(connection, batch, stopOnError);
+                setResultText(querySender.getDatabaseConnection(), updateCount,
+                        QueryTypes.INSERT, batch.getQueries().get(0).getMetaName(), anyConnections);
+
+            } catch (SQLException e) {
+                // the failed statement is already reported
+                setStatusMessage(ERROR_EXECUTING);
+                return false;
+            }
+
+            logExecutionTime(System.currentTimeMillis() - start, anyConnections);
+            return true;
+
+        } finally {
+            batch.clear();
+        }
+    }
+
     private PreparedStatement prepareStatement(String sql) throws SQLException {
         return querySender.getPreparedStatement(new SqlParser(sql).getProcessedSql());
     }
@@ -1609,6 +1733,15 @@ public class QueryDispatcher {
         return executableQueries;
     }
 
+    /**
+     * Checks whether the query is the execute block, the query is parsed
+     * only if it contains both the keywords.
+     */
+    private static boolean isExecuteBlock(String query) {
+
+        return EXECUTE_BLOCK_PATTERN.matcher(query).find() && new SqlParser(query).isExecuteBlock();
+    }
+
     private String formatDuration(long totalDuration) {
 
         return MiscUtils.formatDuration(totalDuration);
@@ -1619,9 +1752,18 @@ public class QueryDispatcher {
         delegate.setResult(dc, updateCount, type, metaName);
     }
 
-    private void statementExecuted(String sql) {
+    private void statementExecuted(String sql, long executionTime, long rowCount) {
+
+        delegate.statementExecuted(sql, executionTime, rowCount);
+    }
+
+    /**
+     * Returns the update count of the statement, -1 for the result set
+     * since its rows are not fetched at this point.
+     */
+    private static long rowCount(SqlStatementResult result) {
 
-        delegate.statementExecuted(sql);
+        return result.isResultSet() ? -1 : Math.max(result.getUpdateCount(), -1);
     }
 
     private Object executeCreateOrAlterObject(String sql, DerivedQuery procQuery, boolean anyConnection)
@@ -1650,8 +1792,9 @@ public class QueryDispatcher {
         }
 
         outputWarnings(result.getSqlWarning(), anyConnection);
-        logExecutionTime(System.currentTimeMillis() - start, anyConnection);
-        statementExecuted(sql);
+        long timeTaken = System.currentTimeMillis() - start;
+        logExecutionTime(timeTaken, anyConnection);
+        statementExecuted(sql, timeTaken, -1);
 
         return DONE;
     }
@@ -1729,7 +1872,7 @@ public class QueryDispatcher {
     }
 
     private void setResultText(DatabaseConnection dc, final int result, final int type, String metaName, boolean anyConnections) {
-        ThreadUtils.invokeAndWait(new Runnable() {
+        runInEventThread(new Runnable() {
             public void run() {
                 if (!anyConnections)
                     delegate.setResult(null, result, type, metaName);
@@ -1739,7 +1882,7 @@ public class QueryDispatcher {
     }
 
     private void setStatusMessage(final String text) {
-        ThreadUtils.invokeAndWait(new Runnable() {
+        runInEventThread(new Runnable() {
             public void run() {
                 delegate.setStatusMessage(text);
             }
@@ -1752,7 +1895,15 @@ public class QueryDispatcher {
     }
 
     private void setOutputMessage(DatabaseConnection databaseConnection, final int type, final String text, final boolean selectTab, boolean useDatabaseConnection) {
-        ThreadUtils.invokeAndWait(new Runnable() {
+
+        if (quietScript && type != SqlMessages.ERROR_MESSAGE)
+            return;
+
+        showOutputMessage(databaseConnection, type, text, selectTab, useDatabaseConnection);
+    }
+
+    private void showOutputMessage(DatabaseConnection databaseConnection, final int type, final String text, final boolean selectTab, boolean useDatabaseConnection) {
+        runInEventThread(new Runnable() {
             public void run() {
                 DatabaseConnection dc = null;
                 if (useDatabaseConnection)
@@ -1765,6 +1916,48 @@ public class QueryDispatcher {
         });
     }
 
+    /**
+     * Runs the output update in the EDT. The updates of the executing script
+     * are queued and shown by the batches instead of waiting for the EDT
+     * on every statement.
+     */
+    private void runInEventThread(Runnable runnable) {
+
+        if (postScriptOutput && !SwingUtilities.isEventDispatchThread())
+            post(runnable);
+        else
+            ThreadUtils.invokeAndWait(runnable);
+    }
+
+    private void post(Runnable message) {
+
+        try {
+            while (!pendingMessages.offer(message, FLUSH_WAIT_TIMEOUT, TimeUnit.MILLISECONDS))
+                scheduleFlush();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+
+        if (flushScheduled.compareAndSet(false, true))
+            SwingUtilities.invokeLater(this::flushMessages);
+    }
+
+    private void flushMessages() {
+
+        flushScheduled.set(false);
+
+        Runnable message;
+        while ((message = pendingMessages.poll()) != null)
+            message.run();
+    }
+
     private void setResultSet(final ResultSet rs, final String query, boolean anyConnections, DatabaseConnection dc) {
 /*
         ThreadUtils.invokeAndWait(new Runnable() {
@@ -1777,6 +1970,10 @@ public class QueryDispatcher {
             }
         });
 */
+        // the messages of the script preceding the result set are shown first
+        if (postScriptOutput)
+            ThreadUtils.invokeAndWait(this::flushMessages);
+
         try {
             delegate.setResultSet(rs, query, anyConnections ? dc : null);
         } catch (SQLException e) {
@@ -22,14 +22,17 @@ package org.executequery.sql;
 
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonToken;
-import org.executequery.gui.text.syntax.Token;
-import org.executequery.gui.text.syntax.TokenTypes;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.executequery.log.Log;
 import org.underworldlabs.sqlLexer.SqlLexer;
 import org.underworldlabs.util.InterruptedException;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,25 +41,20 @@ import java.util.regex.Pattern;
  */
 public class QueryTokenizer {
 
-    private String queryDelimiter = ";";
+    private static final Pattern SET_TERM_PATTERN = Pattern.compile("Set(\\s+)term(\\s+)", Pattern.CASE_INSENSITIVE);
+
+    private final String queryDelimiter = ";";
+
+    /**
+     * Tokens of the script passed to {@link #extractTokens(String)}
+     */
+    private ScriptLexer scriptLexer;
 
-    private final List<Token> stringTokens;
-    private final List<Token> singleLineCommentTokens;
-    private final List<Token> multiLineCommentTokens;
-    private final List<Token> declareBlockTokens;
     private static final int NORMAL = 0;
     private static final int AS = NORMAL + 1;
     private static final int DECLARE = AS + 1;
     private static final int BEGIN_END = DECLARE + 1;
 
-    public QueryTokenizer() {
-        stringTokens = new ArrayList<>();
-        singleLineCommentTokens = new ArrayList<>();
-        multiLineCommentTokens = new ArrayList<>();
-        declareBlockTokens = new ArrayList<>();
-        beginEndBlockTokens = new ArrayList<>();
-    }
-
     public String removeComments(String query) {
 
         return removeAllCommentsFromQuery(query);
@@ -64,21 +62,26 @@ public class QueryTokenizer {
 
     public List<DerivedQuery> tokenize(String query) {
 
-        extractNotDelimiterTokens(query);
-
-        List<DerivedQuery> derivedQueries = deriveQueries(query);
-        for (DerivedQuery derivedQuery : derivedQueries) {
-
-            if (Thread.interrupted())
-                throw new InterruptedException();
-
-            String noCommentsQuery = removeAllCommentsFromQuery(derivedQuery.getOriginalQuery());
-            derivedQuery.setQueryWithoutComments(noCommentsQuery.trim());
-        }
+        List<DerivedQuery> derivedQueries = new ArrayList<>();
+        queries(new StringReader(query)).forEachRemaining(derivedQueries::add);
 
         return derivedQueries;
     }
 
+    /**
+     * Returns the queries of the script with the comments removed from
+     * the {@link DerivedQuery#getQueryWithoutComments()} value.
+     * <p>
+     * The script is split in one pass while it is read and lexed: the next query is derived
+     * when the iterator is advanced, so the first query is available before the rest
+     * of the script is read. Only the text of the current query is kept in memory.
+     * The reader is closed when the iteration is completed.
+     */
+    public Iterator<DerivedQuery> queries(Reader script) {
+
+        return new QueryIterator(script);
+    }
+
     public QueryTokenized tokenizeFirstQuery(String query, String lowQuery, int startQueryIndex, String delimiter) {
 
         QueryTokenized firstQuery = firstQuery(query, delimiter, startQueryIndex, lowQuery);
@@ -108,34 +111,31 @@ public class QueryTokenizer {
         return removeTokensForType(SqlLexer.SINGLE_LINE_COMMENT, query);
     }
 
-    private List<DerivedQuery> deriveQueries(String query) {
+    private boolean notInAnyToken(int index) {
+
+        return scriptLexer == null || !scriptLexer.covers(index);
+    }
 
-        if (!query.endsWith(queryDelimiter))
-            query += queryDelimiter;
+    private QueryTokenized firstQuery(String query, String delimiter, int startIndexQuery, String lowQuery) {
 
-        int index = 0;
+        int index = query.indexOf(delimiter);
         int lastIndex = 0;
-        boolean setTermToSet = false;
 
-        List<DerivedQuery> queries = new ArrayList<>();
-        while ((index = query.indexOf(queryDelimiter, index + 1)) != -1) {
+        while (index != -1) {
 
             if (Thread.interrupted())
                 throw new InterruptedException();
 
-            if (notInAnyToken(index)) {
+            if (notInAnyToken(index + startIndexQuery)) {
 
                 String substring = query.substring(lastIndex, index);
 
                 // if substring includes a set term command
-                Pattern setTermPattern = Pattern.compile("Set(\\s+)term(\\s+)", Pattern.CASE_INSENSITIVE);
-
-                Matcher setTermMatcher = setTermPattern.matcher(substring);
+                Matcher setTermMatcher = SET_TERM_PATTERN.matcher(substring);
                 boolean setTerm = setTermMatcher.find();
-
                 while (setTerm) {
 
-                    if (!notInAnyToken(setTermMatcher.end() + lastIndex - 1))
+                    if (!notInAnyToken(setTermMatcher.end() - 1 + startIndexQuery))
                         setTerm = setTermMatcher.find(setTermMatcher.end());
                     else
                         break;
@@ -143,69 +143,150 @@ public class QueryTokenizer {
 
                 if (setTerm) {
 
-                    String oldDelimiter = queryDelimiter;
-                    queryDelimiter = substring.substring(setTermMatcher.end()).trim();
-                    queryDelimiter = removeAllCommentsFromQuery(queryDelimiter).trim();
+                    String oldDelimiter = delimiter;
+                    delimiter = substring.substring(setTermMatcher.end()).trim();
+                    delimiter = removeAllCommentsFromQuery(delimiter).trim();
 
-                    if (queryDelimiter.isEmpty())
+                    if (delimiter.isEmpty())
                         throw new RuntimeException("Delimiter cannot be empty:\n" + substring);
 
                     lastIndex = index + (oldDelimiter.length());
-                    setTermToSet = !setTermToSet;
-                    continue;
+                    return new QueryTokenized(null, query.substring(lastIndex), lowQuery.substring(lastIndex), startIndexQuery + lastIndex, delimiter);
                 }
 
-                queries.add(new DerivedQuery(substring, null, queryDelimiter, setTermToSet));
-                lastIndex = index + queryDelimiter.length();
-            }
+                lastIndex = index + delimiter.length();
+                return new QueryTokenized(new DerivedQuery(substring), query.substring(lastIndex), lowQuery.substring(lastIndex), startIndexQuery + lastIndex, delimiter);
+
+            } else
+                index = query.indexOf(delimiter, index + 1);
         }
 
-        if (queries.isEmpty())
-            queries.add(new DerivedQuery(query, null, queryDelimiter, setTermToSet));
+        return new QueryTokenized(new DerivedQuery(query), "", "", lastIndex + startIndexQuery, delimiter);
+    }
+
+    public void extractNotDelimiterTokens(String query) {
+
+        scriptLexer = new ScriptLexer(query);
+        scriptLexer.lexTo(Long.MAX_VALUE);
+    }
 
-        return queries;
+    public void extractTokens(String query) {
+
+        extractNotDelimiterTokens(query);
     }
 
-    private final List<Token> beginEndBlockTokens;
+    private String removeTokensForType(int typeAntlrToken, String query) {
 
+        StringBuilder sb = new StringBuilder(query);
 
-    private boolean notInAnyToken(int index) {
+        List<org.antlr.v4.runtime.Token> tokenList = new ArrayList<>();
+        SqlLexer lexer = new SqlLexer(CharStreams.fromString(query));
 
-        boolean single = !(withinSingleLineComment(index, index));
-        boolean multi = !(withinMultiLineComment(index, index));
-        boolean quote = !(withinQuotedString(index, index));
-        boolean declare = !(withinDeclareBlock(index, index));
-        boolean beginEnd = !(withinBeginEndBlock(index, index));
+        while (true) {
+
+            org.antlr.v4.runtime.Token antlrToken = lexer.nextToken();
+
+            if (antlrToken.getType() == typeAntlrToken)
+                tokenList.add(antlrToken);
+            if (antlrToken.getType() == SqlLexer.EOF)
+                break;
+        }
 
-        return single && multi && quote && declare && beginEnd;
+        Collections.reverse(tokenList);
+        for (org.antlr.v4.runtime.Token token : tokenList)
+            sb.delete(token.getStartIndex(), token.getStopIndex() + 1);
+
+        return sb.toString();
     }
 
-    private QueryTokenized firstQuery(String query, String delimiter, int startIndexQuery, String lowQuery) {
 
-        int index = query.indexOf(delimiter);
-        int lastIndex = 0;
+    public static class QueryTokenized {
 
-        while (index != -1) {
+        public DerivedQuery query;
+        public String script;
+        public String lowScript;
+        public int startIndex;
+        public String delimiter;
 
-            if (Thread.interrupted())
-                throw new InterruptedException();
+        public QueryTokenized(DerivedQuery query, String script, String lowScript, int startIndex, String delimiter) {
+            this.query = query;
+            this.script = script;
+            this.lowScript = lowScript;
+            this.startIndex = startIndex;
+            this.delimiter = delimiter;
+        }
 
-            if (notInAllTokens(index + startIndexQuery)) {
+    }
 
-                String substring = query.substring(lastIndex, index);
+    /**
+     * Splits the script reading and lexing it on demand.
+     */
+    private class QueryIterator implements Iterator<DerivedQuery> {
 
-                // if substring includes a set term command
-                Pattern setTermPattern = Pattern.compile("Set(\\s+)term(\\s+)", Pattern.CASE_INSENSITIVE);
+        private final ScriptReader script;
+        private final ScriptLexer lexer;
 
-                Matcher setTermMatcher = setTermPattern.matcher(substring);
-                boolean setTerm = setTermMatcher.find();
-                while (setTerm) {
+        private String delimiter;
+        private boolean setTermToSet;
+        private long index;
+        private long lastIndex;
+        private int lineNumber = 1;
+        private boolean derived;
+        private boolean delimiterAppended;
 
-                    if (!notInAnyToken(setTermMatcher.end() - 1 + startIndexQuery))
-                        setTerm = setTermMatcher.find(setTermMatcher.end());
-                    else
-                        break;
-                }
+        private DerivedQuery next;
+        private boolean finished;
+
+        QueryIterator(Reader reader) {
+
+            this.delimiter = queryDelimiter;
+            this.script = new ScriptReader(reader);
+            this.lexer = new ScriptLexer(script);
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (next == null && !finished) {
+
+                next = deriveNext();
+                finished = next == null;
+
+                if (finished)
+                    script.close();
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public DerivedQuery next() {
+
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            DerivedQuery query = next;
+            next = null;
+            return query;
+        }
+
+        private DerivedQuery deriveNext() {
+
+            while ((index = indexOfDelimiter(index + 1)) != -1) {
+
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+
+                if (lexer.covers(index))
+                    continue;
+
+                String substring = script.substring(lastIndex, index);
+
+                // if substring includes a set term command
+                Matcher setTermMatcher = SET_TERM_PATTERN.matcher(substring);
+                boolean setTerm = setTermMatcher.find();
+                while (setTerm && lexer.covers(setTermMatcher.end() + lastIndex - 1))
+                    setTerm = setTermMatcher.find(setTermMatcher.end());
 
                 if (setTerm) {
 
@@ -216,194 +297,511 @@ public class QueryTokenizer {
                     if (delimiter.isEmpty())
                         throw new RuntimeException("Delimiter cannot be empty:\n" + substring);
 
-                    lastIndex = index + (oldDelimiter.length());
-                    return new QueryTokenized(null, query.substring(lastIndex), lowQuery.substring(lastIndex), startIndexQuery + lastIndex, delimiter);
+                    lastIndex = index + oldDelimiter.length();
+                    lineNumber += countLines(substring, substring.length());
+                    setTermToSet = !setTermToSet;
+                    continue;
                 }
 
+                DerivedQuery query = new DerivedQuery(substring, null, delimiter, setTermToSet);
+                query.setQueryWithoutComments(lexer.removeComments(substring, lastIndex).trim());
+                query.setLineNumber(lineNumber + countLines(substring, statementStart(substring)));
+
                 lastIndex = index + delimiter.length();
-                return new QueryTokenized(new DerivedQuery(substring), query.substring(lastIndex), lowQuery.substring(lastIndex), startIndexQuery + lastIndex, delimiter);
+                lineNumber += countLines(substring, substring.length());
+                derived = true;
 
-            } else
-                index = query.indexOf(delimiter, index + 1);
+                // the text and the tokens before the next query are not needed anymore
+                long released = Math.min(lastIndex, lexer.restartIndex());
+                script.release(released);
+                lexer.release(released);
+
+                return query;
+            }
+
+            if (derived)
+                return null;
+
+            // no queries found, the script is kept from its start
+            derived = true;
+            String wholeScript = script.substring(0, script.length());
+
+            DerivedQuery query = new DerivedQuery(wholeScript, null, delimiter, setTermToSet);
+            query.setQueryWithoutComments(lexer.removeComments(wholeScript, 0).trim());
+            query.setLineNumber(1 + countLines(wholeScript, statementStart(wholeScript)));
+            return query;
         }
 
-        return new QueryTokenized(new DerivedQuery(query), "", "", lastIndex + startIndexQuery, delimiter);
-    }
+        private int countLines(String text, int end) {
 
-    private boolean notInAllTokens(int index) {
+            int count = 0;
+            for (int i = 0; i < end; i++)
+                if (text.charAt(i) == '\n')
+                    count++;
 
-        return notInAnyToken(index);
-    }
+            return count;
+        }
 
-    public void extractNotDelimiterTokens(String query) {
+        /**
+         * @return the index of the first char after the leading whitespaces and comments
+         */
+        private int statementStart(String text) {
 
-        SqlLexer lexer = new SqlLexer(CharStreams.fromString(query));
+            int i = 0;
+            while (i < text.length()) {
 
-        stringTokens.clear();
-        singleLineCommentTokens.clear();
-        multiLineCommentTokens.clear();
-        beginEndBlockTokens.clear();
-        declareBlockTokens.clear();
-        int state = NORMAL;
-        int beginCount = 0;
-        int startIndex = 0;
-        while (true) {
+                if (Character.isWhitespace(text.charAt(i))) {
+                    i++;
 
-            org.antlr.v4.runtime.Token antlrToken = lexer.nextToken();
-            if (antlrToken.getType() == SqlLexer.STRING_LITERAL)
-                stringTokens.add(new Token(TokenTypes.STRING, antlrToken.getStartIndex(), antlrToken.getStopIndex()));
-            if (antlrToken.getType() == SqlLexer.SINGLE_LINE_COMMENT)
-                singleLineCommentTokens.add(new Token(TokenTypes.SINGLE_LINE_COMMENT, antlrToken.getStartIndex(), antlrToken.getStopIndex()));
-            if (antlrToken.getType() == SqlLexer.MULTILINE_COMMENT)
-                multiLineCommentTokens.add(new Token(TokenTypes.COMMENT, antlrToken.getStartIndex(), antlrToken.getStopIndex()));
-            if (state == AS) {
-                if (antlrToken.getType() != SqlLexer.SPACES && antlrToken.getType() != SqlLexer.MULTILINE_COMMENT && antlrToken.getType() != SqlLexer.SINGLE_LINE_COMMENT) {
-                    if (antlrToken.getType() == SqlLexer.KEYWORD && antlrToken.getText().equalsIgnoreCase("declare")) {
-                        state = DECLARE;
-                        startIndex = antlrToken.getStartIndex();
-                    } else if (antlrToken.getType() == SqlLexer.KEYWORD && antlrToken.getText().equalsIgnoreCase("begin")) {
-                        state = BEGIN_END;
-                        beginCount++;
-                        startIndex = antlrToken.getStartIndex();
-                    } else state = NORMAL;
+                } else if (text.startsWith("--", i)) {
+                    int end = text.indexOf('\n', i);
+                    i = end != -1 ? end + 1 : text.length();
 
+                } else if (text.startsWith("/*", i)) {
+                    int end = text.indexOf("*/", i + 2);
+                    i = end != -1 ? end + 2 : text.length();
+
+                } else
+                    break;
+            }
+
+            return i;
+        }
+
+        /**
+         * Returns the position of the delimiter reading the script as needed.
+         * The default delimiter is appended to the script not ending with it.
+         *
+         * @return the delimiter position or -1 if there are no more delimiters
+         */
+        private long indexOfDelimiter(long from) {
+
+            long searchFrom = from;
+            while (true) {
+
+                long found = script.indexOf(delimiter, searchFrom);
+                if (found != -1)
+                    return found;
+
+                searchFrom = Math.max(from, script.length() - delimiter.length() + 1);
+                if (script.fill())
+                    continue;
+
+                if (delimiterAppended)
+                    return -1;
+
+                delimiterAppended = true;
+                if (!script.endsWith(queryDelimiter))
+                    script.append(queryDelimiter);
+            }
+        }
+
+    } // QueryIterator class
+
+    /**
+     * Script text read from the source on demand and kept from the start of the current query.
+     * <p>
+     * The reader returns the read text to the lexer: the lexer may be restarted
+     * from the earlier position to keep its token indexes within the int range.
+     */
+    private static class ScriptReader extends Reader {
+
+        private static final int CHUNK_SIZE = 1 << 16;
+        private static final int TAIL_SIZE = 16;
+
+        private final Reader source;
+        private final StringBuilder buffer;
+        private final char[] chunk;
+
+        /**
+         * script position of the buffer start
+         */
+        private long offset;
+        /**
+         * count of the chars read from the source
+         */
+        private long sourceLength;
+        /**
+         * script position of the next char returned to the lexer
+         */
+        private long position;
+        private boolean endOfSource;
+
+        ScriptReader(Reader source) {
+            this.source = source;
+            this.buffer = new StringBuilder(CHUNK_SIZE);
+            this.chunk = new char[CHUNK_SIZE];
+        }
+
+        /**
+         * Reads the next chunk of the source.
+         *
+         * @return false at the end of the source
+         */
+        boolean fill() {
+
+            if (endOfSource)
+                return false;
+
+            try {
+
+                int count = source.read(chunk);
+                if (count < 0) {
+                    endOfSource = true;
+                    return false;
                 }
-            } else if (state == DECLARE) {
-                if (antlrToken.getType() == SqlLexer.OPERATOR && antlrToken.getText().equalsIgnoreCase(";")) {
-                    declareBlockTokens.add(new Token(TokenTypes.DECLARE_BLOCK, startIndex, antlrToken.getStopIndex()));
-                    state = AS;
-                }
-                if (antlrToken.getType() == SqlLexer.KEYWORD && antlrToken.getText().equalsIgnoreCase("as")) {
-                    declareBlockTokens.add(new Token(TokenTypes.DECLARE_BLOCK, startIndex, antlrToken.getStopIndex()));
-                    state = AS;
-                }
-            } else if (state == BEGIN_END) {
-                if (antlrToken.getType() == SqlLexer.KEYWORD) {
-                    if (antlrToken.getText().equalsIgnoreCase("begin") || antlrToken.getText().equalsIgnoreCase("case")) {
-                        beginCount++;
-                    } else if (antlrToken.getText().equalsIgnoreCase("end")) {
-                        beginCount--;
-                        if (beginCount <= 0) {
-                            beginEndBlockTokens.add(new Token(TokenTypes.BEGIN_END_BLOCK, startIndex, antlrToken.getStopIndex()));
-                            state = AS;
-                        }
-                    }
-                }
-            } else {
-                if (antlrToken.getType() == SqlLexer.KEYWORD && antlrToken.getText().equalsIgnoreCase("as"))
-                    state = AS;
-                if (antlrToken.getType() == SqlLexer.KEYWORD && antlrToken.getText().equalsIgnoreCase("begin")) {
-                    state = BEGIN_END;
-                    beginCount++;
-                    startIndex = antlrToken.getStartIndex();
-                }
+
+                buffer.append(chunk, 0, count);
+                sourceLength += count;
+                return true;
+
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            if (antlrToken.getType() == CommonToken.EOF)
-                break;
         }
 
-    }
+        long length() {
+            return offset + buffer.length();
+        }
 
-    public void extractTokens(String query) {
+        long indexOf(String text, long from) {
 
-        extractNotDelimiterTokens(query);
-    }
+            int index = buffer.indexOf(text, (int) Math.max(0, from - offset));
+            return index != -1 ? offset + index : -1;
+        }
 
-    private String removeTokensForType(int typeAntlrToken, String query) {
+        String substring(long start, long end) {
+            return buffer.substring((int) (start - offset), (int) (end - offset));
+        }
 
-        StringBuilder sb = new StringBuilder(query);
+        boolean endsWith(String text) {
 
-        List<org.antlr.v4.runtime.Token> tokenList = new ArrayList<>();
-        SqlLexer lexer = new SqlLexer(CharStreams.fromString(query));
+            int start = buffer.length() - text.length();
+            return start >= 0 && buffer.indexOf(text, start) == start;
+        }
 
-        while (true) {
+        /**
+         * Appends the text not read by the lexer.
+         */
+        void append(String text) {
+            buffer.append(text);
+        }
 
-            org.antlr.v4.runtime.Token antlrToken = lexer.nextToken();
+        /**
+         * Discards the text before the position, the last chars are kept for {@link #endsWith(String)}.
+         */
+        void release(long position) {
 
-            if (antlrToken.getType() == typeAntlrToken)
-                tokenList.add(antlrToken);
-            if (antlrToken.getType() == SqlLexer.EOF)
-                break;
+            int count = (int) (Math.min(position, length() - TAIL_SIZE) - offset);
+            if (count > CHUNK_SIZE && count > buffer.length() / 2) {
+
+                buffer.delete(0, count);
+                offset += count;
+            }
         }
 
-        Collections.reverse(tokenList);
-        for (org.antlr.v4.runtime.Token token : tokenList)
-            sb.delete(token.getStartIndex(), token.getStopIndex() + 1);
+        void seek(long position) {
+            this.position = position;
+        }
 
-        return sb.toString();
-    }
+        @Override
+        public int read() {
 
+            if (position >= sourceLength && !fill())
+                return -1;
 
-    private boolean withinMultiLineComment(int start, int end) {
+            return buffer.charAt((int) (position++ - offset));
+        }
 
-        return contains(multiLineCommentTokens, start, end);
-    }
+        @Override
+        public int read(char[] chars, int off, int len) {
 
-    private boolean withinSingleLineComment(int start, int end) {
+            if (len == 0)
+                return 0;
 
-        return contains(singleLineCommentTokens, start, end);
-    }
+            int count = 0;
+            while (count < len) {
 
-    private boolean withinQuotedString(int start, int end) {
+                if (position >= sourceLength && (count > 0 || !fill()))
+                    break;
 
-        return contains(stringTokens, start, end);
-    }
+                int available = (int) Math.min(len - count, sourceLength - position);
+                int start = (int) (position - offset);
+                buffer.getChars(start, start + available, chars, off + count);
 
-    private boolean withinDeclareBlock(int start, int end) {
+                position += available;
+                count += available;
+            }
 
-        return contains(declareBlockTokens, start, end);
-    }
+            return count > 0 ? count : -1;
+        }
 
-    private boolean withinBeginEndBlock(int start, int end) {
+        @Override
+        public void close() {
 
-        return contains(beginEndBlockTokens, start, end);
-    }
+            try {
+                source.close();
 
-    private boolean contains(List<Token> tokens, int start, int end) {
+            } catch (IOException e) {
+                Log.error("Error closing the script", e);
+            }
+        }
 
-        for (Token token : tokens)
-            if (token.contains(start, end))
-                return true;
+    } // ScriptReader class
 
-        return false;
-    }
+    /**
+     * Lexes the script and collects the ranges the query delimiter is ignored within:
+     * string literals, comments, declare and begin-end blocks.
+     * The script is lexed only as far as needed for the requested position.
+     */
+    private static class ScriptLexer {
+
+        private static final int RESTART_INDEX = 1 << 30;
+
+        private final ScriptReader reader;
+        private SqlLexer lexer;
+
+        /**
+         * script position of the lexer token index 0
+         */
+        private long lexerOffset;
+
+        private final Ranges literals = new Ranges();
+        private final Ranges comments = new Ranges();
+        private final Ranges blocks = new Ranges();
+
+        private int state = NORMAL;
+        private int beginCount;
+        private long startIndex;
+
+        private long lexedIndex = -1;
+        private boolean finished;
+
+        ScriptLexer(String script) {
+            this.reader = null;
+            this.lexer = new SqlLexer(CharStreams.fromString(script));
+        }
+
+        ScriptLexer(ScriptReader reader) {
+            this.reader = reader;
+            startLexer(0);
+        }
+
+        private void startLexer(long offset) {
+
+            reader.seek(offset);
+            lexerOffset = offset;
+
+            lexer = new SqlLexer(new UnbufferedCharStream(reader));
+            lexer.setTokenFactory(new CommonTokenFactory(true));
+        }
+
+        /**
+         * Checks whether the script position is within any token the delimiter is ignored within.
+         */
+        boolean covers(long index) {
+
+            lexTo(index);
+            return literals.contains(index) || blocks.contains(index);
+        }
 
-    private List<Token> getTokensBetween(List<Token> tokens, int start, int end) {
+        /**
+         * Returns the query text starting at the script position without the comments.
+         */
+        String removeComments(String query, long start) {
 
-        ArrayList<Token> result = new ArrayList<>();
-        if (tokens != null) {
-            for (Token token : tokens) {
-                if (token.getStartIndex() >= start && token.getEndIndex() <= end)
-                    result.add(token);
+            long end = start + query.length();
+            lexTo(end);
+
+            StringBuilder sb = null;
+            int position = 0;
+            for (int i = comments.indexOfEnd(start); i < comments.size && comments.starts[i] < end; i++) {
+
+                if (sb == null)
+                    sb = new StringBuilder(query.length());
+
+                int commentStart = (int) (Math.max(comments.starts[i], start) - start);
+                if (commentStart > position)
+                    sb.append(query, position, commentStart);
+                position = Math.max(position, (int) (Math.min(comments.ends[i] + 1, end) - start));
             }
+
+            if (sb == null)
+                return query;
+
+            return sb.append(query, position, query.length()).toString();
         }
 
-        return result;
-    }
+        /**
+         * Returns the position the lexer may be restarted from.
+         */
+        long restartIndex() {
+            return lexedIndex + 1;
+        }
 
+        /**
+         * Discards the ranges ending before the position.
+         */
+        void release(long position) {
 
-    public static class QueryTokenized {
+            literals.release(position);
+            comments.release(position);
+            blocks.release(position);
+        }
 
-        public DerivedQuery query;
-        public String script;
-        public String lowScript;
-        public int startIndex;
-        public String delimiter;
+        /**
+         * Lexes the script until all the tokens containing the position are known:
+         * the block started before the position is lexed up to its end.
+         */
+        void lexTo(long index) {
 
-        public QueryTokenized(DerivedQuery query, String script, String lowScript, int startIndex, String delimiter) {
-            this.query = query;
-            this.script = script;
-            this.lowScript = lowScript;
-            this.startIndex = startIndex;
-            this.delimiter = delimiter;
+            while (!finished && (lexedIndex < index || ((state == DECLARE || state == BEGIN_END) && startIndex <= index)))
+                nextToken();
         }
 
-    }
+        private void nextToken() {
 
-}
+            org.antlr.v4.runtime.Token antlrToken = lexer.nextToken();
+            if (antlrToken.getType() == CommonToken.EOF) {
+
+                finished = true;
+                return;
+            }
+
+            long start = lexerOffset + antlrToken.getStartIndex();
+            long stop = lexerOffset + antlrToken.getStopIndex();
+            int type = antlrToken.getType();
+            lexedIndex = stop;
+
+            if (type == SqlLexer.STRING_LITERAL)
+                literals.add(start, stop);
+
+            if (type == SqlLexer.SINGLE_LINE_COMMENT || type == SqlLexer.MULTILINE_COMMENT) {
+                literals.add(start, stop);
+                comments.add(start, stop);
+            }
+
+            if (state == AS) {
+                if (type != SqlLexer.SPACES && type != SqlLexer.MULTILINE_COMMENT && type != SqlLexer.SINGLE_LINE_COMMENT) {
+                    if (isKeyword(antlrToken, "declare")) {
+                        state = DECLARE;
+                        startIndex = start;
+                    } else if (isKeyword(antlrToken, "begin")) {
+                        state = BEGIN_END;
+                        beginCount++;
+                        startIndex = start;
+                    } else state = NORMAL;
+
+                }
+            } else if (state == DECLARE) {
+                if (type == SqlLexer.OPERATOR && antlrToken.getText().equals(";")) {
+                    blocks.add(startIndex, stop);
+                    state = AS;
+                }
+                if (isKeyword(antlrToken, "as")) {
+                    blocks.add(startIndex, stop);
+                    state = AS;
+                }
+            } else if (state == BEGIN_END) {
+                if (isKeyword(antlrToken, "begin") || isKeyword(antlrToken, "case")) {
+                    beginCount++;
+                } else if (isKeyword(antlrToken, "end")) {
+                    beginCount--;
+                    if (beginCount <= 0) {
+                        blocks.add(startIndex, stop);
+                        state = AS;
+                    }
+                }
+            } else {
+                if (isKeyword(antlrToken, "as"))
+                    state = AS;
+                if (isKeyword(antlrToken, "begin")) {
+                    state = BEGIN_END;
+                    beginCount++;
+                    startIndex = start;
+                }
+            }
+
+            // the lexer state is kept by this class, so the lexer may continue from the next token
+            if (reader != null && antlrToken.getStopIndex() > RESTART_INDEX)
+                startLexer(stop + 1);
+        }
 
+        private static boolean isKeyword(org.antlr.v4.runtime.Token antlrToken, String keyword) {
+            return antlrToken.getType() == SqlLexer.KEYWORD && antlrToken.getText().equalsIgnoreCase(keyword);
+        }
+
+    } // ScriptLexer class
+
+    /**
+     * Ordered not overlapping ranges of the script positions, both ends inclusive.
+     */
+    private static class Ranges {
 
+        private static final int MIN_RELEASED = 1024;
 
+        private long[] starts = new long[64];
+        private long[] ends = new long[64];
+        private int size;
 
+        void add(long start, long end) {
 
+            if (size > 0 && start <= ends[size - 1]) {
+
+                // the range within the previous one
+                ends[size - 1] = Math.max(ends[size - 1], end);
+                return;
+            }
 
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        boolean contains(long index) {
+
+            int i = indexOfEnd(index);
+            return i < size && starts[i] <= index;
+        }
+
+        /**
+         * Returns the index of the first range ending at the position or after it.
+         */
+        int indexOfEnd(long position) {
+
+            int low = 0;
+            int high = size;
+            while (low < high) {
+
+                int middle = (low + high) >>> 1;
+                if (ends[middle] < position)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            return low;
+        }
+
+        /**
+         * Removes the ranges ending before the position.
+         */
+        void release(long position) {
+
+            int count = indexOfEnd(position);
+            if (count < MIN_RELEASED || count < size / 2)
+                return;
+
+            System.arraycopy(starts, count, starts, 0, size - count);
+            System.arraycopy(ends, count, ends, 0, size - count);
+            size -= count;
+        }
+
+    } // Ranges class
+
+}
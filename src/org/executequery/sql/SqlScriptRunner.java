@@ -38,8 +38,12 @@ import org.underworldlabs.util.MiscUtils;
 import org.underworldlabs.util.SystemProperties;
 
 import javax.resource.ResourceException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.sql.*;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -48,6 +52,11 @@ import java.util.regex.Pattern;
 
 public class SqlScriptRunner {
 
+    /**
+     * interval of the statistics messages when the statements are not logged, ms
+     */
+    private static final long STATISTICS_INTERVAL = 5000;
+
     private final ExecutionController controller;
 
     private boolean cancel;
@@ -56,18 +65,36 @@ public class SqlScriptRunner {
     private Connection connection;
     private SimpleDataSource localDataSource;
 
+    private InsertBatchExecutor batchExecutor;
+
     public SqlScriptRunner(ExecutionController controller) {
         super();
         this.controller = controller;
     }
 
     public SqlStatementResult execute(DatabaseConnection connection, String script, boolean stopOnError) {
+        return execute(connection, new StringReader(script != null ? script : ""), stopOnError);
+    }
+
+    /**
+     * Executes the statements while the script is read, so the script of any size
+     * may be executed. The reader is closed on completion.
+     * <p>
+     * If the controller doesn't log the output, only the errors and
+     * the statistics every {@link #STATISTICS_INTERVAL} ms are reported.
+     * <p>
+     * Consecutive INSERT statements of the same shape are executed in batches
+     * of <code>editor.script.insert.batch.size</code> statements: as the single
+     * <code>EXECUTE BLOCK</code> on Firebird or as the JDBC batch otherwise.
+     * The statements of the failed batch are executed one by one,
+     * so the errors are reported with the line of the failed statement.
+     */
+    public SqlStatementResult execute(DatabaseConnection connection, Reader script, boolean stopOnError) {
 
         int count = 0;
         int result = 0;
         long start = 0L;
         int thisResult = 0;
-        int startIndex = 0;
 
         String delimiter = ";";
         String sqlDialect = "3";
@@ -83,6 +110,11 @@ public class SqlScriptRunner {
         cancel = false;
         closeConnection = false;
         boolean logOutput = controller.logOutput();
+        long statisticsTime = System.currentTimeMillis();
+
+        int batchSize = SystemProperties.getIntProperty("user", "editor.script.insert.batch.size");
+        InsertBatch batch = batchSize > 1 ? new InsertBatch(batchSize) : null;
+        batchExecutor = new InsertBatchExecutor(controller::errorMessage);
 
         try {
 
@@ -90,24 +122,36 @@ public class SqlScriptRunner {
             if (connection != null)
                 querySender.setDatabaseConnection(connection);
 
-            controller.actionMessage("Extracting comments and String constants...");
-            queryTokenizer.extractTokens(script);
-
             controller.actionMessage("Executing...");
-            while (script != null && !script.isEmpty()) {
+            Iterator<DerivedQuery> queries = queryTokenizer.queries(script);
+            while (queries.hasNext()) {
 
-                QueryTokenizer.QueryTokenized formattedScript = queryTokenizer.tokenizeFirstQuery(script, script.toLowerCase(), startIndex, delimiter);
-                query = formattedScript.query;
-                script = formattedScript.script;
-                delimiter = formattedScript.delimiter;
-                startIndex = formattedScript.startIndex;
+                query = queries.next();
+                delimiter = query.getEndDelimiter();
 
-                if (query == null || !query.isExecutable())
+                if (!query.isExecutable() || query.getQueryWithoutComments().isEmpty())
                     continue;
 
                 if (maybeStop())
                     throw new InterruptedException();
 
+                if (!logOutput && System.currentTimeMillis() - statisticsTime >= STATISTICS_INTERVAL) {
+                    statisticsTime = System.currentTimeMillis();
+                    controller.actionMessage("Statements executed: " + count + ", records affected: " + result);
+                }
+
+                String shape = batch != null ? InsertBatch.shapeOf(query) : null;
+                if (batch != null && !batch.isEmpty() && (shape == null || !batch.accepts(shape, query))) {
+                    result += executeBatch(querySender, batch, count, stopOnError, logOutput);
+                    count += batch.size();
+                    batch.clear();
+                }
+
+                if (shape != null) {
+                    batch.add(shape, query);
+                    continue;
+                }
+
                 String derivedQuery = query.getDerivedQuery().trim();
                 if (query.getQueryType() == QueryTypes.CREATE_DATABASE) {
                     controller.actionMessage("Creating database...");
@@ -208,7 +252,7 @@ public class SqlScriptRunner {
 
                 } catch (Throwable e) {
 
-                    controller.errorMessage("Error executing statement:\n" + e.getMessage());
+                    controller.errorMessage(InsertBatchExecutor.errorMessage(query, e));
 
                     if (stopOnError)
                         throw e;
@@ -229,6 +273,12 @@ public class SqlScriptRunner {
                 }
             }
 
+            if (batch != null && !batch.isEmpty()) {
+                result += executeBatch(querySender, batch, count, stopOnError, logOutput);
+                count += batch.size();
+                batch.clear();
+            }
+
         } catch (SQLException e) {
             statementResult.setSqlException(e);
 
@@ -244,6 +294,13 @@ public class SqlScriptRunner {
                 Log.error(e.getMessage(), e);
             }
 
+            try {
+                script.close();
+
+            } catch (IOException e) {
+                Log.error(e.getMessage(), e);
+            }
+
             System.gc();
         }
 
@@ -253,6 +310,35 @@ public class SqlScriptRunner {
         return statementResult;
     }
 
+    /**
+     * Executes the batched INSERT statements.
+     *
+     * @param executedCount the number of the statements executed before the batch
+     * @return the number of the inserted records
+     */
+    private int executeBatch(DefaultStatementExecutor querySender, InsertBatch batch,
+                             int executedCount, boolean stopOnError, boolean logOutput) throws SQLException {
+
+        long start = System.currentTimeMillis();
+        if (logOutput) {
+            controller.message("Executing queries " + (executedCount + 1) + "-" + (executedCount + batch.size())
+                    + " in a batch, lines " + batch.getFirstLineNumber() + "-" + batch.getLastLineNumber() + ":");
+        }
+
+        Connection batchConnection = querySender.getPreparedConnection();
+        if (batchConnection == null)
+            throw new SQLException("Connection=null or closed");
+
+        int result = batchExecutor.execute(batchConnection, batch, stopOnError);
+
+        if (logOutput) {
+            controller.message("Records affected: " + result);
+            controller.message("Duration: " + MiscUtils.formatDuration(System.currentTimeMillis() - start));
+        }
+
+        return result;
+    }
+
     private SimpleDataSource createDatabase(DerivedQuery query, String sqlDialect, String charSet) throws SQLException {
 
         String derivedQuery = query.getDerivedQuery();
@@ -93,22 +93,13 @@ public class DynamicLibraryLoader extends URLClassLoader {
                 + shortClassName, getFbPluginImplPath(jaybirdVersion));
     }
 
+    /**
+     * Creates the object of the class loaded from the jar by the class loader shared
+     * with the other objects of the same jar and the unwrapped object class loader.
+     */
     public static Object loadingObjectFromClassLoader(Object unwrapObject, String className, String jarPath)
             throws ClassNotFoundException {
-        URL[] urls;
-        ClassLoader cl;
-        try {
-            urls = MiscUtils.loadURLs(jarPath);
-            cl = new URLClassLoader(urls, unwrapObject.getClass().getClassLoader());
-        } catch (Exception e) {
-            String sb = "Error loading class " +
-                    className +
-                    " from " +
-                    jarPath;
-            throw new ClassNotFoundException(sb, e.getCause());
-        }
-
-        return loadingObjectFromClassLoaderWithCS(cl, className, jarPath);
+        return loadingObjectFromClassLoaderWithParams(unwrapObject, className, jarPath);
     }
 
     public static Object loadingObjectFromClassLoaderWithCS(ClassLoader classLoader, String className, String jarPath)
@@ -146,20 +137,17 @@ public class DynamicLibraryLoader extends URLClassLoader {
     public static Object loadingObjectFromClassLoaderWithParams(Object unwrapObject, String className, String jarPath, Parameter... params)
             throws ClassNotFoundException {
 
-        URL[] urls;
-        Class clazzdb;
-        Object odb = null;
+        Class<?>[] types = new Class<?>[params.length];
+        Object[] parameters = new Object[params.length];
+        for (int i = 0; i < params.length; i++) {
+            types[i] = params[i].type;
+            parameters[i] = params[i].parameter;
+        }
+
         try {
-            urls = MiscUtils.loadURLs(jarPath);
-            ClassLoader cl = new URLClassLoader(urls, unwrapObject.getClass().getClassLoader());
-            clazzdb = cl.loadClass(className);
-            Class<?>[] types = new Class<?>[params.length];
-            Object[] parameters = new Object[params.length];
-            for (int i = 0; i < params.length; i++) {
-                types[i] = params[i].type;
-                parameters[i] = params[i].parameter;
-            }
-            odb = clazzdb.getConstructor(types).newInstance(parameters);
+            return PluginClassLoaderRegistry.newInstance(
+                    unwrapObject.getClass().getClassLoader(), jarPath, className, types, parameters);
+
         } catch (Exception e) {
             String sb = "Error loading class " +
                     className +
@@ -167,8 +155,6 @@ public class DynamicLibraryLoader extends URLClassLoader {
                     jarPath;
             throw new ClassNotFoundException(sb, e.getCause());
         }
-
-        return odb;
     }
 
     public static class Parameter {
@@ -0,0 +1,241 @@
+package org.underworldlabs.util;
+
+import org.executequery.log.Log;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class loaders of the plugin jars shared by all the plugin objects.
+ * <p>
+ * One loader is created for the jar and the driver class loader it delegates to,
+ * so the plugin classes are defined once per driver instead of on every call.
+ * The loaded classes and their constructors are kept with the loader
+ * until the driver is unloaded.
+ */
+public final class PluginClassLoaderRegistry {
+
+    /**
+     * key of the loaders delegating to the bootstrap class loader
+     */
+    private static final Object BOOTSTRAP = new Object();
+
+    private static final Map<Object, Map<String, PluginLoader>> LOADERS = new ConcurrentHashMap<>();
+
+    private static final AtomicLong createdCount = new AtomicLong();
+    private static final AtomicLong requestCount = new AtomicLong();
+
+    private PluginClassLoaderRegistry() {
+    }
+
+    /**
+     * Returns the class loaded from the plugin jar by the loader delegating to the parent.
+     *
+     * @param parent    the driver class loader
+     * @param jarPath   the plugin jar paths separated by ';'
+     * @param className the full class name
+     */
+    public static Class<?> loadClass(ClassLoader parent, String jarPath, String className)
+            throws ClassNotFoundException {
+        return getLoader(parent, jarPath).loadClass(className);
+    }
+
+    /**
+     * Creates the instance of the plugin class with the constructor of the specified parameter types.
+     */
+    public static Object newInstance(ClassLoader parent, String jarPath, String className,
+                                     Class<?>[] types, Object[] parameters) throws ClassNotFoundException {
+
+        Constructor<?> constructor = getLoader(parent, jarPath).getConstructor(className, types);
+        try {
+            return constructor.newInstance(parameters);
+
+        } catch (InvocationTargetException e) {
+            throw new ClassNotFoundException("Error creating instance of " + className, e.getCause());
+
+        } catch (ReflectiveOperationException e) {
+            throw new ClassNotFoundException("Error creating instance of " + className, e);
+        }
+    }
+
+    private static PluginLoader getLoader(ClassLoader parent, String jarPath) throws ClassNotFoundException {
+
+        requestCount.incrementAndGet();
+
+        Map<String, PluginLoader> loaders = LOADERS.computeIfAbsent(
+                parent != null ? parent : BOOTSTRAP, key -> new ConcurrentHashMap<>());
+
+        PluginLoader loader = loaders.get(jarPath);
+        if (loader != null)
+            return loader;
+
+        synchronized (loaders) {
+
+            loader = loaders.get(jarPath);
+            if (loader == null) {
+
+                try {
+                    loader = new PluginLoader(new URLClassLoader(MiscUtils.loadURLs(jarPath), parent));
+
+                } catch (Exception e) {
+                    throw new ClassNotFoundException("Error loading classes from " + jarPath, e);
+                }
+
+                loaders.put(jarPath, loader);
+                createdCount.incrementAndGet();
+
+                if (Log.isDebugEnabled())
+                    Log.debug("Plugin class loader created for " + jarPath + ", " + getStatistics());
+            }
+        }
+
+        return loader;
+    }
+
+    /**
+     * Removes and closes the plugin class loaders delegating to the class loader of the unloaded driver,
+     * so the driver classes and the plugin classes defined for it can be collected.
+     * The loaders delegating to the system class loader are shared by the drivers from the classpath
+     * and are kept.
+     *
+     * @param parent the driver class loader
+     */
+    public static void unload(ClassLoader parent) {
+
+        if (parent == null || parent == ClassLoader.getSystemClassLoader())
+            return;
+
+        Map<String, PluginLoader> loaders = LOADERS.remove(parent);
+        if (loaders == null)
+            return;
+
+        synchronized (loaders) {
+            for (Map.Entry<String, PluginLoader> entry : loaders.entrySet()) {
+                try {
+                    entry.getValue().close();
+
+                } catch (IOException e) {
+                    Log.debug("Error closing plugin class loader for " + entry.getKey(), e);
+                }
+            }
+            loaders.clear();
+        }
+
+        if (Log.isDebugEnabled())
+            Log.debug("Plugin class loaders released, " + getStatistics());
+    }
+
+    /**
+     * @return the number of the plugin class loaders
+     */
+    public static int getLoaderCount() {
+        return LOADERS.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * @return the number of the plugin class loaders created since the start
+     */
+    public static long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * @return the number of the plugin class loader requests since the start
+     */
+    public static long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of the classes kept by the plugin class loaders
+     */
+    public static int getCachedClassCount() {
+        return LOADERS.values().stream()
+                .flatMap(loaders -> loaders.values().stream())
+                .mapToInt(loader -> loader.classes.size())
+                .sum();
+    }
+
+    /**
+     * @return the number of the classes currently loaded in the JVM
+     */
+    public static int getLoadedClassCount() {
+        return ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+    }
+
+    /**
+     * @return the used Metaspace, bytes, or -1 if the JVM has no Metaspace
+     */
+    public static long getMetaspaceUsed() {
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if ("Metaspace".equals(pool.getName()))
+                return pool.getUsage().getUsed();
+
+        return -1;
+    }
+
+    public static String getStatistics() {
+        return String.format("plugin class loaders: %d (%d requests), plugin classes: %d, loaded classes: %d, metaspace: %d KB",
+                getLoaderCount(), getRequestCount(), getCachedClassCount(), getLoadedClassCount(), getMetaspaceUsed() / 1024);
+    }
+
+    private static final class PluginLoader {
+
+        private final URLClassLoader classLoader;
+        private final Map<String, Class<?>> classes;
+        private final Map<String, Constructor<?>> constructors;
+
+        PluginLoader(URLClassLoader classLoader) {
+            this.classLoader = classLoader;
+            this.classes = new ConcurrentHashMap<>();
+            this.constructors = new ConcurrentHashMap<>();
+        }
+
+        Class<?> loadClass(String className) throws ClassNotFoundException {
+
+            Class<?> clazz = classes.get(className);
+            if (clazz == null) {
+                clazz = classLoader.loadClass(className);
+                classes.put(className, clazz);
+            }
+
+            return clazz;
+        }
+
+        Constructor<?> getConstructor(String className, Class<?>[] types) throws ClassNotFoundException {
+
+            String key = className + Arrays.toString(types);
+            Constructor<?> constructor = constructors.get(key);
+            if (constructor == null) {
+
+                try {
+                    constructor = loadClass(className).getConstructor(types);
+
+                } catch (NoSuchMethodException e) {
+                    throw new ClassNotFoundException("Error loading constructor of " + className, e);
+                }
+
+                constructors.put(key, constructor);
+            }
+
+            return constructor;
+        }
+
+        void close() throws IOException {
+            classes.clear();
+            constructors.clear();
+            classLoader.close();
+        }
+
+    } // PluginLoader class
+
+}
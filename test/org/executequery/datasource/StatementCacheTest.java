@@ -0,0 +1,42 @@
+package org.executequery.datasource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StatementCacheTest {
+
+    @Test
+    public void cachesSelectsFromSystemRelations() {
+
+        assertTrue(StatementCache.isCacheable("SELECT R.RDB$RELATION_NAME, F.RDB$FIELD_NAME\n" +
+                "FROM RDB$RELATIONS R\n" +
+                "LEFT JOIN RDB$RELATION_FIELDS F ON R.RDB$RELATION_NAME = F.RDB$RELATION_NAME\n" +
+                "WHERE R.RDB$SYSTEM_FLAG = ?"));
+        assertTrue(StatementCache.isCacheable("select trim(r.rdb$relation_name), substring(r.rdb$description from 1 for 10)\n" +
+                "from rdb$relations r, rdb$fields as f"));
+        assertTrue(StatementCache.isCacheable("SELECT RDB$GET_CONTEXT('SYSTEM', 'ENGINE_VERSION') FROM RDB$DATABASE"));
+        assertTrue(StatementCache.isCacheable("SELECT * FROM MON$ATTACHMENTS WHERE MON$ATTACHMENT_ID = CURRENT_CONNECTION"));
+    }
+
+    @Test
+    public void doesNotCacheSelectsFromUserRelations() {
+
+        assertFalse(StatementCache.isCacheable("SELECT RDB$DB_KEY, T.* FROM MY_TABLE T"));
+        assertFalse(StatementCache.isCacheable("SELECT X FROM MY_TABLE WHERE X = RDB$GET_CONTEXT('USER_SESSION', 'A')"));
+        assertFalse(StatementCache.isCacheable("SELECT * FROM RDB$RELATIONS WHERE RDB$RELATION_NAME IN (SELECT X FROM MY_TABLE)"));
+        assertFalse(StatementCache.isCacheable("SELECT * FROM MON$ATTACHMENTS A JOIN MY_TABLE B ON A.MON$USER = B.NAME"));
+        assertFalse(StatementCache.isCacheable("SELECT * FROM MY_PROCEDURE(1)"));
+        assertFalse(StatementCache.isCacheable("SELECT * FROM \"rdb$relations\""));
+    }
+
+    @Test
+    public void doesNotCacheModifyingStatements() {
+
+        assertFalse(StatementCache.isCacheable("UPDATE RDB$RELATIONS SET RDB$DESCRIPTION = NULL"));
+        assertFalse(StatementCache.isCacheable("EXECUTE PROCEDURE MY_PROCEDURE"));
+        assertFalse(StatementCache.isCacheable(null));
+    }
+
+}
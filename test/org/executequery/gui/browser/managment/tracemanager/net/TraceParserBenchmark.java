@@ -0,0 +1,104 @@
+package org.executequery.gui.browser.managment.tracemanager.net;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the trace parsing speed (events per second) on the synthetic trace.
+ * <p>
+ * Usage: <code>TraceParserBenchmark [eventCount] [threadCount]</code>,
+ * the trace is parsed in one thread and then in the specified count of threads.
+ */
+public class TraceParserBenchmark {
+
+    private static final String CONNECTION_INFO =
+            "\t/opt/RedDatabase/examples/employee.fdb (ATT_%d, SYSDBA:NONE, UTF8, TCPv4:127.0.0.1/%d)\n"
+                    + "\t/opt/RedExpert/bin/java:%d\n";
+
+    private static final String TRANSACTION_INFO =
+            "\t\t(TRA_%d, READ_COMMITTED | REC_VERSION | WAIT | READ_WRITE)\n";
+
+    public static void main(String[] args) throws Exception {
+
+        int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<String> events = createTrace(eventCount);
+
+        // warm up
+        run(events.subList(0, Math.min(events.size(), 5_000)), threadCount);
+
+        report("1 thread", events.size(), run(events, 1));
+        report(threadCount + " threads", events.size(), run(events, threadCount));
+    }
+
+    private static long run(List<String> events, int threadCount) throws Exception {
+
+        Iterator<String> expected = events.iterator();
+        long startTime = System.nanoTime();
+
+        try (LogMessageParser parser = new LogMessageParser(threadCount, message -> {
+            if (message.getBody() != expected.next())
+                throw new IllegalStateException("Event order is broken");
+        })) {
+
+            for (String event : events)
+                parser.submit(event);
+            parser.finish();
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    private static void report(String title, int eventCount, long nanos) {
+
+        double seconds = nanos / 1_000_000_000d;
+        System.out.printf("%-12s %,d events in %.2f s, %,.0f events/s%n", title, eventCount, seconds, eventCount / seconds);
+    }
+
+    private static List<String> createTrace(int eventCount) {
+
+        Random random = new Random(eventCount);
+        List<String> events = new ArrayList<>(eventCount);
+
+        for (int i = 0; i < eventCount; i++) {
+
+            int attachment = 100 + random.nextInt(50);
+            int transaction = 1000 + i / 4;
+            String header = String.format("2024-03-15T12:%02d:%02d.%04d (%d:0x7f3c%04x) ",
+                    i / 60_000 % 60, i / 1000 % 60, i % 10_000, 4000 + attachment, attachment);
+            String connectionInfo = String.format(CONNECTION_INFO, attachment, 40_000 + attachment, 3000 + attachment);
+            String transactionInfo = String.format(TRANSACTION_INFO, transaction);
+
+            switch (i % 4) {
+
+                case 0:
+                    events.add(header + "START_TRANSACTION\n" + connectionInfo + transactionInfo);
+                    break;
+
+                case 3:
+                    events.add(header + "COMMIT_TRANSACTION\n" + connectionInfo + transactionInfo
+                            + "      " + random.nextInt(100) + " ms, " + random.nextInt(10) + " read(s), "
+                            + random.nextInt(10) + " write(s), " + random.nextInt(500) + " fetch(es)\n");
+                    break;
+
+                default:
+                    events.add(header + "EXECUTE_STATEMENT_FINISH\n" + connectionInfo + transactionInfo
+                            + "\nStatement " + (i + 1) + ":\n"
+                            + "-------------------------------------------------------------------------------\n"
+                            + "select emp_no, first_name, last_name from employee where dept_no = ?\n"
+                            + "^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^^\n"
+                            + "param0 = char(3), \"" + (100 + random.nextInt(900)) + "\"\n\n"
+                            + random.nextInt(50) + " records fetched\n"
+                            + "      " + random.nextInt(100) + " ms, " + random.nextInt(10) + " read(s), "
+                            + random.nextInt(500) + " fetch(es)\n");
+                    break;
+            }
+        }
+
+        return events;
+    }
+
+}
@@ -0,0 +1,142 @@
+package org.executequery.sql;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the script splitting speed on the generated script.
+ * <p>
+ * Usage: <code>QueryTokenizerBenchmark [statementCount] [previousStatementCount]</code>,
+ * the script is split by {@link QueryTokenizer#queries(Reader)} and, for comparison,
+ * the smaller script is split query by query like the script runner did before.
+ */
+public class QueryTokenizerBenchmark {
+
+    private static final String PROCEDURE =
+            "SET TERM ^ ;\n"
+                    + "CREATE OR ALTER PROCEDURE P_%d (ID INTEGER)\n"
+                    + "RETURNS (NAME VARCHAR(50))\n"
+                    + "AS\n"
+                    + "DECLARE VARIABLE X INTEGER;\n"
+                    + "BEGIN\n"
+                    + "  /* finds the name; the first one */\n"
+                    + "  FOR SELECT NAME FROM T_%d WHERE ID = :ID INTO :NAME DO\n"
+                    + "  BEGIN\n"
+                    + "    X = CASE WHEN ID > 0 THEN 1 ELSE 0 END;\n"
+                    + "    SUSPEND;\n"
+                    + "  END\n"
+                    + "END^\n"
+                    + "SET TERM ; ^\n";
+
+    public static void main(String[] args) {
+
+        int statementCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int previousStatementCount = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        String script = createScript(statementCount);
+        System.out.printf("script: %,d statements, %,d chars%n", statementCount, script.length());
+
+        // warm up and check the result matches the previous splitting
+        String smallScript = createScript(previousStatementCount);
+        checkEquals(split(smallScript), splitByFirstQuery(smallScript));
+
+        long startTime = System.nanoTime();
+        Iterator<DerivedQuery> queries = new QueryTokenizer().queries(new StringReader(script));
+        queries.next();
+        long firstTime = System.nanoTime() - startTime;
+
+        int count = 1;
+        while (queries.hasNext()) {
+            queries.next();
+            count++;
+        }
+        long totalTime = System.nanoTime() - startTime;
+
+        report("single pass", count, totalTime);
+        System.out.printf("%-12s first query in %.3f s%n", "", firstTime / 1_000_000_000d);
+
+        startTime = System.nanoTime();
+        count = splitByFirstQuery(smallScript).size();
+        report("previous", count, System.nanoTime() - startTime);
+    }
+
+    private static List<DerivedQuery> split(String script) {
+        return new QueryTokenizer().tokenize(script);
+    }
+
+    /**
+     * Splits the script the way the script runner did before the single pass splitting.
+     */
+    private static List<DerivedQuery> splitByFirstQuery(String script) {
+
+        List<DerivedQuery> queries = new ArrayList<>();
+        QueryTokenizer tokenizer = new QueryTokenizer();
+        tokenizer.extractTokens(script);
+
+        int startIndex = 0;
+        String delimiter = ";";
+        while (!script.isEmpty()) {
+
+            QueryTokenizer.QueryTokenized tokenized = tokenizer.tokenizeFirstQuery(script, script.toLowerCase(), startIndex, delimiter);
+            script = tokenized.script;
+            delimiter = tokenized.delimiter;
+            startIndex = tokenized.startIndex;
+
+            if (tokenized.query != null && tokenized.query.isExecutable())
+                queries.add(tokenized.query);
+        }
+
+        return queries;
+    }
+
+    private static void checkEquals(List<DerivedQuery> queries, List<DerivedQuery> expected) {
+
+        queries.removeIf(query -> query.getQueryWithoutComments().isEmpty());
+        if (queries.size() != expected.size())
+            throw new IllegalStateException("Query count " + queries.size() + " differs from " + expected.size());
+
+        for (int i = 0; i < queries.size(); i++)
+            if (!queries.get(i).getQueryWithoutComments().equals(expected.get(i).getQueryWithoutComments()))
+                throw new IllegalStateException("Query " + i + " differs:\n" + queries.get(i).getQueryWithoutComments()
+                        + "\n---\n" + expected.get(i).getQueryWithoutComments());
+    }
+
+    private static void report(String title, int queryCount, long nanos) {
+
+        double seconds = nanos / 1_000_000_000d;
+        System.out.printf("%-12s %,d queries in %.2f s, %,.0f queries/s%n", title, queryCount, seconds, queryCount / seconds);
+    }
+
+    private static String createScript(int statementCount) {
+
+        Random random = new Random(statementCount);
+        StringBuilder sb = new StringBuilder(statementCount * 80);
+
+        for (int i = 0; i < statementCount; i++) {
+
+            switch (i % 10) {
+
+                case 0:
+                    sb.append(String.format(PROCEDURE, i, i % 100));
+                    break;
+
+                case 1:
+                    sb.append("-- row ").append(i).append("; with the delimiter in the comment\n");
+                    // fall through
+
+                default:
+                    sb.append("INSERT INTO T_").append(i % 100).append(" (ID, NAME, PRICE) VALUES (")
+                            .append(i).append(", 'name ").append(random.nextInt(1000)).append("; ''quoted''', ")
+                            .append(random.nextInt(100_000) / 100d).append(");\n");
+                    break;
+            }
+        }
+
+        return sb.toString();
+    }
+
+}